@@ -1,6 +1,8 @@
 package com.nosqlmanager.gui;
 
 import java.io.File;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 import com.fasterxml.jackson.databind.JsonNode;
@@ -8,7 +10,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.nosqlmanager.manager.DatabaseManager;
 import com.nosqlmanager.model.JsonDocument;
-import com.nosqlmanager.tree.AVLNode;
+import com.nosqlmanager.tree.NodeView;
 
 import javafx.application.Application;
 import javafx.geometry.Insets;
@@ -116,7 +118,7 @@ public class MainView extends Application {
         primaryStage.setScene(scene);
         primaryStage.show();
 
-        treeVisualizer.setTree(dbManager.getIndex());
+        treeVisualizer.setTree(dbManager.getSnapshot());
         treeVisualizer.drawTree(false);
 
         log("[INFO] Base de datos cargada: " + dbManager.getSize() + " documentos");
@@ -941,7 +943,7 @@ public class MainView extends Application {
 
         if (confirm.showAndWait().orElse(ButtonType.CANCEL) == ButtonType.OK) {
             dbManager.clear();
-            treeVisualizer.setTree(dbManager.getIndex());
+            treeVisualizer.setTree(dbManager.getSnapshot());
             treeVisualizer.drawTree(false);
             updateStatus();
             jsonViewer.setText("Nueva base de datos creada.");
@@ -978,7 +980,7 @@ public class MainView extends Application {
             JsonDocument doc = new JsonDocument(id, data);
             dbManager.save(doc);
 
-            treeVisualizer.setTree(dbManager.getIndex());
+            treeVisualizer.setTree(dbManager.getSnapshot());
             treeVisualizer.animateInsert(id);
 
             updateStatus();
@@ -1024,14 +1026,26 @@ public class MainView extends Application {
     private void handleSearchByField() {
         TextInputDialog dialog = new TextInputDialog();
         dialog.setTitle("Buscar por campo");
-        dialog.setHeaderText("Ingresa el nombre del campo y valor (campo:valor)");
-        dialog.setContentText("Ejemplo: ciudad:Bogotá");
+        dialog.setHeaderText("Ingresa el nombre del campo y valor (campo:valor)\n"
+                + "Opcional: los campos a mostrar despues de | (campo:valor | campo1, campo2)");
+        dialog.setContentText("Ejemplo: ciudad:Bogotá | nombre, edad");
 
         Optional<String> result = dialog.showAndWait();
-        if (result.isPresent() && result.get().contains(":")) {
-            String[] parts = result.get().split(":", 2);
-            var docs = dbManager.findByField(parts[0], parts[1]);
-            log("[SEARCH] Búsqueda por campo '" + parts[0] + "': " + docs.size() + " resultados");
+        if (result.isPresent()) {
+            String[] query = result.get().split("\\|", 2);
+            String[] parts = query[0].trim().split(":", 2);
+            // El ':' tiene que estar antes del '|', no en los campos a mostrar
+            if (parts.length != 2) {
+                log("[ERROR] Búsqueda por campo inválida, usa campo:valor | campo1, campo2");
+                return;
+            }
+            // Con campos a mostrar, solo esos se copian y se imprimen
+            List<String> fields = query.length > 1 ? Arrays.stream(query[1].split(","))
+                    .map(String::trim).filter(field -> !field.isEmpty()).toList() : List.of();
+            var docs = fields.isEmpty() ? dbManager.findByField(parts[0], parts[1])
+                    : dbManager.findByField(parts[0], parts[1], fields);
+            log("[SEARCH] Búsqueda por campo '" + parts[0] + "': " + docs.size() + " resultados"
+                    + (fields.isEmpty() ? "" : " (campos: " + String.join(", ", fields) + ")"));
 
             if (!docs.isEmpty()) {
                 StringBuilder sb = new StringBuilder("Resultados:\n\n");
@@ -1075,7 +1089,7 @@ public class MainView extends Application {
             JsonDocument doc = new JsonDocument(id, data);
 
             if (dbManager.update(doc)) {
-                treeVisualizer.setTree(dbManager.getIndex());
+                treeVisualizer.setTree(dbManager.getSnapshot());
                 treeVisualizer.animateInsert(id);
                 showDocumentDetails(id, doc);
                 log("[UPDATE] Documento actualizado: " + id);
@@ -1117,7 +1131,7 @@ public class MainView extends Application {
             treeVisualizer.animateDelete(id);
 
             if (dbManager.deleteById(id)) {
-                treeVisualizer.setTree(dbManager.getIndex());
+                treeVisualizer.setTree(dbManager.getSnapshot());
                 updateStatus();
                 jsonViewer.setText("Documento eliminado: " + id);
                 resetNodeDetails("Documento eliminado");
@@ -1138,7 +1152,7 @@ public class MainView extends Application {
 
         if (confirm.showAndWait().orElse(ButtonType.CANCEL) == ButtonType.OK) {
             dbManager.clear();
-            treeVisualizer.setTree(dbManager.getIndex());
+            treeVisualizer.setTree(dbManager.getSnapshot());
             treeVisualizer.drawTree(false);
             updateStatus();
             jsonViewer.setText("Base de datos limpiada.");
@@ -1155,7 +1169,7 @@ public class MainView extends Application {
         File file = fileChooser.showOpenDialog(null);
         if (file != null) {
             dbManager = new DatabaseManager(file.getAbsolutePath());
-            treeVisualizer.setTree(dbManager.getIndex());
+            treeVisualizer.setTree(dbManager.getSnapshot());
             treeVisualizer.drawTree(true);
             updateStatus();
             log("[LOAD] Base de datos cargada desde: " + file.getName());
@@ -1190,7 +1204,7 @@ public class MainView extends Application {
      */
     private void showDocumentDetails(Integer id, JsonDocument doc) {
         try {
-            AVLNode<Integer, JsonDocument> node = findNode(dbManager.getIndex().getRoot(), id);
+            NodeView<Integer, JsonDocument> node = findNode(dbManager.getSnapshot().getRootView(), id);
             
             idValueLabel.setText(String.valueOf(id));
             
@@ -1275,7 +1289,7 @@ public class MainView extends Application {
      * @param key Clave a buscar
      * @return Nodo encontrado o null
      */
-    private AVLNode<Integer, JsonDocument> findNode(AVLNode<Integer, JsonDocument> node, Integer key) {
+    private NodeView<Integer, JsonDocument> findNode(NodeView<Integer, JsonDocument> node, Integer key) {
         if (node == null) return null;
         
         int cmp = key.compareTo(node.getKey());
@@ -1290,7 +1304,7 @@ public class MainView extends Application {
      * @param node Nodo a evaluar
      * @return Factor de balance (altura derecha - altura izquierda)
      */
-    private int getBalanceFactor(AVLNode<Integer, JsonDocument> node) {
+    private int getBalanceFactor(NodeView<Integer, JsonDocument> node) {
         if (node == null) return 0;
         int leftHeight = node.getLeft() != null ? node.getLeft().getHeight() : 0;
         int rightHeight = node.getRight() != null ? node.getRight().getHeight() : 0;
@@ -1318,7 +1332,7 @@ public class MainView extends Application {
      * @param level Nivel actual
      * @return Nivel del nodo o -1 si no existe
      */
-    private int getNodeLevel(AVLNode<Integer, JsonDocument> node, Integer key, int level) {
+    private int getNodeLevel(NodeView<Integer, JsonDocument> node, Integer key, int level) {
         if (node == null) return -1;
         
         int cmp = key.compareTo(node.getKey());
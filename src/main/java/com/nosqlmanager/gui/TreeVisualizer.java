@@ -4,8 +4,8 @@ import java.util.HashMap;
 import java.util.Map;
 
 import com.nosqlmanager.model.JsonDocument;
-import com.nosqlmanager.tree.AVLNode;
-import com.nosqlmanager.tree.AVLTree;
+import com.nosqlmanager.tree.NodeView;
+import com.nosqlmanager.tree.PersistentAVLTree;
 
 import javafx.animation.FadeTransition;
 import javafx.animation.ParallelTransition;
@@ -31,7 +31,7 @@ public class TreeVisualizer extends Pane {
     private static final double INITIAL_HORIZONTAL_SPACING = 500;
     private static final Duration ANIMATION_DURATION = Duration.millis(500);
 
-    private AVLTree<Integer, JsonDocument> tree;
+    private PersistentAVLTree<Integer, JsonDocument> tree;
     private Map<Integer, Point2D> nodePositions = new HashMap<>();
     private NodeClickHandler clickHandler;
     private Integer highlightedKey = null;
@@ -48,7 +48,7 @@ public class TreeVisualizer extends Pane {
         this.setMinSize(800, 500);
     }
 
-    public void setTree(AVLTree<Integer, JsonDocument> tree) {
+    public void setTree(PersistentAVLTree<Integer, JsonDocument> tree) {
         this.tree = tree;
     }
 
@@ -68,18 +68,18 @@ public class TreeVisualizer extends Pane {
         this.getChildren().clear();
         nodePositions.clear();
 
-        if (tree == null || tree.getRoot() == null) {
+        if (tree == null || tree.getRootView() == null) {
             drawEmptyMessage();
             return;
         }
 
         double centerX = this.getWidth() / 2;
         if (centerX < 400) centerX = 400;
-        calculatePositions(tree.getRoot(), centerX, 50, INITIAL_HORIZONTAL_SPACING);
+        calculatePositions(tree.getRootView(), centerX, 50, INITIAL_HORIZONTAL_SPACING);
 
-        drawLines(tree.getRoot(), animate);
+        drawLines(tree.getRootView(), animate);
 
-        drawNodes(tree.getRoot(), animate);
+        drawNodes(tree.getRootView(), animate);
     }
 
     private void drawEmptyMessage() {
@@ -94,7 +94,7 @@ public class TreeVisualizer extends Pane {
     /**
      * Calcula las posiciones de cada nodo recursivamente
      */
-    private void calculatePositions(AVLNode<Integer, JsonDocument> node, double x, double y, double hSpacing) {
+    private void calculatePositions(NodeView<Integer, JsonDocument> node, double x, double y, double hSpacing) {
         if (node == null) return;
 
         nodePositions.put(node.getKey(), new Point2D(x, y));
@@ -113,7 +113,7 @@ public class TreeVisualizer extends Pane {
     /**
      * Dibuja las líneas que conectan los nodos
      */
-    private void drawLines(AVLNode<Integer, JsonDocument> node, boolean animate) {
+    private void drawLines(NodeView<Integer, JsonDocument> node, boolean animate) {
         if (node == null) return;
 
         Point2D pos = nodePositions.get(node.getKey());
@@ -152,7 +152,7 @@ public class TreeVisualizer extends Pane {
     /**
      * Dibuja los nodos del árbol
      */
-    private void drawNodes(AVLNode<Integer, JsonDocument> node, boolean animate) {
+    private void drawNodes(NodeView<Integer, JsonDocument> node, boolean animate) {
         if (node == null) return;
 
         Point2D pos = nodePositions.get(node.getKey());
@@ -162,7 +162,7 @@ public class TreeVisualizer extends Pane {
         drawNodes(node.getRight(), animate);
     }
 
-    private void createNodeVisual(AVLNode<Integer, JsonDocument> node, double x, double y, boolean animate) {
+    private void createNodeVisual(NodeView<Integer, JsonDocument> node, double x, double y, boolean animate) {
         Integer key = node.getKey();
         boolean isHighlighted = key.equals(highlightedKey);
 
@@ -235,7 +235,7 @@ public class TreeVisualizer extends Pane {
         this.getChildren().addAll(circle, keyText, balanceText);
     }
 
-    private int getBalance(AVLNode<Integer, JsonDocument> node) {
+    private int getBalance(NodeView<Integer, JsonDocument> node) {
         int leftHeight = node.getLeft() != null ? node.getLeft().getHeight() : 0;
         int rightHeight = node.getRight() != null ? node.getRight().getHeight() : 0;
         return rightHeight - leftHeight;
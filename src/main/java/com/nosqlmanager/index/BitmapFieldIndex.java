@@ -0,0 +1,113 @@
+package com.nosqlmanager.index;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
+
+import com.nosqlmanager.model.FieldPath;
+import com.nosqlmanager.model.JsonDocument;
+
+/**
+ * Índice de mapas de bits: un {@link RoaringBitmap} de ids por cada valor del campo.
+ * Con pocos valores distintos cada mapa es denso y ocupa muy poco, y las condiciones
+ * sobre varios campos se resuelven combinando mapas con AND, OR y NOT en lugar de
+ * revisar documentos.
+ */
+public class BitmapFieldIndex implements EqualityIndex {
+
+    private final IndexDefinition definition;
+    private final FieldPath path;
+    private final Map<IndexKey, RoaringBitmap> bitmaps = new HashMap<>();
+
+    /**
+     * Crea un índice de mapas de bits vacío sobre un campo.
+     * @param field Ruta del campo a indexar (ver {@link FieldPath})
+     */
+    public BitmapFieldIndex(String field) {
+        this.definition = new IndexDefinition(field, IndexType.BITMAP);
+        this.path = FieldPath.of(field);
+    }
+
+    @Override
+    public IndexDefinition getDefinition() {
+        return definition;
+    }
+
+    @Override
+    public void add(int id, JsonDocument document) {
+        IndexKey key = IndexKey.ofField(document, path);
+        if (key != null) {
+            bitmaps.computeIfAbsent(key, k -> new RoaringBitmap()).add(id);
+        }
+    }
+
+    @Override
+    public void remove(int id, JsonDocument document) {
+        IndexKey key = IndexKey.ofField(document, path);
+        RoaringBitmap ids = key == null ? null : bitmaps.get(key);
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                bitmaps.remove(key);
+            }
+        }
+    }
+
+    @Override
+    public void update(int id, JsonDocument previous, JsonDocument current) {
+        // Si el campo no cambió no hay nada que mover
+        if (previous != null && current != null && IndexKey.sameField(previous, current, path)) {
+            return;
+        }
+        EqualityIndex.super.update(id, previous, current);
+    }
+
+    /**
+     * Mapa de bits de los documentos cuyo campo vale exactamente la clave dada.
+     * Es el mapa interno del índice: se puede combinar, pero no modificar.
+     * @param key Valor buscado
+     * @return Mapa de bits de ids (vacío si ningún documento tiene ese valor)
+     */
+    public RoaringBitmap bitmap(IndexKey key) {
+        RoaringBitmap ids = bitmaps.get(key);
+        return ids == null ? new RoaringBitmap() : ids;
+    }
+
+    @Override
+    public List<Integer> findEquals(IndexKey key) {
+        return bitmap(key).toList();
+    }
+
+    @Override
+    public int countEquals(IndexKey key) {
+        return bitmap(key).getCardinality();
+    }
+
+    @Override
+    public void forEachCount(ObjIntConsumer<IndexKey> action) {
+        bitmaps.forEach((key, ids) -> action.accept(key, ids.getCardinality()));
+    }
+
+    /**
+     * Número de valores distintos indexados.
+     * @return Cantidad de mapas de bits
+     */
+    public int distinctValues() {
+        return bitmaps.size();
+    }
+
+    @Override
+    public long memoryUsage() {
+        long bytes = MemoryEstimates.OBJECT + MemoryEstimates.hashMap(bitmaps.size());
+        for (Map.Entry<IndexKey, RoaringBitmap> entry : bitmaps.entrySet()) {
+            bytes += entry.getKey().memoryUsage() + entry.getValue().memoryUsage();
+        }
+        return bytes;
+    }
+
+    @Override
+    public void clear() {
+        bitmaps.clear();
+    }
+}
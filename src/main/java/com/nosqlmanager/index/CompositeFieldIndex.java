@@ -0,0 +1,210 @@
+package com.nosqlmanager.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.function.ObjIntConsumer;
+
+import com.nosqlmanager.model.FieldPath;
+import com.nosqlmanager.model.JsonDocument;
+import com.nosqlmanager.tree.AVLTree;
+
+/**
+ * Índice compuesto sobre una lista ordenada de campos: un árbol AVL que asocia cada
+ * combinación de valores ({@link CompositeKey}) con los ids que la tienen.
+ *
+ * <p>Como las claves se ordenan primero por el primer campo, luego por el segundo y
+ * así sucesivamente, los documentos con los mismos valores en los primeros campos
+ * quedan juntos y, dentro de ellos, ordenados por el siguiente. Así una condición como
+ * {@code ciudad = "Cali" AND estado = "activo" AND fecha BETWEEN a AND b} sobre un
+ * índice {@code (ciudad, estado, fecha)} se resuelve con un único recorrido de rango en
+ * O(log n + k). Sirve cualquier prefijo de los campos con igualdades, seguido
+ * opcionalmente de un rango sobre el campo siguiente.</p>
+ */
+public class CompositeFieldIndex implements SecondaryIndex {
+
+    /**
+     * Separador de los campos en la definición del índice.
+     */
+    public static final String SEPARATOR = ",";
+
+    private final IndexDefinition definition;
+    private final List<String> fields;
+    private final FieldPath[] paths;
+    private final AVLTree<CompositeKey, TreeSet<Integer>> tree = new AVLTree<>();
+    private int entries;
+
+    /**
+     * Crea un índice compuesto vacío.
+     * @param fields Rutas de los campos separadas por comas, en el orden del índice
+     */
+    public CompositeFieldIndex(String fields) {
+        this.definition = new IndexDefinition(fields, IndexType.COMPOSITE);
+        this.fields = split(definition.getField());
+        this.paths = this.fields.stream().map(FieldPath::of).toArray(FieldPath[]::new);
+    }
+
+    /**
+     * Separa los campos de la definición de un índice compuesto.
+     * @param fields Rutas separadas por comas
+     * @return Lista de rutas, sin espacios alrededor
+     * @throws IllegalArgumentException Si hay menos de dos campos o alguno está vacío
+     */
+    public static List<String> split(String fields) {
+        List<String> parts = Arrays.stream(fields.split(SEPARATOR, -1)).map(String::trim).toList();
+        if (parts.size() < 2 || parts.contains("")) {
+            throw new IllegalArgumentException("Un índice compuesto necesita al menos dos campos: " + fields);
+        }
+        return parts;
+    }
+
+    @Override
+    public IndexDefinition getDefinition() {
+        return definition;
+    }
+
+    /**
+     * Campos del índice, en orden y en forma canónica (JSON Pointer).
+     * @return Lista inmutable de rutas
+     */
+    public List<String> getFields() {
+        return fields;
+    }
+
+    private CompositeKey key(JsonDocument document) {
+        List<IndexKey> parts = new ArrayList<>(paths.length);
+        boolean any = false;
+        for (FieldPath path : paths) {
+            IndexKey part = IndexKey.ofField(document, path);
+            any |= part != null;
+            parts.add(part == null ? IndexKey.MIN : part);
+        }
+        // Un documento sin ninguno de los campos no lo puede encontrar ninguna condición
+        return any ? CompositeKey.of(parts) : null;
+    }
+
+    @Override
+    public void add(int id, JsonDocument document) {
+        CompositeKey key = key(document);
+        if (key != null) {
+            TreeSet<Integer> ids = tree.search(key).orElse(null);
+            if (ids == null) {
+                ids = new TreeSet<>();
+                tree.insert(key, ids);
+            }
+            if (ids.add(id)) {
+                entries++;
+            }
+        }
+    }
+
+    @Override
+    public void remove(int id, JsonDocument document) {
+        CompositeKey key = key(document);
+        if (key != null) {
+            tree.compute(key, (k, ids) -> {
+                if (ids != null && ids.remove(id)) {
+                    entries--;
+                }
+                return ids == null || ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    @Override
+    public void update(int id, JsonDocument previous, JsonDocument current) {
+        // Si ningún campo del índice cambió no hay nada que mover
+        if (previous != null && current != null) {
+            CompositeKey before = key(previous);
+            if (before != null && before.equals(key(current))) {
+                return;
+            }
+        }
+        SecondaryIndex.super.update(id, previous, current);
+    }
+
+    /**
+     * Ids de los documentos con unos valores exactos en los primeros campos y,
+     * opcionalmente, un rango sobre el campo siguiente.
+     * @param prefix Valores de los primeros campos, en orden (puede estar vacío)
+     * @param from Límite inferior del campo siguiente, o null si no hay rango
+     * @param fromInclusive Si el límite inferior se incluye
+     * @param to Límite superior del campo siguiente, o null si no hay rango
+     * @param toInclusive Si el límite superior se incluye
+     * @return Ids ordenados de los documentos que cumplen todo
+     */
+    public SortedSet<Integer> find(List<IndexKey> prefix, IndexKey from, boolean fromInclusive,
+                                   IndexKey to, boolean toInclusive) {
+        TreeSet<Integer> result = new TreeSet<>();
+        forEachCount(prefix, from, fromInclusive, to, toInclusive, (ids, count) -> result.addAll(ids));
+        return result;
+    }
+
+    /**
+     * Cuenta los documentos que devolvería {@link #find}, sin copiar sus ids.
+     * Cuesta O(log n + combinaciones distintas dentro del rango).
+     * @param prefix Valores de los primeros campos
+     * @param from Límite inferior del campo siguiente, o null
+     * @param fromInclusive Si el límite inferior se incluye
+     * @param to Límite superior del campo siguiente, o null
+     * @param toInclusive Si el límite superior se incluye
+     * @return Número de documentos
+     */
+    public int count(List<IndexKey> prefix, IndexKey from, boolean fromInclusive, IndexKey to, boolean toInclusive) {
+        int[] total = new int[1];
+        forEachCount(prefix, from, fromInclusive, to, toInclusive, (ids, count) -> total[0] += count);
+        return total[0];
+    }
+
+    private void forEachCount(List<IndexKey> prefix, IndexKey from, boolean fromInclusive, IndexKey to,
+                              boolean toInclusive, ObjIntConsumer<TreeSet<Integer>> action) {
+        if (prefix.size() > paths.length || (prefix.size() == paths.length && (from != null || to != null))) {
+            throw new IllegalArgumentException("La búsqueda tiene más campos que el índice " + definition.getField());
+        }
+        CompositeKey base = CompositeKey.of(prefix);
+        int position = prefix.size();
+        // El prefijo solo va antes que todas sus extensiones; seguido de MAX, después
+        CompositeKey lower = from == null ? base : base.with(from);
+        CompositeKey upper = (to == null ? base : base.with(to)).with(IndexKey.MAX);
+        boolean ranged = from != null || to != null;
+        tree.forEachInRange(lower, upper, (key, ids) -> {
+            // Sin el campo del rango el documento no lo cumple, aunque MIN caiga dentro
+            if (ranged && key.part(position).equals(IndexKey.MIN)) {
+                return;
+            }
+            // Los extremos excluidos son un bloque contiguo en cada borde del rango
+            if (from != null && !fromInclusive && key.part(position).equals(from)) {
+                return;
+            }
+            if (to != null && !toInclusive && key.part(position).equals(to)) {
+                return;
+            }
+            action.accept(ids, ids.size());
+        });
+    }
+
+    /**
+     * Número de documentos indexados.
+     * @return Cantidad de ids en el índice
+     */
+    public int size() {
+        return entries;
+    }
+
+    @Override
+    public long memoryUsage() {
+        long bytes = MemoryEstimates.OBJECT * 2;
+        for (CompositeKey key : tree.getAllKeys()) {
+            bytes += MemoryEstimates.AVL_NODE + key.memoryUsage() + MemoryEstimates.TREE_SET;
+        }
+        return bytes + (long) entries * (MemoryEstimates.TREE_ENTRY + MemoryEstimates.BOXED_INT);
+    }
+
+    @Override
+    public void clear() {
+        tree.clear();
+        entries = 0;
+    }
+}
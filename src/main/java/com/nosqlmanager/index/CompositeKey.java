@@ -0,0 +1,88 @@
+package com.nosqlmanager.index;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Clave de un índice compuesto: los valores de varios campos, comparados en orden
+ * lexicográfico (primero por el primer campo, a igualdad por el segundo, etc.).
+ *
+ * <p>Un campo que falta o que no tiene un valor simple se guarda como
+ * {@link IndexKey#MIN}, que ninguna condición pide. Las claves de los documentos tienen
+ * tantas partes como campos el índice; las cotas de las búsquedas pueden tener menos o
+ * más. A igualdad de las partes comunes va primero la más corta, así que un prefijo
+ * queda antes que todas las claves que lo extienden, y el prefijo seguido de
+ * {@link IndexKey#MAX} después de todas ellas.</p>
+ */
+public final class CompositeKey implements Comparable<CompositeKey> {
+
+    private final IndexKey[] parts;
+
+    private CompositeKey(IndexKey[] parts) {
+        this.parts = parts;
+    }
+
+    /**
+     * Clave con las partes dadas.
+     * @param parts Valores de los campos, en el orden del índice
+     * @return La clave
+     */
+    public static CompositeKey of(List<IndexKey> parts) {
+        return new CompositeKey(parts.toArray(IndexKey[]::new));
+    }
+
+    /**
+     * Misma clave con una parte más al final, para construir cotas de búsqueda.
+     * @param part Parte a añadir
+     * @return La clave extendida
+     */
+    public CompositeKey with(IndexKey part) {
+        IndexKey[] extended = Arrays.copyOf(parts, parts.length + 1);
+        extended[parts.length] = part;
+        return new CompositeKey(extended);
+    }
+
+    /**
+     * Parte de la clave en una posición.
+     * @param position Posición del campo en el índice
+     * @return El valor de ese campo
+     */
+    public IndexKey part(int position) {
+        return parts[position];
+    }
+
+    long memoryUsage() {
+        long bytes = MemoryEstimates.OBJECT + MemoryEstimates.array(parts.length, MemoryEstimates.REFERENCE);
+        for (IndexKey part : parts) {
+            bytes += part.memoryUsage();
+        }
+        return bytes;
+    }
+
+    @Override
+    public int compareTo(CompositeKey other) {
+        int common = Math.min(parts.length, other.parts.length);
+        for (int i = 0; i < common; i++) {
+            int comparison = parts[i].compareTo(other.parts[i]);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return Integer.compare(parts.length, other.parts.length);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof CompositeKey that && Arrays.equals(parts, that.parts);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(parts);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(parts);
+    }
+}
@@ -0,0 +1,32 @@
+package com.nosqlmanager.index;
+
+import java.util.Collection;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Índice secundario capaz de responder búsquedas por igualdad exacta.
+ */
+public interface EqualityIndex extends SecondaryIndex {
+
+    /**
+     * Ids de los documentos cuyo campo vale exactamente la clave dada.
+     * @param key Valor buscado
+     * @return Ids en orden ascendente
+     */
+    Collection<Integer> findEquals(IndexKey key);
+
+    /**
+     * Cuántos documentos tienen exactamente la clave dada, sin copiar sus ids.
+     * El planificador de consultas lo usa para estimar costes.
+     * @param key Valor buscado
+     * @return Número de documentos con ese valor
+     */
+    int countEquals(IndexKey key);
+
+    /**
+     * Recorre los valores distintos del índice con cuántos documentos tiene cada uno,
+     * sin copiar ids. Permite contar por grupos sin leer los documentos.
+     * @param action Acción a aplicar a cada valor con su número de documentos
+     */
+    void forEachCount(ObjIntConsumer<IndexKey> action);
+}
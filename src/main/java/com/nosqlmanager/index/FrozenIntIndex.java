@@ -0,0 +1,144 @@
+package com.nosqlmanager.index;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Índice inmutable de claves enteras primitivas, optimizado solo para búsquedas.
+ *
+ * <p>Las claves se guardan en un {@code int[]} en orden de Eytzinger (el orden en
+ * anchura de un árbol binario de búsqueda completo): la raíz está en la posición 1 y
+ * los hijos de la posición {@code i} en {@code 2i} y {@code 2i + 1}. Así los primeros
+ * niveles que visita toda búsqueda quedan juntos al principio del arreglo y se
+ * mantienen en caché, y el descenso no necesita punteros ni objetos por nodo.</p>
+ *
+ * <p>La búsqueda baja siempre hasta una hoja sin salir antes aunque encuentre la clave:
+ * en cada nivel la comparación solo decide el siguiente índice, lo que el compilador
+ * JIT puede traducir a un movimiento condicional en lugar de un salto difícil de
+ * predecir. Al final se recupera el menor elemento mayor o igual que la clave.</p>
+ *
+ * @param <V> Tipo del valor asociado a cada clave
+ */
+public final class FrozenIntIndex<V> {
+
+    private final int[] keys;
+    private final Object[] values;
+    private final int size;
+
+    /**
+     * Construye el índice a partir de claves ya ordenadas.
+     * @param sortedKeys Claves en orden ascendente y sin repetidos
+     * @param sortedValues Valores en el mismo orden que las claves
+     */
+    public FrozenIntIndex(List<Integer> sortedKeys, List<V> sortedValues) {
+        if (sortedKeys.size() != sortedValues.size()) {
+            throw new IllegalArgumentException("Claves y valores deben tener el mismo tamaño");
+        }
+        this.size = sortedKeys.size();
+        this.keys = new int[size + 1];
+        this.values = new Object[size + 1];
+        fill(1, 0, sortedKeys, sortedValues);
+    }
+
+    /**
+     * Recorre en inorden las posiciones del árbol implícito y coloca en cada una el
+     * siguiente elemento de la lista ordenada.
+     * @return Siguiente posición de la lista por consumir
+     */
+    private int fill(int slot, int next, List<Integer> sortedKeys, List<V> sortedValues) {
+        if (slot <= size) {
+            next = fill(2 * slot, next, sortedKeys, sortedValues);
+            keys[slot] = sortedKeys.get(next);
+            values[slot] = sortedValues.get(next);
+            next++;
+            next = fill(2 * slot + 1, next, sortedKeys, sortedValues);
+        }
+        return next;
+    }
+
+    /**
+     * Posición del menor elemento con clave mayor o igual que la dada.
+     * @return Posición en el arreglo, o 0 si todas las claves son menores
+     */
+    private int lowerBound(int key) {
+        int[] k = keys;
+        int n = size;
+        int i = 1;
+        while (i <= n) {
+            i = 2 * i + (k[i] < key ? 1 : 0);
+        }
+        // Cada giro a la derecha añadió un 1 al final de i; se deshacen hasta el último
+        // giro a la izquierda, que es donde estaba el sucesor
+        return i >>> (Integer.numberOfTrailingZeros(~i) + 1);
+    }
+
+    /**
+     * Busca el valor de una clave.
+     * @param key Clave a buscar
+     * @return Valor asociado, o null si no existe
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int i = lowerBound(key);
+        return i != 0 && keys[i] == key ? (V) values[i] : null;
+    }
+
+    /**
+     * Verifica si una clave existe.
+     * @param key Clave a verificar
+     * @return true si existe, false si no
+     */
+    public boolean containsKey(int key) {
+        int i = lowerBound(key);
+        return i != 0 && keys[i] == key;
+    }
+
+    /**
+     * Valores con clave entre dos límites, ambos incluidos.
+     * Baja una vez hasta el primero y desde ahí avanza al sucesor en inorden, así que
+     * cuesta O(log n + k).
+     * @param from Clave más pequeña a incluir
+     * @param to Clave más grande a incluir
+     * @return Valores del rango, en orden de clave
+     */
+    @SuppressWarnings("unchecked")
+    public List<V> range(int from, int to) {
+        List<V> result = new ArrayList<>();
+        for (int i = lowerBound(from); i != 0 && keys[i] <= to; i = successor(i)) {
+            result.add((V) values[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Posición siguiente en inorden: lo más a la izquierda del hijo derecho o, si no
+     * tiene, el primer ancestro del que se viene por la izquierda.
+     * @return Posición del sucesor, o 0 si es el último
+     */
+    private int successor(int i) {
+        if (2 * i + 1 <= size) {
+            i = 2 * i + 1;
+            while (2 * i <= size) {
+                i = 2 * i;
+            }
+            return i;
+        }
+        return i >>> (Integer.numberOfTrailingZeros(~i) + 1);
+    }
+
+    /**
+     * Número de entradas.
+     * @return Cantidad de claves guardadas
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Verifica si el índice está vacío.
+     * @return true si no hay entradas
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+}
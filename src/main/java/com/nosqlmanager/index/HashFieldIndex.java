@@ -0,0 +1,114 @@
+package com.nosqlmanager.index;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
+
+import com.nosqlmanager.model.FieldPath;
+import com.nosqlmanager.model.JsonDocument;
+
+/**
+ * Índice secundario hash: asocia cada valor del campo con el {@link IdSet} de los
+ * documentos que lo tienen. Solo responde igualdades, pero en O(1) y con poca memoria
+ * por documento, lo que lo hace ideal para campos con muchos valores distintos
+ * (nombres, correos, códigos).
+ */
+public class HashFieldIndex implements EqualityIndex {
+
+    private final IndexDefinition definition;
+    private final FieldPath path;
+    private final Map<IndexKey, IdSet> buckets = new HashMap<>();
+    private int entries;
+
+    /**
+     * Crea un índice hash vacío sobre un campo.
+     * @param field Ruta del campo a indexar (ver {@link FieldPath})
+     */
+    public HashFieldIndex(String field) {
+        this.definition = new IndexDefinition(field, IndexType.HASH);
+        this.path = FieldPath.of(field);
+    }
+
+    @Override
+    public IndexDefinition getDefinition() {
+        return definition;
+    }
+
+    @Override
+    public void add(int id, JsonDocument document) {
+        IndexKey key = IndexKey.ofField(document, path);
+        if (key != null && buckets.computeIfAbsent(key, k -> new IdSet()).add(id)) {
+            entries++;
+        }
+    }
+
+    @Override
+    public void remove(int id, JsonDocument document) {
+        IndexKey key = IndexKey.ofField(document, path);
+        IdSet ids = key == null ? null : buckets.get(key);
+        if (ids != null && ids.remove(id)) {
+            entries--;
+            if (ids.isEmpty()) {
+                buckets.remove(key);
+            }
+        }
+    }
+
+    @Override
+    public void update(int id, JsonDocument previous, JsonDocument current) {
+        // Si el campo no cambió no hay nada que mover
+        if (previous != null && current != null && IndexKey.sameField(previous, current, path)) {
+            return;
+        }
+        EqualityIndex.super.update(id, previous, current);
+    }
+
+    @Override
+    public List<Integer> findEquals(IndexKey key) {
+        IdSet ids = buckets.get(key);
+        return ids == null ? List.of() : ids.toList();
+    }
+
+    @Override
+    public int countEquals(IndexKey key) {
+        IdSet ids = buckets.get(key);
+        return ids == null ? 0 : ids.size();
+    }
+
+    @Override
+    public void forEachCount(ObjIntConsumer<IndexKey> action) {
+        buckets.forEach((key, ids) -> action.accept(key, ids.size()));
+    }
+
+    /**
+     * Número de valores distintos indexados.
+     * @return Cantidad de claves de la tabla
+     */
+    public int distinctValues() {
+        return buckets.size();
+    }
+
+    /**
+     * Número de documentos indexados.
+     * @return Cantidad de ids en el índice
+     */
+    public int size() {
+        return entries;
+    }
+
+    @Override
+    public long memoryUsage() {
+        long bytes = MemoryEstimates.OBJECT + MemoryEstimates.hashMap(buckets.size());
+        for (Map.Entry<IndexKey, IdSet> bucket : buckets.entrySet()) {
+            bytes += bucket.getKey().memoryUsage() + bucket.getValue().memoryUsage();
+        }
+        return bytes;
+    }
+
+    @Override
+    public void clear() {
+        buckets.clear();
+        entries = 0;
+    }
+}
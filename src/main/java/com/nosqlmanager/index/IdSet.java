@@ -0,0 +1,108 @@
+package com.nosqlmanager.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Conjunto ordenado de ids guardados como {@code int} en un arreglo creciente.
+ * Ocupa 4 bytes por id (más el hueco libre del arreglo), frente a los ~40 de un
+ * {@code TreeSet<Integer>}, y es ideal para las listas cortas de ids que produce un
+ * campo con muchos valores distintos. Inserciones y borrados cuestan O(k) por el
+ * desplazamiento, lo que con listas cortas es despreciable.
+ */
+public final class IdSet {
+
+    private static final int[] EMPTY = new int[0];
+
+    private int[] ids = EMPTY;
+    private int size;
+
+    /**
+     * Añade un id.
+     * @param id Id a añadir
+     * @return true si no estaba
+     */
+    public boolean add(int id) {
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position >= 0) {
+            return false;
+        }
+        position = -position - 1;
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, Math.max(2, size + (size >> 1) + 1));
+        }
+        System.arraycopy(ids, position, ids, position + 1, size - position);
+        ids[position] = id;
+        size++;
+        return true;
+    }
+
+    /**
+     * Quita un id.
+     * @param id Id a quitar
+     * @return true si estaba
+     */
+    public boolean remove(int id) {
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position < 0) {
+            return false;
+        }
+        System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+        size--;
+        return true;
+    }
+
+    /**
+     * Verifica si un id está en el conjunto.
+     * @param id Id a buscar
+     * @return true si está
+     */
+    public boolean contains(int id) {
+        return Arrays.binarySearch(ids, 0, size, id) >= 0;
+    }
+
+    /**
+     * Número de ids.
+     * @return Cantidad de ids del conjunto
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Verifica si el conjunto está vacío.
+     * @return true si no tiene ids
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Copia los ids a un arreglo, en orden ascendente.
+     * @return Arreglo nuevo con los ids
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    /**
+     * Copia los ids a una lista, en orden ascendente.
+     * @return Lista nueva con los ids
+     */
+    public List<Integer> toList() {
+        List<Integer> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(ids[i]);
+        }
+        return list;
+    }
+
+    /**
+     * Bytes aproximados que ocupa el conjunto, contando la cabecera del objeto y del arreglo.
+     * @return Estimación en bytes
+     */
+    public long memoryUsage() {
+        return MemoryEstimates.OBJECT + MemoryEstimates.array(ids.length, Integer.BYTES);
+    }
+}
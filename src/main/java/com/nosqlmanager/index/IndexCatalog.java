@@ -0,0 +1,160 @@
+package com.nosqlmanager.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.nosqlmanager.model.JsonDocument;
+
+/**
+ * Conjunto de índices secundarios de una base de datos.
+ * Reparte cada escritura entre todos ellos y permite localizar el índice adecuado
+ * para una consulta. No es seguro entre hilos: el gestor lo usa siempre con su candado.
+ */
+public class IndexCatalog {
+
+    private final Map<IndexDefinition, SecondaryIndex> indexes = new LinkedHashMap<>();
+
+    /**
+     * Crea un índice y lo llena con los documentos actuales.
+     * @param definition Campo y tipo del índice
+     * @param documents Documentos que ya existen
+     * @return true si se creó, false si ya existía uno igual
+     */
+    public boolean create(IndexDefinition definition, Collection<JsonDocument> documents) {
+        if (indexes.containsKey(definition)) {
+            return false;
+        }
+        SecondaryIndex index = definition.getType().create(definition);
+        for (JsonDocument document : documents) {
+            index.add(document.getId(), document);
+        }
+        indexes.put(definition, index);
+        return true;
+    }
+
+    /**
+     * Elimina un índice.
+     * @param definition Campo y tipo del índice
+     * @return true si existía
+     */
+    public boolean drop(IndexDefinition definition) {
+        return indexes.remove(definition) != null;
+    }
+
+    /**
+     * Refleja en todos los índices el cambio de un documento.
+     * @param id Id del documento
+     * @param previous Versión anterior, o null si no existía
+     * @param current Versión nueva, o null si se eliminó
+     */
+    public void update(int id, JsonDocument previous, JsonDocument current) {
+        for (SecondaryIndex index : indexes.values()) {
+            index.update(id, previous, current);
+        }
+    }
+
+    /**
+     * Vacía todos los índices y los vuelve a llenar con los documentos dados.
+     * @param documents Documentos actuales
+     */
+    public void rebuild(Collection<JsonDocument> documents) {
+        for (SecondaryIndex index : indexes.values()) {
+            index.clear();
+            for (JsonDocument document : documents) {
+                index.add(document.getId(), document);
+            }
+        }
+    }
+
+    /**
+     * Vacía todos los índices, conservando sus definiciones.
+     */
+    public void clear() {
+        indexes.values().forEach(SecondaryIndex::clear);
+    }
+
+    /**
+     * Índice ordenado de un campo, si existe.
+     * @param field Ruta del campo, con puntos o JSON Pointer
+     * @return El índice, o null si el campo no tiene uno
+     */
+    public SortedFieldIndex sorted(String field) {
+        return (SortedFieldIndex) indexes.get(new IndexDefinition(field, IndexType.SORTED));
+    }
+
+    /**
+     * Índice de trigramas de un campo, si existe.
+     * @param field Ruta del campo, con puntos o JSON Pointer
+     * @return El índice, o null si el campo no tiene uno
+     */
+    public NgramFieldIndex ngram(String field) {
+        return (NgramFieldIndex) indexes.get(new IndexDefinition(field, IndexType.NGRAM));
+    }
+
+    /**
+     * Índice de mapas de bits de un campo, si existe.
+     * @param field Ruta del campo, con puntos o JSON Pointer
+     * @return El índice, o null si el campo no tiene uno
+     */
+    public BitmapFieldIndex bitmap(String field) {
+        return (BitmapFieldIndex) indexes.get(new IndexDefinition(field, IndexType.BITMAP));
+    }
+
+    /**
+     * Mejor índice para buscar un valor exacto en un campo: el hash si existe, que
+     * responde en O(1); si no, el de mapas de bits; y si no, el ordenado.
+     * @param field Ruta del campo, con puntos o JSON Pointer
+     * @return El índice, o null si el campo no tiene ninguno que sirva
+     */
+    public EqualityIndex equality(String field) {
+        SecondaryIndex hash = indexes.get(new IndexDefinition(field, IndexType.HASH));
+        if (hash != null) {
+            return (EqualityIndex) hash;
+        }
+        BitmapFieldIndex bitmap = bitmap(field);
+        return bitmap != null ? bitmap : sorted(field);
+    }
+
+    /**
+     * Índices compuestos, en orden de creación.
+     * @return Lista de índices compuestos, vacía si no hay
+     */
+    public List<CompositeFieldIndex> composites() {
+        List<CompositeFieldIndex> composites = new ArrayList<>();
+        for (SecondaryIndex index : indexes.values()) {
+            if (index instanceof CompositeFieldIndex composite) {
+                composites.add(composite);
+            }
+        }
+        return composites;
+    }
+
+    /**
+     * Memoria aproximada que ocupa cada índice.
+     * @return Bytes estimados por definición, en orden de creación
+     */
+    public Map<IndexDefinition, Long> memoryUsage() {
+        Map<IndexDefinition, Long> usage = new LinkedHashMap<>();
+        indexes.forEach((definition, index) -> usage.put(definition, index.memoryUsage()));
+        return usage;
+    }
+
+    /**
+     * Definiciones de todos los índices, en orden de creación.
+     * @return Copia de las definiciones
+     */
+    public List<IndexDefinition> getDefinitions() {
+        return new ArrayList<>(indexes.keySet());
+    }
+
+    /**
+     * Verifica si no hay ningún índice.
+     * @return true si no hay índices
+     */
+    public boolean isEmpty() {
+        return indexes.isEmpty();
+    }
+}
@@ -0,0 +1,56 @@
+package com.nosqlmanager.index;
+
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.nosqlmanager.model.FieldPath;
+
+import lombok.Value;
+
+/**
+ * Descripción de un índice secundario: qué campo indexa y de qué tipo es.
+ * Es lo único que se guarda en disco; el contenido del índice se reconstruye
+ * a partir de los documentos al cargar.
+ *
+ * <p>El campo se guarda en forma canónica, como JSON Pointer ({@link FieldPath#toPointer()}),
+ * así que {@code direccion.ciudad} y {@code /direccion/ciudad} son el mismo índice y
+ * una consulta escrita de cualquiera de las dos formas lo encuentra.</p>
+ */
+@Value
+public class IndexDefinition {
+
+    /**
+     * Ruta canónica del campo indexado; en un índice compuesto, las rutas de sus
+     * campos separadas por comas.
+     */
+    String field;
+
+    /**
+     * Tipo de índice.
+     */
+    IndexType type;
+
+    /**
+     * Crea una definición, pasando el campo a su forma canónica.
+     * @param field Ruta del campo, con puntos o JSON Pointer; en un índice compuesto,
+     *              las rutas separadas por comas
+     * @param type Tipo de índice
+     * @throws IllegalArgumentException Si la ruta está vacía o, en un índice compuesto,
+     *                                  hay menos de dos campos
+     */
+    @JsonCreator
+    public IndexDefinition(@JsonProperty("field") String field, @JsonProperty("type") IndexType type) {
+        this.field = canonical(field, type);
+        this.type = type;
+    }
+
+    private static String canonical(String field, IndexType type) {
+        if (type == IndexType.COMPOSITE) {
+            return CompositeFieldIndex.split(field).stream()
+                    .map(path -> FieldPath.of(path).toPointer())
+                    .collect(Collectors.joining(CompositeFieldIndex.SEPARATOR));
+        }
+        return FieldPath.of(field).toPointer();
+    }
+}
@@ -0,0 +1,259 @@
+package com.nosqlmanager.index;
+
+import java.util.Objects;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.nosqlmanager.model.FieldPath;
+import com.nosqlmanager.model.JsonDocument;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Valor de un campo tal como lo ordena un índice secundario.
+ *
+ * <p>El orden distingue tipos: primero null, luego booleanos, números y por último
+ * textos. Dentro de cada tipo, los números se comparan por su valor (así 9 va antes
+ * que 10, cosa que no pasaría comparando su texto) y los textos lexicográficamente.
+ * Los números se guardan como {@code double}, de modo que enteros mayores que 2^53
+ * pueden compartir clave.</p>
+ *
+ * <p>Objetos y arreglos no se indexan: para ellos {@link #of(JsonNode)} devuelve null.</p>
+ */
+@EqualsAndHashCode
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class IndexKey implements Comparable<IndexKey> {
+
+    private static final int RANK_MIN = 0;
+    private static final int RANK_NULL = 1;
+    private static final int RANK_BOOLEAN = 2;
+    private static final int RANK_NUMBER = 3;
+    private static final int RANK_STRING = 4;
+    private static final int RANK_MAX = 5;
+
+    /**
+     * Clave menor que cualquier valor, para rangos sin límite inferior.
+     */
+    public static final IndexKey MIN = new IndexKey(RANK_MIN, 0, 0, null);
+
+    /**
+     * Clave mayor que cualquier valor, para rangos sin límite superior.
+     */
+    public static final IndexKey MAX = new IndexKey(RANK_MAX, 0, 0, null);
+
+    private static final IndexKey NULL = new IndexKey(RANK_NULL, 0, 0, null);
+
+    private final int rank;
+    /**
+     * -1 o 1 en las cotas de un tipo (antes o después de todos sus valores), 0 en los valores.
+     */
+    private final int bound;
+    private final double number;
+    private final String text;
+
+    /**
+     * Clave de un valor JSON.
+     * @param node Valor del campo (puede ser null si el campo no existe)
+     * @return La clave, o null si el valor no se indexa (ausente, objeto o arreglo)
+     */
+    public static IndexKey of(JsonNode node) {
+        if (node == null || node.isMissingNode() || node.isContainerNode()) {
+            return null;
+        }
+        if (node.isNull()) {
+            return NULL;
+        }
+        if (node.isBoolean()) {
+            return new IndexKey(RANK_BOOLEAN, 0, node.booleanValue() ? 1 : 0, null);
+        }
+        if (node.isNumber()) {
+            return number(node.doubleValue());
+        }
+        return text(node.asText());
+    }
+
+    /**
+     * Clave de un valor Java: null, {@link Number}, {@link Boolean}, texto o {@link JsonNode}.
+     * @param value Valor a convertir
+     * @return La clave del valor
+     * @throws IllegalArgumentException Si el tipo no se puede indexar
+     */
+    public static IndexKey ofValue(Object value) {
+        if (value == null) {
+            return NULL;
+        }
+        if (value instanceof IndexKey key) {
+            return key;
+        }
+        if (value instanceof Number n) {
+            return number(n.doubleValue());
+        }
+        if (value instanceof Boolean b) {
+            return new IndexKey(RANK_BOOLEAN, 0, b ? 1 : 0, null);
+        }
+        if (value instanceof CharSequence s) {
+            return text(s.toString());
+        }
+        if (value instanceof JsonNode node) {
+            IndexKey key = of(node);
+            if (key != null) {
+                return key;
+            }
+        }
+        throw new IllegalArgumentException("Valor no indexable: " + value);
+    }
+
+    /**
+     * Clave del valor de un campo de un documento.
+     * @param document Documento a leer
+     * @param field Ruta del campo (ver {@link FieldPath})
+     * @return La clave, o null si el documento no tiene ese campo o no se indexa
+     */
+    public static IndexKey ofField(JsonDocument document, String field) {
+        return ofField(document, FieldPath.of(field));
+    }
+
+    /**
+     * Clave del valor de un campo de un documento, con la ruta ya compilada.
+     * @param document Documento a leer
+     * @param path Ruta del campo
+     * @return La clave, o null si el documento no tiene ese campo o no se indexa
+     */
+    public static IndexKey ofField(JsonDocument document, FieldPath path) {
+        return of(path.resolve(document));
+    }
+
+    /**
+     * Verifica si dos versiones de un documento tienen la misma clave en un campo.
+     * @param previous Versión anterior
+     * @param current Versión nueva
+     * @param path Ruta del campo
+     * @return true si el campo no cambió a efectos de un índice
+     */
+    public static boolean sameField(JsonDocument previous, JsonDocument current, FieldPath path) {
+        return Objects.equals(ofField(previous, path), ofField(current, path));
+    }
+
+    private static IndexKey number(double value) {
+        // Sumar 0.0 convierte -0.0 en 0.0, que para JSON son el mismo número
+        return new IndexKey(RANK_NUMBER, 0, value + 0.0, null);
+    }
+
+    private static IndexKey text(String value) {
+        return new IndexKey(RANK_STRING, 0, 0, value);
+    }
+
+    /**
+     * Cota inferior de los valores del mismo tipo que esta clave: menor que todos
+     * ellos y mayor que los de cualquier tipo anterior. Sirve para rangos abiertos
+     * por abajo que no deben salirse del tipo (por ejemplo, números hasta 300).
+     * @return Cota inferior del tipo
+     */
+    public IndexKey lowestOfType() {
+        return new IndexKey(rank, -1, 0, null);
+    }
+
+    /**
+     * Cota superior de los valores del mismo tipo que esta clave.
+     * @return Cota superior del tipo
+     */
+    public IndexKey highestOfType() {
+        return new IndexKey(rank, 1, 0, null);
+    }
+
+    /**
+     * Valor numérico de la clave.
+     * @return El número (1 o 0 para un booleano); solo tiene sentido si
+     *         {@link #isNumber()} o {@link #isBoolean()} y no es una cota
+     */
+    public double number() {
+        return number;
+    }
+
+    /**
+     * Indica si la clave es una cota de tipo ({@link #lowestOfType()} o
+     * {@link #highestOfType()}) en lugar de un valor.
+     * @return true si es una cota
+     */
+    public boolean isBound() {
+        return bound != 0;
+    }
+
+    /**
+     * Indica si la clave es un número.
+     * @return true si el valor original era numérico
+     */
+    public boolean isNumber() {
+        return rank == RANK_NUMBER;
+    }
+
+    /**
+     * Texto de la clave.
+     * @return El texto, o null si la clave no es un texto
+     */
+    public String text() {
+        return text;
+    }
+
+    /**
+     * Indica si la clave es un booleano.
+     * @return true si el valor original era true o false
+     */
+    public boolean isBoolean() {
+        return rank == RANK_BOOLEAN && bound == 0;
+    }
+
+    /**
+     * Indica si la clave es el valor null de JSON.
+     * @return true si el valor original era null
+     */
+    public boolean isNull() {
+        return rank == RANK_NULL && bound == 0;
+    }
+
+    /**
+     * Indica si la clave es un texto.
+     * @return true si el valor original era un texto
+     */
+    public boolean isText() {
+        return rank == RANK_STRING;
+    }
+
+    /**
+     * Bytes aproximados que ocupa la clave, incluido su texto.
+     */
+    long memoryUsage() {
+        return MemoryEstimates.INDEX_KEY + MemoryEstimates.string(text);
+    }
+
+    @Override
+    public int compareTo(IndexKey other) {
+        if (rank != other.rank) {
+            return Integer.compare(rank, other.rank);
+        }
+        if (bound != 0 || other.bound != 0) {
+            return Integer.compare(bound, other.bound);
+        }
+        if (rank == RANK_STRING) {
+            return text.compareTo(other.text);
+        }
+        return Double.compare(number, other.number);
+    }
+
+    @Override
+    public String toString() {
+        if (bound != 0) {
+            return (bound < 0 ? "inicio" : "fin") + "(" + rank + ")";
+        }
+        return switch (rank) {
+            case RANK_MIN -> "-∞";
+            case RANK_NULL -> "null";
+            case RANK_BOOLEAN -> String.valueOf(number != 0);
+            case RANK_NUMBER -> number == Math.rint(number) && Math.abs(number) < 1e15
+                    ? String.valueOf((long) number) : String.valueOf(number);
+            case RANK_STRING -> '"' + text + '"';
+            default -> "+∞";
+        };
+    }
+}
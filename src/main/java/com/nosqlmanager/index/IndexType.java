@@ -0,0 +1,68 @@
+package com.nosqlmanager.index;
+
+/**
+ * Tipos de índice secundario que se pueden crear sobre un campo (o varios).
+ */
+public enum IndexType {
+
+    /**
+     * Índice ordenado por valor: sirve para igualdades y rangos.
+     */
+    SORTED {
+        @Override
+        SecondaryIndex create(IndexDefinition definition) {
+            return new SortedFieldIndex(definition.getField());
+        }
+    },
+
+    /**
+     * Índice hash por valor: solo igualdades, en O(1) y con menos memoria por documento.
+     */
+    HASH {
+        @Override
+        SecondaryIndex create(IndexDefinition definition) {
+            return new HashFieldIndex(definition.getField());
+        }
+    },
+
+    /**
+     * Índice invertido de trigramas del texto del campo: acelera las búsquedas
+     * de subcadenas ("contiene").
+     */
+    NGRAM {
+        @Override
+        SecondaryIndex create(IndexDefinition definition) {
+            return new NgramFieldIndex(definition.getField());
+        }
+    },
+
+    /**
+     * Un mapa de bits comprimido de ids por valor: pensado para campos con pocos
+     * valores distintos (estado, ciudad) que se combinan con AND, OR y NOT.
+     */
+    BITMAP {
+        @Override
+        SecondaryIndex create(IndexDefinition definition) {
+            return new BitmapFieldIndex(definition.getField());
+        }
+    },
+
+    /**
+     * Índice ordenado sobre varios campos a la vez, cuyo "campo" es la lista de rutas
+     * separadas por comas ({@code ciudad,estado,fecha}): resuelve igualdades sobre los
+     * primeros campos y un rango sobre el siguiente con un solo recorrido.
+     */
+    COMPOSITE {
+        @Override
+        SecondaryIndex create(IndexDefinition definition) {
+            return new CompositeFieldIndex(definition.getField());
+        }
+    };
+
+    /**
+     * Crea un índice vacío de este tipo.
+     * @param definition Descripción del índice a crear
+     * @return Índice secundario nuevo
+     */
+    abstract SecondaryIndex create(IndexDefinition definition);
+}
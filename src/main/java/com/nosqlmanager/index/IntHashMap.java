@@ -0,0 +1,214 @@
+package com.nosqlmanager.index;
+
+import java.util.Arrays;
+
+/**
+ * Tabla hash de direccionamiento abierto con claves enteras primitivas.
+ * Las claves viven en un {@code int[]} y los valores en un arreglo paralelo, sin
+ * objetos {@code Integer} ni nodos por entrada: una búsqueda suele resolverse con un
+ * único acceso a memoria. Usa sondeo lineal y, al eliminar, desplaza hacia atrás las
+ * entradas siguientes para no dejar lápidas.
+ *
+ * <p>Los valores no pueden ser null: una casilla con valor null está libre.</p>
+ *
+ * @param <V> Tipo del valor asociado a cada clave
+ */
+public class IntHashMap<V> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.5f;
+    private static final int GOLDEN_RATIO = 0x9E3779B9;
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int mask;
+    private int shift;
+
+    /**
+     * Crea una tabla vacía con la capacidad por defecto.
+     */
+    public IntHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Crea una tabla vacía preparada para el número de entradas indicado.
+     * @param expectedSize Entradas que se espera guardar sin redimensionar
+     */
+    public IntHashMap(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int needed = (int) Math.ceil(Math.max(expectedSize, 1) / LOAD_FACTOR);
+        return Math.max(DEFAULT_CAPACITY, Integer.highestOneBit(needed - 1) << 1);
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        shift = Integer.numberOfLeadingZeros(mask);
+    }
+
+    /**
+     * Posición inicial de una clave: hashing de Fibonacci, que toma los bits altos del
+     * producto para repartir bien claves consecutivas.
+     */
+    private int slot(int key) {
+        return (key * GOLDEN_RATIO) >>> shift;
+    }
+
+    /**
+     * Busca el valor de una clave.
+     * El sondeo nunca da más vueltas que casillas tiene la tabla, de modo que un lector
+     * optimista que la observe a medio modificar siempre termina.
+     * @param key Clave a buscar
+     * @return Valor asociado, o null si no existe
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int[] k = keys;
+        Object[] v = values;
+        int m = k.length - 1;
+        int i = (key * GOLDEN_RATIO) >>> Integer.numberOfLeadingZeros(m);
+        for (int probes = 0; probes <= m; probes++) {
+            Object value = v[i];
+            if (value == null) {
+                return null;
+            }
+            if (k[i] == key) {
+                return (V) value;
+            }
+            i = (i + 1) & m;
+        }
+        return null;
+    }
+
+    /**
+     * Verifica si una clave existe.
+     * @param key Clave a verificar
+     * @return true si existe, false si no
+     */
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Inserta o actualiza una entrada.
+     * @param key Clave
+     * @param value Valor (no puede ser null)
+     * @return Valor anterior, o null si la clave no existía
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new NullPointerException("value");
+        }
+        int i = slot(key);
+        while (values[i] != null) {
+            if (keys[i] == key) {
+                V previous = (V) values[i];
+                values[i] = value;
+                return previous;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size > LOAD_FACTOR * keys.length) {
+            resize(keys.length << 1);
+        }
+        return null;
+    }
+
+    /**
+     * Elimina una entrada, recolocando las que venían detrás en su misma secuencia de sondeo.
+     * @param key Clave a eliminar
+     * @return Valor eliminado, o null si la clave no existía
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int i = slot(key);
+        while (values[i] != null) {
+            if (keys[i] == key) {
+                V previous = (V) values[i];
+                shiftBack(i);
+                size--;
+                return previous;
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Rellena el hueco {@code gap} con la siguiente entrada que pueda ocuparlo, y repite.
+     */
+    private void shiftBack(int gap) {
+        int i = gap;
+        while (true) {
+            i = (i + 1) & mask;
+            if (values[i] == null) {
+                break;
+            }
+            int home = slot(keys[i]);
+            // La entrada puede subir al hueco si su casilla ideal no está entre el hueco y ella
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                gap = i;
+            }
+        }
+        values[gap] = null;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                int j = slot(oldKeys[i]);
+                while (values[j] != null) {
+                    j = (j + 1) & mask;
+                }
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Número de entradas.
+     * @return Cantidad de claves guardadas
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Verifica si la tabla está vacía.
+     * @return true si no hay entradas
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Elimina todas las entradas conservando la capacidad actual.
+     */
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Capacidad actual de la tabla (número de casillas).
+     * @return Número de casillas reservadas
+     */
+    public int capacity() {
+        return keys.length;
+    }
+}
@@ -0,0 +1,74 @@
+package com.nosqlmanager.index;
+
+/**
+ * Tamaños aproximados de objetos en una JVM de 64 bits con referencias comprimidas,
+ * usados para informar cuánta memoria ocupa cada índice. Son estimaciones: la JVM
+ * real puede alinear o compactar de otra forma.
+ */
+final class MemoryEstimates {
+
+    /** Cabecera de un objeto con un par de campos, ya alineada a 8 bytes. */
+    static final long OBJECT = 16;
+
+    /** Una referencia comprimida. */
+    static final long REFERENCE = 4;
+
+    /** Un {@code Integer} en el heap. */
+    static final long BOXED_INT = 16;
+
+    /** Un {@code Long} en el heap. */
+    static final long BOXED_LONG = 24;
+
+    /** Una entrada de {@code HashMap}: cabecera, hash, clave, valor y siguiente. */
+    static final long HASH_ENTRY = 32;
+
+    /** Una entrada de {@code TreeMap}: cabecera, clave, valor, tres enlaces y color. */
+    static final long TREE_ENTRY = 40;
+
+    /** Un {@code TreeSet} vacío con su {@code TreeMap} interno. */
+    static final long TREE_SET = 64;
+
+    /** Un nodo de {@code AVLTree}: cabecera, dos hijos, clave, valor, altura y tamaño. */
+    static final long AVL_NODE = 40;
+
+    /** Un {@link IndexKey} sin contar el texto. */
+    static final long INDEX_KEY = 32;
+
+    private MemoryEstimates() {
+    }
+
+    /**
+     * Tamaño de un arreglo.
+     * @param length Número de elementos
+     * @param elementBytes Bytes por elemento
+     * @return Bytes, alineados a 8
+     */
+    static long array(int length, long elementBytes) {
+        return align(16 + length * elementBytes);
+    }
+
+    /**
+     * Tamaño de un {@code HashMap} sin contar claves ni valores: el objeto, su tabla
+     * (factor de carga 0.75, redondeada a potencia de dos) y una entrada por clave.
+     * @param entries Número de claves
+     * @return Bytes estimados
+     */
+    static long hashMap(int entries) {
+        int needed = Math.max(16, (int) Math.ceil(entries / 0.75));
+        int table = Integer.highestOneBit(needed - 1) << 1;
+        return OBJECT * 3 + array(table, REFERENCE) + entries * HASH_ENTRY;
+    }
+
+    /**
+     * Tamaño de un {@link String} con su arreglo de bytes (texto latino, 1 byte por carácter).
+     * @param text Texto, o null
+     * @return Bytes, o 0 si es null
+     */
+    static long string(String text) {
+        return text == null ? 0 : 24 + array(text.length(), 1);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
@@ -0,0 +1,197 @@
+package com.nosqlmanager.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.nosqlmanager.model.FieldPath;
+import com.nosqlmanager.model.JsonDocument;
+
+/**
+ * Índice invertido de trigramas: para cada secuencia de tres caracteres guarda los ids
+ * de los documentos cuyo campo, como texto, la contiene.
+ *
+ * <p>Un documento solo puede contener la subcadena buscada si contiene todos sus
+ * trigramas, así que basta con intersecar sus listas de ids (empezando por la más
+ * corta) para quedarse con unos pocos candidatos. Los candidatos se confirman después
+ * con la comparación real, porque tener los trigramas no garantiza tenerlos seguidos.
+ * Las búsquedas de menos de tres caracteres no se pueden acotar y quedan fuera.</p>
+ *
+ * <p>Indexa {@code asText()} del campo, igual que compara {@code findByField}, y
+ * distingue mayúsculas de minúsculas.</p>
+ */
+public class NgramFieldIndex implements SecondaryIndex {
+
+    /**
+     * Longitud de los n-gramas.
+     */
+    public static final int GRAM = 3;
+
+    private final IndexDefinition definition;
+    private final FieldPath path;
+    private final Map<Long, IdSet> postings = new HashMap<>();
+    private int documents;
+
+    /**
+     * Crea un índice de trigramas vacío sobre un campo.
+     * @param field Ruta del campo a indexar (ver {@link FieldPath})
+     */
+    public NgramFieldIndex(String field) {
+        this.definition = new IndexDefinition(field, IndexType.NGRAM);
+        this.path = FieldPath.of(field);
+    }
+
+    @Override
+    public IndexDefinition getDefinition() {
+        return definition;
+    }
+
+    /**
+     * Texto del campo tal como lo compara la búsqueda por subcadena.
+     */
+    private String textOf(JsonDocument document) {
+        JsonNode field = path.resolve(document);
+        return field == null ? null : field.asText();
+    }
+
+    /**
+     * Trigramas distintos de un texto, cada uno empaquetado en un long (16 bits por carácter).
+     */
+    private static Set<Long> grams(String text) {
+        Set<Long> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+        return grams;
+    }
+
+    @Override
+    public void add(int id, JsonDocument document) {
+        String text = textOf(document);
+        if (text != null) {
+            for (Long gram : grams(text)) {
+                postings.computeIfAbsent(gram, g -> new IdSet()).add(id);
+            }
+            documents++;
+        }
+    }
+
+    @Override
+    public void remove(int id, JsonDocument document) {
+        String text = textOf(document);
+        if (text != null) {
+            for (Long gram : grams(text)) {
+                IdSet ids = postings.get(gram);
+                if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+            documents--;
+        }
+    }
+
+    @Override
+    public void update(int id, JsonDocument previous, JsonDocument current) {
+        if (previous != null && current != null && Objects.equals(textOf(previous), textOf(current))) {
+            return;
+        }
+        SecondaryIndex.super.update(id, previous, current);
+    }
+
+    /**
+     * Ids de los documentos que podrían contener la subcadena: los que tienen todos sus
+     * trigramas. Hay que confirmar cada candidato con la comparación real.
+     * @param query Subcadena buscada
+     * @return Ids candidatos en orden ascendente, o null si la subcadena es demasiado
+     *         corta para acotar la búsqueda
+     */
+    public List<Integer> candidates(String query) {
+        if (query.length() < GRAM) {
+            return null;
+        }
+        List<IdSet> lists = new ArrayList<>();
+        for (Long gram : grams(query)) {
+            IdSet ids = postings.get(gram);
+            if (ids == null) {
+                return List.of();
+            }
+            lists.add(ids);
+        }
+        lists.sort(Comparator.comparingInt(IdSet::size));
+
+        int[] result = lists.get(0).toArray();
+        int length = result.length;
+        for (int l = 1; l < lists.size() && length > 0; l++) {
+            IdSet ids = lists.get(l);
+            int kept = 0;
+            for (int i = 0; i < length; i++) {
+                if (ids.contains(result[i])) {
+                    result[kept++] = result[i];
+                }
+            }
+            length = kept;
+        }
+
+        List<Integer> candidates = new ArrayList<>(length);
+        for (int id : Arrays.copyOf(result, length)) {
+            candidates.add(id);
+        }
+        return candidates;
+    }
+
+    /**
+     * Cota superior de los candidatos de una búsqueda: el tamaño de la lista más corta
+     * entre las de sus trigramas. Se calcula sin intersecar nada.
+     * @param query Subcadena buscada
+     * @return Número máximo de candidatos, o -1 si la subcadena es demasiado corta
+     */
+    public int estimateCandidates(String query) {
+        if (query.length() < GRAM) {
+            return -1;
+        }
+        int smallest = Integer.MAX_VALUE;
+        for (Long gram : grams(query)) {
+            IdSet ids = postings.get(gram);
+            smallest = Math.min(smallest, ids == null ? 0 : ids.size());
+        }
+        return smallest;
+    }
+
+    /**
+     * Número de trigramas distintos indexados.
+     * @return Cantidad de listas de ids
+     */
+    public int distinctGrams() {
+        return postings.size();
+    }
+
+    /**
+     * Número de documentos indexados (los que tienen el campo).
+     * @return Cantidad de documentos
+     */
+    public int size() {
+        return documents;
+    }
+
+    @Override
+    public long memoryUsage() {
+        long bytes = MemoryEstimates.OBJECT + MemoryEstimates.hashMap(postings.size());
+        for (IdSet ids : postings.values()) {
+            bytes += MemoryEstimates.BOXED_LONG + ids.memoryUsage();
+        }
+        return bytes;
+    }
+
+    @Override
+    public void clear() {
+        postings.clear();
+        documents = 0;
+    }
+}
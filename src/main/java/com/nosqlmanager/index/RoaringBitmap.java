@@ -0,0 +1,613 @@
+package com.nosqlmanager.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Conjunto comprimido de ids al estilo "roaring bitmap".
+ *
+ * <p>Los ids se reparten en bloques de 2^16 según sus 16 bits altos. Cada bloque guarda
+ * sus 16 bits bajos en el contenedor que menos ocupe: un arreglo ordenado de
+ * {@code char} mientras tiene hasta {@value #ARRAY_LIMIT} elementos (2 bytes por id) o
+ * un mapa de bits de 8 KiB cuando tiene más. Las operaciones AND, OR y AND NOT se hacen
+ * bloque a bloque, por palabras de 64 bits entre mapas de bits y por mezcla entre
+ * arreglos, sin tocar nunca los documentos.</p>
+ *
+ * <p>Los ids negativos también caben: se les invierte el bit de signo para que el orden
+ * de recorrido sea el mismo que el de los enteros.</p>
+ */
+public final class RoaringBitmap {
+
+    /**
+     * Máximo de elementos de un contenedor de arreglo; a partir de ahí un mapa de bits
+     * (1024 palabras) ocupa menos.
+     */
+    static final int ARRAY_LIMIT = 4096;
+
+    private char[] keys = new char[0];
+    private Container[] containers = new Container[0];
+    private int size;
+
+    /**
+     * Crea un conjunto con los ids dados.
+     * @param ids Ids a añadir
+     * @return Conjunto nuevo
+     */
+    public static RoaringBitmap of(int... ids) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int id : ids) {
+            bitmap.add(id);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Crea un conjunto con los ids de una colección.
+     * @param ids Ids a añadir (en cualquier orden)
+     * @return Conjunto nuevo
+     */
+    public static RoaringBitmap of(Collection<Integer> ids) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int id : ids) {
+            bitmap.add(id);
+        }
+        return bitmap;
+    }
+
+    private static char high(int id) {
+        return (char) ((id ^ Integer.MIN_VALUE) >>> 16);
+    }
+
+    private static char low(int id) {
+        return (char) id;
+    }
+
+    private static int id(char high, char low) {
+        return ((high << 16) | low) ^ Integer.MIN_VALUE;
+    }
+
+    private int find(char high) {
+        return Arrays.binarySearch(keys, 0, size, high);
+    }
+
+    /**
+     * Añade un id.
+     * @param id Id a añadir
+     */
+    public void add(int id) {
+        int i = find(high(id));
+        if (i >= 0) {
+            containers[i] = containers[i].add(low(id));
+        } else {
+            insertContainer(-i - 1, high(id), new ArrayContainer().add(low(id)));
+        }
+    }
+
+    /**
+     * Quita un id.
+     * @param id Id a quitar
+     */
+    public void remove(int id) {
+        int i = find(high(id));
+        if (i >= 0) {
+            Container container = containers[i].remove(low(id));
+            if (container.cardinality() == 0) {
+                System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+                System.arraycopy(containers, i + 1, containers, i, size - i - 1);
+                containers[--size] = null;
+            } else {
+                containers[i] = container;
+            }
+        }
+    }
+
+    /**
+     * Verifica si un id está en el conjunto.
+     * @param id Id a buscar
+     * @return true si está
+     */
+    public boolean contains(int id) {
+        int i = find(high(id));
+        return i >= 0 && containers[i].contains(low(id));
+    }
+
+    private void insertContainer(int position, char high, Container container) {
+        if (size == keys.length) {
+            int capacity = Math.max(4, size * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            containers = Arrays.copyOf(containers, capacity);
+        }
+        System.arraycopy(keys, position, keys, position + 1, size - position);
+        System.arraycopy(containers, position, containers, position + 1, size - position);
+        keys[position] = high;
+        containers[position] = container;
+        size++;
+    }
+
+    private void append(char high, Container container) {
+        if (container.cardinality() > 0) {
+            insertContainer(size, high, container);
+        }
+    }
+
+    /**
+     * Intersección de dos conjuntos.
+     * @param a Primer conjunto
+     * @param b Segundo conjunto
+     * @return Conjunto nuevo con los ids que están en ambos
+     */
+    public static RoaringBitmap and(RoaringBitmap a, RoaringBitmap b) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                result.append(a.keys[i], a.containers[i].and(b.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Unión de dos conjuntos.
+     * @param a Primer conjunto
+     * @param b Segundo conjunto
+     * @return Conjunto nuevo con los ids que están en alguno
+     */
+    public static RoaringBitmap or(RoaringBitmap a, RoaringBitmap b) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.size || j < b.size) {
+            if (j == b.size || (i < a.size && a.keys[i] < b.keys[j])) {
+                result.append(a.keys[i], a.containers[i].copy());
+                i++;
+            } else if (i == a.size || a.keys[i] > b.keys[j]) {
+                result.append(b.keys[j], b.containers[j].copy());
+                j++;
+            } else {
+                result.append(a.keys[i], a.containers[i].or(b.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Diferencia de dos conjuntos.
+     * @param a Conjunto del que se quitan ids
+     * @param b Ids a quitar
+     * @return Conjunto nuevo con los ids de {@code a} que no están en {@code b}
+     */
+    public static RoaringBitmap andNot(RoaringBitmap a, RoaringBitmap b) {
+        RoaringBitmap result = new RoaringBitmap();
+        int j = 0;
+        for (int i = 0; i < a.size; i++) {
+            while (j < b.size && b.keys[j] < a.keys[i]) {
+                j++;
+            }
+            if (j < b.size && b.keys[j] == a.keys[i]) {
+                result.append(a.keys[i], a.containers[i].andNot(b.containers[j]));
+            } else {
+                result.append(a.keys[i], a.containers[i].copy());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Número de ids del conjunto.
+     * @return Cardinalidad
+     */
+    public int getCardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += containers[i].cardinality();
+        }
+        return cardinality;
+    }
+
+    /**
+     * Verifica si el conjunto está vacío.
+     * @return true si no tiene ids
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Recorre los ids en orden ascendente.
+     * @param action Acción a ejecutar con cada id
+     */
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            containers[i].forEach(keys[i], action);
+        }
+    }
+
+    /**
+     * Recorre los ids en orden ascendente de forma perezosa: cada bloque de 2^16 ids se
+     * descomprime solo cuando el recorrido llega a él, así que {@code limit} o
+     * {@code findFirst} no tocan los bloques siguientes.
+     * El conjunto no debe modificarse mientras se consume el stream.
+     * @return Stream de los ids
+     */
+    public IntStream stream() {
+        return IntStream.range(0, size).flatMap(i -> {
+            IntStream.Builder block = IntStream.builder();
+            containers[i].forEach(keys[i], block);
+            return block.build();
+        });
+    }
+
+    /**
+     * Copia los ids a una lista, en orden ascendente.
+     * @return Lista nueva con los ids
+     */
+    public List<Integer> toList() {
+        List<Integer> list = new ArrayList<>(getCardinality());
+        forEach(list::add);
+        return list;
+    }
+
+    /**
+     * Copia independiente del conjunto.
+     * @return Conjunto nuevo con los mismos ids
+     */
+    public RoaringBitmap copy() {
+        RoaringBitmap copy = new RoaringBitmap();
+        for (int i = 0; i < size; i++) {
+            copy.append(keys[i], containers[i].copy());
+        }
+        return copy;
+    }
+
+    /**
+     * Bytes aproximados que ocupa el conjunto.
+     * @return Estimación en bytes
+     */
+    public long memoryUsage() {
+        long bytes = MemoryEstimates.OBJECT
+                + MemoryEstimates.array(keys.length, Character.BYTES)
+                + MemoryEstimates.array(containers.length, MemoryEstimates.REFERENCE);
+        for (int i = 0; i < size; i++) {
+            bytes += containers[i].memoryUsage();
+        }
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        return toList().toString();
+    }
+
+    /**
+     * Contenedor de los 16 bits bajos de los ids de un bloque. Las operaciones que
+     * modifican pueden devolver un contenedor de otro tipo si así ocupa menos.
+     */
+    private interface Container {
+        Container add(char value);
+
+        Container remove(char value);
+
+        boolean contains(char value);
+
+        int cardinality();
+
+        Container and(Container other);
+
+        Container or(Container other);
+
+        Container andNot(Container other);
+
+        Container copy();
+
+        void forEach(char high, IntConsumer action);
+
+        long memoryUsage();
+    }
+
+    /**
+     * Contenedor disperso: arreglo ordenado de valores.
+     */
+    private static final class ArrayContainer implements Container {
+        private char[] values;
+        private int cardinality;
+
+        ArrayContainer() {
+            this(new char[4], 0);
+        }
+
+        ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        public Container add(char value) {
+            int i = Arrays.binarySearch(values, 0, cardinality, value);
+            if (i >= 0) {
+                return this;
+            }
+            if (cardinality == ARRAY_LIMIT) {
+                return toBitmap().add(value);
+            }
+            i = -i - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_LIMIT, Math.max(4, cardinality * 2)));
+            }
+            System.arraycopy(values, i, values, i + 1, cardinality - i);
+            values[i] = value;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        public Container remove(char value) {
+            int i = Arrays.binarySearch(values, 0, cardinality, value);
+            if (i >= 0) {
+                System.arraycopy(values, i + 1, values, i, cardinality - i - 1);
+                cardinality--;
+            }
+            return this;
+        }
+
+        @Override
+        public boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        @Override
+        public int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        public Container and(Container other) {
+            char[] result = new char[cardinality];
+            int count = 0;
+            if (other instanceof ArrayContainer array) {
+                int i = 0;
+                int j = 0;
+                while (i < cardinality && j < array.cardinality) {
+                    if (values[i] < array.values[j]) {
+                        i++;
+                    } else if (values[i] > array.values[j]) {
+                        j++;
+                    } else {
+                        result[count++] = values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < cardinality; i++) {
+                    if (other.contains(values[i])) {
+                        result[count++] = values[i];
+                    }
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+
+        @Override
+        public Container or(Container other) {
+            if (other instanceof BitmapContainer) {
+                return other.or(this);
+            }
+            ArrayContainer array = (ArrayContainer) other;
+            char[] result = new char[cardinality + array.cardinality];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < cardinality || j < array.cardinality) {
+                if (j == array.cardinality || (i < cardinality && values[i] < array.values[j])) {
+                    result[count++] = values[i++];
+                } else if (i == cardinality || values[i] > array.values[j]) {
+                    result[count++] = array.values[j++];
+                } else {
+                    result[count++] = values[i];
+                    i++;
+                    j++;
+                }
+            }
+            ArrayContainer union = new ArrayContainer(result, count);
+            return count > ARRAY_LIMIT ? union.toBitmap() : union;
+        }
+
+        @Override
+        public Container andNot(Container other) {
+            char[] result = new char[cardinality];
+            int count = 0;
+            for (int i = 0; i < cardinality; i++) {
+                if (!other.contains(values[i])) {
+                    result[count++] = values[i];
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+
+        @Override
+        public Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, Math.max(cardinality, 1)), cardinality);
+        }
+
+        @Override
+        public void forEach(char high, IntConsumer action) {
+            for (int i = 0; i < cardinality; i++) {
+                action.accept(id(high, values[i]));
+            }
+        }
+
+        @Override
+        public long memoryUsage() {
+            return MemoryEstimates.OBJECT + MemoryEstimates.array(values.length, Character.BYTES);
+        }
+
+        BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < cardinality; i++) {
+                bitmap.set(values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    /**
+     * Contenedor denso: un bit por cada uno de los 2^16 valores posibles.
+     */
+    private static final class BitmapContainer implements Container {
+        private final long[] words;
+        private int cardinality;
+
+        BitmapContainer() {
+            this(new long[1024], 0);
+        }
+
+        BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        void set(char value) {
+            long before = words[value >>> 6];
+            words[value >>> 6] = before | (1L << value);
+            if (before != words[value >>> 6]) {
+                cardinality++;
+            }
+        }
+
+        @Override
+        public Container add(char value) {
+            set(value);
+            return this;
+        }
+
+        @Override
+        public Container remove(char value) {
+            long before = words[value >>> 6];
+            words[value >>> 6] = before & ~(1L << value);
+            if (before != words[value >>> 6]) {
+                cardinality--;
+            }
+            return cardinality <= ARRAY_LIMIT ? toArray() : this;
+        }
+
+        @Override
+        public boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        public int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        public Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            long[] result = new long[1024];
+            int count = 0;
+            for (int w = 0; w < 1024; w++) {
+                result[w] = words[w] & otherWords[w];
+                count += Long.bitCount(result[w]);
+            }
+            return normalize(result, count);
+        }
+
+        @Override
+        public Container or(Container other) {
+            long[] result = words.clone();
+            int count = cardinality;
+            if (other instanceof ArrayContainer array) {
+                for (int i = 0; i < array.cardinality; i++) {
+                    char value = array.values[i];
+                    long before = result[value >>> 6];
+                    result[value >>> 6] = before | (1L << value);
+                    if (before != result[value >>> 6]) {
+                        count++;
+                    }
+                }
+            } else {
+                long[] otherWords = ((BitmapContainer) other).words;
+                count = 0;
+                for (int w = 0; w < 1024; w++) {
+                    result[w] |= otherWords[w];
+                    count += Long.bitCount(result[w]);
+                }
+            }
+            return new BitmapContainer(result, count);
+        }
+
+        @Override
+        public Container andNot(Container other) {
+            long[] result = words.clone();
+            int count = 0;
+            if (other instanceof ArrayContainer array) {
+                count = cardinality;
+                for (int i = 0; i < array.cardinality; i++) {
+                    char value = array.values[i];
+                    long before = result[value >>> 6];
+                    result[value >>> 6] = before & ~(1L << value);
+                    if (before != result[value >>> 6]) {
+                        count--;
+                    }
+                }
+            } else {
+                long[] otherWords = ((BitmapContainer) other).words;
+                for (int w = 0; w < 1024; w++) {
+                    result[w] &= ~otherWords[w];
+                    count += Long.bitCount(result[w]);
+                }
+            }
+            return normalize(result, count);
+        }
+
+        @Override
+        public Container copy() {
+            return new BitmapContainer(words.clone(), cardinality);
+        }
+
+        @Override
+        public void forEach(char high, IntConsumer action) {
+            for (int w = 0; w < 1024; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    action.accept(id(high, (char) ((w << 6) + Long.numberOfTrailingZeros(word))));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        @Override
+        public long memoryUsage() {
+            return MemoryEstimates.OBJECT + MemoryEstimates.array(words.length, Long.BYTES);
+        }
+
+        private static Container normalize(long[] words, int cardinality) {
+            BitmapContainer bitmap = new BitmapContainer(words, cardinality);
+            return cardinality <= ARRAY_LIMIT ? bitmap.toArray() : bitmap;
+        }
+
+        ArrayContainer toArray() {
+            char[] values = new char[Math.max(cardinality, 1)];
+            int[] count = {0};
+            forEach((char) 0, id -> values[count[0]++] = (char) id);
+            return new ArrayContainer(values, cardinality);
+        }
+    }
+}
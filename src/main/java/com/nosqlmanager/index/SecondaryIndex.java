@@ -0,0 +1,56 @@
+package com.nosqlmanager.index;
+
+import com.nosqlmanager.model.JsonDocument;
+
+/**
+ * Índice auxiliar sobre un campo de los documentos.
+ * El gestor lo mantiene al día en cada escritura, con su candado exclusivo tomado.
+ */
+public interface SecondaryIndex {
+
+    /**
+     * Descripción del índice.
+     * @return Campo y tipo del índice
+     */
+    IndexDefinition getDefinition();
+
+    /**
+     * Añade un documento al índice.
+     * @param id Id del documento
+     * @param document Documento a indexar
+     */
+    void add(int id, JsonDocument document);
+
+    /**
+     * Quita un documento del índice.
+     * @param id Id del documento
+     * @param document Versión del documento que se indexó
+     */
+    void remove(int id, JsonDocument document);
+
+    /**
+     * Refleja el cambio de un documento: se quita la versión anterior y se añade la nueva.
+     * @param id Id del documento
+     * @param previous Versión anterior, o null si no existía
+     * @param current Versión nueva, o null si se eliminó
+     */
+    default void update(int id, JsonDocument previous, JsonDocument current) {
+        if (previous != null) {
+            remove(id, previous);
+        }
+        if (current != null) {
+            add(id, current);
+        }
+    }
+
+    /**
+     * Vacía el índice.
+     */
+    void clear();
+
+    /**
+     * Bytes aproximados que ocupa el índice en memoria.
+     * @return Estimación en bytes
+     */
+    long memoryUsage();
+}
@@ -0,0 +1,216 @@
+package com.nosqlmanager.index;
+
+import java.util.Collections;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.function.IntPredicate;
+import java.util.function.ObjIntConsumer;
+
+import com.nosqlmanager.model.FieldPath;
+import com.nosqlmanager.model.JsonDocument;
+import com.nosqlmanager.tree.AVLTree;
+
+/**
+ * Índice secundario ordenado: un árbol AVL que asocia cada valor del campo con el
+ * conjunto ordenado de ids de los documentos que lo tienen.
+ * Responde igualdades en O(log n) y rangos en O(log n + k).
+ */
+public class SortedFieldIndex implements EqualityIndex {
+
+    private final IndexDefinition definition;
+    private final FieldPath path;
+    private final AVLTree<IndexKey, TreeSet<Integer>> tree = new AVLTree<>();
+    private int entries;
+
+    /**
+     * Crea un índice ordenado vacío sobre un campo.
+     * @param field Ruta del campo a indexar (ver {@link FieldPath})
+     */
+    public SortedFieldIndex(String field) {
+        this.definition = new IndexDefinition(field, IndexType.SORTED);
+        this.path = FieldPath.of(field);
+    }
+
+    @Override
+    public IndexDefinition getDefinition() {
+        return definition;
+    }
+
+    @Override
+    public void add(int id, JsonDocument document) {
+        IndexKey key = IndexKey.ofField(document, path);
+        if (key != null) {
+            TreeSet<Integer> ids = tree.search(key).orElse(null);
+            if (ids == null) {
+                ids = new TreeSet<>();
+                tree.insert(key, ids);
+            }
+            if (ids.add(id)) {
+                entries++;
+            }
+        }
+    }
+
+    @Override
+    public void remove(int id, JsonDocument document) {
+        IndexKey key = IndexKey.ofField(document, path);
+        if (key != null) {
+            tree.compute(key, (k, ids) -> {
+                if (ids != null && ids.remove(id)) {
+                    entries--;
+                }
+                return ids == null || ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    @Override
+    public void update(int id, JsonDocument previous, JsonDocument current) {
+        // Si el campo no cambió no hay nada que mover
+        if (previous != null && current != null && IndexKey.sameField(previous, current, path)) {
+            return;
+        }
+        EqualityIndex.super.update(id, previous, current);
+    }
+
+    /**
+     * Ids de los documentos cuyo campo vale exactamente la clave dada.
+     * @param key Valor buscado
+     * @return Ids ordenados (vista de solo lectura)
+     */
+    @Override
+    public SortedSet<Integer> findEquals(IndexKey key) {
+        return tree.search(key)
+                .map(Collections::unmodifiableSortedSet)
+                .orElse(Collections.emptySortedSet());
+    }
+
+    /**
+     * Ids de los documentos cuyo campo está dentro de un rango.
+     * Como el orden separa los tipos, un rango numérico nunca incluye textos ni al revés.
+     * @param from Límite inferior, o null si no hay
+     * @param fromInclusive Si el límite inferior se incluye
+     * @param to Límite superior, o null si no hay
+     * @param toInclusive Si el límite superior se incluye
+     * @return Ids ordenados de los documentos dentro del rango
+     */
+    public SortedSet<Integer> findRange(IndexKey from, boolean fromInclusive, IndexKey to, boolean toInclusive) {
+        IndexKey lower = from == null ? IndexKey.MIN : from;
+        IndexKey upper = to == null ? IndexKey.MAX : to;
+        TreeSet<Integer> result = new TreeSet<>();
+        if (lower.compareTo(upper) > 0) {
+            return result;
+        }
+        for (TreeSet<Integer> ids : tree.getRange(lower, upper)) {
+            result.addAll(ids);
+        }
+        // Cada id está en un único valor, así que quitar los del extremo excluido es exacto
+        if (from != null && !fromInclusive) {
+            tree.search(from).ifPresent(result::removeAll);
+        }
+        if (to != null && !toInclusive) {
+            tree.search(to).ifPresent(result::removeAll);
+        }
+        return result;
+    }
+
+    @Override
+    public int countEquals(IndexKey key) {
+        return tree.search(key).map(TreeSet::size).orElse(0);
+    }
+
+    @Override
+    public void forEachCount(ObjIntConsumer<IndexKey> action) {
+        forEachCount(IndexKey.MIN, IndexKey.MAX, action);
+    }
+
+    /**
+     * Recorre en orden los valores distintos de un rango con cuántos documentos tiene
+     * cada uno. Cuesta O(log n + valores distintos del rango), sin tocar los ids.
+     * @param from Límite inferior (inclusivo)
+     * @param to Límite superior (inclusivo)
+     * @param action Acción a aplicar a cada valor con su número de documentos
+     */
+    public void forEachCount(IndexKey from, IndexKey to, ObjIntConsumer<IndexKey> action) {
+        tree.forEachInRange(from, to, (key, ids) -> action.accept(key, ids.size()));
+    }
+
+    /**
+     * Recorre los ids en el orden de los valores del campo, ascendente o descendente,
+     * hasta que la acción pida parar. Dentro de un mismo valor los ids van siempre en
+     * orden ascendente, como en un orden estable sobre documentos ordenados por id.
+     * Con k ids pedidos cuesta O(log n + k).
+     * @param descending true para empezar por el mayor valor
+     * @param action Acción a aplicar a cada id; devuelve false para parar
+     */
+    public void forEachInOrder(boolean descending, IntPredicate action) {
+        tree.visitInOrder(descending, (key, ids) -> {
+            for (int id : ids) {
+                if (!action.test(id)) {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Estima cuántos documentos caen en un rango sin recorrerlo.
+     * Para rangos numéricos supone que los valores se reparten uniformemente entre el
+     * mínimo y el máximo del índice; para el resto usa la fracción clásica de un tercio.
+     * @param from Límite inferior, o null si no hay (las cotas de tipo valen como sin límite)
+     * @param to Límite superior, o null si no hay
+     * @return Número estimado de documentos
+     */
+    public double estimateRange(IndexKey from, IndexKey to) {
+        IndexKey first = tree.firstKey().orElse(null);
+        IndexKey last = tree.lastKey().orElse(null);
+        if (first == null) {
+            return 0;
+        }
+        if (first.isNumber() && last.isNumber() && (from == null || from.isNumber()) && (to == null || to.isNumber())) {
+            double min = first.number();
+            double max = last.number();
+            double lower = from == null || from.isBound() ? min : Math.max(min, from.number());
+            double upper = to == null || to.isBound() ? max : Math.min(max, to.number());
+            if (lower > upper) {
+                return 0;
+            }
+            // Un rango de un solo valor vale al menos lo que una igualdad media
+            double fraction = max == min ? 1 : (upper - lower) / (max - min);
+            return Math.max(fraction * entries, (double) entries / distinctValues());
+        }
+        return entries / 3.0;
+    }
+
+    /**
+     * Número de valores distintos indexados.
+     * @return Cantidad de claves del árbol
+     */
+    public int distinctValues() {
+        return tree.getSize();
+    }
+
+    /**
+     * Número de documentos indexados (los que tienen el campo con un valor simple).
+     * @return Cantidad de ids en el índice
+     */
+    public int size() {
+        return entries;
+    }
+
+    @Override
+    public long memoryUsage() {
+        long bytes = MemoryEstimates.OBJECT * 2;
+        for (IndexKey key : tree.getAllKeys()) {
+            bytes += MemoryEstimates.AVL_NODE + key.memoryUsage() + MemoryEstimates.TREE_SET;
+        }
+        return bytes + (long) entries * (MemoryEstimates.TREE_ENTRY + MemoryEstimates.BOXED_INT);
+    }
+
+    @Override
+    public void clear() {
+        tree.clear();
+        entries = 0;
+    }
+}
@@ -0,0 +1,75 @@
+package com.nosqlmanager.manager;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Opciones con las que se construye un {@link DatabaseManager}.
+ * Todas tienen un valor por defecto razonable, así que basta con cambiar las que interesen:
+ * <pre>
+ * DatabaseConfig.builder().indexEngine(IndexEngine.BTREE).build()
+ * </pre>
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DatabaseConfig {
+
+    /**
+     * Estructura usada para el índice primario por id. Solo cambia cómo se resuelven
+     * {@code findById} y {@code existsById} y cuánto cuesta cada escritura; el resto de
+     * lecturas usa la instantánea (ver {@link IndexEngine}).
+     */
+    @Builder.Default
+    private IndexEngine indexEngine = IndexEngine.AVL;
+
+    /**
+     * Si es true, se mantiene además una tabla hash por id para que
+     * {@code findById} y {@code existsById} sean O(1). Cuesta algo más de memoria
+     * y un poco de trabajo extra en cada escritura.
+     */
+    @Builder.Default
+    private boolean hashPointLookups = false;
+
+    /**
+     * Si es true, el índice se congela nada más cargar el archivo (ver
+     * {@code DatabaseManager.freeze()}). Pensado para réplicas de solo lectura.
+     */
+    @Builder.Default
+    private boolean freezeOnLoad = false;
+
+    /**
+     * Número de documentos a partir del cual los recorridos completos sin índice
+     * ({@code findByPredicate}, {@code findByField}, {@code find}) se reparten entre
+     * los núcleos del ForkJoinPool común. Por debajo, partir el trabajo cuesta más de
+     * lo que ahorra y se queda en el hilo que llama. {@code Integer.MAX_VALUE} lo desactiva.
+     */
+    @Builder.Default
+    private int parallelScanThreshold = 20_000;
+
+    /**
+     * Máximo de resultados que guarda la caché de consultas por campo
+     * ({@code findByField}, {@code findByFieldEquals}, {@code findByFieldRange}).
+     * Con 0 la caché queda desactivada.
+     */
+    @Builder.Default
+    private int queryCacheEntries = 0;
+
+    /**
+     * Memoria aproximada que pueden ocupar entre todos los resultados de la caché de
+     * consultas. Al pasarse se descartan los usados hace más tiempo.
+     */
+    @Builder.Default
+    private long queryCacheBytes = 16L * 1024 * 1024;
+
+    /**
+     * Configuración por defecto.
+     * @return Una configuración nueva con todos los valores por defecto
+     */
+    public static DatabaseConfig defaults() {
+        return builder().build();
+    }
+}
@@ -2,28 +2,109 @@ package com.nosqlmanager.manager;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiFunction;
+import java.util.function.IntFunction;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.nosqlmanager.index.CompositeFieldIndex;
+import com.nosqlmanager.index.EqualityIndex;
+import com.nosqlmanager.index.FrozenIntIndex;
+import com.nosqlmanager.index.IndexCatalog;
+import com.nosqlmanager.index.IndexDefinition;
+import com.nosqlmanager.index.IndexKey;
+import com.nosqlmanager.index.IndexType;
+import com.nosqlmanager.index.IntHashMap;
+import com.nosqlmanager.index.NgramFieldIndex;
+import com.nosqlmanager.index.RoaringBitmap;
+import com.nosqlmanager.index.SortedFieldIndex;
+import com.nosqlmanager.model.FieldPath;
 import com.nosqlmanager.model.JsonDocument;
-import com.nosqlmanager.tree.AVLTree;
+import com.nosqlmanager.query.AggregateResult;
+import com.nosqlmanager.query.Aggregation;
+import com.nosqlmanager.query.Aggregator;
+import com.nosqlmanager.query.CacheStats;
+import com.nosqlmanager.query.Filter;
+import com.nosqlmanager.query.IndexResolver;
+import com.nosqlmanager.query.MaterializedAggregate;
+import com.nosqlmanager.query.Projection;
+import com.nosqlmanager.query.Query;
+import com.nosqlmanager.query.QueryCache;
+import com.nosqlmanager.query.QueryPlan;
+import com.nosqlmanager.query.QueryPlanner;
+import com.nosqlmanager.query.SortDirection;
+import com.nosqlmanager.query.Summary;
+import com.nosqlmanager.tree.OrderedIndex;
+import com.nosqlmanager.tree.PersistentAVLTree;
 
 /**
  * Gestor principal de la base de datos NoSQL.
  * Utiliza un árbol AVL para indexar documentos JSON por su clave principal (id).
  * Permite operaciones CRUD rápidas y persistencia en archivo JSON.
+ * El motor del índice primario se puede cambiar con {@link DatabaseConfig}
+ * (por ejemplo, un árbol B para colecciones grandes); solo afecta a las búsquedas
+ * puntuales y a las escrituras (ver {@link IndexEngine}).
+ *
+ * <p>Es seguro usarlo desde varios hilos: las escrituras se serializan con el
+ * candado de escritura de un {@link StampedLock}, mientras que las búsquedas
+ * puntuales ({@link #findById}, {@link #existsById}) leen de forma optimista sin
+ * bloquear y solo toman el candado de lectura si un escritor las interrumpió.</p>
+ *
+ * <p>Además, cada escritura publica una versión inmutable del árbol
+ * ({@link PersistentAVLTree}) a través de una referencia atómica. Los recorridos
+ * completos, por rango, las copias de seguridad y la GUI trabajan sobre esa
+ * instantánea consistente sin tomar ningún candado, así que nunca frenan a un
+ * escritor aunque tarden.</p>
+ *
+ * <p>Opcionalmente ({@link DatabaseConfig#isHashPointLookups()}) se mantiene junto
+ * al índice ordenado una tabla hash de ids, y las búsquedas puntuales la consultan
+ * a ella en O(1). Los recorridos ordenados, por rango y la GUI siguen usando el árbol.</p>
+ *
+ * <p>Para réplicas de solo lectura o bases archivadas se puede congelar el índice con
+ * {@link #freeze()}: las búsquedas por id pasan a un arreglo compacto e inmutable
+ * ({@link FrozenIntIndex}) sin ningún candado, hasta que la siguiente escritura lo descongela.</p>
+ *
+ * <p>Los campos que se consultan a menudo se pueden indexar con {@link #createIndex(String)}.
+ * Los índices secundarios se actualizan solos en cada escritura, su definición se guarda
+ * junto al archivo (en {@code <archivo>.indexes}) y su contenido se reconstruye al cargar.</p>
  */
 public class DatabaseManager {
 
     private final File file;
+    private final File indexFile;
     private final ObjectMapper objectMapper;
-    private final AVLTree<Integer, JsonDocument> index;
+    private final OrderedIndex<Integer, JsonDocument> index;
+    private final IntHashMap<JsonDocument> pointIndex;
+    private final StampedLock lock = new StampedLock();
+    private final AtomicReference<PersistentAVLTree<Integer, JsonDocument>> snapshot =
+            new AtomicReference<>(PersistentAVLTree.empty());
+    private volatile FrozenIntIndex<JsonDocument> frozen;
+    private final IndexCatalog secondaryIndexes = new IndexCatalog();
+    private final int parallelScanThreshold;
+    private final QueryCache queryCache;
+    private final Map<String, MaterializedAggregate> materialized = new LinkedHashMap<>();
 
     /**
      * Crea el gestor y carga los datos desde el archivo JSON (si existe).
@@ -32,11 +113,84 @@ public class DatabaseManager {
      * @param filePath Ruta del archivo donde se guardan los datos.
      */
     public DatabaseManager(String filePath) {
+        this(filePath, DatabaseConfig.defaults());
+    }
+
+    /**
+     * Crea el gestor con opciones propias y carga los datos desde el archivo JSON.
+     *
+     * @param filePath Ruta del archivo donde se guardan los datos.
+     * @param config Opciones del gestor, como el motor del índice primario.
+     */
+    public DatabaseManager(String filePath, DatabaseConfig config) {
         this.file = new File(filePath);
+        this.indexFile = new File(filePath + ".indexes");
         this.objectMapper = new ObjectMapper();
         this.objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
-        this.index = new AVLTree<>();
+        this.index = config.getIndexEngine().create();
+        this.pointIndex = config.isHashPointLookups() ? new IntHashMap<>() : null;
+        this.parallelScanThreshold = config.getParallelScanThreshold();
+        this.queryCache = config.getQueryCacheEntries() > 0
+                ? new QueryCache(config.getQueryCacheEntries(), config.getQueryCacheBytes()) : null;
         loadFromFile();
+        loadIndexDefinitions();
+        if (config.isFreezeOnLoad()) {
+            freezeSnapshot();
+        }
+    }
+
+    /**
+     * Ejecuta una lectura corta primero de forma optimista, sin bloquear a nadie.
+     * Si un escritor modificó el árbol mientras tanto (o la lectura tropezó con un
+     * estado intermedio), se repite con el candado de lectura.
+     *
+     * @param reader La lectura a ejecutar sobre el índice.
+     * @return El resultado de la lectura, consistente con alguna escritura completa.
+     */
+    private <T> T optimisticRead(Supplier<T> reader) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                T result = reader.get();
+                if (lock.validate(stamp)) {
+                    return result;
+                }
+            } catch (RuntimeException e) {
+                // Lectura inconsistente por una escritura concurrente: se reintenta bloqueando
+            }
+        }
+        return sharedRead(reader);
+    }
+
+    /**
+     * Ejecuta una lectura con el candado de lectura compartido.
+     * Se usa cuando la lectura optimista falló o no conviene repetirla.
+     *
+     * @param reader La lectura a ejecutar sobre el índice.
+     * @return El resultado de la lectura.
+     */
+    private <T> T sharedRead(Supplier<T> reader) {
+        long stamp = lock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Ejecuta una modificación con el candado de escritura exclusivo.
+     *
+     * @param writer La modificación a ejecutar sobre el índice y el archivo.
+     * @return El resultado de la modificación.
+     */
+    private <T> T exclusiveWrite(Supplier<T> writer) {
+        long stamp = lock.writeLock();
+        try {
+            return writer.get();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
     /**
@@ -49,26 +203,167 @@ public class DatabaseManager {
                 List<JsonDocument> documents = objectMapper.readValue(file, new TypeReference<List<JsonDocument>>() {});
                 for (JsonDocument doc : documents) {
                     index.insert(doc.getId(), doc);
+                    if (pointIndex != null) {
+                        pointIndex.put(doc.getId(), doc);
+                    }
                 }
             } catch (IOException e) {
                 // Si hay error, el árbol queda vacío
             }
         }
+        rebuildSnapshot();
+    }
+
+    /**
+     * Lee las definiciones de los índices secundarios y los llena con los documentos cargados.
+     * Si el archivo de índices no existe o no se puede leer, se arranca sin índices.
+     */
+    private void loadIndexDefinitions() {
+        if (indexFile.exists() && indexFile.length() > 0) {
+            try {
+                List<IndexDefinition> definitions = objectMapper.readValue(indexFile, new TypeReference<List<IndexDefinition>>() {});
+                List<JsonDocument> documents = snapshot.get().getAllValues();
+                for (IndexDefinition definition : definitions) {
+                    secondaryIndexes.create(definition, documents);
+                }
+            } catch (IOException e) {
+                // Sin índices: las búsquedas por campo recorren todos los documentos
+            }
+        }
+    }
+
+    /**
+     * Guarda las definiciones de los índices secundarios (no su contenido).
+     * Si no queda ninguno, borra el archivo de índices.
+     */
+    private void saveIndexDefinitions() {
+        try {
+            if (secondaryIndexes.isEmpty()) {
+                Files.deleteIfExists(indexFile.toPath());
+            } else {
+                objectMapper.writeValue(indexFile, secondaryIndexes.getDefinitions());
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error al guardar los índices: " + e.getMessage(), e);
+        }
     }
 
     /**
      * Guarda todos los documentos actuales en el archivo JSON.
      * Así, nada se pierde si cierras el programa.
+     * Se llama siempre con el candado de escritura tomado y la instantánea ya publicada.
      */
     private void saveToFile() {
         try {
-            List<JsonDocument> documents = getAllDocuments();
-            objectMapper.writeValue(file, documents);
+            writeSnapshot(file);
         } catch (IOException e) {
             throw new RuntimeException("Error al guardar en archivo: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Escribe la instantánea actual en un archivo JSON.
+     *
+     * @param target El archivo de destino.
+     * @throws IOException Si no se puede escribir.
+     */
+    private void writeSnapshot(File target) throws IOException {
+        objectMapper.writeValue(target, snapshot.get().getAllValues());
+    }
+
+    /**
+     * Propaga una modificación del índice primario a las demás estructuras:
+     * publica una nueva versión de la instantánea, actualiza la tabla hash y los índices
+     * secundarios y las vistas materializadas si existen, descarta los resultados de
+     * la caché que cambian y descongela el índice si estaba congelado.
+     * Solo la llaman los escritores, que ya tienen el candado exclusivo.
+     *
+     * @param id El id que se modificó.
+     * @param document El documento nuevo, o null si se eliminó.
+     */
+    private void publish(Integer id, JsonDocument document) {
+        frozen = null;
+        PersistentAVLTree<Integer, JsonDocument> current = snapshot.get();
+        // La instantánea todavía guarda la versión anterior del documento
+        JsonDocument previous = secondaryIndexes.isEmpty() && materialized.isEmpty() && queryCache == null
+                ? null : current.search(id).orElse(null);
+        if (!secondaryIndexes.isEmpty()) {
+            secondaryIndexes.update(id, previous, document);
+        }
+        for (MaterializedAggregate view : materialized.values()) {
+            view.update(previous, document);
+        }
+        snapshot.set(document == null ? current.delete(id) : current.insert(id, document));
+        if (queryCache != null) {
+            // Después de publicar: una consulta que leyó la versión vieja ya no puede guardarse
+            queryCache.invalidate(previous, document);
+        }
+        if (pointIndex != null) {
+            if (document == null) {
+                pointIndex.remove(id);
+            } else {
+                pointIndex.put(id, document);
+            }
+        }
+    }
+
+    /**
+     * Publica una escritura en bloque: la nueva instantánea (ya calculada con split/join)
+     * y, documento por documento, los índices y las vistas, así que cuesta lo que
+     * cambian los m documentos y no lo que mide la base.
+     *
+     * @param ids Ids tocados.
+     * @param previous Versión anterior de cada uno, o null si no existía.
+     * @param documents Versión nueva de cada uno, o null si se eliminó.
+     * @param next La instantánea con todos los cambios.
+     */
+    private void publishAll(List<Integer> ids, List<JsonDocument> previous, List<JsonDocument> documents,
+                            PersistentAVLTree<Integer, JsonDocument> next) {
+        frozen = null;
+        for (int i = 0; i < ids.size(); i++) {
+            JsonDocument before = previous.get(i);
+            JsonDocument after = documents.get(i);
+            if (before == null && after == null) {
+                continue;
+            }
+            secondaryIndexes.update(ids.get(i), before, after);
+            for (MaterializedAggregate view : materialized.values()) {
+                view.update(before, after);
+            }
+        }
+        snapshot.set(next);
+        if (queryCache != null) {
+            // Revisar cada resultado contra m documentos saldría más caro que vaciarla
+            queryCache.invalidateAll();
+        }
+        if (pointIndex != null) {
+            for (int i = 0; i < ids.size(); i++) {
+                if (documents.get(i) == null) {
+                    pointIndex.remove(ids.get(i));
+                } else {
+                    pointIndex.put(ids.get(i), documents.get(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * Vuelve a construir la instantánea desde el índice primario en O(n).
+     * Se usa tras la carga; las operaciones masivas pasan por {@link #publishAll}.
+     */
+    private void rebuildSnapshot() {
+        frozen = null;
+        List<JsonDocument> documents = index.getAllValues();
+        snapshot.set(PersistentAVLTree.ofSorted(index.getAllKeys(), documents));
+        secondaryIndexes.rebuild(documents);
+        for (MaterializedAggregate view : materialized.values()) {
+            view.rebuild(documents);
+        }
+        if (queryCache != null) {
+            queryCache.invalidateAll();
+        }
+    }
+
     /**
      * Guarda un documento nuevo o actualiza uno que ya existe.
      * Lo mete al árbol y lo deja guardado en el archivo.
@@ -79,74 +374,684 @@ public class DatabaseManager {
         if (document == null || document.getId() == null) {
             throw new IllegalArgumentException("El documento y su ID no pueden ser nulos");
         }
-        index.insert(document.getId(), document);
-        saveToFile();
+        exclusiveWrite(() -> {
+            index.insert(document.getId(), document);
+            publish(document.getId(), document);
+            saveToFile();
+            return null;
+        });
     }
 
     /**
      * Busca un documento por su clave (id) usando el árbol AVL.
-     * Es muy rápido incluso con muchos datos.
+     * Es muy rápido incluso con muchos datos, y no bloquea a otros lectores.
      *
      * @param id La clave principal del documento.
      * @return El documento si existe, o vacío si no.
      */
     public Optional<JsonDocument> findById(Integer id) {
-        return index.search(id);
+        FrozenIntIndex<JsonDocument> frozenIndex = frozen;
+        if (frozenIndex != null) {
+            return Optional.ofNullable(frozenIndex.get(id));
+        }
+        if (pointIndex != null) {
+            return optimisticRead(() -> Optional.ofNullable(pointIndex.get(id)));
+        }
+        return optimisticRead(() -> index.search(id));
+    }
+
+    /**
+     * Busca muchos documentos por id de una sola vez.
+     * Ordena los ids y recorre el árbol una única vez compartiendo el camino entre ids
+     * vecinos, lo que sale mucho más barato que llamar a {@link #findById} por cada uno.
+     *
+     * @param ids Los ids a buscar (pueden venir desordenados o repetidos).
+     * @return Mapa id → documento en el orden en que se pidieron; los ids que no
+     *         existen simplemente no aparecen.
+     */
+    public Map<Integer, JsonDocument> findByIds(Collection<Integer> ids) {
+        FrozenIntIndex<JsonDocument> frozenIndex = frozen;
+        if (frozenIndex != null) {
+            Map<Integer, JsonDocument> results = new LinkedHashMap<>();
+            for (Integer id : ids) {
+                JsonDocument doc = frozenIndex.get(id);
+                if (doc != null) {
+                    results.put(id, doc);
+                }
+            }
+            return results;
+        }
+        List<Integer> sorted = ids.stream().distinct().sorted().toList();
+        List<JsonDocument> found = snapshot.get().searchAll(sorted);
+
+        Map<Integer, JsonDocument> byId = new LinkedHashMap<>();
+        for (int i = 0; i < sorted.size(); i++) {
+            if (found.get(i) != null) {
+                byId.put(sorted.get(i), found.get(i));
+            }
+        }
+        Map<Integer, JsonDocument> results = new LinkedHashMap<>();
+        for (Integer id : ids) {
+            JsonDocument doc = byId.get(id);
+            if (doc != null) {
+                results.put(id, doc);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Busca los documentos cuyo id está entre dos valores, ambos incluidos.
+     * Solo recorre la parte del árbol que cae dentro del rango.
+     *
+     * @param fromId El id más pequeño a incluir.
+     * @param toId El id más grande a incluir.
+     * @return Lista de documentos dentro del rango, ordenados por id.
+     */
+    public List<JsonDocument> findByIdRange(Integer fromId, Integer toId) {
+        FrozenIntIndex<JsonDocument> frozenIndex = frozen;
+        if (frozenIndex != null) {
+            return frozenIndex.range(fromId, toId);
+        }
+        return snapshot.get().getRange(fromId, toId);
+    }
+
+    /**
+     * Igual que {@link #findByIdRange(Integer, Integer)}, pero entrega los documentos a
+     * medida que se piden en lugar de juntarlos en una lista. Va directo al primer id
+     * del rango y, si cortas el stream (con {@code limit} o {@code findFirst}), no
+     * recorre el resto.
+     *
+     * @param fromId El id más pequeño a incluir.
+     * @param toId El id más grande a incluir.
+     * @return Stream de los documentos del rango, ordenados por id.
+     */
+    public Stream<JsonDocument> streamByIdRange(Integer fromId, Integer toId) {
+        return StreamSupport.stream(snapshot.get().rangeSpliterator(fromId, toId), false);
     }
 
     /**
      * Busca documentos que cumplan cualquier condición que tú definas.
      * Por ejemplo, puedes buscar todos los que tengan "ciudad = Bogotá".
+     * Con muchos documentos (ver {@link DatabaseConfig#getParallelScanThreshold()}) el
+     * árbol se reparte por subárboles entre los núcleos y los resultados se juntan en
+     * orden de id, así que la condición tiene que poder evaluarse desde varios hilos.
      *
      * @param predicate Una función que dice si un documento cumple el criterio.
      * @return Lista de documentos que cumplen lo que pidas.
      */
     public List<JsonDocument> findByPredicate(Predicate<JsonDocument> predicate) {
+        // Se recorre la instantánea directamente, sin copiar antes todos los documentos
+        PersistentAVLTree<Integer, JsonDocument> current = snapshot.get();
+        if (current.getSize() >= parallelScanThreshold) {
+            return StreamSupport.stream(current.spliterator(), true)
+                    .filter(predicate)
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
         List<JsonDocument> results = new ArrayList<>();
-        for (JsonDocument doc : getAllDocuments()) {
+        current.spliterator().forEachRemaining(doc -> {
             if (predicate.test(doc)) {
                 results.add(doc);
             }
-        }
+        });
         return results;
     }
 
+    /**
+     * Igual que {@link #findByPredicate(Predicate)}, pero perezoso: la condición se
+     * revisa documento a documento a medida que consumes el stream. Con
+     * {@code findFirst}, {@code anyMatch} o {@code limit} se deja de buscar en cuanto
+     * hay suficiente, y la memoria no crece con el número de resultados.
+     *
+     * @param predicate Una función que dice si un documento cumple el criterio.
+     * @return Stream de los documentos que cumplen, ordenados por id.
+     */
+    public Stream<JsonDocument> streamByPredicate(Predicate<JsonDocument> predicate) {
+        return stream().filter(predicate);
+    }
+
+    /**
+     * Busca documentos que cumplan una condición estructurada ({@link Filter}).
+     * Como el gestor puede leer la condición, la resuelve con los índices siempre que
+     * le sale más barato: con índices de mapas de bits ({@link IndexType#BITMAP}) sobre
+     * campos como ciudad o estado, {@code and}, {@code or} y {@code not} son operaciones
+     * entre mapas de bits y ni siquiera se miran los documentos que no cumplen.
+     *
+     * @param filter La condición a cumplir.
+     * @return Documentos que la cumplen, ordenados por id.
+     */
+    public List<JsonDocument> find(Filter filter) {
+        return find(Query.where(filter));
+    }
+
+    /**
+     * Ejecuta una consulta: condición, orden, límite y campos a devolver.
+     * Tú dices qué quieres y el planificador decide cómo buscarlo: un rango de ids si la
+     * condición acota {@code _id}, los índices secundarios si descartan suficientes
+     * documentos, o revisarlos todos si nada ayuda. Con {@link #explain(Query)} puedes
+     * ver qué eligió y por qué.
+     *
+     * @param query La consulta.
+     * @return Documentos que cumplen la condición, ya ordenados, limitados y proyectados.
+     */
+    public List<JsonDocument> find(Query query) {
+        return stream(query, true).toList();
+    }
+
+    /**
+     * Igual que {@link #find(Query)}, pero perezoso: los documentos se buscan a medida
+     * que consumes el stream, así que el límite de la consulta, {@code findFirst} o
+     * {@code anyMatch} cortan la búsqueda. Solo ordenar por un campo obliga a ver
+     * todos los resultados antes de entregar el primero.
+     *
+     * @param query La consulta.
+     * @return Stream del resultado de la consulta.
+     */
+    public Stream<JsonDocument> stream(Query query) {
+        return stream(query, false);
+    }
+
+    /**
+     * Ejecuta una consulta como stream.
+     *
+     * @param query La consulta.
+     * @param parallelScan true para repartir los recorridos grandes entre varios núcleos.
+     * @return Stream del resultado de la consulta.
+     */
+    private Stream<JsonDocument> stream(Query query, boolean parallelScan) {
+        // El plan y los ids de los índices se sacan con el candado de lectura, para que
+        // coincidan con la instantánea; el recorrido de la instantánea ya no lo necesita
+        Supplier<Stream<JsonDocument>> access = sharedRead(() -> {
+            PersistentAVLTree<Integer, JsonDocument> current = snapshot.get();
+            // Congelado, el índice congelado es una copia exacta de esta instantánea
+            FrozenIntIndex<JsonDocument> frozenIndex = frozen;
+            IntFunction<JsonDocument> byId = frozenIndex != null ? frozenIndex::get
+                    : id -> current.search(id).orElse(null);
+            QueryPlan plan = new QueryPlanner(secondaryIndexes, current).plan(query);
+            boolean parallel = parallelScan && plan.getExaminedRows() >= parallelScanThreshold;
+            Predicate<JsonDocument> matches = query.predicate();
+            return switch (plan.getAccess()) {
+                case INDEX -> {
+                    IndexResolver.Candidates candidates = resolve(query.getFilter());
+                    if (candidates == null) {
+                        yield () -> StreamSupport.stream(current.spliterator(), parallel).filter(matches);
+                    }
+                    // Los mapas de bits de un índice cambian con las escrituras: se copian
+                    RoaringBitmap ids = candidates.ids().copy();
+                    Stream<JsonDocument> documents = ids.stream()
+                            .mapToObj(byId)
+                            .filter(Objects::nonNull);
+                    yield candidates.exact() ? () -> documents : () -> documents.filter(matches);
+                }
+                case ID_RANGE -> () -> StreamSupport.stream(
+                        current.rangeSpliterator(plan.getIdFrom(), plan.getIdTo()), parallel).filter(matches);
+                case ID_LOOKUP -> () -> plan.getIds().stream()
+                        .map(byId::apply)
+                        .filter(doc -> doc != null && matches.test(doc));
+                case FULL_SCAN -> () -> StreamSupport.stream(current.spliterator(), parallel).filter(matches);
+                case INDEX_ORDER -> indexOrder(query, current, matches);
+            };
+        });
+        return query.shape(access.get());
+    }
+
+    /**
+     * Primeros documentos de una consulta con orden y límite, sacados en orden de un
+     * índice ordenado: se recorre el índice en el sentido pedido, se revisa la condición
+     * en cada documento y se para al llegar al límite, sin ordenar nada.
+     * Se llama con el candado de lectura, porque el índice cambia con las escrituras.
+     *
+     * @param query La consulta, con orden por un campo indexado y límite.
+     * @param current La instantánea que corresponde al índice.
+     * @param matches La condición de la consulta.
+     * @return Los documentos en el orden de la consulta.
+     */
+    private Supplier<Stream<JsonDocument>> indexOrder(Query query, PersistentAVLTree<Integer, JsonDocument> current,
+                                                      Predicate<JsonDocument> matches) {
+        SortedFieldIndex sorted = secondaryIndexes.sorted(query.getSortField());
+        int limit = query.getLimit();
+        List<JsonDocument> top = new ArrayList<>();
+        if (limit > 0) {
+            sorted.forEachInOrder(query.getDirection() == SortDirection.DESC, id -> {
+                JsonDocument doc = current.search(id).orElse(null);
+                if (doc != null && matches.test(doc)) {
+                    top.add(doc);
+                }
+                return top.size() < limit;
+            });
+        }
+        if (top.size() >= limit) {
+            return top::stream;
+        }
+        // Los documentos sin el campo no están en el índice y van al final, por id
+        FieldPath path = FieldPath.of(query.getSortField());
+        return () -> Stream.concat(top.stream(), StreamSupport.stream(current.spliterator(), false)
+                .filter(doc -> IndexKey.ofField(doc, path) == null && matches.test(doc))
+                .limit(limit - top.size()));
+    }
+
+    /**
+     * Muestra cómo se ejecutaría una consulta sin ejecutarla: el acceso elegido, las
+     * filas y el coste estimados, y las alternativas descartadas.
+     * Usa {@link QueryPlan#explain()} para verlo como texto.
+     *
+     * @param query La consulta.
+     * @return El plan elegido.
+     */
+    public QueryPlan explain(Query query) {
+        return sharedRead(() -> new QueryPlanner(secondaryIndexes, snapshot.get()).plan(query));
+    }
+
+    /**
+     * Calcula una agregación: conteo, suma, mínimo, máximo y media, en total o por grupos.
+     * Por ejemplo {@code Aggregation.count().where(Filter.gt("codigo", 100))} o
+     * {@code Aggregation.of("codigo").groupBy("nombre")} (el promedio de cada grupo
+     * sale de {@link Summary#getAverage()}).
+     * Si los índices bastan para responder (ver {@link Aggregator}) no se lee ningún
+     * documento; si no, se resume en una sola pasada sobre los documentos que elige el
+     * planificador, repartida entre varios núcleos si son muchos.
+     *
+     * @param aggregation La agregación.
+     * @return El resumen total y el de cada grupo.
+     */
+    public AggregateResult aggregate(Aggregation aggregation) {
+        AggregateResult indexed = sharedRead(() -> new Aggregator(secondaryIndexes, snapshot.get()).fromIndexes(aggregation));
+        if (indexed != null) {
+            return indexed;
+        }
+        return stream(aggregation.toQuery(), true).collect(Aggregator.collector(aggregation));
+    }
+
+    /**
+     * Cuenta los documentos que cumplen una condición, sin traerlos si los índices
+     * la resuelven exactamente.
+     *
+     * @param filter La condición, o null para contar todos.
+     * @return Número de documentos que la cumplen.
+     */
+    public long count(Filter filter) {
+        return aggregate(Aggregation.count().where(filter)).getTotal().getCount();
+    }
+
+    /**
+     * Registra una vista materializada: una agregación que se calcula una vez y luego
+     * se mantiene al día en cada {@code save}, {@code update} o {@code deleteById}
+     * (O(log n) por escritura), así que leerla con {@link #getMaterialized(String)}
+     * no recorre nada. Sirve para los resúmenes que se piden todo el rato, como los
+     * conteos por categoría o la suma de un campo.
+     * Las vistas viven en memoria: no se guardan en el archivo y hay que registrarlas
+     * de nuevo al abrir la base.
+     *
+     * @param name Nombre de la vista.
+     * @param aggregation La agregación a mantener.
+     * @return true si se registró, false si ya había una vista con ese nombre.
+     */
+    public boolean materialize(String name, Aggregation aggregation) {
+        return exclusiveWrite(() -> {
+            if (materialized.containsKey(name)) {
+                return false;
+            }
+            MaterializedAggregate view = new MaterializedAggregate(name, aggregation);
+            view.rebuild(snapshot.get().getAllValues());
+            materialized.put(name, view);
+            return true;
+        });
+    }
+
+    /**
+     * Lee el resultado actual de una vista materializada, sin recorrer documentos.
+     *
+     * @param name Nombre de la vista.
+     * @return El resultado, o vacío si no hay una vista con ese nombre.
+     */
+    public Optional<AggregateResult> getMaterialized(String name) {
+        return sharedRead(() -> Optional.ofNullable(materialized.get(name)).map(MaterializedAggregate::result));
+    }
+
+    /**
+     * Elimina una vista materializada.
+     *
+     * @param name Nombre de la vista.
+     * @return true si existía.
+     */
+    public boolean dropMaterialized(String name) {
+        return exclusiveWrite(() -> materialized.remove(name) != null);
+    }
+
+    /**
+     * Resuelve una condición con los índices secundarios.
+     * Se llama con el candado de lectura.
+     *
+     * @param filter La condición.
+     * @return Los ids candidatos, o null si los índices no la pueden resolver.
+     */
+    private IndexResolver.Candidates resolve(Filter filter) {
+        return new IndexResolver(secondaryIndexes, () -> RoaringBitmap.of(snapshot.get().getAllKeys())).resolve(filter);
+    }
+
     /**
      * Busca documentos donde un campo específico contenga cierto texto.
-     * Por ejemplo, todos los que tengan "nombre" que contenga "Juan".
+     * Por ejemplo, todos los que tengan "nombre" que contenga "Juan". El campo también
+     * puede estar anidado: {@code "direccion.ciudad"} o {@code "/telefonos/0"} (ver {@link FieldPath}).
+     * Si el campo tiene índice de trigramas ({@link IndexType#NGRAM}) y el texto tiene
+     * al menos tres caracteres, solo se revisan los documentos que tienen todos sus trigramas.
      *
      * @param fieldName El nombre del campo a buscar.
      * @param value El texto que debe contener ese campo.
      * @return Lista de documentos que coinciden.
      */
     public List<JsonDocument> findByField(String fieldName, String value) {
-        return findByPredicate(doc -> {
-            JsonNode data = doc.getData();
-            if (data == null) return false;
-            JsonNode field = data.get(fieldName);
+        Predicate<JsonDocument> matches = textContains(fieldName, value);
+        return cached(cacheKey("contains", fieldName, value), matches, () -> {
+            Stream<JsonDocument> indexed = ngramSearch(fieldName, value);
+            return indexed != null ? indexed.collect(Collectors.toCollection(ArrayList::new))
+                    : findByPredicate(matches);
+        });
+    }
+
+    /**
+     * Como {@link #findByField(String, String)}, pero cada resultado trae solo algunos
+     * campos (ver {@link Projection}). Con documentos anchos ahorra copiar y serializar
+     * lo que no se va a mostrar.
+     *
+     * @param fieldName El nombre del campo a buscar.
+     * @param value El texto que debe contener ese campo.
+     * @param fields Los campos a devolver de cada documento; el id se conserva siempre.
+     * @return Lista de documentos que coinciden, con solo esos campos.
+     */
+    public List<JsonDocument> findByField(String fieldName, String value, List<String> fields) {
+        Projection projection = Projection.of(fields);
+        return findByField(fieldName, value).stream().map(projection::apply).toList();
+    }
+
+    /**
+     * Igual que {@link #findByField(String, String)}, pero perezoso: los documentos se
+     * revisan a medida que consumes el stream.
+     *
+     * @param fieldName El nombre del campo a buscar.
+     * @param value El texto que debe contener ese campo.
+     * @return Stream de los documentos que coinciden, ordenados por id.
+     */
+    public Stream<JsonDocument> streamByField(String fieldName, String value) {
+        Stream<JsonDocument> indexed = ngramSearch(fieldName, value);
+        return indexed != null ? indexed : streamByPredicate(textContains(fieldName, value));
+    }
+
+    /**
+     * Condición de {@link #findByField(String, String)}: el texto del campo contiene el valor.
+     */
+    private static Predicate<JsonDocument> textContains(String fieldName, String value) {
+        FieldPath path = FieldPath.of(fieldName);
+        return doc -> {
+            JsonNode field = path.resolve(doc);
             if (field == null) return false;
             return field.asText().contains(value);
+        };
+    }
+
+    /**
+     * Busca con el índice de trigramas del campo, si lo tiene y el texto es bastante largo.
+     *
+     * @return Stream de los documentos que coinciden, o null si el índice no sirve.
+     */
+    private Stream<JsonDocument> ngramSearch(String fieldName, String value) {
+        Predicate<JsonDocument> matches = textContains(fieldName, value);
+        return sharedRead(() -> {
+            NgramFieldIndex ngram = secondaryIndexes.ngram(fieldName);
+            List<Integer> candidates = ngram == null ? null : ngram.candidates(value);
+            if (candidates == null) {
+                return null;
+            }
+            PersistentAVLTree<Integer, JsonDocument> current = snapshot.get();
+            return candidates.stream().map(id -> current.search(id).orElse(null))
+                    .filter(doc -> doc != null && matches.test(doc));
         });
     }
 
     /**
      * Busca documentos donde un campo sea exactamente igual a un valor.
-     * Por ejemplo, todos los que tengan "ciudad" igual a "Bogotá".
+     * Por ejemplo, todos los que tengan "ciudad" igual a "Bogotá". Acepta rutas anidadas
+     * como {@code "direccion.ciudad"}.
+     * Si el campo tiene índice (hash u ordenado), solo se revisan los candidatos que da el índice.
+     * Se compara el texto del campo, así que {@code ""} también encuentra los campos que
+     * son objetos o arreglos; esa búsqueda siempre recorre todos los documentos.
      *
      * @param fieldName El nombre del campo a buscar.
      * @param value El valor exacto que debe tener ese campo.
      * @return Lista de documentos que coinciden exactamente.
      */
     public List<JsonDocument> findByFieldEquals(String fieldName, String value) {
-        return findByPredicate(doc -> {
-            JsonNode data = doc.getData();
-            if (data == null) return false;
-            JsonNode field = data.get(fieldName);
+        FieldPath path = FieldPath.of(fieldName);
+        Predicate<JsonDocument> matches = doc -> {
+            JsonNode field = path.resolve(doc);
             if (field == null) return false;
             return field.asText().equals(value);
+        };
+        return cached(cacheKey("equals", fieldName, value), matches, () -> {
+            List<JsonDocument> indexed = sharedRead(() -> {
+                EqualityIndex equality = secondaryIndexes.equality(fieldName);
+                // El texto de un objeto o un arreglo es "", pero esos valores no se
+                // indexan: para "" se recorre todo, como sin índice
+                if (equality == null || value.isEmpty()) {
+                    return null;
+                }
+                // Se compara el texto del campo, así que "100" puede venir de un texto, un
+                // número o un booleano (y "null", de un null de JSON): se juntan los
+                // candidatos de cada tipo y se confirma
+                SortedSet<Integer> ids = new TreeSet<>(equality.findEquals(IndexKey.ofValue(value)));
+                try {
+                    ids.addAll(equality.findEquals(IndexKey.ofValue(Double.parseDouble(value))));
+                } catch (NumberFormatException e) {
+                    // No es un número
+                }
+                if (value.equals("true") || value.equals("false")) {
+                    ids.addAll(equality.findEquals(IndexKey.ofValue(Boolean.parseBoolean(value))));
+                }
+                if (value.equals("null")) {
+                    ids.addAll(equality.findEquals(IndexKey.ofValue(null)));
+                }
+                return fetch(ids).stream().filter(matches).collect(Collectors.toCollection(ArrayList::new));
+            });
+            return indexed != null ? indexed : findByPredicate(matches);
+        });
+    }
+
+    /**
+     * Busca documentos cuyo campo esté entre dos valores, ambos incluidos.
+     * Números y textos no se mezclan: {@code findByFieldRange("codigo", 100, 300)}
+     * solo devuelve documentos con un código numérico entre 100 y 300. Si falta uno de
+     * los límites, el rango sigue limitado al tipo del otro: desde 100 sin máximo son
+     * todos los números desde 100, pero ningún texto.
+     * Con índice sobre el campo va directo al rango; sin él revisa todos los documentos.
+     *
+     * @param fieldName El nombre del campo.
+     * @param from Valor mínimo (número, texto o booleano), o null para no poner mínimo.
+     * @param to Valor máximo, o null para no poner máximo. Si ambos son null, se
+     *           devuelven todos los documentos con un valor simple en el campo.
+     * @return Documentos dentro del rango, ordenados por id.
+     */
+    public List<JsonDocument> findByFieldRange(String fieldName, Object from, Object to) {
+        IndexKey lower = from != null ? IndexKey.ofValue(from)
+                : to != null ? IndexKey.ofValue(to).lowestOfType() : null;
+        IndexKey upper = to != null ? IndexKey.ofValue(to)
+                : from != null ? IndexKey.ofValue(from).highestOfType() : null;
+        IndexKey min = lower == null ? IndexKey.MIN : lower;
+        IndexKey max = upper == null ? IndexKey.MAX : upper;
+        FieldPath path = FieldPath.of(fieldName);
+        Predicate<JsonDocument> inRange = doc -> {
+            IndexKey key = IndexKey.ofField(doc, path);
+            return key != null && key.compareTo(min) >= 0 && key.compareTo(max) <= 0;
+        };
+        return cached(cacheKey("range", fieldName, min, max), inRange, () -> {
+            List<JsonDocument> indexed = sharedRead(() -> {
+                SortedFieldIndex sorted = secondaryIndexes.sorted(fieldName);
+                return sorted == null ? null : fetch(sorted.findRange(lower, true, upper, true));
+            });
+            return indexed != null ? indexed : findByPredicate(inRange);
+        });
+    }
+
+    /**
+     * Clave de la caché de consultas: la misma ruta escrita con puntos o como JSON
+     * Pointer da la misma clave.
+     */
+    private static QueryCache.Key cacheKey(String operation, String fieldName, Object... arguments) {
+        return new QueryCache.Key(operation, FieldPath.of(fieldName).toPointer(), List.of(arguments));
+    }
+
+    /**
+     * Responde una consulta desde la caché si está activada y ya tiene el resultado;
+     * si no, la ejecuta y guarda el resultado.
+     *
+     * @param key La consulta normalizada.
+     * @param matches La condición de la consulta, para saber qué escrituras la cambian.
+     * @param search La búsqueda real.
+     * @return El resultado, una lista propia que se puede modificar.
+     */
+    private List<JsonDocument> cached(QueryCache.Key key, Predicate<JsonDocument> matches,
+                                      Supplier<List<JsonDocument>> search) {
+        if (queryCache == null) {
+            return search.get();
+        }
+        // La caché guarda una lista inmutable compartida; quien llama recibe su copia
+        List<JsonDocument> hit = queryCache.get(key);
+        if (hit != null) {
+            return new ArrayList<>(hit);
+        }
+        long version = queryCache.version();
+        List<JsonDocument> results = List.copyOf(search.get());
+        queryCache.put(key, version, results, matches);
+        return new ArrayList<>(results);
+    }
+
+    /**
+     * Métricas de la caché de resultados: aciertos, fallos, descartes y memoria.
+     * Si la caché está desactivada (ver {@link DatabaseConfig#getQueryCacheEntries()})
+     * todo vale cero.
+     *
+     * @return Foto de las métricas.
+     */
+    public CacheStats getQueryCacheStats() {
+        return queryCache == null ? CacheStats.builder().build() : queryCache.getStats();
+    }
+
+    /**
+     * Trae de la instantánea los documentos de unos ids ya ordenados.
+     * Se llama con el candado de lectura, así que los índices y la instantánea coinciden.
+     *
+     * @param ids Ids en orden ascendente.
+     * @return Los documentos, en el mismo orden.
+     */
+    private List<JsonDocument> fetch(Collection<Integer> ids) {
+        List<JsonDocument> documents = new ArrayList<>(ids.size());
+        List<Integer> sorted = ids instanceof List<Integer> list ? list : new ArrayList<>(ids);
+        for (JsonDocument doc : snapshot.get().searchAll(sorted)) {
+            if (doc != null) {
+                documents.add(doc);
+            }
+        }
+        return documents;
+    }
+
+    /**
+     * Crea un índice ordenado sobre un campo y lo llena con los documentos actuales.
+     * Desde ese momento las búsquedas por igualdad y por rango sobre el campo usan el
+     * índice, y cada escritura lo mantiene al día.
+     *
+     * @param fieldName El campo a indexar; puede ser una ruta anidada, como "direccion.ciudad".
+     * @return true si se creó, false si el campo ya tenía índice.
+     */
+    public boolean createIndex(String fieldName) {
+        return createIndex(new IndexDefinition(fieldName, IndexType.SORTED));
+    }
+
+    /**
+     * Crea un índice secundario según su definición.
+     *
+     * @param definition Campo y tipo del índice.
+     * @return true si se creó, false si ya existía uno igual.
+     */
+    public boolean createIndex(IndexDefinition definition) {
+        return exclusiveWrite(() -> {
+            boolean created = secondaryIndexes.create(definition, snapshot.get().getAllValues());
+            if (created) {
+                saveIndexDefinitions();
+            }
+            return created;
+        });
+    }
+
+    /**
+     * Crea un índice de un tipo concreto sobre un campo, por ejemplo
+     * {@code createIndex("nombre", IndexType.HASH)} para búsquedas exactas por nombre.
+     *
+     * @param fieldName El campo a indexar.
+     * @param type El tipo de índice.
+     * @return true si se creó, false si el campo ya tenía un índice de ese tipo.
+     */
+    public boolean createIndex(String fieldName, IndexType type) {
+        return createIndex(new IndexDefinition(fieldName, type));
+    }
+
+    /**
+     * Crea un índice compuesto sobre varios campos, en el orden dado. Sirve para las
+     * consultas que piden igualdades sobre los primeros campos y, opcionalmente, un rango
+     * sobre el siguiente: {@code createCompositeIndex("ciudad", "estado", "fecha")} resuelve
+     * "ciudad = X y estado = Y y fecha entre A y B" con un solo recorrido del índice.
+     *
+     * @param fieldNames Los campos a indexar, al menos dos; pueden ser rutas anidadas.
+     * @return true si se creó, false si ya existía uno sobre esos mismos campos en ese orden.
+     */
+    public boolean createCompositeIndex(String... fieldNames) {
+        return createIndex(new IndexDefinition(String.join(CompositeFieldIndex.SEPARATOR, fieldNames),
+                IndexType.COMPOSITE));
+    }
+
+    /**
+     * Elimina el índice ordenado de un campo.
+     *
+     * @param fieldName El campo indexado.
+     * @return true si existía.
+     */
+    public boolean dropIndex(String fieldName) {
+        return dropIndex(new IndexDefinition(fieldName, IndexType.SORTED));
+    }
+
+    /**
+     * Elimina un índice secundario.
+     *
+     * @param definition Campo y tipo del índice.
+     * @return true si existía.
+     */
+    public boolean dropIndex(IndexDefinition definition) {
+        return exclusiveWrite(() -> {
+            boolean dropped = secondaryIndexes.drop(definition);
+            if (dropped) {
+                saveIndexDefinitions();
+            }
+            return dropped;
         });
     }
 
+    /**
+     * Devuelve las definiciones de los índices secundarios existentes.
+     *
+     * @return Lista de definiciones, en orden de creación.
+     */
+    public List<IndexDefinition> getIndexDefinitions() {
+        return sharedRead(secondaryIndexes::getDefinitions);
+    }
+
+    /**
+     * Devuelve cuánta memoria ocupa, aproximadamente, cada índice secundario.
+     * Útil para decidir si un índice compensa lo que cuesta.
+     *
+     * @return Bytes estimados por índice, en orden de creación.
+     */
+    public Map<IndexDefinition, Long> getIndexMemoryUsage() {
+        return sharedRead(secondaryIndexes::memoryUsage);
+    }
+
     /**
      * Actualiza un documento que ya existe (por id).
      * Cambia los datos en el árbol y en el archivo.
@@ -158,12 +1063,91 @@ public class DatabaseManager {
         if (document == null || document.getId() == null) {
             throw new IllegalArgumentException("El documento y su ID no pueden ser nulos");
         }
-        if (!index.contains(document.getId())) {
-            return false;
+        return exclusiveWrite(() -> {
+            if (index.replace(document.getId(), document) == null) {
+                return false;
+            }
+            publish(document.getId(), document);
+            saveToFile();
+            return true;
+        });
+    }
+
+    /**
+     * Guarda un documento solo si todavía no existe otro con el mismo id.
+     * La comprobación y la inserción ocurren de una vez, sin que otro hilo se cuele.
+     *
+     * @param document El documento a guardar.
+     * @return true si se guardó, false si ya existía uno con ese id.
+     */
+    public boolean saveIfAbsent(JsonDocument document) {
+        if (document == null || document.getId() == null) {
+            throw new IllegalArgumentException("El documento y su ID no pueden ser nulos");
+        }
+        return exclusiveWrite(() -> {
+            if (index.putIfAbsent(document.getId(), document) != null) {
+                return false;
+            }
+            publish(document.getId(), document);
+            saveToFile();
+            return true;
+        });
+    }
+
+    /**
+     * Cambia solo algunos campos de un documento existente, dejando el resto igual.
+     * Por ejemplo, con {"ciudad": "Cali"} solo se cambia la ciudad.
+     * El documento original no se modifica: se guarda una copia con los cambios.
+     *
+     * @param id El id del documento a modificar.
+     * @param changes Objeto JSON con los campos nuevos o modificados.
+     * @return El documento ya modificado, o vacío si no existía.
+     */
+    public Optional<JsonDocument> patch(Integer id, JsonNode changes) {
+        if (changes == null || !changes.isObject()) {
+            throw new IllegalArgumentException("Los cambios deben ser un objeto JSON");
+        }
+        return compute(id, (key, current) -> {
+            if (current == null) {
+                return null;
+            }
+            ObjectNode data = current.getData() != null && current.getData().isObject()
+                    ? ((ObjectNode) current.getData()).deepCopy()
+                    : objectMapper.createObjectNode();
+            data.setAll((ObjectNode) changes);
+            return new JsonDocument(key, data);
+        });
+    }
+
+    /**
+     * Calcula el nuevo contenido de un documento a partir del actual, todo de una vez.
+     * Sirve para "insertar o actualizar" con lógica propia: la función recibe el
+     * documento actual (o null si no existe) y devuelve el nuevo (o null para borrarlo).
+     *
+     * @param id El id del documento.
+     * @param remapping Función que recibe el id y el documento actual y devuelve el nuevo.
+     * @return El documento resultante, o vacío si quedó eliminado o no se creó.
+     */
+    public Optional<JsonDocument> compute(Integer id, BiFunction<Integer, JsonDocument, JsonDocument> remapping) {
+        if (id == null) {
+            throw new IllegalArgumentException("El ID no puede ser nulo");
         }
-        index.insert(document.getId(), document);
-        saveToFile();
-        return true;
+        return exclusiveWrite(() -> {
+            boolean[] changed = new boolean[1];
+            JsonDocument result = index.compute(id, (key, current) -> {
+                JsonDocument next = remapping.apply(key, current);
+                if (next != null && !id.equals(next.getId())) {
+                    throw new IllegalArgumentException("El documento calculado debe conservar el id " + id);
+                }
+                changed[0] = next != current;
+                return next;
+            });
+            if (changed[0]) {
+                publish(id, result);
+                saveToFile();
+            }
+            return Optional.ofNullable(result);
+        });
     }
 
     /**
@@ -174,11 +1158,96 @@ public class DatabaseManager {
      * @return true si se eliminó, false si no existía.
      */
     public boolean deleteById(Integer id) {
-        if (!index.delete(id)) {
-            return false;
+        return exclusiveWrite(() -> {
+            if (index.remove(id) == null) {
+                return false;
+            }
+            publish(id, null);
+            saveToFile();
+            return true;
+        });
+    }
+
+    /**
+     * Guarda o actualiza muchos documentos de una vez, por ejemplo al importar un lote.
+     * Se insertan ordenados en bloque (uniendo árboles con split/join), tanto en el
+     * índice como en la instantánea, en O(m·log(n/m + 1)) para m documentos; los índices
+     * secundarios y las vistas se actualizan solo para esos m. El archivo se escribe una
+     * sola vez, en lugar de una vez por documento.
+     * Si el lote repite un id, gana el último.
+     *
+     * @param documents Los documentos a guardar.
+     */
+    public void saveAll(Collection<JsonDocument> documents) {
+        TreeMap<Integer, JsonDocument> byId = new TreeMap<>();
+        for (JsonDocument document : documents) {
+            if (document == null || document.getId() == null) {
+                throw new IllegalArgumentException("El documento y su ID no pueden ser nulos");
+            }
+            byId.put(document.getId(), document);
         }
-        saveToFile();
-        return true;
+        if (byId.isEmpty()) {
+            return;
+        }
+        List<Integer> ids = new ArrayList<>(byId.keySet());
+        List<JsonDocument> batch = new ArrayList<>(byId.values());
+        exclusiveWrite(() -> {
+            index.insertAllSorted(ids, batch);
+            PersistentAVLTree<Integer, JsonDocument> current = snapshot.get();
+            publishAll(ids, current.searchAll(ids), batch, current.insertAllSorted(ids, batch));
+            saveToFile();
+            return null;
+        });
+    }
+
+    /**
+     * Elimina muchos documentos por id de una vez, escribiendo el archivo una sola vez.
+     * Igual que {@link #saveAll}, cuesta O(m·log(n/m + 1)) en memoria más la escritura.
+     *
+     * @param ids Los ids a eliminar (pueden venir desordenados o repetidos).
+     * @return Cuántos documentos existían y se eliminaron.
+     */
+    public int deleteAllById(Collection<Integer> ids) {
+        List<Integer> sorted = ids.stream().distinct().sorted().toList();
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        return exclusiveWrite(() -> {
+            int removed = index.removeAllSorted(sorted);
+            if (removed > 0) {
+                PersistentAVLTree<Integer, JsonDocument> current = snapshot.get();
+                publishAll(sorted, current.searchAll(sorted), Collections.nCopies(sorted.size(), null),
+                        current.removeAllSorted(sorted));
+                saveToFile();
+            }
+            return removed;
+        });
+    }
+
+    /**
+     * Elimina todos los documentos cuyo id está entre dos valores, ambos incluidos.
+     * Quitar el rango del árbol AVL y de la instantánea cuesta O(log n) sin importar
+     * cuántos documentos caigan en él; los índices secundarios y las vistas se
+     * actualizan para los m eliminados, O(log n + m) en total. El archivo se reescribe
+     * entero, como en cualquier escritura.
+     *
+     * @param fromId El id más pequeño a eliminar.
+     * @param toId El id más grande a eliminar.
+     * @return Cuántos documentos se eliminaron.
+     */
+    public int deleteByIdRange(Integer fromId, Integer toId) {
+        return exclusiveWrite(() -> {
+            PersistentAVLTree<Integer, JsonDocument> current = snapshot.get();
+            List<JsonDocument> doomed = current.getRange(fromId, toId);
+            if (doomed.isEmpty()) {
+                return 0;
+            }
+            int removed = index.deleteRange(fromId, toId);
+            List<Integer> ids = doomed.stream().map(JsonDocument::getId).toList();
+            publishAll(ids, doomed, Collections.nCopies(ids.size(), null), current.deleteRange(fromId, toId));
+            saveToFile();
+            return removed;
+        });
     }
 
     /**
@@ -188,7 +1257,49 @@ public class DatabaseManager {
      * @return true si existe, false si no.
      */
     public boolean existsById(Integer id) {
-        return index.contains(id);
+        FrozenIntIndex<JsonDocument> frozenIndex = frozen;
+        if (frozenIndex != null) {
+            return frozenIndex.containsKey(id);
+        }
+        if (pointIndex != null) {
+            return optimisticRead(() -> pointIndex.containsKey(id));
+        }
+        return optimisticRead(() -> index.contains(id));
+    }
+
+    /**
+     * Congela el índice para lecturas: copia la instantánea actual a un arreglo
+     * inmutable en orden de Eytzinger, y desde ese momento todas las búsquedas por id
+     * lo consultan: {@link #findById}, {@link #existsById}, {@link #findByIds},
+     * {@link #findByIdRange} y las consultas que se resuelven por ids (por una lista de
+     * ids o con los índices secundarios). Los recorridos completos y
+     * {@link #streamByIdRange} siguen usando la instantánea, que tiene los mismos datos.
+     * Ideal para bases que casi no cambian. La siguiente escritura lo descongela
+     * sola, así que no hace falta acordarse de nada.
+     */
+    public void freeze() {
+        freezeSnapshot();
+    }
+
+    /**
+     * Cuerpo de {@link #freeze()}. Es privado para que el constructor pueda congelar
+     * sin llamar a un método que una subclase podría sobrescribir.
+     */
+    private void freezeSnapshot() {
+        exclusiveWrite(() -> {
+            PersistentAVLTree<Integer, JsonDocument> current = snapshot.get();
+            frozen = new FrozenIntIndex<>(current.getAllKeys(), current.getAllValues());
+            return null;
+        });
+    }
+
+    /**
+     * Indica si el índice está congelado para lecturas.
+     *
+     * @return true si las búsquedas puntuales usan el índice congelado.
+     */
+    public boolean isFrozen() {
+        return frozen != null;
     }
 
     /**
@@ -197,11 +1308,28 @@ public class DatabaseManager {
      * @return Lista de todos los documentos.
      */
     public List<JsonDocument> getAllDocuments() {
-        List<JsonDocument> documents = new ArrayList<>();
-        for (Integer key : index.getAllKeys()) {
-            index.search(key).ifPresent(documents::add);
-        }
-        return documents;
+        return snapshot.get().getAllValues();
+    }
+
+    /**
+     * Devuelve un stream secuencial de todos los documentos, ordenados por id.
+     * Recorre la instantánea actual, así que no ve escrituras posteriores ni las frena.
+     *
+     * @return Stream de los documentos en orden de id.
+     */
+    public Stream<JsonDocument> stream() {
+        return StreamSupport.stream(snapshot.get().spliterator(), false);
+    }
+
+    /**
+     * Devuelve un stream paralelo de todos los documentos, ordenados por id.
+     * El árbol se reparte entre los hilos del ForkJoinPool común partiendo por las
+     * raíces de los subárboles, así que filtros y agregaciones usan todos los núcleos.
+     *
+     * @return Stream paralelo de los documentos en orden de id.
+     */
+    public Stream<JsonDocument> parallelStream() {
+        return StreamSupport.stream(snapshot.get().spliterator(), true);
     }
 
     /**
@@ -210,7 +1338,7 @@ public class DatabaseManager {
      * @return El número total de documentos.
      */
     public int getSize() {
-        return index.getSize();
+        return optimisticRead(index::getSize);
     }
 
     /**
@@ -219,22 +1347,38 @@ public class DatabaseManager {
      * @return true si no hay nada guardado, false si hay al menos uno.
      */
     public boolean isEmpty() {
-        return index.isEmpty();
+        return optimisticRead(index::isEmpty);
     }
 
     /**
      * Borra todo: elimina todos los documentos del árbol y del archivo.
      */
     public void clear() {
-        index.clear();
-        saveToFile();
+        exclusiveWrite(() -> {
+            index.clear();
+            frozen = null;
+            snapshot.set(PersistentAVLTree.empty());
+            secondaryIndexes.clear();
+            materialized.values().forEach(MaterializedAggregate::clear);
+            if (pointIndex != null) {
+                pointIndex.clear();
+            }
+            if (queryCache != null) {
+                queryCache.invalidateAll();
+            }
+            saveToFile();
+            return null;
+        });
     }
 
     /**
-     * Muestra la estructura interna del árbol AVL en consola.
+     * Muestra la estructura interna del índice primario en consola.
      */
     public void printIndex() {
-        index.printTree();
+        sharedRead(() -> {
+            index.printTree();
+            return null;
+        });
     }
 
     /**
@@ -243,16 +1387,39 @@ public class DatabaseManager {
      * @return Lista de ids ordenados.
      */
     public List<Integer> getAllKeys() {
-        return index.getAllKeys();
+        return snapshot.get().getAllKeys();
+    }
+
+    /**
+     * Devuelve la versión inmutable más reciente del índice.
+     * Se puede recorrer con calma desde cualquier hilo: las escrituras posteriores
+     * crean versiones nuevas y nunca modifican esta.
+     *
+     * @return La instantánea actual del árbol AVL.
+     */
+    public PersistentAVLTree<Integer, JsonDocument> getSnapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Hace una copia de seguridad de todos los documentos en otro archivo.
+     * Trabaja sobre una instantánea, así que no bloquea a los escritores.
+     *
+     * @param backupPath Ruta del archivo de copia.
+     * @throws IOException Si no se puede escribir la copia.
+     */
+    public void backup(String backupPath) throws IOException {
+        writeSnapshot(new File(backupPath));
     }
 
     /**
-     * Devuelve el árbol AVL interno para visualización.
-     * Útil para la GUI que dibuja el árbol.
+     * Devuelve el índice primario interno, sea cual sea su motor.
+     * Para dibujar el árbol usa mejor {@link #getSnapshot()}.
+     * Ojo: el índice no está protegido por el candado, úsalo solo desde un hilo.
      *
-     * @return El árbol AVL con los documentos indexados.
+     * @return El índice primario con los documentos indexados.
      */
-    public AVLTree<Integer, JsonDocument> getIndex() {
+    public OrderedIndex<Integer, JsonDocument> getIndex() {
         return index;
     }
 }
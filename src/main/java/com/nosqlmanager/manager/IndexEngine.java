@@ -0,0 +1,47 @@
+package com.nosqlmanager.manager;
+
+import com.nosqlmanager.model.JsonDocument;
+import com.nosqlmanager.tree.AVLTree;
+import com.nosqlmanager.tree.IntBTree;
+import com.nosqlmanager.tree.OrderedIndex;
+
+/**
+ * Motores disponibles para el índice primario del {@link DatabaseManager}.
+ * Todos implementan {@link OrderedIndex}, así que se cambian solo con la configuración.
+ *
+ * <p>El motor atiende poco: las búsquedas puntuales {@code findById} y
+ * {@code existsById} (salvo con {@link DatabaseConfig#isHashPointLookups()} o con el
+ * índice congelado, que las sacan de él), las escrituras, que lo mantienen al día, y
+ * {@code printIndex}. Los rangos, los recorridos, {@code findByIds}, las consultas y el
+ * dibujo de la GUI leen la instantánea persistente, que es un árbol AVL sea cual sea el
+ * motor. Para comparar motores hay que medir búsquedas puntuales y escrituras.</p>
+ */
+public enum IndexEngine {
+
+    /**
+     * Árbol AVL binario: el motor de siempre.
+     */
+    AVL {
+        @Override
+        OrderedIndex<Integer, JsonDocument> create() {
+            return new AVLTree<>();
+        }
+    },
+
+    /**
+     * Árbol B de alta ramificación con claves primitivas: menos saltos de puntero
+     * (y menos fallos de caché) por búsqueda en colecciones grandes.
+     */
+    BTREE {
+        @Override
+        OrderedIndex<Integer, JsonDocument> create() {
+            return new IntBTree<>();
+        }
+    };
+
+    /**
+     * Crea un índice vacío de este tipo.
+     * @return Índice primario nuevo
+     */
+    abstract OrderedIndex<Integer, JsonDocument> create();
+}
@@ -0,0 +1,179 @@
+package com.nosqlmanager.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Ruta compilada hacia un valor dentro del JSON de un documento.
+ *
+ * <p>Acepta dos sintaxis:</p>
+ * <ul>
+ *   <li>Con puntos: {@code direccion.ciudad}, {@code telefonos.0}. Un nombre sin puntos
+ *       es un campo de primer nivel, como hasta ahora.</li>
+ *   <li>JSON Pointer (RFC 6901), si empieza por {@code /}: {@code /direccion/ciudad},
+ *       {@code /telefonos/0}. Sirve para nombres que contienen puntos ({@code /a.b}),
+ *       escribiendo {@code ~1} para {@code /} y {@code ~0} para {@code ~}.</li>
+ * </ul>
+ *
+ * <p>Un segmento numérico indexa arreglos y, si el nodo es un objeto, se usa como
+ * nombre. La ruta se analiza una sola vez ({@link #of(String)} guarda las rutas ya
+ * compiladas), así que resolverla en cada documento solo recorre dos arreglos: no
+ * parte textos ni crea objetos.</p>
+ */
+public final class FieldPath {
+
+    /**
+     * Máximo de rutas distintas que se guardan compiladas; por encima se compilan sin guardar.
+     */
+    private static final int CACHE_LIMIT = 4096;
+
+    private static final Map<String, FieldPath> CACHE = new ConcurrentHashMap<>();
+
+    private final String path;
+    private final String[] names;
+    private final int[] positions;
+    private final String pointer;
+
+    private FieldPath(String path, List<String> segments) {
+        this.path = path;
+        this.names = segments.toArray(String[]::new);
+        this.positions = new int[names.length];
+        StringBuilder canonical = new StringBuilder();
+        for (int i = 0; i < names.length; i++) {
+            positions[i] = arrayPosition(names[i]);
+            canonical.append('/').append(names[i].replace("~", "~0").replace("/", "~1"));
+        }
+        this.pointer = canonical.toString();
+    }
+
+    /**
+     * Ruta compilada de un texto, reutilizando la compilación anterior si la hay.
+     * @param path Ruta con puntos o JSON Pointer
+     * @return La ruta compilada
+     * @throws IllegalArgumentException Si la ruta está vacía o tiene un segmento vacío
+     */
+    public static FieldPath of(String path) {
+        FieldPath compiled = CACHE.get(path);
+        if (compiled == null) {
+            compiled = new FieldPath(path, parse(path));
+            if (CACHE.size() < CACHE_LIMIT) {
+                CACHE.putIfAbsent(path, compiled);
+            }
+        }
+        return compiled;
+    }
+
+    private static List<String> parse(String path) {
+        if (path == null || path.isEmpty()) {
+            throw new IllegalArgumentException("La ruta de un campo no puede estar vacía");
+        }
+        List<String> segments = new ArrayList<>();
+        if (path.charAt(0) == '/') {
+            for (String token : path.substring(1).split("/", -1)) {
+                segments.add(token.replace("~1", "/").replace("~0", "~"));
+            }
+        } else {
+            for (String token : path.split("\\.", -1)) {
+                if (token.isEmpty()) {
+                    throw new IllegalArgumentException("Segmento vacío en la ruta: " + path);
+                }
+                segments.add(token);
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * Posición de arreglo que representa un segmento, o -1 si no es un número.
+     */
+    private static int arrayPosition(String segment) {
+        if (segment.isEmpty() || segment.length() > 9) {
+            return -1;
+        }
+        for (int i = 0; i < segment.length(); i++) {
+            if (!Character.isDigit(segment.charAt(i))) {
+                return -1;
+            }
+        }
+        // RFC 6901: "01" no es una posición válida
+        return segment.length() > 1 && segment.charAt(0) == '0' ? -1 : Integer.parseInt(segment);
+    }
+
+    /**
+     * Busca el valor de la ruta dentro de un JSON.
+     * @param root JSON del documento (puede ser null)
+     * @return El valor, o null si algún tramo de la ruta no existe
+     */
+    public JsonNode resolve(JsonNode root) {
+        JsonNode node = root;
+        for (int i = 0; i < names.length && node != null; i++) {
+            node = node.isArray() ? (positions[i] >= 0 ? node.get(positions[i]) : null) : node.get(names[i]);
+        }
+        return node;
+    }
+
+    /**
+     * Busca el valor de la ruta en los datos de un documento.
+     * @param document Documento a leer
+     * @return El valor, o null si el documento no lo tiene
+     */
+    public JsonNode resolve(JsonDocument document) {
+        return resolve(document.getData());
+    }
+
+    /**
+     * Guarda un valor en la misma ruta dentro de otro objeto, creando los objetos
+     * intermedios que falten. Los segmentos se usan siempre como nombres.
+     * @param target Objeto de destino
+     * @param value Valor a guardar
+     */
+    public void put(ObjectNode target, JsonNode value) {
+        ObjectNode parent = target;
+        for (int i = 0; i < names.length - 1; i++) {
+            JsonNode child = parent.get(names[i]);
+            parent = child instanceof ObjectNode object ? object : parent.putObject(names[i]);
+        }
+        parent.set(names[names.length - 1], value);
+    }
+
+    /**
+     * Forma canónica de la ruta como JSON Pointer: {@code direccion.ciudad} y
+     * {@code /direccion/ciudad} dan el mismo texto.
+     * @return La ruta como JSON Pointer
+     */
+    public String toPointer() {
+        return pointer;
+    }
+
+    /**
+     * Número de tramos de la ruta.
+     * @return 1 para un campo de primer nivel
+     */
+    public int depth() {
+        return names.length;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof FieldPath that && path.equals(that.path);
+    }
+
+    @Override
+    public int hashCode() {
+        return path.hashCode();
+    }
+
+    /**
+     * Ruta tal como se escribió.
+     * @return El texto original
+     */
+    @Override
+    public String toString() {
+        return path;
+    }
+}
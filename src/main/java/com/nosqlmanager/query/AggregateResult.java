@@ -0,0 +1,47 @@
+package com.nosqlmanager.query;
+
+import java.util.Map;
+
+import com.nosqlmanager.index.IndexKey;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Resultado de una {@link Aggregation}: el resumen de todos los documentos y, si se
+ * agrupó, el de cada grupo.
+ */
+@Value
+@Builder
+public class AggregateResult {
+
+    /**
+     * Agregación calculada.
+     */
+    Aggregation aggregation;
+
+    /**
+     * Resumen de todos los documentos que cumplen la condición.
+     */
+    Summary total;
+
+    /**
+     * Resumen de cada grupo, en el orden de los índices (por tipo y luego por valor).
+     * Vacío si la agregación no agrupa.
+     */
+    Map<IndexKey, Summary> groups;
+
+    /**
+     * Cómo se obtuvo: desde qué índice o con un recorrido de los documentos.
+     */
+    String strategy;
+
+    /**
+     * Resumen del grupo de un valor.
+     * @param value Valor del campo de agrupación (número, texto, booleano o null)
+     * @return El resumen, o null si ningún documento tiene ese valor
+     */
+    public Summary group(Object value) {
+        return groups.get(IndexKey.ofValue(value));
+    }
+}
@@ -0,0 +1,96 @@
+package com.nosqlmanager.query;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Agregación declarativa: qué documentos se resumen ({@link Filter}), sobre qué campo
+ * numérico y agrupados por qué campo. El resultado ({@link AggregateResult}) trae
+ * conteo, suma, mínimo, máximo y media de cada grupo, calculados a la vez.
+ *
+ * <pre>
+ * Aggregation.count().where(Filter.gt("codigo", 100));      // count where codigo &gt; 100
+ * Aggregation.of("codigo").groupBy("nombre");              // avg(codigo) group by nombre
+ * </pre>
+ *
+ * Como las consultas, las agregaciones son inmutables y cada método fluido devuelve una copia.
+ */
+@Value
+@Builder(toBuilder = true)
+public class Aggregation {
+
+    /**
+     * Condición que deben cumplir los documentos, o null para todos.
+     */
+    Filter filter;
+
+    /**
+     * Campo numérico a resumir, o null para solo contar.
+     */
+    String field;
+
+    /**
+     * Campo por el que se agrupa, o null para un único grupo.
+     */
+    String groupBy;
+
+    /**
+     * Agregación que solo cuenta documentos.
+     * @return La agregación sobre todos los documentos
+     */
+    public static Aggregation count() {
+        return builder().build();
+    }
+
+    /**
+     * Agregación que resume los valores numéricos de un campo.
+     * @param field Campo a resumir (ver {@link com.nosqlmanager.model.FieldPath})
+     * @return La agregación sobre todos los documentos
+     */
+    public static Aggregation of(String field) {
+        return builder().field(field).build();
+    }
+
+    /**
+     * Restringe los documentos que se resumen.
+     * @param filter Condición a cumplir, o null para todos
+     * @return Copia de la agregación con la condición
+     */
+    public Aggregation where(Filter filter) {
+        return toBuilder().filter(filter).build();
+    }
+
+    /**
+     * Agrupa los documentos por el valor de un campo. Los documentos sin ese campo, o
+     * con un objeto o arreglo en él, no entran en ningún grupo (sí en el total).
+     * @param field Campo de agrupación
+     * @return Copia de la agregación agrupada
+     */
+    public Aggregation groupBy(String field) {
+        return toBuilder().groupBy(field).build();
+    }
+
+    /**
+     * Consulta que entrega los documentos a resumir.
+     * @return La consulta con la condición de la agregación
+     */
+    public Query toQuery() {
+        return Query.builder().filter(filter).build();
+    }
+
+    /**
+     * Descripción legible de la agregación.
+     * @return La agregación en una línea
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(field == null ? "COUNT(*)" : "SUMMARY(" + field + ")");
+        if (filter != null) {
+            text.append(" WHERE ").append(filter);
+        }
+        if (groupBy != null) {
+            text.append(" GROUP BY ").append(groupBy);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,209 @@
+package com.nosqlmanager.query;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collector;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.nosqlmanager.index.EqualityIndex;
+import com.nosqlmanager.index.IndexCatalog;
+import com.nosqlmanager.index.IndexKey;
+import com.nosqlmanager.index.RoaringBitmap;
+import com.nosqlmanager.index.SortedFieldIndex;
+import com.nosqlmanager.model.FieldPath;
+import com.nosqlmanager.model.JsonDocument;
+import com.nosqlmanager.tree.PersistentAVLTree;
+
+/**
+ * Calcula {@link Aggregation}s de dos formas:
+ * <ul>
+ *   <li>Desde los índices ({@link #fromIndexes(Aggregation)}), sin leer documentos,
+ *       cuando la agregación lo permite:
+ *       <ul>
+ *         <li>Contar con una condición que el índice primario o los secundarios resuelven
+ *             exactamente: {@code count where codigo > 100} es el tamaño de un mapa de bits.</li>
+ *         <li>Resumir un campo con índice ordenado, sin condición o con un rango sobre ese
+ *             mismo campo: se recorren los valores distintos con su número de documentos,
+ *             en O(log n + valores distintos).</li>
+ *         <li>Contar por grupos sin condición cuando el campo de agrupación tiene índice
+ *             de igualdad: cada grupo es un valor del índice.</li>
+ *       </ul></li>
+ *   <li>Con un recorrido ({@link #collector(Aggregation)}): una sola pasada sobre los
+ *       documentos que entrega el plan de la consulta, que acumula todos los resúmenes a
+ *       la vez y admite streams paralelos.</li>
+ * </ul>
+ */
+public final class Aggregator {
+
+    private static final IndexKey FIRST_NUMBER = IndexKey.ofValue(0).lowestOfType();
+    private static final IndexKey LAST_NUMBER = IndexKey.ofValue(0).highestOfType();
+
+    private final IndexCatalog catalog;
+    private final PersistentAVLTree<Integer, JsonDocument> snapshot;
+
+    /**
+     * Crea un agregador sobre los índices y una versión de los documentos.
+     * @param catalog Índices secundarios disponibles
+     * @param snapshot Versión de los documentos que corresponde a los índices
+     */
+    public Aggregator(IndexCatalog catalog, PersistentAVLTree<Integer, JsonDocument> snapshot) {
+        this.catalog = catalog;
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Intenta responder una agregación solo con los índices.
+     * Debe llamarse con el candado de lectura, como cualquier consulta a los índices.
+     * @param aggregation Agregación a calcular
+     * @return El resultado, o null si hace falta recorrer los documentos
+     */
+    public AggregateResult fromIndexes(Aggregation aggregation) {
+        String field = aggregation.getField();
+        String groupBy = aggregation.getGroupBy();
+        if (groupBy != null) {
+            return aggregation.getFilter() == null && (field == null || samePath(field, groupBy))
+                    ? groupCounts(aggregation) : null;
+        }
+        return field == null ? count(aggregation) : fieldSummary(aggregation);
+    }
+
+    private AggregateResult count(Aggregation aggregation) {
+        Filter filter = aggregation.getFilter();
+        Summary total = new Summary();
+        if (filter == null) {
+            total.addDocuments(snapshot.getSize());
+            return result(aggregation, total, Map.of(), "tamaño del índice primario");
+        }
+        // Una condición sola sobre el id: el plan ya contó el rango o los ids existentes
+        QueryPlan plan = new QueryPlanner(catalog, snapshot).plan(aggregation.toQuery());
+        if ((plan.getAccess() == QueryPlan.Access.ID_RANGE || plan.getAccess() == QueryPlan.Access.ID_LOOKUP)
+                && !(filter instanceof Filter.And)) {
+            total.addDocuments((long) plan.getExaminedRows());
+            return result(aggregation, total, Map.of(), "índice primario (" + plan.getDetail() + ")");
+        }
+        IndexResolver.Candidates candidates =
+                new IndexResolver(catalog, () -> RoaringBitmap.of(snapshot.getAllKeys())).resolve(filter);
+        if (candidates == null || !candidates.exact()) {
+            return null;
+        }
+        total.addDocuments(candidates.ids().getCardinality());
+        return result(aggregation, total, Map.of(), "índices secundarios");
+    }
+
+    private AggregateResult fieldSummary(Aggregation aggregation) {
+        String field = aggregation.getField();
+        SortedFieldIndex sorted = catalog.sorted(field);
+        if (sorted == null) {
+            return null;
+        }
+        Filter filter = aggregation.getFilter();
+        Summary total = new Summary();
+        if (filter == null) {
+            total.addDocuments(snapshot.getSize());
+            sorted.forEachCount(FIRST_NUMBER, LAST_NUMBER, (key, documents) -> total.addValue(key.number(), documents));
+        } else if (filter instanceof Filter.Range range && samePath(range.field(), field)) {
+            sorted.forEachCount(range.from(), range.to(), (key, documents) -> {
+                if ((range.fromInclusive() || !key.equals(range.from())) && (range.toInclusive() || !key.equals(range.to()))) {
+                    total.addDocuments(documents);
+                    if (key.isNumber()) {
+                        total.addValue(key.number(), documents);
+                    }
+                }
+            });
+        } else {
+            return null;
+        }
+        return result(aggregation, total, Map.of(), "índice ordenado sobre " + field);
+    }
+
+    private AggregateResult groupCounts(Aggregation aggregation) {
+        EqualityIndex index = catalog.equality(aggregation.getGroupBy());
+        if (index == null) {
+            return null;
+        }
+        boolean values = aggregation.getField() != null;
+        Summary total = new Summary();
+        total.addDocuments(snapshot.getSize());
+        Map<IndexKey, Summary> groups = new TreeMap<>();
+        index.forEachCount((key, documents) -> {
+            Summary group = new Summary();
+            group.addDocuments(documents);
+            if (values && key.isNumber()) {
+                group.addValue(key.number(), documents);
+                total.addValue(key.number(), documents);
+            }
+            groups.put(key, group);
+        });
+        return result(aggregation, total, groups, "índice sobre " + aggregation.getGroupBy());
+    }
+
+    private static boolean samePath(String a, String b) {
+        if (Fields.ID.equals(a) || Fields.ID.equals(b)) {
+            return a.equals(b);
+        }
+        return FieldPath.of(a).toPointer().equals(FieldPath.of(b).toPointer());
+    }
+
+    private static AggregateResult result(Aggregation aggregation, Summary total, Map<IndexKey, Summary> groups,
+                                          String strategy) {
+        return AggregateResult.builder()
+                .aggregation(aggregation)
+                .total(total)
+                .groups(Collections.unmodifiableMap(groups))
+                .strategy(strategy)
+                .build();
+    }
+
+    /**
+     * Acumulación parcial de un recorrido: el total y los grupos vistos.
+     */
+    private static final class Partial {
+        final Summary total = new Summary();
+        final Map<IndexKey, Summary> groups = new HashMap<>();
+
+        Partial merge(Partial other) {
+            total.combine(other.total);
+            other.groups.forEach((key, group) -> groups.merge(key, group, Summary::combine));
+            return this;
+        }
+    }
+
+    /**
+     * Colector que calcula una agregación en una sola pasada sobre los documentos que
+     * cumplen su condición. Funciona igual sobre streams paralelos: cada parte acumula
+     * por su lado y luego se combinan.
+     * @param aggregation Agregación a calcular
+     * @return El colector
+     */
+    public static Collector<JsonDocument, ?, AggregateResult> collector(Aggregation aggregation) {
+        Function<JsonDocument, JsonNode> field = reader(aggregation.getField());
+        Function<JsonDocument, JsonNode> groupBy = reader(aggregation.getGroupBy());
+        return Collector.of(Partial::new, (partial, document) -> {
+            JsonNode value = field == null ? null : field.apply(document);
+            partial.total.add(value);
+            if (groupBy != null) {
+                IndexKey key = IndexKey.of(groupBy.apply(document));
+                if (key != null) {
+                    partial.groups.computeIfAbsent(key, k -> new Summary()).add(value);
+                }
+            }
+        }, Partial::merge, partial -> result(aggregation, partial.total, new TreeMap<>(partial.groups), "recorrido"));
+    }
+
+    /**
+     * Lectura de un campo con la ruta ya compilada, o null si no hay campo.
+     */
+    private static Function<JsonDocument, JsonNode> reader(String field) {
+        if (field == null) {
+            return null;
+        }
+        if (Fields.ID.equals(field)) {
+            return document -> Fields.node(document, Fields.ID);
+        }
+        FieldPath path = FieldPath.of(field);
+        return path::resolve;
+    }
+}
@@ -0,0 +1,52 @@
+package com.nosqlmanager.query;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Foto inmutable de las métricas de un {@link QueryCache}.
+ */
+@Value
+@Builder
+public class CacheStats {
+
+    /**
+     * Consultas respondidas desde la caché.
+     */
+    long hits;
+
+    /**
+     * Consultas que no estaban en la caché y hubo que ejecutar.
+     */
+    long misses;
+
+    /**
+     * Resultados descartados por falta de espacio (los menos usados recientemente).
+     */
+    long evictions;
+
+    /**
+     * Resultados descartados porque una escritura los cambió.
+     */
+    long invalidations;
+
+    /**
+     * Resultados guardados ahora mismo.
+     */
+    int entries;
+
+    /**
+     * Bytes aproximados que ocupan las listas guardadas (los documentos se comparten
+     * con la instantánea y no se cuentan).
+     */
+    long memoryUsage;
+
+    /**
+     * Fracción de consultas respondidas desde la caché.
+     * @return Aciertos entre consultas, o 0 si no hubo ninguna
+     */
+    public double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
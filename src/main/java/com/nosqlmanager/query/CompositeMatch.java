@@ -0,0 +1,112 @@
+package com.nosqlmanager.query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedSet;
+
+import com.nosqlmanager.index.CompositeFieldIndex;
+import com.nosqlmanager.index.IndexCatalog;
+import com.nosqlmanager.index.IndexKey;
+import com.nosqlmanager.model.FieldPath;
+
+/**
+ * Parte de una conjunción que un índice compuesto resuelve con un solo recorrido:
+ * igualdades sobre sus primeros campos, en orden y sin huecos, y opcionalmente un rango
+ * sobre el campo siguiente.
+ * @param index Índice compuesto que se usa
+ * @param covered Condiciones de la conjunción que cubre el índice
+ * @param prefix Valores de las igualdades, en el orden de los campos del índice
+ * @param range Rango sobre el campo siguiente, o null si no hay
+ */
+record CompositeMatch(CompositeFieldIndex index, List<Filter> covered, List<IndexKey> prefix, Filter.Range range) {
+
+    /**
+     * Busca el índice compuesto que cubre más condiciones de una conjunción.
+     * A igual cobertura gana el creado antes.
+     * @param catalog Índices disponibles
+     * @param conjuncts Condiciones que deben cumplirse todas
+     * @return La mejor cobertura, o null si ningún índice compuesto sirve
+     */
+    static CompositeMatch best(IndexCatalog catalog, List<Filter> conjuncts) {
+        CompositeMatch best = null;
+        for (CompositeFieldIndex index : catalog.composites()) {
+            CompositeMatch match = match(index, conjuncts);
+            if (match != null && (best == null || match.covered.size() > best.covered.size())) {
+                best = match;
+            }
+        }
+        return best;
+    }
+
+    private static CompositeMatch match(CompositeFieldIndex index, List<Filter> conjuncts) {
+        List<Filter> covered = new ArrayList<>();
+        List<IndexKey> prefix = new ArrayList<>();
+        Filter.Range range = null;
+        for (String field : index.getFields()) {
+            Filter.Eq eq = equality(conjuncts, field);
+            if (eq != null) {
+                covered.add(eq);
+                prefix.add(eq.value());
+                continue;
+            }
+            range = range(conjuncts, field);
+            if (range != null) {
+                covered.add(range);
+            }
+            break;
+        }
+        return covered.isEmpty() ? null : new CompositeMatch(index, List.copyOf(covered), List.copyOf(prefix), range);
+    }
+
+    private static Filter.Eq equality(List<Filter> conjuncts, String field) {
+        for (Filter conjunct : conjuncts) {
+            if (conjunct instanceof Filter.Eq eq && sameField(eq.field(), field)) {
+                return eq;
+            }
+        }
+        return null;
+    }
+
+    private static Filter.Range range(List<Filter> conjuncts, String field) {
+        for (Filter conjunct : conjuncts) {
+            if (conjunct instanceof Filter.Range range && sameField(range.field(), field)) {
+                return range;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Compara el campo de una condición, escrito con puntos o como JSON Pointer, con uno
+     * de los del índice, que ya están en forma canónica. El id no es un campo de los datos.
+     */
+    private static boolean sameField(String conjunctField, String indexField) {
+        return !Fields.ID.equals(conjunctField) && FieldPath.of(conjunctField).toPointer().equals(indexField);
+    }
+
+    /**
+     * Ids de los documentos que cumplen todas las condiciones cubiertas.
+     * @return Ids ordenados
+     */
+    SortedSet<Integer> ids() {
+        return range == null ? index.find(prefix, null, false, null, false)
+                : index.find(prefix, range.from(), range.fromInclusive(), range.to(), range.toInclusive());
+    }
+
+    /**
+     * Número de documentos que cumplen todas las condiciones cubiertas, sin copiar sus ids.
+     * @return Cantidad de documentos
+     */
+    int count() {
+        return range == null ? index.count(prefix, null, false, null, false)
+                : index.count(prefix, range.from(), range.fromInclusive(), range.to(), range.toInclusive());
+    }
+
+    /**
+     * Nombre del índice para los planes: sus campos separados por comas.
+     * @return Campo de la definición del índice
+     */
+    String name() {
+        return index.getDefinition().getField();
+    }
+}
@@ -0,0 +1,47 @@
+package com.nosqlmanager.query;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.IntNode;
+import com.nosqlmanager.index.IndexKey;
+import com.nosqlmanager.model.FieldPath;
+import com.nosqlmanager.model.JsonDocument;
+
+/**
+ * Lectura de campos de un documento para las consultas.
+ * Los campos son rutas ({@link FieldPath}), así que también llegan a objetos anidados
+ * y a posiciones de arreglos. El nombre especial {@value #ID} se refiere a la clave principal del documento,
+ * de modo que las condiciones sobre el id se escriben igual que sobre cualquier campo.
+ */
+public final class Fields {
+
+    /**
+     * Nombre con el que las consultas se refieren a la clave principal.
+     */
+    public static final String ID = "_id";
+
+    private Fields() {
+    }
+
+    /**
+     * Valor JSON de un campo.
+     * @param document Documento a leer
+     * @param field Ruta del campo, o {@value #ID}
+     * @return El valor, o null si el documento no tiene ese campo
+     */
+    public static JsonNode node(JsonDocument document, String field) {
+        if (ID.equals(field)) {
+            return document.getId() == null ? null : IntNode.valueOf(document.getId());
+        }
+        return FieldPath.of(field).resolve(document);
+    }
+
+    /**
+     * Clave ordenable del valor de un campo.
+     * @param document Documento a leer
+     * @param field Ruta del campo, o {@value #ID}
+     * @return La clave, o null si el campo no existe o no tiene un valor simple
+     */
+    public static IndexKey key(JsonDocument document, String field) {
+        return IndexKey.of(node(document, field));
+    }
+}
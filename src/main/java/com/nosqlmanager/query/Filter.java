@@ -0,0 +1,289 @@
+package com.nosqlmanager.query;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.nosqlmanager.index.IndexKey;
+import com.nosqlmanager.model.JsonDocument;
+
+/**
+ * Condición estructurada sobre los campos de un documento.
+ *
+ * <p>A diferencia de un {@code Predicate<JsonDocument>}, se puede inspeccionar: el
+ * gestor sabe qué campos y valores pide cada condición y puede responderla con los
+ * índices en lugar de revisar todos los documentos. Las igualdades y rangos comparan
+ * valores con tipo ({@link IndexKey}): el número 100 y el texto "100" son distintos.
+ * El campo {@value Fields#ID} se refiere al id del documento.</p>
+ *
+ * <pre>
+ * Filter.and(Filter.eq("ciudad", "Cali"), Filter.between("codigo", 100, 300))
+ * </pre>
+ */
+public sealed interface Filter permits Filter.Eq, Filter.In, Filter.Range, Filter.Contains,
+        Filter.And, Filter.Or, Filter.Not {
+
+    /**
+     * Evalúa la condición sobre un documento.
+     * @param document Documento a revisar
+     * @return true si lo cumple
+     */
+    boolean test(JsonDocument document);
+
+    /**
+     * El campo vale exactamente el valor dado.
+     * @param field Nombre del campo
+     * @param value Valor (número, texto, booleano o null)
+     * @return La condición
+     */
+    static Filter eq(String field, Object value) {
+        return new Eq(field, IndexKey.ofValue(value));
+    }
+
+    /**
+     * El campo vale alguno de los valores dados.
+     * @param field Nombre del campo
+     * @param values Valores admitidos
+     * @return La condición
+     */
+    static Filter in(String field, Object... values) {
+        Set<IndexKey> keys = new LinkedHashSet<>();
+        for (Object value : values) {
+            keys.add(IndexKey.ofValue(value));
+        }
+        return new In(field, keys);
+    }
+
+    /**
+     * El campo está entre dos valores, ambos incluidos.
+     * @param field Nombre del campo
+     * @param from Valor mínimo
+     * @param to Valor máximo
+     * @return La condición
+     */
+    static Filter between(String field, Object from, Object to) {
+        return new Range(field, IndexKey.ofValue(from), true, IndexKey.ofValue(to), true);
+    }
+
+    /**
+     * El campo es mayor que el valor (sin salirse de su tipo).
+     * @param field Nombre del campo
+     * @param value Valor de referencia
+     * @return La condición
+     */
+    static Filter gt(String field, Object value) {
+        IndexKey key = IndexKey.ofValue(value);
+        return new Range(field, key, false, key.highestOfType(), true);
+    }
+
+    /**
+     * El campo es mayor o igual que el valor (sin salirse de su tipo).
+     * @param field Nombre del campo
+     * @param value Valor de referencia
+     * @return La condición
+     */
+    static Filter gte(String field, Object value) {
+        IndexKey key = IndexKey.ofValue(value);
+        return new Range(field, key, true, key.highestOfType(), true);
+    }
+
+    /**
+     * El campo es menor que el valor (sin salirse de su tipo).
+     * @param field Nombre del campo
+     * @param value Valor de referencia
+     * @return La condición
+     */
+    static Filter lt(String field, Object value) {
+        IndexKey key = IndexKey.ofValue(value);
+        return new Range(field, key.lowestOfType(), true, key, false);
+    }
+
+    /**
+     * El campo es menor o igual que el valor (sin salirse de su tipo).
+     * @param field Nombre del campo
+     * @param value Valor de referencia
+     * @return La condición
+     */
+    static Filter lte(String field, Object value) {
+        IndexKey key = IndexKey.ofValue(value);
+        return new Range(field, key.lowestOfType(), true, key, true);
+    }
+
+    /**
+     * El texto del campo contiene la subcadena dada (como {@code findByField}).
+     * @param field Nombre del campo
+     * @param text Subcadena buscada
+     * @return La condición
+     */
+    static Filter contains(String field, String text) {
+        return new Contains(field, text);
+    }
+
+    /**
+     * Se cumplen todas las condiciones.
+     * @param filters Condiciones
+     * @return La condición
+     */
+    static Filter and(Filter... filters) {
+        return new And(List.of(filters));
+    }
+
+    /**
+     * Se cumple alguna de las condiciones.
+     * @param filters Condiciones
+     * @return La condición
+     */
+    static Filter or(Filter... filters) {
+        return new Or(List.of(filters));
+    }
+
+    /**
+     * No se cumple la condición.
+     * @param filter Condición a negar
+     * @return La condición
+     */
+    static Filter not(Filter filter) {
+        return new Not(filter);
+    }
+
+    /**
+     * Igualdad de un campo con un valor.
+     * @param field Nombre del campo
+     * @param value Valor buscado
+     */
+    record Eq(String field, IndexKey value) implements Filter {
+        @Override
+        public boolean test(JsonDocument document) {
+            return value.equals(Fields.key(document, field));
+        }
+
+        @Override
+        public String toString() {
+            return field + " = " + value;
+        }
+    }
+
+    /**
+     * Pertenencia del valor de un campo a un conjunto.
+     * @param field Nombre del campo
+     * @param values Valores admitidos
+     */
+    record In(String field, Set<IndexKey> values) implements Filter {
+        @Override
+        public boolean test(JsonDocument document) {
+            IndexKey key = Fields.key(document, field);
+            return key != null && values.contains(key);
+        }
+
+        @Override
+        public String toString() {
+            return field + " IN " + values;
+        }
+    }
+
+    /**
+     * Rango de valores de un campo. Los límites nunca son null: los rangos abiertos
+     * usan las cotas del tipo ({@link IndexKey#lowestOfType()}, {@link IndexKey#highestOfType()}).
+     * @param field Nombre del campo
+     * @param from Límite inferior
+     * @param fromInclusive Si el límite inferior se incluye
+     * @param to Límite superior
+     * @param toInclusive Si el límite superior se incluye
+     */
+    record Range(String field, IndexKey from, boolean fromInclusive, IndexKey to, boolean toInclusive)
+            implements Filter {
+        @Override
+        public boolean test(JsonDocument document) {
+            IndexKey key = Fields.key(document, field);
+            if (key == null) {
+                return false;
+            }
+            int lower = key.compareTo(from);
+            int upper = key.compareTo(to);
+            return (fromInclusive ? lower >= 0 : lower > 0) && (toInclusive ? upper <= 0 : upper < 0);
+        }
+
+        @Override
+        public String toString() {
+            return field + " IN " + (fromInclusive ? "[" : "(") + from + ", " + to + (toInclusive ? "]" : ")");
+        }
+    }
+
+    /**
+     * Búsqueda de una subcadena en el texto de un campo.
+     * @param field Nombre del campo
+     * @param text Subcadena buscada
+     */
+    record Contains(String field, String text) implements Filter {
+        @Override
+        public boolean test(JsonDocument document) {
+            JsonNode node = Fields.node(document, field);
+            return node != null && node.asText().contains(text);
+        }
+
+        @Override
+        public String toString() {
+            return field + " CONTAINS \"" + text + '"';
+        }
+    }
+
+    /**
+     * Conjunción de condiciones.
+     * @param filters Condiciones que deben cumplirse todas
+     */
+    record And(List<Filter> filters) implements Filter {
+        @Override
+        public boolean test(JsonDocument document) {
+            for (Filter filter : filters) {
+                if (!filter.test(document)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return filters.stream().map(Filter::toString).collect(Collectors.joining(" AND ", "(", ")"));
+        }
+    }
+
+    /**
+     * Disyunción de condiciones.
+     * @param filters Condiciones de las que basta una
+     */
+    record Or(List<Filter> filters) implements Filter {
+        @Override
+        public boolean test(JsonDocument document) {
+            for (Filter filter : filters) {
+                if (filter.test(document)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return filters.stream().map(Filter::toString).collect(Collectors.joining(" OR ", "(", ")"));
+        }
+    }
+
+    /**
+     * Negación de una condición.
+     * @param filter Condición negada
+     */
+    record Not(Filter filter) implements Filter {
+        @Override
+        public boolean test(JsonDocument document) {
+            return !filter.test(document);
+        }
+
+        @Override
+        public String toString() {
+            return "NOT " + filter;
+        }
+    }
+}
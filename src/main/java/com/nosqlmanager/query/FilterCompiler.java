@@ -0,0 +1,473 @@
+package com.nosqlmanager.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.nosqlmanager.index.IndexKey;
+import com.nosqlmanager.model.FieldPath;
+import com.nosqlmanager.model.JsonDocument;
+
+/**
+ * Convierte una {@link Filter} en un {@code Predicate<JsonDocument>} especializado
+ * para recorridos completos.
+ *
+ * <p>{@link Filter#test(JsonDocument)} interpreta el árbol en cada documento: busca la
+ * ruta de cada campo, convierte el valor en una {@link IndexKey} (un objeto nuevo por
+ * hoja y documento) y compara claves genéricas. El predicado compilado hace ese
+ * trabajo una sola vez: cada hoja guarda su ruta ya compilada y lee el valor buscado en
+ * su tipo nativo ({@code double}, {@code String} o {@code boolean}), y compara
+ * directamente con el nodo JSON sin crear nada. Las conjunciones y disyunciones se
+ * vuelven bucles sobre arreglos de predicados, con versiones directas para dos hijos.</p>
+ *
+ * <p>Lo compilado se guarda por forma de la condición: campos, operadores y tipo de los
+ * valores, pero no los valores. Dos consultas que solo cambian sus constantes (un panel
+ * que filtra por otra fecha u otro id en cada llamada) comparten la compilación, y cada
+ * llamada solo reúne sus valores en arreglos que las hojas leen por posición. Se guardan
+ * como mucho {@value #CACHE_LIMIT} formas; al pasarse se descarta la usada hace más tiempo.</p>
+ */
+public final class FilterCompiler {
+
+    /**
+     * Máximo de formas distintas que se guardan compiladas.
+     */
+    private static final int CACHE_LIMIT = 1024;
+
+    /**
+     * Plantillas por forma, en orden de uso (la primera es la usada hace más tiempo).
+     */
+    private static final LinkedHashMap<List<Object>, Template> CACHE = new LinkedHashMap<>(16, 0.75f, true);
+
+    private FilterCompiler() {
+    }
+
+    /**
+     * Predicado compilado de una condición. La compilación se reutiliza entre condiciones
+     * de la misma forma; solo cambian los valores con los que se compara.
+     * Evalúa exactamente igual que {@link Filter#test(JsonDocument)}.
+     * @param filter Condición a compilar
+     * @return El predicado equivalente
+     */
+    public static Predicate<JsonDocument> compile(Filter filter) {
+        Binder binder = new Binder();
+        bind(filter, binder);
+        Template template = template(binder.shape);
+        Constants constants = binder.constants();
+        return doc -> template.test(doc, constants);
+    }
+
+    /**
+     * Número de formas compiladas guardadas.
+     * @return Cantidad de plantillas en la caché
+     */
+    static synchronized int cachedShapes() {
+        return CACHE.size();
+    }
+
+    private static synchronized Template template(List<Object> shape) {
+        Template template = CACHE.get(shape);
+        if (template == null) {
+            template = build(new Cursor(shape));
+            CACHE.put(shape, template);
+            if (CACHE.size() > CACHE_LIMIT) {
+                Iterator<List<Object>> eldest = CACHE.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+        }
+        return template;
+    }
+
+    /**
+     * Predicado de una forma: recibe, además del documento, los valores de la condición
+     * concreta con la que se compiló.
+     */
+    @FunctionalInterface
+    private interface Template {
+        boolean test(JsonDocument document, Constants constants);
+    }
+
+    /**
+     * Valores de una condición, en el orden en que aparecen sus hojas.
+     * @param numbers Valores numéricos y booleanos (1 o 0)
+     * @param objects Textos, conjuntos y claves genéricas
+     */
+    private record Constants(double[] numbers, Object[] objects) {
+    }
+
+    /**
+     * Tipo de nodo de una forma. Cada hoja queda especializada según el tipo de sus valores.
+     */
+    private enum Kind {
+        EQ_NUMBER, EQ_TEXT, EQ_BOOLEAN, EQ_NULL, EQ_GENERIC,
+        IN_NUMBER, IN_TEXT, IN_GENERIC,
+        RANGE_NUMBER, RANGE_TEXT, RANGE_GENERIC,
+        CONTAINS, AND, OR, NOT
+    }
+
+    /**
+     * Recoge la forma de una condición y, aparte, sus valores. La forma es una lista plana
+     * en preorden: cada nodo pone su {@link Kind} seguido de su campo y sus opciones
+     * (o del número de hijos), así que dos formas iguales describen el mismo árbol.
+     */
+    private static final class Binder {
+        private final List<Object> shape = new ArrayList<>();
+        private final List<Object> objects = new ArrayList<>();
+        private double[] numbers = new double[4];
+        private int numberCount;
+
+        void node(Object... tokens) {
+            shape.addAll(Arrays.asList(tokens));
+        }
+
+        void number(double value) {
+            if (numberCount == numbers.length) {
+                numbers = Arrays.copyOf(numbers, numberCount * 2);
+            }
+            numbers[numberCount++] = value;
+        }
+
+        void object(Object value) {
+            objects.add(value);
+        }
+
+        Constants constants() {
+            return new Constants(Arrays.copyOf(numbers, numberCount), objects.toArray());
+        }
+    }
+
+    /**
+     * Lee una forma en el mismo orden en que {@link Binder} la escribió y reparte las
+     * posiciones de los valores.
+     */
+    private static final class Cursor {
+        private final Iterator<Object> tokens;
+        private int numbers;
+        private int objects;
+
+        Cursor(List<Object> shape) {
+            this.tokens = shape.iterator();
+        }
+
+        Kind kind() {
+            return (Kind) tokens.next();
+        }
+
+        String field() {
+            return (String) tokens.next();
+        }
+
+        boolean flag() {
+            return (Boolean) tokens.next();
+        }
+
+        int count() {
+            return (Integer) tokens.next();
+        }
+
+        int number() {
+            return numbers++;
+        }
+
+        int object() {
+            return objects++;
+        }
+    }
+
+    private static void bind(Filter filter, Binder binder) {
+        switch (filter) {
+            case Filter.Eq eq -> bindEqual(eq, binder);
+            case Filter.In in -> bindIn(in, binder);
+            case Filter.Range range -> bindRange(range, binder);
+            case Filter.Contains contains -> {
+                binder.node(Kind.CONTAINS, contains.field());
+                binder.object(contains.text());
+            }
+            case Filter.And and -> {
+                binder.node(Kind.AND, and.filters().size());
+                and.filters().forEach(part -> bind(part, binder));
+            }
+            case Filter.Or or -> {
+                binder.node(Kind.OR, or.filters().size());
+                or.filters().forEach(part -> bind(part, binder));
+            }
+            case Filter.Not not -> {
+                binder.node(Kind.NOT);
+                bind(not.filter(), binder);
+            }
+        }
+    }
+
+    private static void bindEqual(Filter.Eq eq, Binder binder) {
+        IndexKey value = eq.value();
+        if (value.isNumber()) {
+            binder.node(Kind.EQ_NUMBER, eq.field());
+            binder.number(value.number());
+        } else if (value.isText()) {
+            binder.node(Kind.EQ_TEXT, eq.field());
+            binder.object(value.text());
+        } else if (value.isBoolean()) {
+            binder.node(Kind.EQ_BOOLEAN, eq.field());
+            binder.number(value.number());
+        } else if (value.isNull()) {
+            binder.node(Kind.EQ_NULL, eq.field());
+        } else {
+            binder.node(Kind.EQ_GENERIC, eq.field());
+            binder.object(value);
+        }
+    }
+
+    private static void bindIn(Filter.In in, Binder binder) {
+        Set<IndexKey> values = in.values();
+        if (values.stream().allMatch(IndexKey::isNumber)) {
+            binder.node(Kind.IN_NUMBER, in.field());
+            binder.object(values.stream().mapToDouble(IndexKey::number).sorted().toArray());
+        } else if (values.stream().allMatch(IndexKey::isText)) {
+            binder.node(Kind.IN_TEXT, in.field());
+            Set<String> texts = new HashSet<>();
+            values.forEach(value -> texts.add(value.text()));
+            binder.object(texts);
+        } else {
+            binder.node(Kind.IN_GENERIC, in.field());
+            binder.object(values);
+        }
+    }
+
+    private static void bindRange(Filter.Range range, Binder binder) {
+        IndexKey from = range.from();
+        IndexKey to = range.to();
+        if (from.isNumber() && to.isNumber()) {
+            // Una cota del tipo es un extremo abierto: se vuelve infinito e inclusivo
+            binder.node(Kind.RANGE_NUMBER, range.field(), from.isBound() || range.fromInclusive(),
+                    to.isBound() || range.toInclusive());
+            binder.number(from.isBound() ? Double.NEGATIVE_INFINITY : from.number());
+            binder.number(to.isBound() ? Double.POSITIVE_INFINITY : to.number());
+        } else if (from.isText() && to.isText()) {
+            binder.node(Kind.RANGE_TEXT, range.field(), range.fromInclusive(), range.toInclusive());
+            binder.object(from.isBound() ? null : from.text());
+            binder.object(to.isBound() ? null : to.text());
+        } else {
+            binder.node(Kind.RANGE_GENERIC, range.field(), range.fromInclusive(), range.toInclusive());
+            binder.object(from);
+            binder.object(to);
+        }
+    }
+
+    private static Template build(Cursor cursor) {
+        Kind kind = cursor.kind();
+        return switch (kind) {
+            case AND, OR -> {
+                int count = cursor.count();
+                List<Template> parts = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    parts.add(build(cursor));
+                }
+                yield kind == Kind.AND ? all(parts) : any(parts);
+            }
+            case NOT -> {
+                Template inner = build(cursor);
+                yield (doc, constants) -> !inner.test(doc, constants);
+            }
+            case EQ_NUMBER, EQ_TEXT, EQ_BOOLEAN, EQ_NULL, EQ_GENERIC -> equal(kind, reader(cursor.field()), cursor);
+            case IN_NUMBER, IN_TEXT, IN_GENERIC -> in(kind, reader(cursor.field()), cursor);
+            case RANGE_NUMBER, RANGE_TEXT, RANGE_GENERIC -> range(kind, reader(cursor.field()), cursor);
+            case CONTAINS -> {
+                NodeReader reader = reader(cursor.field());
+                int text = cursor.object();
+                yield (doc, constants) -> {
+                    JsonNode node = reader.read(doc);
+                    return node != null && node.asText().contains((String) constants.objects()[text]);
+                };
+            }
+        };
+    }
+
+    /**
+     * Lectura del nodo de un campo, con la ruta ya resuelta.
+     */
+    @FunctionalInterface
+    private interface NodeReader {
+        JsonNode read(JsonDocument document);
+    }
+
+    private static NodeReader reader(String field) {
+        if (Fields.ID.equals(field)) {
+            return doc -> Fields.node(doc, Fields.ID);
+        }
+        FieldPath path = FieldPath.of(field);
+        return path::resolve;
+    }
+
+    /**
+     * Indica si un nodo se indexa como texto, igual que {@link IndexKey#of(JsonNode)}.
+     */
+    private static boolean isText(JsonNode node) {
+        return !node.isContainerNode() && !node.isMissingNode() && !node.isNull()
+                && !node.isBoolean() && !node.isNumber();
+    }
+
+    private static Template equal(Kind kind, NodeReader reader, Cursor cursor) {
+        return switch (kind) {
+            case EQ_NUMBER -> {
+                int number = cursor.number();
+                yield (doc, constants) -> {
+                    JsonNode node = reader.read(doc);
+                    return node != null && node.isNumber() && node.doubleValue() == constants.numbers()[number];
+                };
+            }
+            case EQ_TEXT -> {
+                int slot = cursor.object();
+                yield (doc, constants) -> {
+                    JsonNode node = reader.read(doc);
+                    String text = (String) constants.objects()[slot];
+                    return node != null && (node.isTextual() ? text.equals(node.textValue())
+                            : isText(node) && text.equals(node.asText()));
+                };
+            }
+            case EQ_BOOLEAN -> {
+                int number = cursor.number();
+                yield (doc, constants) -> {
+                    JsonNode node = reader.read(doc);
+                    return node != null && node.isBoolean() && node.booleanValue() == (constants.numbers()[number] != 0);
+                };
+            }
+            case EQ_NULL -> (doc, constants) -> {
+                JsonNode node = reader.read(doc);
+                return node != null && node.isNull();
+            };
+            default -> {
+                int slot = cursor.object();
+                yield generic(reader, (key, constants) -> key.equals(constants.objects()[slot]));
+            }
+        };
+    }
+
+    private static Template in(Kind kind, NodeReader reader, Cursor cursor) {
+        int slot = cursor.object();
+        return switch (kind) {
+            case IN_NUMBER -> (doc, constants) -> {
+                JsonNode node = reader.read(doc);
+                return node != null && node.isNumber()
+                        && Arrays.binarySearch((double[]) constants.objects()[slot], node.doubleValue() + 0.0) >= 0;
+            };
+            case IN_TEXT -> (doc, constants) -> {
+                JsonNode node = reader.read(doc);
+                return node != null && isText(node) && ((Set<?>) constants.objects()[slot]).contains(node.asText());
+            };
+            default -> generic(reader, (key, constants) -> ((Set<?>) constants.objects()[slot]).contains(key));
+        };
+    }
+
+    private static Template range(Kind kind, NodeReader reader, Cursor cursor) {
+        boolean fromInclusive = cursor.flag();
+        boolean toInclusive = cursor.flag();
+        if (kind == Kind.RANGE_NUMBER) {
+            int lower = cursor.number();
+            int upper = cursor.number();
+            return (doc, constants) -> {
+                JsonNode node = reader.read(doc);
+                if (node == null || !node.isNumber()) {
+                    return false;
+                }
+                double value = node.doubleValue();
+                double[] numbers = constants.numbers();
+                return (fromInclusive ? value >= numbers[lower] : value > numbers[lower])
+                        && (toInclusive ? value <= numbers[upper] : value < numbers[upper]);
+            };
+        }
+        int from = cursor.object();
+        int to = cursor.object();
+        if (kind == Kind.RANGE_TEXT) {
+            return (doc, constants) -> {
+                JsonNode node = reader.read(doc);
+                if (node == null || !isText(node)) {
+                    return false;
+                }
+                String value = node.asText();
+                String lower = (String) constants.objects()[from];
+                String upper = (String) constants.objects()[to];
+                if (lower != null) {
+                    int comparison = value.compareTo(lower);
+                    if (fromInclusive ? comparison < 0 : comparison <= 0) {
+                        return false;
+                    }
+                }
+                if (upper != null) {
+                    int comparison = value.compareTo(upper);
+                    return toInclusive ? comparison <= 0 : comparison < 0;
+                }
+                return true;
+            };
+        }
+        return generic(reader, (key, constants) -> {
+            int lower = key.compareTo((IndexKey) constants.objects()[from]);
+            int upper = key.compareTo((IndexKey) constants.objects()[to]);
+            return (fromInclusive ? lower >= 0 : lower > 0) && (toInclusive ? upper <= 0 : upper < 0);
+        });
+    }
+
+    /**
+     * Comparación de una hoja sin especializar con la clave del nodo.
+     */
+    @FunctionalInterface
+    private interface KeyTest {
+        boolean test(IndexKey key, Constants constants);
+    }
+
+    /**
+     * Hoja sin especializar: compara la clave del nodo, como {@link Filter#test(JsonDocument)},
+     * pero con la ruta ya compilada.
+     */
+    private static Template generic(NodeReader reader, KeyTest test) {
+        return (doc, constants) -> {
+            IndexKey key = IndexKey.of(reader.read(doc));
+            return key != null && test.test(key, constants);
+        };
+    }
+
+    private static Template all(List<Template> parts) {
+        if (parts.size() == 1) {
+            return parts.get(0);
+        }
+        if (parts.size() == 2) {
+            Template first = parts.get(0);
+            Template second = parts.get(1);
+            return (doc, constants) -> first.test(doc, constants) && second.test(doc, constants);
+        }
+        Template[] array = parts.toArray(Template[]::new);
+        return (doc, constants) -> {
+            for (Template part : array) {
+                if (!part.test(doc, constants)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
+    private static Template any(List<Template> parts) {
+        if (parts.size() == 1) {
+            return parts.get(0);
+        }
+        if (parts.size() == 2) {
+            Template first = parts.get(0);
+            Template second = parts.get(1);
+            return (doc, constants) -> first.test(doc, constants) || second.test(doc, constants);
+        }
+        Template[] array = parts.toArray(Template[]::new);
+        return (doc, constants) -> {
+            for (Template part : array) {
+                if (part.test(doc, constants)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+}
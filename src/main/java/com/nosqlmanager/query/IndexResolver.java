@@ -0,0 +1,158 @@
+package com.nosqlmanager.query;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import com.nosqlmanager.index.BitmapFieldIndex;
+import com.nosqlmanager.index.EqualityIndex;
+import com.nosqlmanager.index.IndexCatalog;
+import com.nosqlmanager.index.IndexKey;
+import com.nosqlmanager.index.NgramFieldIndex;
+import com.nosqlmanager.index.RoaringBitmap;
+import com.nosqlmanager.index.SortedFieldIndex;
+
+/**
+ * Resuelve una {@link Filter} con los índices secundarios, como operaciones entre
+ * mapas de bits: las igualdades salen de los índices (directamente de los de mapas de
+ * bits, o convirtiendo la lista de ids de un índice hash u ordenado), las conjunciones
+ * son AND, las disyunciones OR y las negaciones AND NOT sobre el conjunto de todos los ids.
+ * Los rangos salen de los índices ordenados y las subcadenas de los de trigramas, que
+ * solo dan candidatos. Las igualdades sobre los primeros campos de un índice compuesto
+ * y un rango sobre el siguiente se resuelven juntas, con un solo recorrido de ese índice.
+ * Las condiciones sobre {@value Fields#ID} no se resuelven aquí: de ellas se encarga el
+ * índice primario.
+ *
+ * <p>Si una parte de una conjunción no tiene índice, el resto sigue acotando: el
+ * resultado son candidatos que hay que confirmar con la condición completa.</p>
+ */
+public final class IndexResolver {
+
+    /**
+     * Ids obtenidos de los índices.
+     * @param ids Ids de los documentos
+     * @param exact true si son exactamente los que cumplen la condición; false si son
+     *              candidatos que todavía hay que confirmar
+     */
+    public record Candidates(RoaringBitmap ids, boolean exact) {
+    }
+
+    private final IndexCatalog catalog;
+    private final Supplier<RoaringBitmap> universe;
+    private RoaringBitmap allIds;
+
+    /**
+     * Crea un resolutor sobre un catálogo de índices.
+     * @param catalog Índices disponibles
+     * @param universe Proveedor del conjunto de todos los ids, que solo se pide si hay negaciones
+     */
+    public IndexResolver(IndexCatalog catalog, Supplier<RoaringBitmap> universe) {
+        this.catalog = catalog;
+        this.universe = universe;
+    }
+
+    /**
+     * Resuelve una condición.
+     * @param filter Condición a resolver
+     * @return Los ids candidatos, o null si los índices no ayudan y hay que revisarlo todo
+     */
+    public Candidates resolve(Filter filter) {
+        return switch (filter) {
+            case Filter.Eq eq -> equal(eq.field(), eq.value());
+            case Filter.Range range -> {
+                SortedFieldIndex sorted = Fields.ID.equals(range.field()) ? null : catalog.sorted(range.field());
+                yield sorted == null ? composite(range) : new Candidates(RoaringBitmap.of(sorted.findRange(
+                        range.from(), range.fromInclusive(), range.to(), range.toInclusive())), true);
+            }
+            case Filter.Contains contains -> {
+                NgramFieldIndex ngram = Fields.ID.equals(contains.field()) ? null : catalog.ngram(contains.field());
+                List<Integer> ids = ngram == null ? null : ngram.candidates(contains.text());
+                yield ids == null ? null : new Candidates(RoaringBitmap.of(ids), false);
+            }
+            case Filter.In in -> {
+                RoaringBitmap ids = new RoaringBitmap();
+                for (IndexKey value : in.values()) {
+                    Candidates one = equal(in.field(), value);
+                    if (one == null) {
+                        yield null;
+                    }
+                    ids = RoaringBitmap.or(ids, one.ids());
+                }
+                yield new Candidates(ids, true);
+            }
+            case Filter.And and -> {
+                RoaringBitmap ids = null;
+                boolean exact = true;
+                // Las condiciones que cubre un índice compuesto salen de un solo recorrido
+                CompositeMatch match = CompositeMatch.best(catalog, and.filters());
+                List<Filter> covered = List.of();
+                if (match != null && match.covered().size() > 1) {
+                    ids = RoaringBitmap.of(match.ids());
+                    covered = match.covered();
+                }
+                for (Filter part : and.filters()) {
+                    if (covered.contains(part)) {
+                        continue;
+                    }
+                    Candidates one = resolve(part);
+                    if (one == null) {
+                        exact = false;
+                    } else {
+                        ids = ids == null ? one.ids() : RoaringBitmap.and(ids, one.ids());
+                        exact &= one.exact();
+                    }
+                }
+                yield ids == null ? null : new Candidates(ids, exact);
+            }
+            case Filter.Or or -> {
+                RoaringBitmap ids = new RoaringBitmap();
+                boolean exact = true;
+                for (Filter part : or.filters()) {
+                    Candidates one = resolve(part);
+                    if (one == null) {
+                        yield null;
+                    }
+                    ids = RoaringBitmap.or(ids, one.ids());
+                    exact &= one.exact();
+                }
+                yield new Candidates(ids, exact);
+            }
+            case Filter.Not not -> {
+                // Solo se puede restar un conjunto exacto; con candidatos saldrían de menos
+                Candidates inner = resolve(not.filter());
+                if (inner == null || !inner.exact()) {
+                    yield null;
+                }
+                yield new Candidates(RoaringBitmap.andNot(allIds(), inner.ids()), true);
+            }
+        };
+    }
+
+    private Candidates equal(String field, IndexKey value) {
+        if (Fields.ID.equals(field)) {
+            return null;
+        }
+        BitmapFieldIndex bitmap = catalog.bitmap(field);
+        if (bitmap != null) {
+            return new Candidates(bitmap.bitmap(value), true);
+        }
+        EqualityIndex equality = catalog.equality(field);
+        return equality == null ? composite(new Filter.Eq(field, value))
+                : new Candidates(RoaringBitmap.of(equality.findEquals(value)), true);
+    }
+
+    /**
+     * Resuelve una condición suelta con un índice compuesto que empiece por su campo,
+     * cuando el campo no tiene índice propio.
+     */
+    private Candidates composite(Filter filter) {
+        CompositeMatch match = CompositeMatch.best(catalog, List.of(filter));
+        return match == null ? null : new Candidates(RoaringBitmap.of(match.ids()), true);
+    }
+
+    private RoaringBitmap allIds() {
+        if (allIds == null) {
+            allIds = universe.get();
+        }
+        return allIds;
+    }
+}
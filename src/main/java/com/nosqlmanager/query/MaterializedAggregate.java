@@ -0,0 +1,161 @@
+package com.nosqlmanager.query;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.nosqlmanager.index.IndexKey;
+import com.nosqlmanager.model.FieldPath;
+import com.nosqlmanager.model.JsonDocument;
+
+/**
+ * Vista materializada de una {@link Aggregation}: guarda el resumen ya calculado y lo
+ * actualiza con cada escritura, en vez de recalcularlo.
+ *
+ * <p>Escribir un documento resta su versión anterior y suma la nueva en su grupo:
+ * conteos y sumas cambian en O(1). Para que el mínimo y el máximo sobrevivan a los
+ * borrados, cada grupo guarda además cuántas veces aparece cada valor en un árbol
+ * ordenado, de modo que una escritura cuesta O(log v), con v los valores distintos del
+ * grupo. Leer la vista cuesta O(grupos) y no toca ningún documento.</p>
+ *
+ * <p>Las sumas se acumulan en {@code double}: con enteros son exactas hasta 2^53; con
+ * decimales pueden arrastrar errores de redondeo tras muchas restas.</p>
+ *
+ * <p>La vista no se sincroniza sola: quien la mantiene (el gestor) la llama con su
+ * candado exclusivo y la lee con el de lectura.</p>
+ */
+public final class MaterializedAggregate {
+
+    /**
+     * Estado de un grupo que admite quitar documentos.
+     */
+    private static final class Cell {
+        long count;
+        double sum;
+        final TreeMap<Double, Long> values = new TreeMap<>();
+        long valueCount;
+
+        void apply(JsonNode value, int sign) {
+            count += sign;
+            if (value != null && value.isNumber()) {
+                double number = value.doubleValue() + 0.0;
+                valueCount += sign;
+                sum += sign * number;
+                values.merge(number, (long) sign, (a, b) -> a + b == 0 ? null : a + b);
+                if (valueCount == 0) {
+                    // Sin valores no queda nada que sumar: se descarta el error de redondeo
+                    sum = 0;
+                }
+            }
+        }
+
+        Summary summary() {
+            return values.isEmpty() ? Summary.of(count, 0, 0, 0, 0)
+                    : Summary.of(count, valueCount, sum, values.firstKey(), values.lastKey());
+        }
+    }
+
+    private final String name;
+    private final Aggregation aggregation;
+    private final Predicate<JsonDocument> matches;
+    private final FieldPath field;
+    private final FieldPath groupBy;
+    private final Cell total = new Cell();
+    private final Map<IndexKey, Cell> groups = new HashMap<>();
+
+    /**
+     * Crea una vista vacía.
+     * @param name Nombre con el que se registra
+     * @param aggregation Agregación a mantener
+     */
+    public MaterializedAggregate(String name, Aggregation aggregation) {
+        this.name = name;
+        this.aggregation = aggregation;
+        this.matches = aggregation.toQuery().predicate();
+        this.field = aggregation.getField() == null ? null : FieldPath.of(aggregation.getField());
+        this.groupBy = aggregation.getGroupBy() == null ? null : FieldPath.of(aggregation.getGroupBy());
+    }
+
+    /**
+     * Refleja el cambio de un documento: resta la versión anterior y suma la nueva.
+     * @param previous Versión anterior, o null si no existía
+     * @param current Versión nueva, o null si se eliminó
+     */
+    public void update(JsonDocument previous, JsonDocument current) {
+        if (previous != null) {
+            apply(previous, -1);
+        }
+        if (current != null) {
+            apply(current, 1);
+        }
+    }
+
+    private void apply(JsonDocument document, int sign) {
+        if (!matches.test(document)) {
+            return;
+        }
+        JsonNode value = field == null ? null : read(field, document);
+        total.apply(value, sign);
+        if (groupBy != null) {
+            IndexKey key = IndexKey.of(read(groupBy, document));
+            if (key != null) {
+                Cell group = groups.computeIfAbsent(key, k -> new Cell());
+                group.apply(value, sign);
+                if (group.count == 0) {
+                    groups.remove(key);
+                }
+            }
+        }
+    }
+
+    private static JsonNode read(FieldPath path, JsonDocument document) {
+        return Fields.ID.equals(path.toString()) ? Fields.node(document, Fields.ID) : path.resolve(document);
+    }
+
+    /**
+     * Vuelve a calcular la vista desde cero, tras una carga o una escritura masiva.
+     * @param documents Todos los documentos
+     */
+    public void rebuild(Collection<JsonDocument> documents) {
+        clear();
+        documents.forEach(document -> apply(document, 1));
+    }
+
+    /**
+     * Vacía la vista.
+     */
+    public void clear() {
+        groups.clear();
+        total.count = 0;
+        total.valueCount = 0;
+        total.sum = 0;
+        total.values.clear();
+    }
+
+    /**
+     * Resultado actual de la vista, sin recorrer documentos.
+     * @return El resumen total y el de cada grupo
+     */
+    public AggregateResult result() {
+        Map<IndexKey, Summary> summaries = new TreeMap<>();
+        groups.forEach((key, group) -> summaries.put(key, group.summary()));
+        return AggregateResult.builder()
+                .aggregation(aggregation)
+                .total(total.summary())
+                .groups(Collections.unmodifiableMap(summaries))
+                .strategy("vista materializada " + name)
+                .build();
+    }
+
+    /**
+     * Agregación que mantiene la vista.
+     * @return La agregación
+     */
+    public Aggregation getAggregation() {
+        return aggregation;
+    }
+}
@@ -0,0 +1,97 @@
+package com.nosqlmanager.query;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.nosqlmanager.model.FieldPath;
+import com.nosqlmanager.model.JsonDocument;
+
+/**
+ * Proyección compilada: los campos que se copian de cada documento del resultado.
+ *
+ * <p>Las rutas se compilan una vez por consulta, no por documento, y solo se copian los
+ * valores pedidos: un documento ancho no se serializa ni se recorre entero para
+ * mostrar dos campos. Un campo anidado ({@code direccion.ciudad}) se copia dentro de
+ * sus objetos; si se pide un campo y también una ruta dentro de él, basta con el campo
+ * completo. El id del documento se conserva siempre, así que {@value Fields#ID} no
+ * copia nada.</p>
+ */
+public final class Projection {
+
+    private final List<String> fields;
+    private final FieldPath[] paths;
+
+    private Projection(List<String> fields) {
+        this.fields = List.copyOf(fields);
+        List<FieldPath> compiled = new ArrayList<>();
+        for (String field : fields) {
+            if (!Fields.ID.equals(field)) {
+                compiled.add(FieldPath.of(field));
+            }
+        }
+        // Una ruta dentro de otra ya pedida sobra; además, copiarla escribiría dentro
+        // del objeto compartido con el documento original
+        this.paths = compiled.stream()
+                .filter(path -> compiled.stream().noneMatch(other -> covers(other, path)))
+                .distinct()
+                .toArray(FieldPath[]::new);
+    }
+
+    /**
+     * Compila una proyección.
+     * @param fields Rutas de los campos a conservar
+     * @return La proyección
+     */
+    public static Projection of(List<String> fields) {
+        return new Projection(fields);
+    }
+
+    /**
+     * Compila una proyección.
+     * @param fields Rutas de los campos a conservar
+     * @return La proyección
+     */
+    public static Projection of(String... fields) {
+        return new Projection(List.of(fields));
+    }
+
+    private static boolean covers(FieldPath outer, FieldPath inner) {
+        return outer.depth() < inner.depth() && inner.toPointer().startsWith(outer.toPointer() + "/");
+    }
+
+    /**
+     * Copia de un documento con solo los campos de la proyección.
+     * Los campos que el documento no tiene no aparecen en la copia.
+     * @param document Documento completo
+     * @return Documento con el mismo id y solo los campos pedidos
+     */
+    public JsonDocument apply(JsonDocument document) {
+        ObjectNode projected = JsonNodeFactory.instance.objectNode();
+        JsonNode data = document.getData();
+        if (data != null) {
+            for (FieldPath path : paths) {
+                JsonNode value = path.resolve(data);
+                if (value != null) {
+                    path.put(projected, value);
+                }
+            }
+        }
+        return new JsonDocument(document.getId(), projected);
+    }
+
+    /**
+     * Campos de la proyección, tal como se pidieron.
+     * @return Lista inmutable de rutas
+     */
+    public List<String> getFields() {
+        return fields;
+    }
+
+    @Override
+    public String toString() {
+        return String.join(", ", fields);
+    }
+}
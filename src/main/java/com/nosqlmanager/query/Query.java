@@ -0,0 +1,200 @@
+package com.nosqlmanager.query;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import com.nosqlmanager.index.IndexKey;
+import com.nosqlmanager.model.FieldPath;
+import com.nosqlmanager.model.JsonDocument;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Consulta declarativa: qué documentos se quieren ({@link Filter}), en qué orden,
+ * cuántos y con qué campos. Como describe el resultado y no la forma de obtenerlo,
+ * el planificador ({@link QueryPlanner}) decide si recorrer un rango de ids, usar
+ * índices secundarios o revisar todos los documentos.
+ *
+ * <pre>
+ * Query.where(Filter.eq("ciudad", "Cali"))
+ *      .orderBy("precio", SortDirection.DESC)
+ *      .limit(10)
+ *      .select("nombre", "precio");
+ * </pre>
+ *
+ * Las consultas son inmutables: cada método fluido devuelve una copia modificada.
+ */
+@Value
+@Builder(toBuilder = true)
+public class Query {
+
+    /**
+     * Condición que deben cumplir los documentos, o null para todos.
+     */
+    Filter filter;
+
+    /**
+     * Campo por el que se ordena, o null para el orden por id.
+     */
+    String sortField;
+
+    /**
+     * Sentido del orden por {@link #sortField}.
+     */
+    @Builder.Default
+    SortDirection direction = SortDirection.ASC;
+
+    /**
+     * Máximo de documentos a devolver, o null sin límite.
+     */
+    Integer limit;
+
+    /**
+     * Campos que se copian en cada resultado, o null para el documento completo.
+     */
+    List<String> projection;
+
+    /**
+     * Consulta de los documentos que cumplen una condición.
+     * @param filter Condición a cumplir
+     * @return La consulta
+     */
+    public static Query where(Filter filter) {
+        return builder().filter(filter).build();
+    }
+
+    /**
+     * Consulta de todos los documentos.
+     * @return La consulta
+     */
+    public static Query all() {
+        return builder().build();
+    }
+
+    /**
+     * Ordena los resultados por un campo. Los documentos sin ese campo van al final.
+     * @param field Campo de ordenación, o {@value Fields#ID}
+     * @param direction Sentido del orden
+     * @return Copia de la consulta con el orden
+     */
+    public Query orderBy(String field, SortDirection direction) {
+        return toBuilder().sortField(field).direction(direction).build();
+    }
+
+    /**
+     * Limita el número de resultados.
+     * @param limit Máximo de documentos
+     * @return Copia de la consulta con el límite
+     * @throws IllegalArgumentException Si el límite es negativo
+     */
+    public Query limit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("El límite no puede ser negativo: " + limit);
+        }
+        return toBuilder().limit(limit).build();
+    }
+
+    /**
+     * Devuelve solo algunos campos de cada documento; el id se conserva siempre.
+     * Un campo anidado ({@code direccion.ciudad}) se copia dentro de sus objetos
+     * (ver {@link Projection}).
+     * @param fields Campos a conservar
+     * @return Copia de la consulta con la proyección
+     */
+    public Query select(String... fields) {
+        return toBuilder().projection(List.of(fields)).build();
+    }
+
+    /**
+     * Evalúa la condición de la consulta sobre un documento.
+     * @param document Documento a revisar
+     * @return true si no hay condición o el documento la cumple
+     */
+    public boolean matches(JsonDocument document) {
+        return filter == null || filter.test(document);
+    }
+
+    /**
+     * Condición de la consulta compilada para revisar muchos documentos
+     * (ver {@link FilterCompiler}). Conviene pedirla una vez por recorrido.
+     * @return Predicado equivalente a {@link #matches(JsonDocument)}
+     */
+    public Predicate<JsonDocument> predicate() {
+        return filter == null ? doc -> true : FilterCompiler.compile(filter);
+    }
+
+    /**
+     * Aplica orden, límite y proyección a los documentos que cumplen la condición.
+     * Sin orden por un campo todo es perezoso y el límite corta el recorrido. Con orden
+     * hay que ver todos los documentos antes de entregar el primero; si además hay
+     * límite, solo se guardan los k mejores en un montículo ({@link TopK}) en vez de
+     * ordenar todo.
+     * @param matches Documentos que cumplen la condición, ordenados por id
+     * @return El resultado final de la consulta
+     */
+    public Stream<JsonDocument> shape(Stream<JsonDocument> matches) {
+        Stream<JsonDocument> results = matches;
+        if (needsSort()) {
+            if (limit != null) {
+                // Los empates se deshacen por id, como haría un orden estable sobre la entrada
+                Comparator<JsonDocument> order = comparator().thenComparing(JsonDocument::getId);
+                Supplier<List<JsonDocument>> top = () -> matches.collect(TopK.collector(order, limit));
+                // Se calcula al consumir el stream, igual que sorted()
+                results = Stream.of(top).flatMap(supplier -> supplier.get().stream());
+            } else if (Fields.ID.equals(sortField)) {
+                results = results.sorted(Comparator.comparing(JsonDocument::getId).reversed());
+            } else {
+                results = results.sorted(comparator());
+            }
+        }
+        if (limit != null) {
+            results = results.limit(limit);
+        }
+        return projection == null ? results : results.map(Projection.of(projection)::apply);
+    }
+
+    /**
+     * Indica si los documentos, que llegan ordenados por id, hay que reordenarlos.
+     * @return false sin orden o con orden ascendente por {@value Fields#ID}
+     */
+    public boolean needsSort() {
+        return sortField != null && !(Fields.ID.equals(sortField) && direction == SortDirection.ASC);
+    }
+
+    /**
+     * Orden de los resultados según {@link #sortField}, con los documentos sin el campo al final.
+     * @return El comparador
+     */
+    public Comparator<JsonDocument> comparator() {
+        Comparator<IndexKey> order = direction == SortDirection.ASC
+                ? Comparator.<IndexKey>naturalOrder() : Comparator.<IndexKey>reverseOrder();
+        if (Fields.ID.equals(sortField)) {
+            return Comparator.comparing(doc -> Fields.key(doc, Fields.ID), Comparator.nullsLast(order));
+        }
+        FieldPath path = FieldPath.of(sortField);
+        return Comparator.comparing(doc -> IndexKey.ofField(doc, path), Comparator.nullsLast(order));
+    }
+
+    /**
+     * Descripción legible de la consulta, como en {@code EXPLAIN}.
+     * @return La consulta en una línea
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(filter == null ? "todos" : filter.toString());
+        if (sortField != null) {
+            text.append(" ORDER BY ").append(sortField).append(' ').append(direction);
+        }
+        if (limit != null) {
+            text.append(" LIMIT ").append(limit);
+        }
+        if (projection != null) {
+            text.append(" SELECT ").append(String.join(", ", projection));
+        }
+        return text.toString();
+    }
+}
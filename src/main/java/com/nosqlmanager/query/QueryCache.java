@@ -0,0 +1,154 @@
+package com.nosqlmanager.query;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import com.nosqlmanager.model.JsonDocument;
+
+/**
+ * Caché de resultados de consultas sobre un campo, limitada en número de resultados
+ * y en memoria, que descarta primero los usados hace más tiempo (LRU).
+ *
+ * <p>Cada resultado guarda también la condición que lo produjo. Al escribir un
+ * documento solo se descartan los resultados cuya condición cumplía la versión
+ * anterior o cumple la nueva: si el documento no cumple ninguna de las dos, el
+ * resultado sigue siendo el mismo. Como las condiciones solo leen su campo, escribir
+ * en otros campos de documentos que no aparecen en un resultado no lo toca.</p>
+ *
+ * <p>Para no guardar un resultado calculado con datos viejos, quien consulta toma la
+ * {@link #version()} antes de ejecutar la consulta y la pasa a {@link #put}; si entre
+ * medias hubo una escritura, el resultado no se guarda.</p>
+ */
+public final class QueryCache {
+
+    /**
+     * Consulta normalizada: la operación, el campo como JSON Pointer y los valores.
+     * @param operation Nombre de la operación, como "equals" o "contains"
+     * @param field Ruta canónica del campo
+     * @param arguments Valores de la consulta, ya normalizados
+     */
+    public record Key(String operation, String field, List<Object> arguments) {
+    }
+
+    private record Entry(List<JsonDocument> results, Predicate<JsonDocument> matches, long bytes) {
+    }
+
+    /**
+     * Bytes aproximados de una entrada sin contar su lista: clave, entrada del mapa y condición.
+     */
+    private static final long ENTRY_OVERHEAD = 160;
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long version;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    /**
+     * Crea una caché vacía.
+     * @param maxEntries Máximo de resultados guardados
+     * @param maxBytes Máximo de bytes aproximados entre todos los resultados
+     */
+    public QueryCache(int maxEntries, long maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Busca el resultado de una consulta.
+     * @param key Consulta normalizada
+     * @return El resultado guardado (inmutable), o null si no está
+     */
+    public synchronized List<JsonDocument> get(Key key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.results();
+    }
+
+    /**
+     * Versión actual de los datos según la caché; cambia con cada escritura.
+     * @return La versión
+     */
+    public synchronized long version() {
+        return version;
+    }
+
+    /**
+     * Guarda el resultado de una consulta si los datos no cambiaron mientras se calculaba.
+     * @param key Consulta normalizada
+     * @param seenVersion Versión tomada antes de ejecutar la consulta
+     * @param results Resultado (se guarda tal cual: debe ser inmutable)
+     * @param matches Condición de la consulta, para saber qué escrituras la afectan
+     */
+    public synchronized void put(Key key, long seenVersion, List<JsonDocument> results,
+                                 Predicate<JsonDocument> matches) {
+        long size = ENTRY_OVERHEAD + 16 + (long) results.size() * 4;
+        if (seenVersion != version || size > maxBytes || maxEntries <= 0) {
+            return;
+        }
+        Entry previous = entries.put(key, new Entry(results, matches, size));
+        bytes += size - (previous == null ? 0 : previous.bytes());
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxEntries || bytes > maxBytes) {
+            bytes -= eldest.next().getValue().bytes();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Descarta los resultados que cambian con una escritura.
+     * Se llama después de publicar la nueva versión de los datos.
+     * @param previous Versión anterior del documento, o null si es nuevo
+     * @param current Versión nueva, o null si se eliminó
+     */
+    public synchronized void invalidate(JsonDocument previous, JsonDocument current) {
+        version++;
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if ((previous != null && entry.matches().test(previous))
+                    || (current != null && entry.matches().test(current))) {
+                bytes -= entry.bytes();
+                iterator.remove();
+                invalidations++;
+            }
+        }
+    }
+
+    /**
+     * Descarta todos los resultados, para escrituras masivas o un vaciado completo.
+     */
+    public synchronized void invalidateAll() {
+        version++;
+        invalidations += entries.size();
+        entries.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Métricas acumuladas desde que se creó la caché.
+     * @return Foto de las métricas
+     */
+    public synchronized CacheStats getStats() {
+        return CacheStats.builder()
+                .hits(hits)
+                .misses(misses)
+                .evictions(evictions)
+                .invalidations(invalidations)
+                .entries(entries.size())
+                .memoryUsage(bytes)
+                .build();
+    }
+}
@@ -0,0 +1,122 @@
+package com.nosqlmanager.query;
+
+import java.util.List;
+import java.util.Locale;
+
+import lombok.Builder;
+import lombok.Singular;
+import lombok.Value;
+
+/**
+ * Plan elegido por el {@link QueryPlanner} para una consulta, con su coste estimado.
+ * Los costes se miden en "documentos revisados": revisar un documento contra la
+ * condición vale 1, y el resto de operaciones se expresa en esa unidad.
+ */
+@Value
+@Builder
+public class QueryPlan {
+
+    /**
+     * Forma de llegar a los documentos.
+     */
+    public enum Access {
+        /**
+         * Recorrer todos los documentos y revisar la condición en cada uno.
+         */
+        FULL_SCAN,
+        /**
+         * Recorrer solo un rango de ids del índice primario.
+         */
+        ID_RANGE,
+        /**
+         * Buscar una lista de ids concretos en el índice primario.
+         */
+        ID_LOOKUP,
+        /**
+         * Obtener los ids candidatos de los índices secundarios.
+         */
+        INDEX,
+        /**
+         * Recorrer un índice ordenado en el orden de la consulta y parar al llegar al
+         * límite, sin ordenar nada.
+         */
+        INDEX_ORDER
+    }
+
+    /**
+     * Consulta planificada.
+     */
+    Query query;
+
+    /**
+     * Acceso elegido.
+     */
+    Access access;
+
+    /**
+     * Detalle del acceso: el rango, los ids o los índices usados.
+     */
+    String detail;
+
+    /**
+     * Documentos que el acceso entrega y hay que revisar o traer.
+     */
+    double examinedRows;
+
+    /**
+     * Documentos que se espera que cumplan la condición.
+     */
+    double estimatedRows;
+
+    /**
+     * Coste estimado del acceso elegido.
+     */
+    double cost;
+
+    /**
+     * true si los ids que entrega el acceso ya cumplen la condición y no hace falta revisarla.
+     */
+    boolean exact;
+
+    /**
+     * Primer id del rango, para {@link Access#ID_RANGE}.
+     */
+    int idFrom;
+
+    /**
+     * Último id del rango, para {@link Access#ID_RANGE}.
+     */
+    int idTo;
+
+    /**
+     * Ids a buscar en orden ascendente, para {@link Access#ID_LOOKUP}.
+     */
+    List<Integer> ids;
+
+    /**
+     * Alternativas consideradas y descartadas, con su coste.
+     */
+    @Singular
+    List<String> rejectedAlternatives;
+
+    /**
+     * Descripción del plan en varias líneas, al estilo de {@code EXPLAIN} en SQL.
+     * @return El plan legible
+     */
+    public String explain() {
+        StringBuilder text = new StringBuilder();
+        text.append("Consulta: ").append(query).append('\n');
+        text.append("Acceso: ").append(access);
+        if (detail != null) {
+            text.append(" (").append(detail).append(')');
+        }
+        text.append('\n');
+        text.append(String.format(Locale.ROOT, "Filas examinadas: ~%.0f, resultado: ~%.0f, coste: %.1f%n",
+                examinedRows, estimatedRows, cost));
+        text.append(exact ? "Sin revisión de la condición\n" : "Revisión de la condición en cada fila\n");
+        for (String alternative : rejectedAlternatives) {
+            text.append("Descartado: ").append(alternative).append('\n');
+        }
+        return text.toString();
+    }
+}
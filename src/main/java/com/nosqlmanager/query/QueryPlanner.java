@@ -0,0 +1,409 @@
+package com.nosqlmanager.query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
+
+import com.nosqlmanager.index.BitmapFieldIndex;
+import com.nosqlmanager.index.EqualityIndex;
+import com.nosqlmanager.index.IndexCatalog;
+import com.nosqlmanager.index.IndexKey;
+import com.nosqlmanager.index.NgramFieldIndex;
+import com.nosqlmanager.index.SortedFieldIndex;
+import com.nosqlmanager.model.JsonDocument;
+import com.nosqlmanager.tree.PersistentAVLTree;
+
+/**
+ * Planificador de consultas basado en costes.
+ *
+ * <p>Para cada consulta compara estas formas de acceso y se queda con la más barata:</p>
+ * <ul>
+ *   <li>Recorrido completo: revisar los n documentos, coste {@code n}.</li>
+ *   <li>Rango o lista de ids: si la condición (o una parte de su conjunción) acota el
+ *       campo {@value Fields#ID}, se baja por el árbol primario y solo se revisa lo que
+ *       cae dentro. El tamaño del rango se cuenta exactamente en O(log n).</li>
+ *   <li>Índices secundarios: se resuelve la condición con el {@link IndexResolver} y
+ *       se traen los candidatos. Cuesta leer las entradas del índice, traer cada
+ *       candidato y, si el resultado no es exacto, revisarlo. Lo que cubre un índice
+ *       compuesto se cuenta con él directamente, sin suponer independencia.</li>
+ *   <li>Orden de un índice: con {@code orderBy} y {@code limit} sobre un campo con
+ *       índice ordenado, se recorre el índice en ese orden y se para al llegar al
+ *       límite. Los demás accesos pagan además ordenar su resultado.</li>
+ * </ul>
+ *
+ * <p>Las estadísticas salen de los propios índices: cuántos ids tiene cada valor,
+ * el mínimo y el máximo de un índice ordenado (suponiendo reparto uniforme) y el tamaño
+ * de las listas de trigramas. Sin índice se usan fracciones fijas, como hacen los
+ * planificadores clásicos cuando no tienen histogramas.</p>
+ */
+public final class QueryPlanner {
+
+    /**
+     * Coste de revisar un documento contra la condición.
+     */
+    static final double SCAN_COST = 1.0;
+
+    /**
+     * Coste de traer un documento por id desde el árbol primario, en lote y en orden.
+     */
+    static final double FETCH_COST = 0.5;
+
+    /**
+     * Coste de leer una entrada de un índice secundario.
+     */
+    static final double INDEX_ENTRY_COST = 0.05;
+
+    /**
+     * Fracción supuesta para una igualdad sin estadísticas.
+     */
+    static final double DEFAULT_EQUALITY = 0.1;
+
+    /**
+     * Fracción supuesta para un rango sin estadísticas.
+     */
+    static final double DEFAULT_RANGE = 1.0 / 3;
+
+    /**
+     * Estimación de una parte de la condición.
+     * @param selectivity Fracción de documentos que la cumplen
+     * @param resolvable Si los índices pueden dar sus candidatos
+     * @param candidates Fracción de documentos que darían los índices
+     * @param exact Si esos candidatos son exactamente los que la cumplen
+     * @param indexCost Coste de consultar los índices
+     * @param indexes Campos cuyos índices se usan
+     */
+    private record Estimate(double selectivity, boolean resolvable, double candidates, boolean exact,
+                            double indexCost, List<String> indexes) {
+
+        static Estimate unresolved(double selectivity) {
+            return new Estimate(selectivity, false, 1, false, 0, List.of());
+        }
+    }
+
+    private final IndexCatalog catalog;
+    private final PersistentAVLTree<Integer, JsonDocument> snapshot;
+    private final int size;
+
+    /**
+     * Crea un planificador sobre una versión de los datos y sus índices.
+     * @param catalog Índices secundarios disponibles
+     * @param snapshot Versión de los datos que se va a consultar
+     */
+    public QueryPlanner(IndexCatalog catalog, PersistentAVLTree<Integer, JsonDocument> snapshot) {
+        this.catalog = catalog;
+        this.snapshot = snapshot;
+        this.size = snapshot.getSize();
+    }
+
+    /**
+     * Elige el plan más barato para una consulta.
+     * @param query Consulta a planificar
+     * @return El plan elegido, con las alternativas descartadas
+     */
+    public QueryPlan plan(Query query) {
+        Filter filter = query.getFilter();
+        List<QueryPlan.QueryPlanBuilder> options = new ArrayList<>();
+        Estimate estimate = filter == null ? null : estimate(filter);
+        double rows = estimate == null ? size : size * estimate.selectivity();
+
+        options.add(QueryPlan.builder().access(QueryPlan.Access.FULL_SCAN)
+                .examinedRows(size).cost(size * SCAN_COST).exact(filter == null));
+        if (filter != null) {
+            for (Filter conjunct : conjuncts(filter)) {
+                QueryPlan.QueryPlanBuilder byId = idAccess(conjunct);
+                if (byId != null) {
+                    options.add(byId);
+                }
+            }
+            if (estimate.resolvable()) {
+                double candidates = size * estimate.candidates();
+                double perRow = FETCH_COST + (estimate.exact() ? 0 : SCAN_COST);
+                options.add(QueryPlan.builder().access(QueryPlan.Access.INDEX)
+                        .detail("índices sobre " + String.join(", ", new TreeSet<>(estimate.indexes())))
+                        .examinedRows(candidates).cost(estimate.indexCost() + candidates * perRow)
+                        .exact(estimate.exact()));
+            }
+        }
+
+        double sortCost = sortCost(query, rows);
+        if (sortCost > 0) {
+            for (QueryPlan.QueryPlanBuilder option : options) {
+                option.cost(option.build().getCost() + sortCost);
+            }
+            QueryPlan.QueryPlanBuilder ordered = indexOrderAccess(query, rows);
+            if (ordered != null) {
+                options.add(ordered);
+            }
+        }
+
+        QueryPlan.QueryPlanBuilder best = options.get(0);
+        double bestCost = best.build().getCost();
+        for (QueryPlan.QueryPlanBuilder option : options) {
+            double cost = option.build().getCost();
+            if (cost < bestCost) {
+                best = option;
+                bestCost = cost;
+            }
+        }
+        for (QueryPlan.QueryPlanBuilder option : options) {
+            if (option != best) {
+                QueryPlan rejected = option.build();
+                best.rejectedAlternative(String.format(Locale.ROOT, "%s%s, coste %.1f", rejected.getAccess(),
+                        rejected.getDetail() == null ? "" : " (" + rejected.getDetail() + ")", rejected.getCost()));
+            }
+        }
+        return best.query(query).estimatedRows(rows).build();
+    }
+
+    /**
+     * Coste de ordenar el resultado de un acceso que entrega los documentos por id:
+     * cada documento pasa por un montículo de k elementos (o por un orden completo si
+     * no hay límite), con una comparación por nivel.
+     */
+    private static double sortCost(Query query, double rows) {
+        if (!query.needsSort()) {
+            return 0;
+        }
+        double kept = query.getLimit() == null ? rows : Math.min(rows, query.getLimit());
+        return rows * log2(kept + 1) * INDEX_ENTRY_COST;
+    }
+
+    /**
+     * Acceso por el orden de un índice ordenado sobre el campo de ordenación: se recorre
+     * el índice en el sentido pedido y se para al reunir el límite. Con una condición
+     * que cumple una fracción s de los documentos hay que revisar unos k / s.
+     * @return El acceso, o null si no hay límite o índice ordenado sobre el campo
+     */
+    private QueryPlan.QueryPlanBuilder indexOrderAccess(Query query, double rows) {
+        String field = query.getSortField();
+        if (query.getLimit() == null || Fields.ID.equals(field)) {
+            return null;
+        }
+        SortedFieldIndex sorted = catalog.sorted(field);
+        if (sorted == null) {
+            return null;
+        }
+        int limit = query.getLimit();
+        double examined = rows <= 0 ? sorted.size() : Math.min(sorted.size(), limit * (size / rows));
+        double perRow = INDEX_ENTRY_COST + FETCH_COST + (query.getFilter() == null ? 0 : SCAN_COST);
+        double cost = log2(size + 1) * INDEX_ENTRY_COST + examined * perRow;
+        // Los documentos sin el campo no están en el índice y van al final: si el índice
+        // no alcanza para el límite, hay que buscarlos con un recorrido
+        if (sorted.size() * (size == 0 ? 1 : rows / size) < limit) {
+            cost += size * SCAN_COST;
+        }
+        return QueryPlan.builder().access(QueryPlan.Access.INDEX_ORDER)
+                .detail("orden del índice sobre " + field)
+                .examinedRows(examined).cost(cost).exact(query.getFilter() == null);
+    }
+
+    private static double log2(double value) {
+        return Math.log(value) / Math.log(2);
+    }
+
+    private static List<Filter> conjuncts(Filter filter) {
+        return filter instanceof Filter.And and ? and.filters() : List.of(filter);
+    }
+
+    /**
+     * Acceso por el índice primario para una condición sobre {@value Fields#ID}.
+     * @return El acceso, o null si la condición no acota el id
+     */
+    private QueryPlan.QueryPlanBuilder idAccess(Filter conjunct) {
+        double depth = log2(size + 1.0);
+        switch (conjunct) {
+            case Filter.Eq eq when Fields.ID.equals(eq.field()) -> {
+                int[] range = idRange(eq.value(), true, eq.value(), true);
+                return range == null ? null : idRangeAccess(range, depth);
+            }
+            case Filter.Range range when Fields.ID.equals(range.field()) -> {
+                int[] bounds = idRange(range.from(), range.fromInclusive(), range.to(), range.toInclusive());
+                return bounds == null ? null : idRangeAccess(bounds, depth);
+            }
+            case Filter.In in when Fields.ID.equals(in.field()) -> {
+                TreeSet<Integer> ids = new TreeSet<>();
+                for (IndexKey value : in.values()) {
+                    if (value.isNumber() && value.number() == Math.rint(value.number())
+                            && Math.abs(value.number()) <= Integer.MAX_VALUE) {
+                        ids.add((int) value.number());
+                    }
+                }
+                int found = (int) ids.stream().filter(snapshot::contains).count();
+                return QueryPlan.builder().access(QueryPlan.Access.ID_LOOKUP)
+                        .detail(ids.size() + " ids").ids(List.copyOf(ids))
+                        .examinedRows(found).cost(ids.size() * depth * INDEX_ENTRY_COST + found * SCAN_COST);
+            }
+            default -> {
+                return null;
+            }
+        }
+    }
+
+    private QueryPlan.QueryPlanBuilder idRangeAccess(int[] range, double depth) {
+        int rows = snapshot.countRange(range[0], range[1]);
+        return QueryPlan.builder().access(QueryPlan.Access.ID_RANGE)
+                .detail("ids " + range[0] + ".." + range[1]).idFrom(range[0]).idTo(range[1])
+                .examinedRows(rows).cost(depth * INDEX_ENTRY_COST + rows * SCAN_COST);
+    }
+
+    /**
+     * Convierte un rango de claves numéricas en un rango cerrado de ids enteros.
+     * @return {desde, hasta}, o null si los límites no son números
+     */
+    private static int[] idRange(IndexKey from, boolean fromInclusive, IndexKey to, boolean toInclusive) {
+        if (!from.isNumber() || !to.isNumber()) {
+            return null;
+        }
+        long lower = from.isBound() ? Integer.MIN_VALUE
+                : (long) (fromInclusive ? Math.ceil(from.number()) : Math.floor(from.number()) + 1);
+        long upper = to.isBound() ? Integer.MAX_VALUE
+                : (long) (toInclusive ? Math.floor(to.number()) : Math.ceil(to.number()) - 1);
+        lower = Math.max(lower, Integer.MIN_VALUE);
+        upper = Math.min(upper, Integer.MAX_VALUE);
+        // Un rango vacío se representa con desde > hasta: countRange y getRange dan 0 documentos
+        return lower > upper ? new int[] {1, 0} : new int[] {(int) lower, (int) upper};
+    }
+
+    /**
+     * Estima la selectividad de una condición y lo que costaría resolverla con índices,
+     * siguiendo las mismas reglas que el {@link IndexResolver}.
+     */
+    private Estimate estimate(Filter filter) {
+        double n = Math.max(size, 1);
+        double lookup = log2(n + 1) * INDEX_ENTRY_COST;
+        return switch (filter) {
+            case Filter.Eq eq -> equality(eq.field(), List.of(eq.value()), n, lookup);
+            case Filter.In in -> equality(in.field(), new ArrayList<>(in.values()), n, lookup);
+            case Filter.Range range -> {
+                if (Fields.ID.equals(range.field())) {
+                    int[] bounds = idRange(range.from(), range.fromInclusive(), range.to(), range.toInclusive());
+                    yield Estimate.unresolved(bounds == null ? 0 : snapshot.countRange(bounds[0], bounds[1]) / n);
+                }
+                SortedFieldIndex sorted = catalog.sorted(range.field());
+                if (sorted == null) {
+                    yield composite(List.of(range), n, lookup, Estimate.unresolved(DEFAULT_RANGE));
+                }
+                double fraction = Math.min(1, sorted.estimateRange(range.from(), range.to()) / n);
+                yield new Estimate(fraction, true, fraction, true, lookup + fraction * n * INDEX_ENTRY_COST,
+                        List.of(range.field()));
+            }
+            case Filter.Contains contains -> {
+                NgramFieldIndex ngram = Fields.ID.equals(contains.field()) ? null : catalog.ngram(contains.field());
+                int candidates = ngram == null ? -1 : ngram.estimateCandidates(contains.text());
+                if (candidates < 0) {
+                    yield Estimate.unresolved(DEFAULT_EQUALITY);
+                }
+                double fraction = Math.min(1, candidates / n);
+                yield new Estimate(fraction, true, fraction, false,
+                        contains.text().length() * lookup + fraction * n * INDEX_ENTRY_COST,
+                        List.of(contains.field()));
+            }
+            case Filter.And and -> {
+                double selectivity = 1;
+                double candidates = 1;
+                double cost = 0;
+                boolean resolvable = false;
+                boolean exact = true;
+                List<String> indexes = new ArrayList<>();
+                CompositeMatch match = CompositeMatch.best(catalog, and.filters());
+                List<Filter> covered = List.of();
+                if (match != null && match.covered().size() > 1) {
+                    // Un índice compuesto cuenta exactamente las condiciones que cubre
+                    covered = match.covered();
+                    int count = match.count();
+                    selectivity = candidates = Math.min(1, count / n);
+                    cost = lookup + count * INDEX_ENTRY_COST;
+                    resolvable = true;
+                    indexes.add(match.name());
+                }
+                for (Filter part : and.filters()) {
+                    if (covered.contains(part)) {
+                        continue;
+                    }
+                    Estimate one = estimate(part);
+                    // Se suponen condiciones independientes, como sin histogramas conjuntos
+                    selectivity *= one.selectivity();
+                    if (one.resolvable()) {
+                        resolvable = true;
+                        candidates *= one.candidates();
+                        cost += one.indexCost();
+                        indexes.addAll(one.indexes());
+                    }
+                    exact &= one.resolvable() && one.exact();
+                }
+                yield new Estimate(selectivity, resolvable, candidates, exact, cost, indexes);
+            }
+            case Filter.Or or -> {
+                double missing = 1;
+                double candidates = 0;
+                double cost = 0;
+                boolean resolvable = true;
+                boolean exact = true;
+                List<String> indexes = new ArrayList<>();
+                for (Filter part : or.filters()) {
+                    Estimate one = estimate(part);
+                    missing *= 1 - one.selectivity();
+                    resolvable &= one.resolvable();
+                    candidates += one.candidates();
+                    cost += one.indexCost();
+                    exact &= one.exact();
+                    indexes.addAll(one.indexes());
+                }
+                double selectivity = 1 - missing;
+                yield resolvable
+                        ? new Estimate(selectivity, true, Math.min(1, candidates), exact, cost, indexes)
+                        : Estimate.unresolved(selectivity);
+            }
+            case Filter.Not not -> {
+                Estimate inner = estimate(not.filter());
+                double selectivity = 1 - inner.selectivity();
+                // Restar del conjunto de todos los ids obliga a construirlo: una entrada por documento
+                yield inner.resolvable() && inner.exact()
+                        ? new Estimate(selectivity, true, selectivity, true,
+                                inner.indexCost() + n * INDEX_ENTRY_COST, inner.indexes())
+                        : Estimate.unresolved(selectivity);
+            }
+        };
+    }
+
+    /**
+     * Estimación de una condición suelta con un índice compuesto que empiece por su campo.
+     * @return La estimación con el índice, o {@code fallback} si ningún índice compuesto sirve
+     */
+    private Estimate composite(List<Filter> conjuncts, double n, double lookup, Estimate fallback) {
+        CompositeMatch match = CompositeMatch.best(catalog, conjuncts);
+        if (match == null) {
+            return fallback;
+        }
+        int count = match.count();
+        double fraction = Math.min(1, count / n);
+        return new Estimate(fraction, true, fraction, true, lookup + count * INDEX_ENTRY_COST, List.of(match.name()));
+    }
+
+    private Estimate equality(String field, List<IndexKey> values, double n, double lookup) {
+        if (Fields.ID.equals(field)) {
+            long found = values.stream()
+                    .filter(v -> v.isNumber() && v.number() == Math.rint(v.number())
+                            && Math.abs(v.number()) <= Integer.MAX_VALUE)
+                    .filter(v -> snapshot.contains((int) v.number()))
+                    .count();
+            return Estimate.unresolved(found / n);
+        }
+        BitmapFieldIndex bitmap = catalog.bitmap(field);
+        EqualityIndex equality = bitmap != null ? bitmap : catalog.equality(field);
+        if (equality == null) {
+            Estimate unresolved = Estimate.unresolved(Math.min(1, values.size() * DEFAULT_EQUALITY));
+            return values.size() == 1
+                    ? composite(List.of(new Filter.Eq(field, values.get(0))), n, lookup, unresolved)
+                    : unresolved;
+        }
+        long matches = 0;
+        for (IndexKey value : values) {
+            matches += equality.countEquals(value);
+        }
+        double fraction = Math.min(1, matches / n);
+        return new Estimate(fraction, true, fraction, true,
+                values.size() * lookup + matches * INDEX_ENTRY_COST, List.of(field));
+    }
+}
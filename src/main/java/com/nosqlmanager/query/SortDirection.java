@@ -0,0 +1,17 @@
+package com.nosqlmanager.query;
+
+/**
+ * Sentido de ordenación de los resultados de una consulta.
+ */
+public enum SortDirection {
+
+    /**
+     * De menor a mayor.
+     */
+    ASC,
+
+    /**
+     * De mayor a menor.
+     */
+    DESC
+}
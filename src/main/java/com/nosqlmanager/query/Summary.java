@@ -0,0 +1,151 @@
+package com.nosqlmanager.query;
+
+import java.util.Locale;
+import java.util.OptionalDouble;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Resumen de un grupo de documentos: cuántos hay y, sobre los valores numéricos de
+ * un campo, su suma, mínimo, máximo y media.
+ *
+ * <p>Como en SQL, {@link #getCount()} cuenta documentos ({@code COUNT(*)}), mientras
+ * que suma, mínimo, máximo y media solo miran los documentos cuyo campo es un número:
+ * los que no lo tienen o tienen otro tipo no cambian la media. Se calcula en una sola
+ * pasada y dos resúmenes parciales se pueden combinar, así que sirve para recorridos
+ * en paralelo.</p>
+ */
+public final class Summary {
+
+    private long count;
+    private long valueCount;
+    private double sum;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    Summary() {
+    }
+
+    /**
+     * Resumen con valores ya calculados, como los que mantiene una vista materializada.
+     * @param count Documentos
+     * @param valueCount Documentos con valor numérico
+     * @param sum Suma de los valores
+     * @param min Menor valor (se ignora si no hay valores)
+     * @param max Mayor valor (se ignora si no hay valores)
+     * @return El resumen
+     */
+    static Summary of(long count, long valueCount, double sum, double min, double max) {
+        Summary summary = new Summary();
+        summary.count = count;
+        if (valueCount > 0) {
+            summary.valueCount = valueCount;
+            summary.sum = sum;
+            summary.min = min;
+            summary.max = max;
+        }
+        return summary;
+    }
+
+    /**
+     * Cuenta un documento con el valor de su campo.
+     * @param value Valor del campo, o null si no se resume ningún campo o no existe
+     */
+    void add(JsonNode value) {
+        count++;
+        if (value != null && value.isNumber()) {
+            addValue(value.doubleValue(), 1);
+        }
+    }
+
+    /**
+     * Cuenta varios documentos sin leer sus valores.
+     * @param documents Número de documentos
+     */
+    void addDocuments(long documents) {
+        count += documents;
+    }
+
+    /**
+     * Añade el mismo valor numérico varias veces, como sale de un índice.
+     * @param value Valor numérico
+     * @param times Documentos que lo tienen
+     */
+    void addValue(double value, long times) {
+        valueCount += times;
+        sum += value * times;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Junta otro resumen parcial con este.
+     * @param other Resumen de otra parte de los documentos
+     * @return Este resumen, ya combinado
+     */
+    Summary combine(Summary other) {
+        count += other.count;
+        valueCount += other.valueCount;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        return this;
+    }
+
+    /**
+     * Número de documentos del grupo.
+     * @return El conteo, como {@code COUNT(*)}
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Número de documentos cuyo campo es un número.
+     * @return El conteo, como {@code COUNT(campo)}
+     */
+    public long getValueCount() {
+        return valueCount;
+    }
+
+    /**
+     * Suma de los valores numéricos.
+     * @return La suma, o 0 si no hay valores
+     */
+    public double getSum() {
+        return sum;
+    }
+
+    /**
+     * Menor valor numérico.
+     * @return El mínimo, o vacío si no hay valores
+     */
+    public OptionalDouble getMin() {
+        return valueCount == 0 ? OptionalDouble.empty() : OptionalDouble.of(min);
+    }
+
+    /**
+     * Mayor valor numérico.
+     * @return El máximo, o vacío si no hay valores
+     */
+    public OptionalDouble getMax() {
+        return valueCount == 0 ? OptionalDouble.empty() : OptionalDouble.of(max);
+    }
+
+    /**
+     * Media de los valores numéricos.
+     * @return La media, o vacío si no hay valores
+     */
+    public OptionalDouble getAverage() {
+        return valueCount == 0 ? OptionalDouble.empty() : OptionalDouble.of(sum / valueCount);
+    }
+
+    @Override
+    public String toString() {
+        if (valueCount == 0) {
+            return "count=" + count;
+        }
+        return String.format(Locale.ROOT, "count=%d, sum=%s, min=%s, max=%s, avg=%s",
+                count, sum, min, max, sum / valueCount);
+    }
+}
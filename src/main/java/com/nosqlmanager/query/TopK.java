@@ -0,0 +1,58 @@
+package com.nosqlmanager.query;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Collector;
+
+/**
+ * Selección de los k primeros elementos de un stream según un orden, sin ordenar el
+ * stream completo.
+ *
+ * <p>Se mantiene un montículo acotado con los k mejores vistos hasta el momento, cuya
+ * cabeza es el peor de ellos: cada elemento nuevo se compara solo con esa cabeza y,
+ * si es mejor, la reemplaza. Cuesta O(n log k) en tiempo y O(k) en memoria, frente a
+ * O(n log n) y O(n) de ordenar todo. Los montículos parciales de un stream paralelo
+ * se combinan pasando los elementos de uno al otro.</p>
+ */
+final class TopK {
+
+    private TopK() {
+    }
+
+    /**
+     * Colector de los k primeros elementos, en orden.
+     * Con un orden total (sin empates) el resultado es el mismo que {@code sorted().limit(k)}.
+     * @param order Orden de los elementos; los primeros son los que se conservan
+     * @param k Número de elementos a conservar
+     * @param <T> Tipo de los elementos
+     * @return El colector
+     */
+    static <T> Collector<T, ?, List<T>> collector(Comparator<? super T> order, int k) {
+        Comparator<? super T> worstFirst = order.reversed();
+        return Collector.<T, PriorityQueue<T>, List<T>>of(
+                () -> new PriorityQueue<>(Math.max(1, Math.min(k, 1024)), worstFirst),
+                (heap, element) -> offer(heap, element, order, k),
+                (heap, other) -> {
+                    for (T element : other) {
+                        offer(heap, element, order, k);
+                    }
+                    return heap;
+                },
+                heap -> {
+                    List<T> best = new ArrayList<>(heap);
+                    best.sort(order);
+                    return best;
+                });
+    }
+
+    private static <T> void offer(PriorityQueue<T> heap, T element, Comparator<? super T> order, int k) {
+        if (heap.size() < k) {
+            heap.add(element);
+        } else if (k > 0 && order.compare(element, heap.peek()) < 0) {
+            heap.poll();
+            heap.add(element);
+        }
+    }
+}
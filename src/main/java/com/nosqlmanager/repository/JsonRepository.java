@@ -3,7 +3,10 @@ package com.nosqlmanager.repository;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Predicate;
+import java.util.stream.Stream;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.nosqlmanager.model.FieldPath;
 import com.nosqlmanager.model.JsonDocument;
 
 /**
@@ -38,14 +41,40 @@ public interface JsonRepository {
      */
     List<JsonDocument> findByPredicate(Predicate<JsonDocument> predicate);
 
+    /**
+     * Busca documentos que cumplan un criterio dado, de forma perezosa: el criterio se
+     * evalúa a medida que se consume el stream, así que {@code findFirst},
+     * {@code anyMatch} o {@code limit} terminan la búsqueda antes.
+     * Por defecto recorre {@link #findAll()}; las implementaciones pueden evitar la copia.
+     * @param predicate Criterio de búsqueda.
+     * @return Stream de documentos que cumplen el criterio.
+     */
+    default Stream<JsonDocument> streamByPredicate(Predicate<JsonDocument> predicate) {
+        return findAll().stream().filter(predicate);
+    }
+
     /**
      * Busca documentos cuyo campo contenga el valor dado.
-     * @param fieldName Nombre del campo.
+     * @param fieldName Nombre del campo, o ruta a un campo anidado ({@link FieldPath}).
      * @param value Valor a buscar.
      * @return Lista de documentos coincidentes.
      */
     List<JsonDocument> findByField(String fieldName, String value);
 
+    /**
+     * Busca de forma perezosa documentos cuyo campo contenga el valor dado.
+     * @param fieldName Nombre del campo, o ruta a un campo anidado ({@link FieldPath}).
+     * @param value Valor a buscar.
+     * @return Stream de documentos coincidentes.
+     */
+    default Stream<JsonDocument> streamByField(String fieldName, String value) {
+        FieldPath path = FieldPath.of(fieldName);
+        return streamByPredicate(doc -> {
+            JsonNode field = path.resolve(doc);
+            return field != null && field.asText().contains(value);
+        });
+    }
+
     /**
      * Elimina un documento por su clave principal.
      * @param id Clave principal del documento a eliminar.
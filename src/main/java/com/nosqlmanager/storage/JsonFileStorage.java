@@ -1,7 +1,6 @@
 package com.nosqlmanager.storage;
 
 import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.nosqlmanager.model.JsonDocument;
@@ -13,6 +12,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Implementación de JsonRepository que persiste los documentos en un archivo JSON.
@@ -96,15 +97,19 @@ public class JsonFileStorage implements JsonRepository {
         return results;
     }
 
+    /**
+     * Recorre la lista en memoria sin copiarla. Si se guarda o elimina un documento
+     * mientras se consume el stream, este falla con
+     * {@link java.util.ConcurrentModificationException}.
+     */
+    @Override
+    public Stream<JsonDocument> streamByPredicate(Predicate<JsonDocument> predicate) {
+        return documents.stream().filter(predicate);
+    }
+
     @Override
     public List<JsonDocument> findByField(String fieldName, String value) {
-        return findByPredicate(doc -> {
-            JsonNode data = doc.getData();
-            if (data == null) return false;
-            JsonNode field = data.get(fieldName);
-            if (field == null) return false;
-            return field.asText().contains(value);
-        });
+        return streamByField(fieldName, value).collect(Collectors.toCollection(ArrayList::new));
     }
 
     @Override
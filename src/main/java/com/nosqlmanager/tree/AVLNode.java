@@ -20,4 +20,8 @@ public class AVLNode<K extends Comparable<K>, V> {
     @NonNull
     private V value;
     private int height = 1;
+    /**
+     * Número de nodos del subárbol que cuelga de este nodo (él incluido).
+     */
+    private int size = 1;
 }
@@ -0,0 +1,179 @@
+package com.nosqlmanager.tree;
+
+import java.util.ArrayDeque;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator sobre los valores de un árbol AVL en orden de clave.
+ *
+ * <p>Lo que queda por recorrer se representa como una secuencia ordenada de piezas:
+ * subárboles completos o nodos sueltos. Para dividirse entrega el prefijo de piezas
+ * que suma aproximadamente la mitad de los elementos; si solo queda un subárbol, lo
+ * abre antes por su raíz en (izquierdo, raíz, derecho). Como cada nodo conoce el
+ * tamaño de su subárbol, las dos mitades saben exactamente cuántos elementos tienen.</p>
+ *
+ * @param <K> Tipo de la clave (debe ser comparable)
+ * @param <V> Tipo del valor asociado a la clave
+ */
+public class AVLSpliterator<K extends Comparable<K>, V> implements Spliterator<V> {
+
+    /**
+     * Parte pendiente del recorrido: un subárbol completo o solo su nodo raíz.
+     */
+    private record Piece<K extends Comparable<K>, V>(AVLNode<K, V> node, boolean whole) {
+        long size() {
+            return whole ? node.getSize() : 1;
+        }
+    }
+
+    private final ArrayDeque<Piece<K, V>> pieces;
+    private final int characteristics;
+    private long remaining;
+
+    /**
+     * Crea un spliterator sobre todo el subárbol dado.
+     * @param root Raíz del subárbol a recorrer (puede ser null)
+     * @param immutable true si los nodos no cambiarán nunca (versiones persistentes)
+     */
+    public AVLSpliterator(AVLNode<K, V> root, boolean immutable) {
+        this(new ArrayDeque<>(), immutable ? IMMUTABLE : 0);
+        if (root != null) {
+            pieces.add(new Piece<>(root, true));
+            remaining = root.getSize();
+        }
+    }
+
+    /**
+     * Crea un spliterator sobre las claves del rango [from, to] de un subárbol.
+     * El rango se descompone al crearlo en O(log n) piezas: los nodos del camino que
+     * caen dentro y los subárboles completos que cuelgan de ellos hacia el interior
+     * del rango. Así el recorrido empieza sin pasar por las claves anteriores a
+     * {@code from} y se detiene en {@code to}, y el tamaño sigue siendo exacto.
+     * @param root Raíz del subárbol (puede ser null)
+     * @param from Límite inferior (inclusivo), o null si no hay
+     * @param to Límite superior (inclusivo), o null si no hay
+     * @param immutable true si los nodos no cambiarán nunca (versiones persistentes)
+     * @param <K> Tipo de la clave
+     * @param <V> Tipo del valor
+     * @return Spliterator de los valores del rango, en orden de clave
+     */
+    public static <K extends Comparable<K>, V> AVLSpliterator<K, V> range(AVLNode<K, V> root, K from, K to,
+                                                                         boolean immutable) {
+        AVLSpliterator<K, V> spliterator = new AVLSpliterator<>(new ArrayDeque<>(), immutable ? IMMUTABLE : 0);
+        if (from == null || to == null || from.compareTo(to) <= 0) {
+            spliterator.addRange(root, from, to);
+        }
+        return spliterator;
+    }
+
+    private void addRange(AVLNode<K, V> node, K from, K to) {
+        if (node == null) {
+            return;
+        }
+        if (from == null && to == null) {
+            pieces.addLast(new Piece<>(node, true));
+            remaining += node.getSize();
+            return;
+        }
+        if (from != null && from.compareTo(node.getKey()) > 0) {
+            addRange(node.getRight(), from, to);
+        } else if (to != null && to.compareTo(node.getKey()) < 0) {
+            addRange(node.getLeft(), from, to);
+        } else {
+            // El nodo está dentro: a su izquierda solo importa from y a su derecha solo to
+            addRange(node.getLeft(), from, null);
+            pieces.addLast(new Piece<>(node, false));
+            remaining++;
+            addRange(node.getRight(), null, to);
+        }
+    }
+
+    private AVLSpliterator(ArrayDeque<Piece<K, V>> pieces, int extraCharacteristics) {
+        this.pieces = pieces;
+        this.characteristics = ORDERED | SIZED | SUBSIZED | NONNULL | extraCharacteristics;
+    }
+
+    /**
+     * Abre un subárbol completo en sus tres partes, al principio de la secuencia.
+     */
+    private void expandFirst() {
+        AVLNode<K, V> node = pieces.pollFirst().node();
+        if (node.getRight() != null) {
+            pieces.addFirst(new Piece<>(node.getRight(), true));
+        }
+        pieces.addFirst(new Piece<>(node, false));
+        if (node.getLeft() != null) {
+            pieces.addFirst(new Piece<>(node.getLeft(), true));
+        }
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super V> action) {
+        while (!pieces.isEmpty()) {
+            if (pieces.peekFirst().whole()) {
+                expandFirst();
+            } else {
+                remaining--;
+                action.accept(pieces.pollFirst().node().getValue());
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super V> action) {
+        Piece<K, V> piece;
+        while ((piece = pieces.pollFirst()) != null) {
+            if (piece.whole()) {
+                inorder(piece.node(), action);
+            } else {
+                action.accept(piece.node().getValue());
+            }
+        }
+        remaining = 0;
+    }
+
+    private void inorder(AVLNode<K, V> node, Consumer<? super V> action) {
+        while (node != null) {
+            inorder(node.getLeft(), action);
+            action.accept(node.getValue());
+            node = node.getRight();
+        }
+    }
+
+    @Override
+    public Spliterator<V> trySplit() {
+        if (pieces.size() == 1 && pieces.peekFirst().whole()) {
+            expandFirst();
+        }
+        if (pieces.size() < 2) {
+            return null;
+        }
+
+        ArrayDeque<Piece<K, V>> prefix = new ArrayDeque<>();
+        long half = remaining / 2;
+        long taken = 0;
+        do {
+            Piece<K, V> piece = pieces.pollFirst();
+            prefix.addLast(piece);
+            taken += piece.size();
+        } while (taken < half && pieces.size() > 1);
+
+        AVLSpliterator<K, V> split = new AVLSpliterator<>(prefix, characteristics & IMMUTABLE);
+        split.remaining = taken;
+        remaining -= taken;
+        return split;
+    }
+
+    @Override
+    public long estimateSize() {
+        return remaining;
+    }
+
+    @Override
+    public int characteristics() {
+        return characteristics;
+    }
+}
@@ -3,29 +3,64 @@ package com.nosqlmanager.tree;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
 /**
  * Implementación de un árbol AVL autobalanceado.
  * Permite operaciones eficientes de inserción, búsqueda, actualización y eliminación.
  *
+ * <p>Puede contar comparaciones, visitas a nodos y rotaciones por tipo para estudiar
+ * cómo se comporta con una distribución de claves concreta ({@link #enableStats()},
+ * {@link #getStats()}). Desactivadas, que es lo normal, solo cuestan comprobar un
+ * campo nulo en cada paso.</p>
+ *
  * @param <K> Tipo de la clave (debe ser comparable)
  * @param <V> Tipo del valor asociado a la clave
  */
 @Data
 @NoArgsConstructor
-public class AVLTree<K extends Comparable<K>, V> {
+public class AVLTree<K extends Comparable<K>, V> implements OrderedIndex<K, V> {
+
+    /**
+     * Cota superior de la altura de cualquier árbol AVL indexable en memoria:
+     * con n &lt; 2^31 nodos la altura nunca supera 1.44·log2(n) ≈ 45.
+     */
+    public static final int MAX_HEIGHT = 64;
+
+    /**
+     * Tamaño combinado a partir del cual las uniones y diferencias reparten sus dos
+     * mitades entre hilos del ForkJoinPool común.
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 13;
+
     private AVLNode<K, V> root;
     private int size = 0;
 
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private StatsCounters counters;
+
     /**
      * Obtiene la altura de un nodo.
      * @param node Nodo del cual obtener la altura
      * @return Altura del nodo, 0 si es null
      */
-    private int height(AVLNode<K, V> node) {
+    private int height(AVLNode<K, ?> node) {
         return node == null ? 0 : node.getHeight();
     }
 
@@ -39,12 +74,22 @@ public class AVLTree<K extends Comparable<K>, V> {
     }
 
     /**
-     * Actualiza la altura de un nodo basándose en sus hijos.
+     * Obtiene el número de nodos de un subárbol.
+     * @param node Raíz del subárbol
+     * @return Tamaño del subárbol, 0 si es null
+     */
+    private int subtreeSize(AVLNode<K, ?> node) {
+        return node == null ? 0 : node.getSize();
+    }
+
+    /**
+     * Actualiza la altura y el tamaño del subárbol de un nodo basándose en sus hijos.
      * @param node Nodo a actualizar
      */
     private void updateHeight(AVLNode<K, V> node) {
         if (node != null) {
             node.setHeight(1 + Math.max(height(node.getLeft()), height(node.getRight())));
+            node.setSize(1 + subtreeSize(node.getLeft()) + subtreeSize(node.getRight()));
         }
     }
 
@@ -88,13 +133,56 @@ public class AVLTree<K extends Comparable<K>, V> {
         return y;
     }
 
+    /**
+     * Reequilibra un nodo tras modificar uno de sus subárboles.
+     * Decide el caso de rotación por los factores de balance, así que sirve igual
+     * para inserciones y eliminaciones sin volver a comparar claves.
+     * @param node Nodo cuyo subárbol cambió
+     * @return Nueva raíz del subárbol ya balanceado
+     */
+    private AVLNode<K, V> rebalance(AVLNode<K, V> node) {
+        updateHeight(node);
+
+        int balance = getBalance(node);
+
+        if (balance > 1) {
+            if (getBalance(node.getLeft()) < 0) {
+                // Caso Izquierda-Derecha
+                node.setLeft(rotateLeft(node.getLeft()));
+                countRotation(RotationCase.LR);
+            } else {
+                // Caso Izquierda-Izquierda
+                countRotation(RotationCase.LL);
+            }
+            return rotateRight(node);
+        }
+
+        if (balance < -1) {
+            if (getBalance(node.getRight()) > 0) {
+                // Caso Derecha-Izquierda
+                node.setRight(rotateRight(node.getRight()));
+                countRotation(RotationCase.RL);
+            } else {
+                // Caso Derecha-Derecha
+                countRotation(RotationCase.RR);
+            }
+            return rotateLeft(node);
+        }
+
+        return node;
+    }
+
     /**
      * Inserta o actualiza un par clave-valor en el árbol.
      * @param key Clave a insertar
      * @param value Valor asociado a la clave
+     * @return Valor que tenía la clave antes, o null si no existía
      */
-    public void insert(K key, V value) {
-        root = insertNode(root, key, value);
+    public V insert(K key, V value) {
+        countOperation();
+        Outcome<K, V> outcome = new Outcome<>();
+        root = insertNode(root, key, value, outcome);
+        return outcome.previous;
     }
 
     /**
@@ -102,54 +190,114 @@ public class AVLTree<K extends Comparable<K>, V> {
      * @param node Nodo actual
      * @param key Clave a insertar
      * @param value Valor asociado
+     * @param outcome Donde se deja el valor anterior de la clave
      * @return Nodo actualizado después de la inserción y balanceo
      */
-    private AVLNode<K, V> insertNode(AVLNode<K, V> node, K key, V value) {
+    private AVLNode<K, V> insertNode(AVLNode<K, V> node, K key, V value, Outcome<K, V> outcome) {
         // Inserción: claves menores a la izquierda, mayores a la derecha, igual actualiza valor
         if (node == null) {
             size++;
             return new AVLNode<>(key, value);
         }
 
-        int comparison = key.compareTo(node.getKey());
+        int comparison = compareAt(key, node);
 
         if (comparison < 0) {
-            node.setLeft(insertNode(node.getLeft(), key, value));
+            node.setLeft(insertNode(node.getLeft(), key, value, outcome));
         } else if (comparison > 0) {
-            node.setRight(insertNode(node.getRight(), key, value));
+            node.setRight(insertNode(node.getRight(), key, value, outcome));
         } else {
             // Clave igual: actualizar valor
+            outcome.previous = node.getValue();
             node.setValue(value);
             return node;
         }
 
-        updateHeight(node);
+        return rebalance(node);
+    }
 
-        int balance = getBalance(node);
+    /**
+     * Inserta el par solo si la clave no existe todavía.
+     * @param key Clave a insertar
+     * @param value Valor asociado a la clave
+     * @return Valor actual si la clave ya existía (y no se tocó), o null si se insertó
+     */
+    public V putIfAbsent(K key, V value) {
+        countOperation();
+        Outcome<K, V> outcome = new Outcome<>();
+        root = computeNode(root, key, (k, old) -> old == null ? value : old, outcome);
+        return outcome.previous;
+    }
 
-        // Caso Izquierda-Izquierda
-        if (balance > 1 && key.compareTo(node.getLeft().getKey()) < 0) {
-            return rotateRight(node);
-        }
+    /**
+     * Reemplaza el valor de una clave solo si ya existe.
+     * @param key Clave a actualizar
+     * @param value Nuevo valor
+     * @return Valor anterior, o null si la clave no existía (y no se insertó)
+     */
+    public V replace(K key, V value) {
+        countOperation();
+        Outcome<K, V> outcome = new Outcome<>();
+        root = computeNode(root, key, (k, old) -> old == null ? null : value, outcome);
+        return outcome.previous;
+    }
 
-        // Caso Derecha-Derecha
-        if (balance < -1 && key.compareTo(node.getRight().getKey()) > 0) {
-            return rotateLeft(node);
-        }
+    /**
+     * Calcula el nuevo valor de una clave a partir del actual en un solo descenso.
+     * Si la función devuelve null la clave se elimina (o no se inserta).
+     * @param key Clave a calcular
+     * @param remapping Función que recibe la clave y el valor actual (null si no existe)
+     * @return Nuevo valor asociado, o null si la clave quedó ausente
+     */
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+        countOperation();
+        Outcome<K, V> outcome = new Outcome<>();
+        root = computeNode(root, key, remapping, outcome);
+        return outcome.current;
+    }
 
-        // Caso Izquierda-Derecha
-        if (balance > 1 && key.compareTo(node.getLeft().getKey()) > 0) {
-            node.setLeft(rotateLeft(node.getLeft()));
-            return rotateRight(node);
+    /**
+     * Método recursivo común a todas las operaciones de cálculo: baja una sola vez,
+     * aplica la función en el nodo (o en el hueco donde iría) e inserta, actualiza o
+     * elimina según el resultado, rebalanceando a la vuelta.
+     * @param node Nodo actual
+     * @param key Clave a calcular
+     * @param remapping Función que recibe la clave y el valor actual (null si no existe)
+     * @param outcome Donde se dejan el valor anterior y el nuevo
+     * @return Nodo actualizado después de la operación y balanceo
+     */
+    private AVLNode<K, V> computeNode(AVLNode<K, V> node, K key,
+                                      BiFunction<? super K, ? super V, ? extends V> remapping,
+                                      Outcome<K, V> outcome) {
+        if (node == null) {
+            V value = remapping.apply(key, null);
+            if (value == null) {
+                return null;
+            }
+            outcome.current = value;
+            size++;
+            return new AVLNode<>(key, value);
         }
 
-        // Caso Derecha-Izquierda
-        if (balance < -1 && key.compareTo(node.getRight().getKey()) < 0) {
-            node.setRight(rotateRight(node.getRight()));
-            return rotateLeft(node);
+        int comparison = compareAt(key, node);
+
+        if (comparison < 0) {
+            node.setLeft(computeNode(node.getLeft(), key, remapping, outcome));
+        } else if (comparison > 0) {
+            node.setRight(computeNode(node.getRight(), key, remapping, outcome));
+        } else {
+            V value = remapping.apply(key, node.getValue());
+            outcome.previous = node.getValue();
+            if (value != null) {
+                outcome.current = value;
+                node.setValue(value);
+                return node;
+            }
+            size--;
+            return unlink(node, outcome);
         }
 
-        return node;
+        return rebalance(node);
     }
 
     /**
@@ -158,30 +306,33 @@ public class AVLTree<K extends Comparable<K>, V> {
      * @return Optional con el valor si existe, vacío si no
      */
     public Optional<V> search(K key) {
+        countOperation();
         AVLNode<K, V> node = searchNode(root, key);
         return node == null ? Optional.empty() : Optional.of(node.getValue());
     }
 
     /**
-     * Método recursivo para buscar un nodo por clave.
+     * Busca un nodo por clave descendiendo iterativamente desde el nodo dado.
+     * El descenso se acota a {@link #MAX_HEIGHT} pasos: en un árbol AVL válido nunca
+     * se alcanza, pero protege a un lector optimista que observe una rotación a medias.
      * @param node Nodo actual
      * @param key Clave a buscar
      * @return Nodo encontrado o null
      */
     private AVLNode<K, V> searchNode(AVLNode<K, V> node, K key) {
-        if (node == null) {
-            return null;
-        }
-
-        int comparison = key.compareTo(node.getKey());
+        AVLNode<K, V> current = node;
+        for (int depth = 0; current != null && depth < MAX_HEIGHT; depth++) {
+            int comparison = compareAt(key, current);
 
-        if (comparison < 0) {
-            return searchNode(node.getLeft(), key);
-        } else if (comparison > 0) {
-            return searchNode(node.getRight(), key);
-        } else {
-            return node;
+            if (comparison < 0) {
+                current = current.getLeft();
+            } else if (comparison > 0) {
+                current = current.getRight();
+            } else {
+                return current;
+            }
         }
+        return null;
     }
 
     /**
@@ -190,110 +341,457 @@ public class AVLTree<K extends Comparable<K>, V> {
      * @return true si se eliminó, false si no existía
      */
     public boolean delete(K key) {
-        if (!contains(key)) {
-            return false;
+        return remove(key) != null;
+    }
+
+    /**
+     * Elimina un nodo por su clave en un solo descenso.
+     * @param key Clave a eliminar
+     * @return Valor que tenía la clave, o null si no existía
+     */
+    public V remove(K key) {
+        countOperation();
+        Outcome<K, V> outcome = new Outcome<>();
+        root = deleteNode(root, key, outcome);
+        if (outcome.previous != null) {
+            size--;
         }
-        root = deleteNode(root, key);
-        size--;
-        return true;
+        return outcome.previous;
     }
 
     /**
      * Método recursivo para eliminar un nodo y balancear el árbol.
      * @param node Nodo actual
      * @param key Clave a eliminar
+     * @param outcome Donde se deja el valor eliminado
      * @return Nodo actualizado después de la eliminación y balanceo
      */
-    private AVLNode<K, V> deleteNode(AVLNode<K, V> node, K key) {
+    private AVLNode<K, V> deleteNode(AVLNode<K, V> node, K key, Outcome<K, V> outcome) {
         if (node == null) {
             return null;
         }
 
-        int comparison = key.compareTo(node.getKey());
+        int comparison = compareAt(key, node);
 
         if (comparison < 0) {
-            node.setLeft(deleteNode(node.getLeft(), key));
+            node.setLeft(deleteNode(node.getLeft(), key, outcome));
         } else if (comparison > 0) {
-            node.setRight(deleteNode(node.getRight(), key));
+            node.setRight(deleteNode(node.getRight(), key, outcome));
         } else {
-
             // Nodo a eliminar encontrado
+            outcome.previous = node.getValue();
+            return unlink(node, outcome);
+        }
 
-            // Caso 1: Nodo sin hijos o con un solo hijo
-            if (node.getLeft() == null || node.getRight() == null) {
-                AVLNode<K, V> temp = node.getLeft() != null ? node.getLeft() : node.getRight();
-
-                if (temp == null) {
-                    // Sin hijos
-                    return null;
-                } else {
-                    // Un hijo
-                    return temp;
-                }
-            } else {
-                // Caso 2: Nodo con dos hijos
-                // El sucesor es el hijo más izquierdo del subárbol derecho
-                AVLNode<K, V> successor = getMinNode(node.getRight());
-
-                // Copiar contenido del sucesor al nodo actual
-                node.setKey(successor.getKey());
-                node.setValue(successor.getValue());
-                node.setRight(deleteNode(node.getRight(), successor.getKey()));
-            }
+        return rebalance(node);
+    }
+
+    /**
+     * Desengancha un nodo ya localizado y devuelve la raíz del subárbol que lo reemplaza.
+     * @param node Nodo a eliminar
+     * @param outcome Resultado auxiliar donde se deja el sucesor
+     * @return Nueva raíz del subárbol, ya balanceada
+     */
+    private AVLNode<K, V> unlink(AVLNode<K, V> node, Outcome<K, V> outcome) {
+        // Caso 1: Nodo sin hijos o con un solo hijo
+        if (node.getLeft() == null || node.getRight() == null) {
+            return node.getLeft() != null ? node.getLeft() : node.getRight();
         }
 
-        // Actualizar altura
-        updateHeight(node);
+        // Caso 2: Nodo con dos hijos
+        // El sucesor (el más izquierdo del subárbol derecho) se desprende en el mismo
+        // recorrido y ocupa el lugar del nodo, sin volver a buscarlo por clave
+        AVLNode<K, V> right = removeMin(node.getRight(), outcome);
+        AVLNode<K, V> successor = outcome.successor;
+        successor.setLeft(node.getLeft());
+        successor.setRight(right);
 
-        // Obtener factor de balance
-        int balance = getBalance(node);
+        return rebalance(successor);
+    }
 
-        // Balancear el árbol
+    /**
+     * Quita el nodo con la clave mínima de un subárbol, dejándolo en {@code outcome.successor}.
+     * @param node Raíz del subárbol
+     * @param outcome Resultado auxiliar donde se deja el nodo desprendido
+     * @return Nueva raíz del subárbol sin el mínimo
+     */
+    private AVLNode<K, V> removeMin(AVLNode<K, V> node, Outcome<K, V> outcome) {
+        countVisit();
+        if (node.getLeft() == null) {
+            outcome.successor = node;
+            return node.getRight();
+        }
+        node.setLeft(removeMin(node.getLeft(), outcome));
+        return rebalance(node);
+    }
 
-        // Caso Izquierda-Izquierda
-        if (balance > 1 && getBalance(node.getLeft()) >= 0) {
-            return rotateRight(node);
+    /**
+     * Quita el nodo con la clave máxima de un subárbol, dejándolo en {@code outcome.successor}.
+     * @param node Raíz del subárbol
+     * @param outcome Resultado auxiliar donde se deja el nodo desprendido
+     * @return Nueva raíz del subárbol sin el máximo
+     */
+    private AVLNode<K, V> removeMax(AVLNode<K, V> node, Outcome<K, V> outcome) {
+        if (node.getRight() == null) {
+            outcome.successor = node;
+            return node.getLeft();
         }
+        node.setRight(removeMax(node.getRight(), outcome));
+        return rebalance(node);
+    }
 
-        // Caso Izquierda-Derecha
-        if (balance > 1 && getBalance(node.getLeft()) < 0) {
-            node.setLeft(rotateLeft(node.getLeft()));
-            return rotateRight(node);
+    // ------------------------------------------------------------------
+    // Primitivas split / join y operaciones de conjunto sobre ellas
+    // ------------------------------------------------------------------
+
+    /**
+     * Une dos subárboles con un nodo intermedio: todas las claves de {@code left} son
+     * menores que la de {@code mid} y todas las de {@code right} mayores.
+     * Baja por el lado del subárbol más alto hasta encontrar uno de altura parecida al
+     * otro, cuelga ahí el nodo intermedio y rebalancea al subir: O(|h(left) - h(right)|).
+     * @param left Subárbol con las claves menores (puede ser null)
+     * @param mid Nodo intermedio, cuyos hijos se sobrescriben
+     * @param right Subárbol con las claves mayores (puede ser null)
+     * @return Raíz del árbol resultante
+     */
+    private AVLNode<K, V> joinNodes(AVLNode<K, V> left, AVLNode<K, V> mid, AVLNode<K, V> right) {
+        if (height(left) > height(right) + 1) {
+            return joinRight(left, mid, right);
+        }
+        if (height(right) > height(left) + 1) {
+            return joinLeft(left, mid, right);
         }
+        mid.setLeft(left);
+        mid.setRight(right);
+        updateHeight(mid);
+        return mid;
+    }
 
-        // Caso Derecha-Derecha
-        if (balance < -1 && getBalance(node.getRight()) <= 0) {
-            return rotateLeft(node);
+    private AVLNode<K, V> joinRight(AVLNode<K, V> left, AVLNode<K, V> mid, AVLNode<K, V> right) {
+        AVLNode<K, V> spine = left.getRight();
+        if (height(spine) <= height(right) + 1) {
+            mid.setLeft(spine);
+            mid.setRight(right);
+            updateHeight(mid);
+            left.setRight(mid);
+        } else {
+            left.setRight(joinRight(spine, mid, right));
         }
+        return rebalance(left);
+    }
 
-        // Caso Derecha-Izquierda
-        if (balance < -1 && getBalance(node.getRight()) > 0) {
-            node.setRight(rotateRight(node.getRight()));
-            return rotateLeft(node);
+    private AVLNode<K, V> joinLeft(AVLNode<K, V> left, AVLNode<K, V> mid, AVLNode<K, V> right) {
+        AVLNode<K, V> spine = right.getLeft();
+        if (height(spine) <= height(left) + 1) {
+            mid.setLeft(left);
+            mid.setRight(spine);
+            updateHeight(mid);
+            right.setLeft(mid);
+        } else {
+            right.setLeft(joinLeft(left, mid, spine));
         }
+        return rebalance(right);
+    }
 
-        return node;
+    /**
+     * Une dos subárboles sin nodo intermedio, usando como tal el máximo de {@code left}.
+     * @param left Subárbol con las claves menores (puede ser null)
+     * @param right Subárbol con las claves mayores (puede ser null)
+     * @return Raíz del árbol resultante
+     */
+    private AVLNode<K, V> joinNodes(AVLNode<K, V> left, AVLNode<K, V> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        Outcome<K, V> outcome = new Outcome<>();
+        AVLNode<K, V> rest = removeMax(left, outcome);
+        return joinNodes(rest, outcome.successor, right);
     }
 
     /**
-     * Obtiene el nodo con la clave mínima en un subárbol.
-     * @param node Raíz del subárbol
-     * @return Nodo con la clave mínima
+     * Parte un subárbol por una clave, reutilizando sus nodos.
+     * @param node Raíz del subárbol (queda inutilizable)
+     * @param key Clave por la que partir
+     * @return Claves menores, nodo con la clave exacta (o null) y claves mayores
      */
-    private AVLNode<K, V> getMinNode(AVLNode<K, V> node) {
-        AVLNode<K, V> current = node;
+    private Split<K, V> splitNode(AVLNode<K, V> node, K key) {
+        if (node == null) {
+            return new Split<>(null, null, null);
+        }
+
+        int comparison = compareAt(key, node);
+
+        if (comparison == 0) {
+            return new Split<>(node.getLeft(), node, node.getRight());
+        }
+        if (comparison < 0) {
+            Split<K, V> split = splitNode(node.getLeft(), key);
+            return new Split<>(split.left(), split.match(), joinNodes(split.right(), node, node.getRight()));
+        }
+        Split<K, V> split = splitNode(node.getRight(), key);
+        return new Split<>(joinNodes(node.getLeft(), node, split.left()), split.match(), split.right());
+    }
+
+    /**
+     * Divide el árbol en O(log n): este árbol se queda con las claves menores que
+     * {@code key} y se devuelve un árbol nuevo con las mayores o iguales.
+     * @param key Clave por la que dividir
+     * @return Árbol con las claves mayores o iguales que {@code key}
+     */
+    public AVLTree<K, V> split(K key) {
+        Split<K, V> split = splitNode(root, key);
+        AVLNode<K, V> upper = split.right();
+        if (split.match() != null) {
+            upper = joinNodes(null, split.match(), upper);
+        }
+        setRootAndSize(split.left());
+
+        AVLTree<K, V> tail = new AVLTree<>();
+        tail.setRootAndSize(upper);
+        return tail;
+    }
+
+    /**
+     * Une dos árboles y un par intermedio en O(|h(left) - h(right)|).
+     * Todas las claves de {@code left} deben ser menores que {@code key} y todas las de
+     * {@code right} mayores. Los dos árboles de entrada quedan vacíos.
+     * @param left Árbol con las claves menores
+     * @param key Clave intermedia
+     * @param value Valor de la clave intermedia
+     * @param right Árbol con las claves mayores
+     * @return Árbol con todas las claves
+     */
+    public static <K extends Comparable<K>, V> AVLTree<K, V> join(AVLTree<K, V> left, K key, V value, AVLTree<K, V> right) {
+        if ((left.root != null && left.maxNode().getKey().compareTo(key) >= 0)
+                || (right.root != null && right.minNode().getKey().compareTo(key) <= 0)) {
+            throw new IllegalArgumentException("Las claves de la izquierda deben ser menores que la clave intermedia y las de la derecha mayores");
+        }
+        AVLTree<K, V> joined = new AVLTree<>();
+        joined.setRootAndSize(joined.joinNodes(left.root, new AVLNode<>(key, value), right.root));
+        left.clear();
+        right.clear();
+        return joined;
+    }
+
+    /**
+     * Añade a este árbol todas las claves de otro; si una clave está en ambos gana el
+     * valor de {@code other}. Cuesta O(m·log(n/m + 1)) con m el tamaño del menor, y los
+     * subárboles grandes se combinan en paralelo. El árbol {@code other} queda vacío.
+     * @param other Árbol cuyas claves se añaden
+     */
+    public void union(AVLTree<K, V> other) {
+        AVLNode<K, V> result = ForkJoinPool.commonPool().invoke(new UnionTask(root, other.root));
+        other.clear();
+        setRootAndSize(result);
+    }
+
+    /**
+     * Elimina de este árbol todas las claves presentes en otro, en O(m·log(n/m + 1)).
+     * El árbol {@code other} no se modifica.
+     * @param other Árbol con las claves a eliminar
+     */
+    public void difference(AVLTree<K, ?> other) {
+        setRootAndSize(ForkJoinPool.commonPool().invoke(new DifferenceTask(root, other.root)));
+    }
+
+    /**
+     * Inserta muchos pares ya ordenados de una vez: construye con ellos un árbol
+     * balanceado en O(m) y lo une a este.
+     * @param keys Claves en orden ascendente y sin repetidos
+     * @param values Valores en el mismo orden que las claves
+     */
+    @Override
+    public void insertAllSorted(List<K> keys, List<V> values) {
+        union(ofSorted(keys, values));
+    }
+
+    /**
+     * Elimina muchas claves ya ordenadas de una vez mediante {@link #difference}.
+     * @param keys Claves a eliminar, en orden ascendente y sin repetidos
+     * @return Número de claves que existían y se eliminaron
+     */
+    @Override
+    public int removeAllSorted(List<K> keys) {
+        int before = size;
+        difference(ofSorted(keys, keys));
+        return before - size;
+    }
+
+    /**
+     * Elimina todas las claves del rango [from, to] con dos divisiones y una unión,
+     * en O(log n) sin importar cuántas claves haya en el rango.
+     * @param from Límite inferior (inclusivo)
+     * @param to Límite superior (inclusivo)
+     * @return Número de claves eliminadas
+     */
+    @Override
+    public int deleteRange(K from, K to) {
+        if (from.compareTo(to) > 0) {
+            return 0;
+        }
+        int before = size;
+        Split<K, V> low = splitNode(root, from);
+        Split<K, V> high = splitNode(low.right(), to);
+        setRootAndSize(joinNodes(low.left(), high.right()));
+        return before - size;
+    }
+
+    /**
+     * Construye un árbol balanceado a partir de pares ya ordenados por clave en O(n).
+     * @param keys Claves en orden ascendente y sin repetidos
+     * @param values Valores en el mismo orden que las claves
+     * @return Árbol nuevo con todos los pares
+     */
+    public static <K extends Comparable<K>, V> AVLTree<K, V> ofSorted(List<K> keys, List<V> values) {
+        if (keys.size() != values.size()) {
+            throw new IllegalArgumentException("Las listas de claves y valores deben tener el mismo tamaño");
+        }
+        AVLTree<K, V> tree = new AVLTree<>();
+        tree.setRootAndSize(tree.buildBalanced(keys, values, 0, keys.size() - 1));
+        return tree;
+    }
+
+    private AVLNode<K, V> buildBalanced(List<K> keys, List<V> values, int lo, int hi) {
+        if (lo > hi) {
+            return null;
+        }
+        int mid = (lo + hi) >>> 1;
+        AVLNode<K, V> node = new AVLNode<>(keys.get(mid), values.get(mid));
+        node.setLeft(buildBalanced(keys, values, lo, mid - 1));
+        node.setRight(buildBalanced(keys, values, mid + 1, hi));
+        updateHeight(node);
+        return node;
+    }
+
+    private void setRootAndSize(AVLNode<K, V> newRoot) {
+        root = newRoot;
+        size = subtreeSize(newRoot);
+    }
+
+    private AVLNode<K, V> minNode() {
+        AVLNode<K, V> current = root;
         while (current.getLeft() != null) {
             current = current.getLeft();
         }
         return current;
     }
 
+    private AVLNode<K, V> maxNode() {
+        AVLNode<K, V> current = root;
+        while (current.getRight() != null) {
+            current = current.getRight();
+        }
+        return current;
+    }
+
+    /**
+     * Unión recursiva: parte el primer árbol por la raíz del segundo, une las mitades
+     * (en paralelo si son grandes) y las vuelve a juntar con esa raíz.
+     */
+    private final class UnionTask extends RecursiveTask<AVLNode<K, V>> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient AVLNode<K, V> first;
+        private final transient AVLNode<K, V> second;
+
+        private UnionTask(AVLNode<K, V> first, AVLNode<K, V> second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        protected AVLNode<K, V> compute() {
+            if (first == null) return second;
+            if (second == null) return first;
+
+            AVLNode<K, V> pivot = second;
+            Split<K, V> split = splitNode(first, pivot.getKey());
+            UnionTask leftTask = new UnionTask(split.left(), pivot.getLeft());
+            UnionTask rightTask = new UnionTask(split.right(), pivot.getRight());
+
+            AVLNode<K, V> left;
+            AVLNode<K, V> right;
+            if (subtreeSize(first) + subtreeSize(second) > PARALLEL_THRESHOLD) {
+                leftTask.fork();
+                right = rightTask.compute();
+                left = leftTask.join();
+            } else {
+                left = leftTask.compute();
+                right = rightTask.compute();
+            }
+            return joinNodes(left, pivot, right);
+        }
+    }
+
+    /**
+     * Diferencia recursiva: parte el primer árbol por la raíz del segundo, descarta la
+     * clave coincidente y resta recursivamente (en paralelo si son grandes) cada mitad.
+     */
+    private final class DifferenceTask extends RecursiveTask<AVLNode<K, V>> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient AVLNode<K, V> first;
+        private final transient AVLNode<K, ?> second;
+
+        private DifferenceTask(AVLNode<K, V> first, AVLNode<K, ?> second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        protected AVLNode<K, V> compute() {
+            if (first == null || second == null) return first;
+
+            Split<K, V> split = splitNode(first, second.getKey());
+            DifferenceTask leftTask = new DifferenceTask(split.left(), second.getLeft());
+            DifferenceTask rightTask = new DifferenceTask(split.right(), second.getRight());
+
+            AVLNode<K, V> left;
+            AVLNode<K, V> right;
+            if (subtreeSize(first) + subtreeSize(second) > PARALLEL_THRESHOLD) {
+                leftTask.fork();
+                right = rightTask.compute();
+                left = leftTask.join();
+            } else {
+                left = leftTask.compute();
+                right = rightTask.compute();
+            }
+            return joinNodes(left, right);
+        }
+    }
+
+    /**
+     * Resultado de partir un subárbol por una clave.
+     */
+    private record Split<K extends Comparable<K>, V>(AVLNode<K, V> left, AVLNode<K, V> match, AVLNode<K, V> right) {
+    }
+
+    /**
+     * Obtiene la menor clave del árbol.
+     * @return Optional con la clave mínima, vacío si el árbol está vacío
+     */
+    public Optional<K> firstKey() {
+        return root == null ? Optional.empty() : Optional.of(minNode().getKey());
+    }
+
+    /**
+     * Obtiene la mayor clave del árbol.
+     * @return Optional con la clave máxima, vacío si el árbol está vacío
+     */
+    public Optional<K> lastKey() {
+        return root == null ? Optional.empty() : Optional.of(maxNode().getKey());
+    }
+
     /**
      * Verifica si una clave existe en el árbol.
      * @param key Clave a verificar
      * @return true si existe, false si no
      */
     public boolean contains(K key) {
+        countOperation();
         return searchNode(root, key) != null;
     }
 
@@ -320,7 +818,111 @@ public class AVLTree<K extends Comparable<K>, V> {
         }
     }
 
-        /**
+    /**
+     * Obtiene todos los valores del árbol ordenados por clave.
+     * Recorre el árbol una sola vez en lugar de buscar cada clave por separado.
+     * @return Lista de valores ordenados por clave
+     */
+    public List<V> getAllValues() {
+        List<V> values = new ArrayList<>(size);
+        collectValues(root, values);
+        return values;
+    }
+
+    /**
+     * Recorrido inorden para obtener los valores ordenados por clave.
+     * @param node Nodo actual
+     * @param values Lista donde se acumulan los valores
+     */
+    private void collectValues(AVLNode<K, V> node, List<V> values) {
+        if (node != null) {
+            collectValues(node.getLeft(), values);
+            values.add(node.getValue());
+            collectValues(node.getRight(), values);
+        }
+    }
+
+    /**
+     * Obtiene los valores cuyas claves están en el rango [from, to], ordenados por clave.
+     * Solo visita los subárboles que pueden contener claves del rango.
+     * @param from Límite inferior (inclusivo)
+     * @param to Límite superior (inclusivo)
+     * @return Lista de valores dentro del rango
+     */
+    public List<V> getRange(K from, K to) {
+        List<V> values = new ArrayList<>();
+        forEachInRange(from, to, (key, value) -> values.add(value));
+        return values;
+    }
+
+    /**
+     * Recorre en orden las entradas cuyas claves están en el rango [from, to].
+     * Solo visita los subárboles que pueden contener claves del rango.
+     * @param from Límite inferior (inclusivo)
+     * @param to Límite superior (inclusivo)
+     * @param action Acción a aplicar a cada clave con su valor
+     */
+    public void forEachInRange(K from, K to, BiConsumer<? super K, ? super V> action) {
+        if (from.compareTo(to) <= 0) {
+            visitRange(root, from, to, action);
+        }
+    }
+
+    /**
+     * Recorre las entradas en orden de clave, ascendente o descendente, hasta que la
+     * acción pida parar. Solo visita los nodos anteriores al punto de parada.
+     * @param descending true para recorrer de la mayor clave a la menor
+     * @param action Acción a aplicar a cada clave con su valor; devuelve false para parar
+     * @return true si se recorrió todo el árbol, false si la acción paró antes
+     */
+    public boolean visitInOrder(boolean descending, BiPredicate<? super K, ? super V> action) {
+        return visitInOrder(root, descending, action);
+    }
+
+    private boolean visitInOrder(AVLNode<K, V> node, boolean descending, BiPredicate<? super K, ? super V> action) {
+        if (node == null) {
+            return true;
+        }
+        return visitInOrder(descending ? node.getRight() : node.getLeft(), descending, action)
+                && action.test(node.getKey(), node.getValue())
+                && visitInOrder(descending ? node.getLeft() : node.getRight(), descending, action);
+    }
+
+    /**
+     * Recorrido inorden podado para el rango [from, to].
+     * @param node Nodo actual
+     * @param from Límite inferior (inclusivo)
+     * @param to Límite superior (inclusivo)
+     * @param action Acción a aplicar a cada entrada del rango
+     */
+    private void visitRange(AVLNode<K, V> node, K from, K to, BiConsumer<? super K, ? super V> action) {
+        if (node == null) {
+            return;
+        }
+        int lower = from.compareTo(node.getKey());
+        int upper = to.compareTo(node.getKey());
+        if (lower < 0) {
+            visitRange(node.getLeft(), from, to, action);
+        }
+        if (lower <= 0 && upper >= 0) {
+            action.accept(node.getKey(), node.getValue());
+        }
+        if (upper > 0) {
+            visitRange(node.getRight(), from, to, action);
+        }
+    }
+
+    /**
+     * Crea un {@link java.util.Spliterator} sobre los valores en orden de clave, que se
+     * divide por las raíces de los subárboles y conoce el tamaño exacto de cada parte.
+     * El árbol no debe modificarse mientras se recorre.
+     * @return Spliterator de los valores ordenados por clave
+     */
+    public AVLSpliterator<K, V> spliterator() {
+        return new AVLSpliterator<>(root, false);
+    }
+
+    /**
      * Imprime el árbol por niveles, mostrando la estructura tipo array binario.
      * Cada nodo se muestra como (clave,altura).
      */
@@ -357,4 +959,115 @@ public class AVLTree<K extends Comparable<K>, V> {
         root = null;
         size = 0;
     }
+
+    // ------------------------------------------------------------------
+    // Estadísticas
+    // ------------------------------------------------------------------
+
+    /**
+     * Empieza a contar comparaciones, visitas y rotaciones desde cero.
+     */
+    public void enableStats() {
+        counters = new StatsCounters();
+    }
+
+    /**
+     * Deja de contar; a partir de aquí cada paso vuelve a costar solo una comprobación.
+     */
+    public void disableStats() {
+        counters = null;
+    }
+
+    /**
+     * Indica si las estadísticas están activadas.
+     * @return true si se están contando operaciones
+     */
+    public boolean isStatsEnabled() {
+        return counters != null;
+    }
+
+    /**
+     * Toma una foto de las estadísticas acumuladas y de la forma actual del árbol.
+     * Con las estadísticas desactivadas los contadores salen en cero.
+     * @return Estadísticas inmutables
+     */
+    public TreeStats getStats() {
+        StatsCounters c = counters;
+        TreeStats.TreeStatsBuilder stats = TreeStats.builder()
+                .height(height(root))
+                .minimumHeight(32 - Integer.numberOfLeadingZeros(size))
+                .size(size);
+        if (c != null) {
+            stats.operations(c.operations.sum())
+                    .comparisons(c.comparisons.sum())
+                    .nodeVisits(c.nodeVisits.sum())
+                    .rotationsLL(c.rotations[RotationCase.LL.ordinal()].sum())
+                    .rotationsRR(c.rotations[RotationCase.RR.ordinal()].sum())
+                    .rotationsLR(c.rotations[RotationCase.LR.ordinal()].sum())
+                    .rotationsRL(c.rotations[RotationCase.RL.ordinal()].sum());
+        }
+        return stats.build();
+    }
+
+    /**
+     * Compara una clave con la de un nodo, contando la visita y la comparación.
+     */
+    private int compareAt(K key, AVLNode<K, ?> node) {
+        StatsCounters c = counters;
+        if (c != null) {
+            c.nodeVisits.increment();
+            c.comparisons.increment();
+        }
+        return key.compareTo(node.getKey());
+    }
+
+    private void countVisit() {
+        StatsCounters c = counters;
+        if (c != null) {
+            c.nodeVisits.increment();
+        }
+    }
+
+    private void countOperation() {
+        StatsCounters c = counters;
+        if (c != null) {
+            c.operations.increment();
+        }
+    }
+
+    private void countRotation(RotationCase rotation) {
+        StatsCounters c = counters;
+        if (c != null) {
+            c.rotations[rotation.ordinal()].increment();
+        }
+    }
+
+    /**
+     * Casos de rebalanceo de un árbol AVL.
+     */
+    private enum RotationCase { LL, RR, LR, RL }
+
+    /**
+     * Contadores vivos de las estadísticas. Son {@link LongAdder} porque las búsquedas
+     * pueden llegar desde varios lectores a la vez y las uniones reparten el trabajo
+     * entre hilos.
+     */
+    private static final class StatsCounters {
+        private final LongAdder operations = new LongAdder();
+        private final LongAdder comparisons = new LongAdder();
+        private final LongAdder nodeVisits = new LongAdder();
+        private final LongAdder[] rotations = {
+                new LongAdder(), new LongAdder(), new LongAdder(), new LongAdder()
+        };
+    }
+
+    /**
+     * Resultado auxiliar de una modificación en un solo recorrido: valor anterior,
+     * valor nuevo y, al eliminar un nodo con dos hijos, el sucesor desprendido.
+     */
+    private static final class Outcome<K extends Comparable<K>, V> {
+        private V previous;
+        private V current;
+        private AVLNode<K, V> successor;
+    }
 }
@@ -0,0 +1,47 @@
+package com.nosqlmanager.tree;
+
+/**
+ * Vista de solo lectura de un nodo de un árbol persistente.
+ * Permite recorrer la estructura (para dibujarla o inspeccionarla) sin dar acceso a
+ * los nodos, que se comparten entre versiones y no deben modificarse nunca.
+ * @param <K> Tipo de la clave
+ * @param <V> Tipo del valor asociado a la clave
+ */
+public interface NodeView<K, V> {
+
+    /**
+     * Clave del nodo.
+     * @return La clave
+     */
+    K getKey();
+
+    /**
+     * Valor asociado a la clave.
+     * @return El valor
+     */
+    V getValue();
+
+    /**
+     * Hijo izquierdo.
+     * @return Vista del hijo izquierdo, o null si no tiene
+     */
+    NodeView<K, V> getLeft();
+
+    /**
+     * Hijo derecho.
+     * @return Vista del hijo derecho, o null si no tiene
+     */
+    NodeView<K, V> getRight();
+
+    /**
+     * Altura del subárbol que cuelga del nodo (una hoja tiene altura 1).
+     * @return La altura
+     */
+    int getHeight();
+
+    /**
+     * Número de nodos del subárbol que cuelga del nodo, él incluido.
+     * @return El tamaño del subárbol
+     */
+    int getSize();
+}
@@ -0,0 +1,177 @@
+package com.nosqlmanager.tree;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiFunction;
+
+/**
+ * Contrato de un índice ordenado por clave, independiente de la estructura que lo implemente.
+ * El gestor de base de datos programa contra esta interfaz, de modo que el motor del
+ * índice primario ({@link AVLTree}, {@link IntBTree}, ...) se elige al construirlo.
+ *
+ * @param <K> Tipo de la clave (debe ser comparable)
+ * @param <V> Tipo del valor asociado a la clave
+ */
+public interface OrderedIndex<K extends Comparable<K>, V> {
+
+    /**
+     * Inserta o actualiza un par clave-valor.
+     * @param key Clave a insertar
+     * @param value Valor asociado a la clave
+     * @return Valor que tenía la clave antes, o null si no existía
+     */
+    V insert(K key, V value);
+
+    /**
+     * Busca un valor por su clave.
+     * @param key Clave a buscar
+     * @return Optional con el valor si existe, vacío si no
+     */
+    Optional<V> search(K key);
+
+    /**
+     * Verifica si una clave existe.
+     * @param key Clave a verificar
+     * @return true si existe, false si no
+     */
+    boolean contains(K key);
+
+    /**
+     * Elimina una clave.
+     * @param key Clave a eliminar
+     * @return Valor que tenía la clave, o null si no existía
+     */
+    V remove(K key);
+
+    /**
+     * Elimina una clave.
+     * @param key Clave a eliminar
+     * @return true si se eliminó, false si no existía
+     */
+    default boolean delete(K key) {
+        return remove(key) != null;
+    }
+
+    /**
+     * Inserta el par solo si la clave no existe todavía.
+     * @param key Clave a insertar
+     * @param value Valor asociado a la clave
+     * @return Valor actual si la clave ya existía, o null si se insertó
+     */
+    V putIfAbsent(K key, V value);
+
+    /**
+     * Reemplaza el valor de una clave solo si ya existe.
+     * @param key Clave a actualizar
+     * @param value Nuevo valor
+     * @return Valor anterior, o null si la clave no existía
+     */
+    V replace(K key, V value);
+
+    /**
+     * Calcula el nuevo valor de una clave a partir del actual.
+     * Si la función devuelve null la clave se elimina (o no se inserta).
+     * @param key Clave a calcular
+     * @param remapping Función que recibe la clave y el valor actual (null si no existe)
+     * @return Nuevo valor asociado, o null si la clave quedó ausente
+     */
+    V compute(K key, BiFunction<? super K, ? super V, ? extends V> remapping);
+
+    /**
+     * Inserta el valor si la clave no existe, o lo combina con el actual si existe.
+     * @param key Clave a combinar
+     * @param value Valor a insertar o combinar
+     * @param remapping Función que combina el valor actual con el nuevo
+     * @return Nuevo valor asociado, o null si la clave quedó ausente
+     */
+    default V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remapping) {
+        return compute(key, (k, old) -> old == null ? value : remapping.apply(old, value));
+    }
+
+    /**
+     * Inserta muchos pares ya ordenados por clave.
+     * La implementación por defecto los inserta uno a uno; los motores que puedan
+     * hacerlo en bloque (por ejemplo con split/join) la sobrescriben.
+     * @param keys Claves en orden ascendente y sin repetidos
+     * @param values Valores en el mismo orden que las claves
+     */
+    default void insertAllSorted(List<K> keys, List<V> values) {
+        for (int i = 0; i < keys.size(); i++) {
+            insert(keys.get(i), values.get(i));
+        }
+    }
+
+    /**
+     * Elimina muchas claves ya ordenadas.
+     * @param keys Claves a eliminar, en orden ascendente y sin repetidos
+     * @return Número de claves que existían y se eliminaron
+     */
+    default int removeAllSorted(List<K> keys) {
+        int removed = 0;
+        for (K key : keys) {
+            if (remove(key) != null) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Elimina todas las claves del rango [from, to].
+     * @param from Límite inferior (inclusivo)
+     * @param to Límite superior (inclusivo)
+     * @return Número de claves eliminadas
+     */
+    default int deleteRange(K from, K to) {
+        List<K> keys = new ArrayList<>();
+        for (K key : getAllKeys()) {
+            if (key.compareTo(from) >= 0 && key.compareTo(to) <= 0) {
+                keys.add(key);
+            }
+        }
+        return removeAllSorted(keys);
+    }
+
+    /**
+     * Obtiene todas las claves en orden.
+     * @return Lista de claves ordenadas
+     */
+    List<K> getAllKeys();
+
+    /**
+     * Obtiene todos los valores ordenados por clave.
+     * @return Lista de valores ordenados por clave
+     */
+    List<V> getAllValues();
+
+    /**
+     * Obtiene los valores cuyas claves están en el rango [from, to], ordenados por clave.
+     * @param from Límite inferior (inclusivo)
+     * @param to Límite superior (inclusivo)
+     * @return Lista de valores dentro del rango
+     */
+    List<V> getRange(K from, K to);
+
+    /**
+     * Número de claves almacenadas.
+     * @return Cantidad de pares clave-valor
+     */
+    int getSize();
+
+    /**
+     * Verifica si el índice está vacío.
+     * @return true si está vacío, false si no
+     */
+    boolean isEmpty();
+
+    /**
+     * Elimina todas las claves.
+     */
+    void clear();
+
+    /**
+     * Imprime la estructura interna del índice en consola.
+     */
+    void printTree();
+}
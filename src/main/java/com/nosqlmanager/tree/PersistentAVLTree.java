@@ -0,0 +1,590 @@
+package com.nosqlmanager.tree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import lombok.Getter;
+
+/**
+ * Variante inmutable (persistente) del árbol AVL.
+ * Cada inserción o eliminación devuelve un árbol nuevo que copia solo el camino
+ * desde la raíz hasta el nodo modificado y comparte el resto de subárboles con la
+ * versión anterior. Los nodos nunca se modifican una vez publicados, así que
+ * cualquier versión puede recorrerse desde varios hilos sin sincronización.
+ *
+ * @param <K> Tipo de la clave (debe ser comparable)
+ * @param <V> Tipo del valor asociado a la clave
+ */
+public final class PersistentAVLTree<K extends Comparable<K>, V> {
+
+    @SuppressWarnings("rawtypes")
+    private static final PersistentAVLTree EMPTY = new PersistentAVLTree<>(null, 0);
+
+    private final AVLNode<K, V> root;
+    @Getter
+    private final int size;
+
+    private PersistentAVLTree(AVLNode<K, V> root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Devuelve el árbol vacío.
+     * @return Árbol persistente sin nodos
+     */
+    @SuppressWarnings("unchecked")
+    public static <K extends Comparable<K>, V> PersistentAVLTree<K, V> empty() {
+        return (PersistentAVLTree<K, V>) EMPTY;
+    }
+
+    /**
+     * Construye un árbol perfectamente balanceado a partir de pares ya ordenados por clave.
+     * Cuesta O(n), frente a O(n log n) de insertar uno a uno.
+     * @param keys Claves en orden ascendente y sin repetidos
+     * @param values Valores en el mismo orden que las claves
+     * @return Árbol persistente con todos los pares
+     */
+    public static <K extends Comparable<K>, V> PersistentAVLTree<K, V> ofSorted(List<K> keys, List<V> values) {
+        if (keys.size() != values.size()) {
+            throw new IllegalArgumentException("Las listas de claves y valores deben tener el mismo tamaño");
+        }
+        return new PersistentAVLTree<>(buildBalanced(keys, values, 0, keys.size() - 1), keys.size());
+    }
+
+    /**
+     * Construye recursivamente el subárbol balanceado del tramo [lo, hi].
+     */
+    private static <K extends Comparable<K>, V> AVLNode<K, V> buildBalanced(List<K> keys, List<V> values, int lo, int hi) {
+        if (lo > hi) {
+            return null;
+        }
+        int mid = (lo + hi) >>> 1;
+        return node(keys.get(mid), values.get(mid),
+                buildBalanced(keys, values, lo, mid - 1),
+                buildBalanced(keys, values, mid + 1, hi));
+    }
+
+    private static int height(AVLNode<?, ?> node) {
+        return node == null ? 0 : node.getHeight();
+    }
+
+    private static int subtreeSize(AVLNode<?, ?> node) {
+        return node == null ? 0 : node.getSize();
+    }
+
+    /**
+     * Crea un nodo nuevo con los hijos dados y su altura y tamaño ya calculados.
+     */
+    private static <K extends Comparable<K>, V> AVLNode<K, V> node(K key, V value, AVLNode<K, V> left, AVLNode<K, V> right) {
+        AVLNode<K, V> node = new AVLNode<>(key, value);
+        node.setLeft(left);
+        node.setRight(right);
+        node.setHeight(1 + Math.max(height(left), height(right)));
+        node.setSize(1 + subtreeSize(left) + subtreeSize(right));
+        return node;
+    }
+
+    /**
+     * Crea el nodo (key, value, left, right) rebalanceándolo si hace falta.
+     * Las rotaciones también crean nodos nuevos en vez de modificar los existentes.
+     */
+    private static <K extends Comparable<K>, V> AVLNode<K, V> balance(K key, V value, AVLNode<K, V> left, AVLNode<K, V> right) {
+        int hl = height(left);
+        int hr = height(right);
+
+        if (hl > hr + 1) {
+            if (height(left.getLeft()) >= height(left.getRight())) {
+                // Caso Izquierda-Izquierda
+                return node(left.getKey(), left.getValue(), left.getLeft(),
+                        node(key, value, left.getRight(), right));
+            }
+            // Caso Izquierda-Derecha
+            AVLNode<K, V> pivot = left.getRight();
+            return node(pivot.getKey(), pivot.getValue(),
+                    node(left.getKey(), left.getValue(), left.getLeft(), pivot.getLeft()),
+                    node(key, value, pivot.getRight(), right));
+        }
+
+        if (hr > hl + 1) {
+            if (height(right.getRight()) >= height(right.getLeft())) {
+                // Caso Derecha-Derecha
+                return node(right.getKey(), right.getValue(),
+                        node(key, value, left, right.getLeft()), right.getRight());
+            }
+            // Caso Derecha-Izquierda
+            AVLNode<K, V> pivot = right.getLeft();
+            return node(pivot.getKey(), pivot.getValue(),
+                    node(key, value, left, pivot.getLeft()),
+                    node(right.getKey(), right.getValue(), pivot.getRight(), right.getRight()));
+        }
+
+        return node(key, value, left, right);
+    }
+
+    /**
+     * Devuelve un árbol nuevo con el par clave-valor insertado o actualizado.
+     * @param key Clave a insertar
+     * @param value Valor asociado a la clave
+     * @return Nueva versión del árbol; la actual no cambia
+     */
+    public PersistentAVLTree<K, V> insert(K key, V value) {
+        Change<K, V> change = new Change<>();
+        AVLNode<K, V> newRoot = insertNode(root, key, value, change);
+        return new PersistentAVLTree<>(newRoot, change.found ? size : size + 1);
+    }
+
+    private AVLNode<K, V> insertNode(AVLNode<K, V> node, K key, V value, Change<K, V> change) {
+        if (node == null) {
+            return node(key, value, null, null);
+        }
+
+        int comparison = key.compareTo(node.getKey());
+
+        if (comparison < 0) {
+            return balance(node.getKey(), node.getValue(), insertNode(node.getLeft(), key, value, change), node.getRight());
+        } else if (comparison > 0) {
+            return balance(node.getKey(), node.getValue(), node.getLeft(), insertNode(node.getRight(), key, value, change));
+        } else {
+            // Clave igual: se copia el nodo con el valor nuevo, la forma no cambia
+            change.found = true;
+            return node(key, value, node.getLeft(), node.getRight());
+        }
+    }
+
+    /**
+     * Devuelve un árbol nuevo sin la clave dada.
+     * @param key Clave a eliminar
+     * @return Nueva versión del árbol, o este mismo árbol si la clave no existía
+     */
+    public PersistentAVLTree<K, V> delete(K key) {
+        Change<K, V> change = new Change<>();
+        AVLNode<K, V> newRoot = deleteNode(root, key, change);
+        return change.found ? new PersistentAVLTree<>(newRoot, size - 1) : this;
+    }
+
+    private AVLNode<K, V> deleteNode(AVLNode<K, V> node, K key, Change<K, V> change) {
+        if (node == null) {
+            return null;
+        }
+
+        int comparison = key.compareTo(node.getKey());
+
+        if (comparison < 0) {
+            AVLNode<K, V> left = deleteNode(node.getLeft(), key, change);
+            return change.found ? balance(node.getKey(), node.getValue(), left, node.getRight()) : node;
+        } else if (comparison > 0) {
+            AVLNode<K, V> right = deleteNode(node.getRight(), key, change);
+            return change.found ? balance(node.getKey(), node.getValue(), node.getLeft(), right) : node;
+        }
+
+        change.found = true;
+        if (node.getLeft() == null) {
+            return node.getRight();
+        }
+        if (node.getRight() == null) {
+            return node.getLeft();
+        }
+        // Dos hijos: el sucesor se desprende del subárbol derecho en la misma bajada
+        AVLNode<K, V> right = removeMin(node.getRight(), change);
+        return balance(change.min.getKey(), change.min.getValue(), node.getLeft(), right);
+    }
+
+    /**
+     * Quita el mínimo de un subárbol, dejándolo en {@code change.min}.
+     */
+    private AVLNode<K, V> removeMin(AVLNode<K, V> node, Change<K, V> change) {
+        if (node.getLeft() == null) {
+            change.min = node;
+            return node.getRight();
+        }
+        return balance(node.getKey(), node.getValue(), removeMin(node.getLeft(), change), node.getRight());
+    }
+
+    // ------------------------------------------------------------------
+    // Operaciones en bloque con split / join, copiando solo los caminos tocados
+    // ------------------------------------------------------------------
+
+    /**
+     * Une dos subárboles con un par intermedio: todas las claves de {@code left} son
+     * menores que {@code key} y todas las de {@code right} mayores. Baja por el lado más
+     * alto hasta una altura parecida a la del otro y copia solo ese camino:
+     * O(|h(left) - h(right)|).
+     */
+    private static <K extends Comparable<K>, V> AVLNode<K, V> join(AVLNode<K, V> left, K key, V value, AVLNode<K, V> right) {
+        if (height(left) > height(right) + 1) {
+            return balance(left.getKey(), left.getValue(), left.getLeft(), join(left.getRight(), key, value, right));
+        }
+        if (height(right) > height(left) + 1) {
+            return balance(right.getKey(), right.getValue(), join(left, key, value, right.getLeft()), right.getRight());
+        }
+        return node(key, value, left, right);
+    }
+
+    /**
+     * Une dos subárboles sin par intermedio, usando como tal el mínimo de {@code right}.
+     */
+    private AVLNode<K, V> join(AVLNode<K, V> left, AVLNode<K, V> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        Change<K, V> change = new Change<>();
+        AVLNode<K, V> rest = removeMin(right, change);
+        return join(left, change.min.getKey(), change.min.getValue(), rest);
+    }
+
+    /**
+     * Parte un subárbol por una clave en O(log n), sin tocar sus nodos.
+     * @return Claves menores, nodo con la clave exacta (o null) y claves mayores
+     */
+    private static <K extends Comparable<K>, V> Split<K, V> split(AVLNode<K, V> node, K key) {
+        if (node == null) {
+            return new Split<>(null, null, null);
+        }
+        int comparison = key.compareTo(node.getKey());
+        if (comparison == 0) {
+            return new Split<>(node.getLeft(), node, node.getRight());
+        }
+        if (comparison < 0) {
+            Split<K, V> split = split(node.getLeft(), key);
+            return new Split<>(split.left(), split.match(),
+                    join(split.right(), node.getKey(), node.getValue(), node.getRight()));
+        }
+        Split<K, V> split = split(node.getRight(), key);
+        return new Split<>(join(node.getLeft(), node.getKey(), node.getValue(), split.left()),
+                split.match(), split.right());
+    }
+
+    /**
+     * Unión de dos subárboles; si una clave está en ambos gana el valor de {@code second}.
+     */
+    private static <K extends Comparable<K>, V> AVLNode<K, V> union(AVLNode<K, V> first, AVLNode<K, V> second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        Split<K, V> split = split(first, second.getKey());
+        return join(union(split.left(), second.getLeft()), second.getKey(), second.getValue(),
+                union(split.right(), second.getRight()));
+    }
+
+    /**
+     * Claves de {@code first} que no están en {@code second}.
+     */
+    private AVLNode<K, V> difference(AVLNode<K, V> first, AVLNode<K, ?> second) {
+        if (first == null || second == null) {
+            return first;
+        }
+        Split<K, V> split = split(first, second.getKey());
+        return join(difference(split.left(), second.getLeft()), difference(split.right(), second.getRight()));
+    }
+
+    /**
+     * Devuelve un árbol nuevo con muchos pares ya ordenados insertados o actualizados.
+     * Se construye con ellos un árbol balanceado en O(m) y se une a este en
+     * O(m·log(n/m + 1)); la versión actual no cambia y comparte los subárboles no tocados.
+     * @param keys Claves en orden ascendente y sin repetidos
+     * @param values Valores en el mismo orden que las claves
+     * @return Nueva versión del árbol
+     */
+    public PersistentAVLTree<K, V> insertAllSorted(List<K> keys, List<V> values) {
+        AVLNode<K, V> newRoot = union(root, ofSorted(keys, values).root);
+        return new PersistentAVLTree<>(newRoot, subtreeSize(newRoot));
+    }
+
+    /**
+     * Devuelve un árbol nuevo sin muchas claves ya ordenadas, en O(m·log(n/m + 1)).
+     * @param keys Claves a eliminar, en orden ascendente y sin repetidos
+     * @return Nueva versión del árbol
+     */
+    public PersistentAVLTree<K, V> removeAllSorted(List<K> keys) {
+        AVLNode<K, V> newRoot = difference(root, ofSorted(keys, keys).root);
+        return new PersistentAVLTree<>(newRoot, subtreeSize(newRoot));
+    }
+
+    /**
+     * Devuelve un árbol nuevo sin las claves del rango [from, to], con dos divisiones y
+     * una unión: O(log n) sin importar cuántas claves caigan en el rango.
+     * @param from Límite inferior (inclusivo)
+     * @param to Límite superior (inclusivo)
+     * @return Nueva versión del árbol
+     */
+    public PersistentAVLTree<K, V> deleteRange(K from, K to) {
+        if (from.compareTo(to) > 0) {
+            return this;
+        }
+        Split<K, V> low = split(root, from);
+        Split<K, V> high = split(low.right(), to);
+        AVLNode<K, V> newRoot = join(low.left(), high.right());
+        return new PersistentAVLTree<>(newRoot, subtreeSize(newRoot));
+    }
+
+    /**
+     * Busca un valor por su clave.
+     * @param key Clave a buscar
+     * @return Optional con el valor si existe, vacío si no
+     */
+    public Optional<V> search(K key) {
+        AVLNode<K, V> current = root;
+        while (current != null) {
+            int comparison = key.compareTo(current.getKey());
+            if (comparison == 0) {
+                return Optional.of(current.getValue());
+            }
+            current = comparison < 0 ? current.getLeft() : current.getRight();
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Busca muchas claves a la vez recorriendo el árbol una sola vez.
+     * En cada nodo las claves pedidas se reparten (por búsqueda binaria) entre el
+     * subárbol izquierdo y el derecho, así que las claves vecinas comparten el camino
+     * de bajada y ningún nodo se visita dos veces: O(m·log(n/m + 1)) en lugar de
+     * m descensos completos.
+     * @param sortedKeys Claves a buscar, en orden ascendente
+     * @return Lista alineada con {@code sortedKeys}: el valor de cada clave, o null si no existe
+     */
+    public List<V> searchAll(List<K> sortedKeys) {
+        @SuppressWarnings("unchecked")
+        V[] found = (V[]) new Object[sortedKeys.size()];
+        searchAll(root, sortedKeys, 0, sortedKeys.size(), found);
+        return Arrays.asList(found);
+    }
+
+    private void searchAll(AVLNode<K, V> node, List<K> keys, int from, int to, V[] found) {
+        if (node == null || from >= to) {
+            return;
+        }
+        // Primera posición del tramo con clave >= la del nodo
+        int lo = from;
+        int hi = to;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys.get(mid).compareTo(node.getKey()) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        searchAll(node.getLeft(), keys, from, lo, found);
+        int next = lo;
+        while (next < to && keys.get(next).compareTo(node.getKey()) == 0) {
+            found[next++] = node.getValue();
+        }
+        searchAll(node.getRight(), keys, next, to, found);
+    }
+
+    /**
+     * Cuenta las claves del rango [from, to] sin recorrerlas: cada nodo conoce el
+     * tamaño de su subárbol, así que basta con dos descensos, O(log n).
+     * @param from Límite inferior (inclusivo)
+     * @param to Límite superior (inclusivo)
+     * @return Número de claves dentro del rango
+     */
+    public int countRange(K from, K to) {
+        if (from.compareTo(to) > 0) {
+            return 0;
+        }
+        return rank(to, true) - rank(from, false);
+    }
+
+    /**
+     * Número de claves menores (o menores o iguales) que la dada.
+     */
+    private int rank(K key, boolean inclusive) {
+        int count = 0;
+        AVLNode<K, V> current = root;
+        while (current != null) {
+            int comparison = key.compareTo(current.getKey());
+            if (comparison < 0 || (comparison == 0 && !inclusive)) {
+                current = current.getLeft();
+            } else {
+                count += (current.getLeft() == null ? 0 : current.getLeft().getSize()) + 1;
+                current = current.getRight();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Verifica si una clave existe en esta versión del árbol.
+     * @param key Clave a verificar
+     * @return true si existe, false si no
+     */
+    public boolean contains(K key) {
+        return search(key).isPresent();
+    }
+
+    /**
+     * Raíz de esta versión. Solo para las pruebas del paquete: los nodos se comparten
+     * entre versiones, así que fuera de aquí se recorren con {@link #getRootView()}.
+     */
+    AVLNode<K, V> getRoot() {
+        return root;
+    }
+
+    /**
+     * Vista de solo lectura de la raíz, para recorrer la forma del árbol.
+     * @return Vista de la raíz, o null si esta versión está vacía
+     */
+    public NodeView<K, V> getRootView() {
+        return View.of(root);
+    }
+
+    /**
+     * Verifica si esta versión del árbol está vacía.
+     * @return true si está vacía, false si no
+     */
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * Obtiene todas las claves de esta versión en orden.
+     * @return Lista de claves ordenadas
+     */
+    public List<K> getAllKeys() {
+        List<K> keys = new ArrayList<>(size);
+        collect(root, keys, null);
+        return keys;
+    }
+
+    /**
+     * Obtiene todos los valores de esta versión ordenados por clave.
+     * @return Lista de valores ordenados por clave
+     */
+    public List<V> getAllValues() {
+        List<V> values = new ArrayList<>(size);
+        collect(root, null, values);
+        return values;
+    }
+
+    private void collect(AVLNode<K, V> node, List<K> keys, List<V> values) {
+        if (node != null) {
+            collect(node.getLeft(), keys, values);
+            if (keys != null) keys.add(node.getKey());
+            if (values != null) values.add(node.getValue());
+            collect(node.getRight(), keys, values);
+        }
+    }
+
+    /**
+     * Crea un {@link java.util.Spliterator} sobre los valores de esta versión en orden
+     * de clave. Como la versión es inmutable, sus partes pueden recorrerse en paralelo.
+     * @return Spliterator de los valores ordenados por clave
+     */
+    public AVLSpliterator<K, V> spliterator() {
+        return new AVLSpliterator<>(root, true);
+    }
+
+    /**
+     * Crea un {@link java.util.Spliterator} sobre los valores del rango [from, to], sin
+     * copiarlos: los valores se entregan a medida que se piden, de modo que recorrer
+     * solo los primeros cuesta O(log n) más lo recorrido.
+     * @param from Límite inferior (inclusivo), o null si no hay
+     * @param to Límite superior (inclusivo), o null si no hay
+     * @return Spliterator de los valores del rango ordenados por clave
+     */
+    public AVLSpliterator<K, V> rangeSpliterator(K from, K to) {
+        return AVLSpliterator.range(root, from, to, true);
+    }
+
+    /**
+     * Obtiene los valores cuyas claves están en el rango [from, to], ordenados por clave.
+     * @param from Límite inferior (inclusivo)
+     * @param to Límite superior (inclusivo)
+     * @return Lista de valores dentro del rango
+     */
+    public List<V> getRange(K from, K to) {
+        List<V> values = new ArrayList<>();
+        if (from.compareTo(to) <= 0) {
+            collectRange(root, from, to, values);
+        }
+        return values;
+    }
+
+    private void collectRange(AVLNode<K, V> node, K from, K to, List<V> values) {
+        if (node == null) {
+            return;
+        }
+        int lower = from.compareTo(node.getKey());
+        int upper = to.compareTo(node.getKey());
+        if (lower < 0) {
+            collectRange(node.getLeft(), from, to, values);
+        }
+        if (lower <= 0 && upper >= 0) {
+            values.add(node.getValue());
+        }
+        if (upper > 0) {
+            collectRange(node.getRight(), from, to, values);
+        }
+    }
+
+    /**
+     * Vista de un nodo que solo expone lecturas.
+     */
+    private static final class View<K extends Comparable<K>, V> implements NodeView<K, V> {
+        private final AVLNode<K, V> node;
+
+        private View(AVLNode<K, V> node) {
+            this.node = node;
+        }
+
+        static <K extends Comparable<K>, V> NodeView<K, V> of(AVLNode<K, V> node) {
+            return node == null ? null : new View<>(node);
+        }
+
+        @Override
+        public K getKey() {
+            return node.getKey();
+        }
+
+        @Override
+        public V getValue() {
+            return node.getValue();
+        }
+
+        @Override
+        public NodeView<K, V> getLeft() {
+            return of(node.getLeft());
+        }
+
+        @Override
+        public NodeView<K, V> getRight() {
+            return of(node.getRight());
+        }
+
+        @Override
+        public int getHeight() {
+            return node.getHeight();
+        }
+
+        @Override
+        public int getSize() {
+            return node.getSize();
+        }
+    }
+
+    /**
+     * Resultado de partir un subárbol por una clave.
+     */
+    private record Split<K extends Comparable<K>, V>(AVLNode<K, V> left, AVLNode<K, V> match, AVLNode<K, V> right) {
+    }
+
+    /**
+     * Resultado auxiliar de una modificación: si la clave existía y, al eliminar
+     * un nodo con dos hijos, el sucesor desprendido.
+     */
+    private static final class Change<K extends Comparable<K>, V> {
+        private boolean found;
+        private AVLNode<K, V> min;
+    }
+}
@@ -0,0 +1,89 @@
+package com.nosqlmanager.tree;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Foto inmutable de las estadísticas de un {@link AVLTree} en un instante dado.
+ * Los contadores se acumulan desde que se activaron las estadísticas (o desde el
+ * último reinicio); la altura y el tamaño corresponden al momento de la foto.
+ */
+@Value
+@Builder
+public class TreeStats {
+
+    /**
+     * Operaciones puntuales contadas: inserciones, búsquedas, eliminaciones y cálculos.
+     */
+    long operations;
+
+    /**
+     * Comparaciones de claves realizadas por esas operaciones.
+     */
+    long comparisons;
+
+    /**
+     * Nodos visitados al descender, incluida la búsqueda del sucesor al eliminar.
+     */
+    long nodeVisits;
+
+    /**
+     * Rotaciones simples a la derecha por el caso Izquierda-Izquierda.
+     */
+    long rotationsLL;
+
+    /**
+     * Rotaciones simples a la izquierda por el caso Derecha-Derecha.
+     */
+    long rotationsRR;
+
+    /**
+     * Rotaciones dobles por el caso Izquierda-Derecha.
+     */
+    long rotationsLR;
+
+    /**
+     * Rotaciones dobles por el caso Derecha-Izquierda.
+     */
+    long rotationsRL;
+
+    /**
+     * Altura actual del árbol.
+     */
+    int height;
+
+    /**
+     * Altura mínima posible para el número de claves actual: ⌈log2(n + 1)⌉.
+     */
+    int minimumHeight;
+
+    /**
+     * Número de claves en el árbol.
+     */
+    int size;
+
+    /**
+     * Total de rebalanceos, contando cada caso doble como uno solo.
+     * @return Suma de los cuatro tipos de rotación
+     */
+    public long getTotalRotations() {
+        return rotationsLL + rotationsRR + rotationsLR + rotationsRL;
+    }
+
+    /**
+     * Nodos visitados por operación, en promedio.
+     * @return Visitas por operación, o 0 si no se contó ninguna
+     */
+    public double getAverageVisitsPerOperation() {
+        return operations == 0 ? 0 : (double) nodeVisits / operations;
+    }
+
+    /**
+     * Cuánto se aleja el árbol del balance perfecto: 1.0 es óptimo y un AVL nunca
+     * supera aproximadamente 1.44.
+     * @return Altura actual dividida por la mínima, o 1.0 si el árbol está vacío
+     */
+    public double getHeightRatio() {
+        return minimumHeight == 0 ? 1.0 : (double) height / minimumHeight;
+    }
+}
@@ -0,0 +1,102 @@
+package com.nosqlmanager.index;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.nosqlmanager.model.JsonDocument;
+
+/**
+ * Pruebas unitarias para el índice compuesto.
+ */
+class CompositeFieldIndexTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private CompositeFieldIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new CompositeFieldIndex("ciudad, estado,fecha");
+        index.add(1, document(1, "Cali", "activo", 10));
+        index.add(2, document(2, "Cali", "activo", 20));
+        index.add(3, document(3, "Cali", "activo", 30));
+        index.add(4, document(4, "Cali", "inactivo", 20));
+        index.add(5, document(5, "Bogota", "activo", 20));
+        index.add(6, document(6, "Cali", "activo", null));
+        index.add(7, document(7, null, null, null));
+    }
+
+    private JsonDocument document(int id, String ciudad, String estado, Integer fecha) {
+        ObjectNode data = objectMapper.createObjectNode();
+        if (ciudad != null) {
+            data.put("ciudad", ciudad);
+        }
+        if (estado != null) {
+            data.put("estado", estado);
+        }
+        if (fecha != null) {
+            data.put("fecha", fecha);
+        }
+        return new JsonDocument(id, data);
+    }
+
+    private static List<IndexKey> keys(Object... values) {
+        return Arrays.stream(values).map(IndexKey::ofValue).toList();
+    }
+
+    @Test
+    void testFieldsAreParsedInOrder() {
+        assertEquals(List.of("/ciudad", "/estado", "/fecha"), index.getFields());
+        assertThrows(IllegalArgumentException.class, () -> new CompositeFieldIndex("ciudad"));
+        assertThrows(IllegalArgumentException.class, () -> new CompositeFieldIndex("ciudad,,fecha"));
+    }
+
+    @Test
+    void testPrefixMatches() {
+        assertEquals(List.of(1, 2, 3, 4, 6), List.copyOf(index.find(keys("Cali"), null, false, null, false)));
+        assertEquals(List.of(1, 2, 3, 6), List.copyOf(index.find(keys("Cali", "activo"), null, false, null, false)));
+        assertEquals(List.of(2), List.copyOf(index.find(keys("Cali", "activo", 20), null, false, null, false)));
+        assertTrue(index.find(keys("Medellin"), null, false, null, false).isEmpty());
+        assertEquals(5, index.count(keys("Cali"), null, false, null, false));
+    }
+
+    @Test
+    void testRangeOnNextField() {
+        IndexKey from = IndexKey.ofValue(10);
+        IndexKey to = IndexKey.ofValue(30);
+        assertEquals(List.of(1, 2, 3), List.copyOf(index.find(keys("Cali", "activo"), from, true, to, true)));
+        assertEquals(List.of(2), List.copyOf(index.find(keys("Cali", "activo"), from, false, to, false)));
+        assertEquals(List.of(2, 3), List.copyOf(index.find(keys("Cali", "activo"), from, false, to, true)));
+        // Un rango abierto con las cotas del tipo no incluye a quien no tiene el campo
+        assertEquals(List.of(1, 2, 3), List.copyOf(index.find(keys("Cali", "activo"),
+                from.lowestOfType(), true, to.highestOfType(), true)));
+        assertEquals(List.of(5), List.copyOf(index.find(List.of(),
+                IndexKey.ofValue("B"), true, IndexKey.ofValue("C"), false)));
+        assertEquals(2, index.count(keys("Cali", "activo"), IndexKey.ofValue(15), true, to, true));
+        assertThrows(IllegalArgumentException.class,
+                () -> index.find(keys("Cali", "activo", 20), from, true, to, true));
+    }
+
+    @Test
+    void testUpdatesMoveDocuments() {
+        index.update(2, document(2, "Cali", "activo", 20), document(2, "Cali", "inactivo", 20));
+        index.update(3, document(3, "Cali", "activo", 30), document(3, "Cali", "activo", 30));
+        index.update(1, document(1, "Cali", "activo", 10), null);
+
+        assertEquals(List.of(3, 6), List.copyOf(index.find(keys("Cali", "activo"), null, false, null, false)));
+        assertEquals(List.of(2, 4), List.copyOf(index.find(keys("Cali", "inactivo"), null, false, null, false)));
+        assertEquals(5, index.size());
+        assertTrue(index.memoryUsage() > 0);
+
+        index.clear();
+        assertEquals(0, index.size());
+        assertTrue(index.find(keys("Cali"), null, false, null, false).isEmpty());
+    }
+}
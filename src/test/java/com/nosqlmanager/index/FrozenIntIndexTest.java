@@ -0,0 +1,61 @@
+package com.nosqlmanager.index;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas unitarias para el índice congelado en orden de Eytzinger.
+ */
+class FrozenIntIndexTest {
+
+    @Test
+    void testLookupsForEverySize() {
+        // Tamaños que llenan o no el último nivel del árbol implícito
+        for (int n = 0; n <= 70; n++) {
+            List<Integer> keys = new ArrayList<>();
+            List<String> values = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                keys.add(i * 3 - 50);
+                values.add("Valor" + i);
+            }
+            FrozenIntIndex<String> frozen = new FrozenIntIndex<>(keys, values);
+
+            assertEquals(n, frozen.size());
+            for (int i = 0; i < n; i++) {
+                assertEquals("Valor" + i, frozen.get(i * 3 - 50));
+                assertFalse(frozen.containsKey(i * 3 - 49));
+            }
+            assertNull(frozen.get(Integer.MIN_VALUE));
+            assertNull(frozen.get(Integer.MAX_VALUE));
+            assertEquals(values, frozen.range(Integer.MIN_VALUE, Integer.MAX_VALUE));
+            // Límites que caen entre claves y sobre ellas
+            for (int from = -52; from <= n * 3 - 48; from += 2) {
+                int to = from + 10;
+                List<String> expected = new ArrayList<>();
+                for (int i = 0; i < n; i++) {
+                    if (keys.get(i) >= from && keys.get(i) <= to) {
+                        expected.add(values.get(i));
+                    }
+                }
+                assertEquals(expected, frozen.range(from, to), "n=" + n + " desde " + from);
+            }
+        }
+    }
+
+    @Test
+    void testExtremeKeys() {
+        FrozenIntIndex<String> frozen = new FrozenIntIndex<>(
+                List.of(Integer.MIN_VALUE, 0, Integer.MAX_VALUE), List.of("Min", "Cero", "Max"));
+
+        assertEquals("Min", frozen.get(Integer.MIN_VALUE));
+        assertEquals("Max", frozen.get(Integer.MAX_VALUE));
+        assertTrue(frozen.containsKey(0));
+        assertFalse(frozen.isEmpty());
+    }
+}
@@ -0,0 +1,63 @@
+package com.nosqlmanager.index;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.nosqlmanager.model.JsonDocument;
+
+/**
+ * Pruebas unitarias para el índice hash y su conjunto de ids.
+ */
+class HashFieldIndexTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private JsonDocument document(int id, String nombre) {
+        ObjectNode data = objectMapper.createObjectNode();
+        data.put("nombre", nombre);
+        return new JsonDocument(id, data);
+    }
+
+    @Test
+    void testIdSetKeepsIdsSorted() {
+        IdSet ids = new IdSet();
+        for (int id : new int[] {5, 1, 9, 3, 5, 7}) {
+            ids.add(id);
+        }
+
+        assertEquals(List.of(1, 3, 5, 7, 9), ids.toList());
+        assertTrue(ids.remove(5));
+        assertFalse(ids.remove(5));
+        assertFalse(ids.contains(5));
+        assertEquals(4, ids.size());
+    }
+
+    @Test
+    void testEqualityLookupsAndMaintenance() {
+        HashFieldIndex index = new HashFieldIndex("nombre");
+        for (int i = 0; i < 1000; i++) {
+            index.add(i, document(i, "Persona" + (i % 250)));
+        }
+
+        assertEquals(List.of(7, 257, 507, 757), index.findEquals(IndexKey.ofValue("Persona7")));
+        assertTrue(index.findEquals(IndexKey.ofValue("Nadie")).isEmpty());
+        assertEquals(250, index.distinctValues());
+
+        index.update(7, document(7, "Persona7"), document(7, "Renombrada"));
+        index.remove(257, document(257, "Persona7"));
+
+        assertEquals(List.of(507, 757), index.findEquals(IndexKey.ofValue("Persona7")));
+        assertEquals(List.of(7), index.findEquals(IndexKey.ofValue("Renombrada")));
+        assertEquals(999, index.size());
+
+        long full = index.memoryUsage();
+        index.clear();
+        assertTrue(full > index.memoryUsage());
+    }
+}
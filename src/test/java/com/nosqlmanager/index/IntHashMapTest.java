@@ -0,0 +1,54 @@
+package com.nosqlmanager.index;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas unitarias para la tabla hash de claves enteras.
+ */
+class IntHashMapTest {
+
+    @Test
+    void testPutGetRemove() {
+        IntHashMap<String> map = new IntHashMap<>();
+
+        assertEquals(null, map.put(0, "Cero"));
+        assertEquals(null, map.put(-7, "Menos siete"));
+        assertEquals("Cero", map.put(0, "Zero"));
+
+        assertEquals("Zero", map.get(0));
+        assertTrue(map.containsKey(-7));
+        assertEquals(2, map.size());
+        assertEquals("Menos siete", map.remove(-7));
+        assertFalse(map.containsKey(-7));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void testRandomOperationsMatchHashMap() {
+        IntHashMap<Integer> map = new IntHashMap<>();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 50000; i++) {
+            // Claves agrupadas para forzar colisiones y desplazamientos al borrar
+            int key = random.nextInt(3000) * 64;
+            if (random.nextInt(3) > 0) {
+                assertEquals(expected.put(key, i), map.put(key, i));
+            } else {
+                assertEquals(expected.remove(key), map.remove(key));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (int key = 0; key < 3000 * 64; key += 64) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+        assertTrue(map.capacity() >= 2 * map.size());
+    }
+}
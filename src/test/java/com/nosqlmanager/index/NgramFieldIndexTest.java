@@ -0,0 +1,55 @@
+package com.nosqlmanager.index;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.nosqlmanager.model.JsonDocument;
+
+/**
+ * Pruebas unitarias para el índice de trigramas.
+ */
+class NgramFieldIndexTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private NgramFieldIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new NgramFieldIndex("nombre");
+        index.add(1, document(1, "Juan Pérez"));
+        index.add(2, document(2, "María Juana"));
+        index.add(3, document(3, "Pedro"));
+        index.add(4, document(4, "Ajuan"));
+    }
+
+    private JsonDocument document(int id, String nombre) {
+        ObjectNode data = objectMapper.createObjectNode();
+        data.put("nombre", nombre);
+        return new JsonDocument(id, data);
+    }
+
+    @Test
+    void testCandidatesHaveAllTrigrams() {
+        assertEquals(List.of(1, 2), index.candidates("Juan"));
+        assertEquals(List.of(1, 2, 4), index.candidates("uan"));
+        assertEquals(List.of(), index.candidates("xyz"));
+        assertNull(index.candidates("Ju"));
+    }
+
+    @Test
+    void testUpdatesMoveTrigrams() {
+        index.update(3, document(3, "Pedro"), document(3, "Juancho"));
+        index.remove(1, document(1, "Juan Pérez"));
+
+        assertEquals(List.of(2, 3), index.candidates("Juan"));
+        assertTrue(index.candidates("Ped").isEmpty());
+        assertEquals(3, index.size());
+    }
+}
@@ -0,0 +1,83 @@
+package com.nosqlmanager.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas unitarias para el mapa de bits comprimido.
+ */
+class RoaringBitmapTest {
+
+    @Test
+    void testAddRemoveAcrossContainerKinds() {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        TreeSet<Integer> expected = new TreeSet<>();
+        // Bloque denso (pasa a mapa de bits), uno disperso y ids negativos
+        for (int i = 0; i < 10000; i++) {
+            bitmap.add(i * 2);
+            expected.add(i * 2);
+        }
+        for (int id : new int[] {-5, -70000, 1 << 20, Integer.MAX_VALUE, Integer.MIN_VALUE}) {
+            bitmap.add(id);
+            expected.add(id);
+        }
+
+        assertEquals(List.copyOf(expected), bitmap.toList());
+        assertEquals(List.copyOf(expected), bitmap.stream().boxed().toList());
+        assertEquals(expected.size(), bitmap.getCardinality());
+        assertTrue(bitmap.contains(-70000));
+        assertFalse(bitmap.contains(3));
+
+        // Al vaciarse el bloque denso vuelve a ser un arreglo y luego desaparece
+        for (int i = 0; i < 10000; i++) {
+            bitmap.remove(i * 2);
+            expected.remove(i * 2);
+        }
+        assertEquals(List.copyOf(expected), bitmap.toList());
+    }
+
+    @Test
+    void testSetOperationsMatchTreeSet() {
+        Random random = new Random(11);
+        for (int round = 0; round < 20; round++) {
+            // Densidades distintas para mezclar contenedores de arreglo y de bits
+            int bound = round % 2 == 0 ? 200000 : 20000;
+            TreeSet<Integer> a = new TreeSet<>();
+            TreeSet<Integer> b = new TreeSet<>();
+            for (int i = 0; i < 12000; i++) {
+                a.add(random.nextInt(bound) - 1000);
+                b.add(random.nextInt(bound / (1 + round % 3)) - 1000);
+            }
+            RoaringBitmap ra = RoaringBitmap.of(a);
+            RoaringBitmap rb = RoaringBitmap.of(b);
+
+            TreeSet<Integer> and = new TreeSet<>(a);
+            and.retainAll(b);
+            TreeSet<Integer> or = new TreeSet<>(a);
+            or.addAll(b);
+            TreeSet<Integer> andNot = new TreeSet<>(a);
+            andNot.removeAll(b);
+
+            assertEquals(new ArrayList<>(and), RoaringBitmap.and(ra, rb).toList());
+            assertEquals(new ArrayList<>(or), RoaringBitmap.or(ra, rb).toList());
+            assertEquals(new ArrayList<>(andNot), RoaringBitmap.andNot(ra, rb).toList());
+            assertEquals(or.size(), RoaringBitmap.or(ra, rb).getCardinality());
+        }
+    }
+
+    @Test
+    void testDenseBitmapIsSmallerThanIdList() {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int i = 0; i < 60000; i++) {
+            bitmap.add(i);
+        }
+        assertTrue(bitmap.memoryUsage() < 60000L * Integer.BYTES / 2);
+    }
+}
@@ -0,0 +1,101 @@
+package com.nosqlmanager.index;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.nosqlmanager.model.JsonDocument;
+
+/**
+ * Pruebas unitarias para el índice secundario ordenado.
+ */
+class SortedFieldIndexTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private SortedFieldIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new SortedFieldIndex("codigo");
+    }
+
+    private JsonDocument document(int id, Object codigo) {
+        ObjectNode data = objectMapper.createObjectNode();
+        data.set("codigo", objectMapper.valueToTree(codigo));
+        return new JsonDocument(id, data);
+    }
+
+    @Test
+    void testKeysOrderByTypeThenValue() {
+        assertTrue(IndexKey.ofValue(9).compareTo(IndexKey.ofValue(10)) < 0);
+        assertTrue(IndexKey.ofValue("10").compareTo(IndexKey.ofValue("9")) < 0);
+        assertTrue(IndexKey.ofValue(1e9).compareTo(IndexKey.ofValue("0")) < 0);
+        assertTrue(IndexKey.ofValue(null).compareTo(IndexKey.ofValue(false)) < 0);
+        assertEquals(IndexKey.ofValue(3), IndexKey.ofValue(3.0));
+        assertEquals(IndexKey.ofValue(0.0), IndexKey.ofValue(-0.0));
+        assertNull(IndexKey.of(objectMapper.createArrayNode()));
+    }
+
+    @Test
+    void testEqualsAndRanges() {
+        index.add(1, document(1, 100));
+        index.add(2, document(2, 200));
+        index.add(3, document(3, 200));
+        index.add(4, document(4, "200"));
+        index.add(5, document(5, 300));
+        index.add(6, document(6, List.of(1, 2)));
+
+        assertEquals(List.of(2, 3), List.copyOf(index.findEquals(IndexKey.ofValue(200))));
+        assertEquals(List.of(4), List.copyOf(index.findEquals(IndexKey.ofValue("200"))));
+        assertEquals(List.of(1, 2, 3, 5), List.copyOf(
+                index.findRange(IndexKey.ofValue(100), true, IndexKey.ofValue(300), true)));
+        assertEquals(List.of(2, 3), List.copyOf(
+                index.findRange(IndexKey.ofValue(100), false, IndexKey.ofValue(300), false)));
+        assertEquals(List.of(4), List.copyOf(index.findRange(IndexKey.ofValue(""), true, null, true)));
+        assertEquals(5, index.size());
+        assertEquals(4, index.distinctValues());
+    }
+
+    @Test
+    void testUpdateMovesDocumentBetweenValues() {
+        index.add(1, document(1, 100));
+        index.update(1, document(1, 100), document(1, 250));
+        index.update(1, document(1, 250), document(1, 250));
+
+        assertTrue(index.findEquals(IndexKey.ofValue(100)).isEmpty());
+        assertEquals(List.of(1), List.copyOf(index.findEquals(IndexKey.ofValue(250))));
+        assertEquals(1, index.distinctValues());
+
+        index.remove(1, document(1, 250));
+        assertEquals(0, index.size());
+        assertEquals(0, index.distinctValues());
+    }
+
+    @Test
+    void testOrderedWalkStopsEarly() {
+        index.add(1, document(1, 30));
+        index.add(2, document(2, 10));
+        index.add(3, document(3, 30));
+        index.add(4, document(4, 20));
+        index.add(5, document(5, "texto"));
+
+        List<Integer> descending = new ArrayList<>();
+        index.forEachInOrder(true, id -> {
+            descending.add(id);
+            return descending.size() < 3;
+        });
+        // Dentro de un mismo valor los ids van en orden ascendente
+        assertEquals(List.of(5, 1, 3), descending);
+
+        List<Integer> ascending = new ArrayList<>();
+        index.forEachInOrder(false, id -> ascending.add(id));
+        assertEquals(List.of(2, 4, 1, 3, 5), ascending);
+    }
+}
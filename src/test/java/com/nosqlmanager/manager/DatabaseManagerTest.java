@@ -1,19 +1,39 @@
 package com.nosqlmanager.manager;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.AfterEach;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.nosqlmanager.index.IndexDefinition;
+import com.nosqlmanager.index.IndexType;
 import com.nosqlmanager.model.JsonDocument;
+import com.nosqlmanager.query.AggregateResult;
+import com.nosqlmanager.query.Aggregation;
+import com.nosqlmanager.query.Fields;
+import com.nosqlmanager.query.Filter;
+import com.nosqlmanager.query.Query;
+import com.nosqlmanager.query.QueryPlan;
+import com.nosqlmanager.query.SortDirection;
 
 /**
  * Pruebas unitarias para el DatabaseManager.
@@ -31,6 +51,7 @@ class DatabaseManagerTest {
         if (file.exists()) {
             file.delete();
         }
+        new File(TEST_FILE + ".indexes").delete();
         manager = new DatabaseManager(TEST_FILE);
         objectMapper = new ObjectMapper();
     }
@@ -42,6 +63,7 @@ class DatabaseManagerTest {
         if (file.exists()) {
             file.delete();
         }
+        new File(TEST_FILE + ".indexes").delete();
     }
 
     private JsonDocument createDocument(Integer id, String nombre, int edad, String ciudad) {
@@ -138,6 +160,44 @@ class DatabaseManagerTest {
         assertFalse(result);
     }
 
+    @Test
+    void testPatch() {
+        System.out.println("\n[testPatch]");
+        manager.save(createDocument(1, "Juan", 25, "Bogotá"));
+        var antes = manager.getSnapshot();
+
+        ObjectNode cambios = objectMapper.createObjectNode();
+        cambios.put("ciudad", "Cali");
+        Optional<JsonDocument> patched = manager.patch(1, cambios);
+
+        assertTrue(patched.isPresent());
+        assertEquals("Cali", manager.findById(1).get().getData().get("ciudad").asText());
+        assertEquals("Juan", manager.findById(1).get().getData().get("nombre").asText());
+        assertEquals("Bogotá", antes.search(1).get().getData().get("ciudad").asText());
+        assertFalse(manager.patch(99, cambios).isPresent());
+        assertFalse(manager.existsById(99));
+    }
+
+    @Test
+    void testComputeAndSaveIfAbsent() {
+        System.out.println("\n[testComputeAndSaveIfAbsent]");
+        assertTrue(manager.saveIfAbsent(createDocument(1, "Juan", 25, "Bogotá")));
+        assertFalse(manager.saveIfAbsent(createDocument(1, "Otro", 30, "Cali")));
+        assertEquals("Juan", manager.findById(1).get().getData().get("nombre").asText());
+
+        // Incrementa la edad si existe, o crea el documento si no
+        for (int i = 0; i < 2; i++) {
+            manager.compute(2, (id, actual) -> actual == null
+                    ? createDocument(id, "Ana", 30, "Medellín")
+                    : createDocument(id, "Ana", actual.getData().get("edad").asInt() + 1, "Medellín"));
+        }
+        assertEquals(31, manager.findById(2).get().getData().get("edad").asInt());
+
+        assertFalse(manager.compute(2, (id, actual) -> null).isPresent());
+        assertFalse(manager.existsById(2));
+        assertEquals(1, manager.getSize());
+    }
+
     @Test
     void testDelete() {
         System.out.println("\n[testDelete]");
@@ -186,6 +246,46 @@ class DatabaseManagerTest {
         assertTrue(manager2.findById(2).isPresent());
     }
 
+    @Test
+    void testBTreeEngine() {
+        System.out.println("\n[testBTreeEngine]");
+        DatabaseConfig config = DatabaseConfig.builder().indexEngine(IndexEngine.BTREE).build();
+        DatabaseManager btree = new DatabaseManager(TEST_FILE, config);
+        for (int i = 1; i <= 200; i++) {
+            btree.save(createDocument(i, "Persona" + i, 20 + i % 50, "Ciudad" + i % 7));
+        }
+        btree.deleteById(100);
+        btree.update(createDocument(50, "Cambiado", 99, "Cali"));
+        btree.printIndex();
+
+        assertEquals(199, btree.getSize());
+        assertFalse(btree.existsById(100));
+        assertEquals("Cambiado", btree.findById(50).get().getData().get("nombre").asText());
+        assertEquals(List.of(98, 99, 101), btree.findByIdRange(98, 101).stream().map(JsonDocument::getId).toList());
+
+        // El archivo es el mismo sea cual sea el motor
+        DatabaseManager avl = new DatabaseManager(TEST_FILE);
+        assertEquals(btree.getAllKeys(), avl.getAllKeys());
+    }
+
+    @Test
+    void testHashPointLookups() {
+        System.out.println("\n[testHashPointLookups]");
+        DatabaseConfig config = DatabaseConfig.builder().hashPointLookups(true).build();
+        manager.save(createDocument(1, "Juan", 25, "Bogotá"));
+        DatabaseManager hashed = new DatabaseManager(TEST_FILE, config);
+
+        hashed.save(createDocument(2, "Ana", 30, "Medellín"));
+        hashed.update(createDocument(1, "Juan Actualizado", 26, "Bogotá"));
+        hashed.deleteById(2);
+
+        assertEquals("Juan Actualizado", hashed.findById(1).get().getData().get("nombre").asText());
+        assertFalse(hashed.existsById(2));
+        assertFalse(hashed.findById(2).isPresent());
+        hashed.clear();
+        assertFalse(hashed.existsById(1));
+    }
+
     @Test
     void testClear() {
         System.out.println("\n[testClear]");
@@ -215,6 +315,27 @@ class DatabaseManagerTest {
         assertEquals(3, mayores.size());
     }
 
+    @Test
+    void testParallelStream() {
+        System.out.println("\n[testParallelStream]");
+        for (int i = 1; i <= 50; i++) {
+            manager.save(createDocument(i, "Persona" + i, 20 + i, i % 2 == 0 ? "Bogotá" : "Cali"));
+        }
+
+        List<Integer> bogotanos = manager.parallelStream()
+                .filter(doc -> doc.getData().get("ciudad").asText().equals("Bogotá"))
+                .map(JsonDocument::getId)
+                .toList();
+        double edadPromedio = manager.parallelStream()
+                .mapToInt(doc -> doc.getData().get("edad").asInt())
+                .average()
+                .orElse(0);
+
+        assertEquals(25, bogotanos.size());
+        assertEquals(manager.stream().map(JsonDocument::getId).filter(id -> id % 2 == 0).toList(), bogotanos);
+        assertEquals(45.5, edadPromedio);
+    }
+
     @Test
     void testBalanceAfterOperations() {
         System.out.println("\n[testBalanceAfterOperations]");
@@ -237,4 +358,693 @@ class DatabaseManagerTest {
 
         assertEquals(7, manager.getSize());
     }
+
+    @Test
+    void testFindByIdRange() {
+        System.out.println("\n[testFindByIdRange]");
+        for (int i = 1; i <= 10; i++) {
+            manager.save(createDocument(i, "Persona" + i, 20 + i, "Ciudad" + i));
+        }
+
+        List<JsonDocument> rango = manager.findByIdRange(4, 7);
+
+        assertEquals(List.of(4, 5, 6, 7), rango.stream().map(JsonDocument::getId).toList());
+        assertTrue(manager.findByIdRange(20, 30).isEmpty());
+    }
+
+    @Test
+    void testSnapshotIsolation() throws Exception {
+        System.out.println("\n[testSnapshotIsolation]");
+        manager.save(createDocument(1, "Juan", 25, "Bogotá"));
+        manager.save(createDocument(2, "Ana", 30, "Medellín"));
+
+        var antes = manager.getSnapshot();
+        manager.deleteById(1);
+        manager.save(createDocument(3, "Pedro", 22, "Cali"));
+
+        assertEquals(List.of(1, 2), antes.getAllKeys());
+        assertEquals(List.of(2, 3), manager.getSnapshot().getAllKeys());
+
+        File backup = new File("test_db_backup.json");
+        try {
+            manager.backup(backup.getPath());
+            assertEquals(2, new DatabaseManager(backup.getPath()).getSize());
+        } finally {
+            backup.delete();
+        }
+    }
+
+    @Test
+    void testFindByIds() {
+        System.out.println("\n[testFindByIds]");
+        for (int i = 1; i <= 30; i += 2) {
+            manager.save(createDocument(i, "Persona" + i, 20 + i, "Ciudad"));
+        }
+
+        var found = manager.findByIds(List.of(29, 4, 1, 15, 29, 99, 7));
+
+        assertEquals(List.of(29, 1, 15, 7), List.copyOf(found.keySet()));
+        assertEquals("Persona15", found.get(15).getData().get("nombre").asText());
+        assertTrue(manager.findByIds(List.of()).isEmpty());
+    }
+
+    @Test
+    void testBulkOperations() {
+        System.out.println("\n[testBulkOperations]");
+        for (IndexEngine engine : IndexEngine.values()) {
+            DatabaseManager bulk = new DatabaseManager(TEST_FILE,
+                    DatabaseConfig.builder().indexEngine(engine).hashPointLookups(true).build());
+            bulk.clear();
+            bulk.createIndex("edad");
+            bulk.materialize("porCiudad", Aggregation.count().groupBy("ciudad"));
+            bulk.save(createDocument(5, "Original", 30, "Cali"));
+
+            List<JsonDocument> lote = new ArrayList<>();
+            for (int i = 1; i <= 20; i++) {
+                lote.add(createDocument(i, "Importado" + i, 20 + i, "Bogotá"));
+            }
+            bulk.saveAll(lote);
+
+            assertEquals(20, bulk.getSize());
+            assertEquals("Importado5", bulk.findById(5).get().getData().get("nombre").asText());
+
+            assertEquals(5, bulk.deleteByIdRange(6, 10));
+            assertFalse(bulk.existsById(8));
+            assertEquals(2, bulk.deleteAllById(List.of(1, 2, 8, 99)));
+            assertEquals(List.of(3, 4, 5, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20), bulk.getAllKeys());
+            // Índices y vistas siguen a los documentos tocados, sin reconstruirse
+            Query adults = Query.where(Filter.between("edad", 24, 34));
+            assertEquals(bulk.getAllDocuments().stream().filter(adults::matches).toList(), bulk.find(adults));
+            assertEquals(QueryPlan.Access.INDEX, bulk.explain(adults).getAccess());
+            AggregateResult byCity = bulk.getMaterialized("porCiudad").orElseThrow();
+            assertEquals(13, byCity.getTotal().getCount());
+            assertEquals(13, byCity.group("Bogotá").getCount());
+            assertEquals(13, new DatabaseManager(TEST_FILE).getSize());
+        }
+    }
+
+    @Test
+    void testFreezeAndThaw() {
+        System.out.println("\n[testFreezeAndThaw]");
+        for (int i = 1; i <= 50; i++) {
+            manager.save(createDocument(i, "Persona" + i, 20 + i, "Lima"));
+        }
+
+        List<Integer> ids = List.of(40, 3, 77, 3, 12);
+        Map<Integer, JsonDocument> byIds = manager.findByIds(ids);
+        List<JsonDocument> range = manager.findByIdRange(10, 20);
+        Query byList = Query.where(Filter.in(Fields.ID, 5, 60, 9));
+
+        manager.freeze();
+        assertTrue(manager.isFrozen());
+        assertEquals("Persona17", manager.findById(17).get().getData().get("nombre").asText());
+        assertFalse(manager.existsById(51));
+        // Las búsquedas por lote, por rango y por lista de ids también usan el índice congelado
+        assertEquals(byIds, manager.findByIds(ids));
+        assertEquals(List.of(40, 3, 12), List.copyOf(manager.findByIds(ids).keySet()));
+        assertEquals(range, manager.findByIdRange(10, 20));
+        assertTrue(manager.findByIdRange(60, 70).isEmpty());
+        assertEquals(List.of(5, 9), manager.find(byList).stream().map(JsonDocument::getId).toList());
+
+        // Escribir descongela y la lectura siguiente ya ve el cambio
+        manager.save(createDocument(51, "Nueva", 30, "Quito"));
+        assertFalse(manager.isFrozen());
+        assertTrue(manager.existsById(51));
+
+        DatabaseManager replica = new DatabaseManager(TEST_FILE,
+                DatabaseConfig.builder().freezeOnLoad(true).build());
+        assertTrue(replica.isFrozen());
+        assertEquals(51, replica.getSize());
+        assertTrue(replica.findById(51).isPresent());
+    }
+
+    private JsonDocument createProduct(Integer id, Object codigo) {
+        ObjectNode data = objectMapper.createObjectNode();
+        data.putPOJO("codigo", codigo);
+        return new JsonDocument(id, objectMapper.valueToTree(data));
+    }
+
+    @Test
+    void testSortedSecondaryIndex() {
+        System.out.println("\n[testSortedSecondaryIndex]");
+        for (int i = 1; i <= 40; i++) {
+            manager.save(createProduct(i, i * 10));
+        }
+        manager.save(createProduct(41, "150"));
+        List<JsonDocument> scanned = manager.findByFieldRange("codigo", 100, 300);
+
+        assertTrue(manager.createIndex("codigo"));
+        assertFalse(manager.createIndex("codigo"));
+
+        List<JsonDocument> indexed = manager.findByFieldRange("codigo", 100, 300);
+        assertEquals(scanned, indexed);
+        assertEquals(21, indexed.size());
+        // Igual que sin índice: coinciden tanto el número 150 como el texto "150"
+        assertEquals(List.of(15, 41), manager.findByFieldEquals("codigo", "150").stream()
+                .map(JsonDocument::getId).toList());
+
+        // Las escrituras mantienen el índice
+        manager.update(createProduct(10, 5000));
+        manager.deleteById(20);
+        manager.save(createProduct(50, 299));
+        assertEquals(List.of(11, 12, 13, 14, 15, 16, 17, 18, 19, 21, 22, 23, 24, 25, 26, 27, 28, 29, 30, 50),
+                manager.findByFieldRange("codigo", 100, 300).stream().map(JsonDocument::getId).toList());
+        assertEquals(List.of(10), manager.findByFieldRange("codigo", 4000, null).stream()
+                .map(JsonDocument::getId).toList());
+
+        // La definición se guarda y el contenido se reconstruye al abrir de nuevo
+        DatabaseManager reopened = new DatabaseManager(TEST_FILE);
+        assertEquals(1, reopened.getIndexDefinitions().size());
+        assertEquals(manager.findByFieldRange("codigo", 100, 300), reopened.findByFieldRange("codigo", 100, 300));
+
+        manager.clear();
+        assertTrue(manager.findByFieldRange("codigo", null, null).isEmpty());
+        assertTrue(manager.dropIndex("codigo"));
+        assertFalse(new File(TEST_FILE + ".indexes").exists());
+    }
+
+    @Test
+    void testHashIndexForFindByFieldEquals() {
+        System.out.println("\n[testHashIndexForFindByFieldEquals]");
+        for (int i = 1; i <= 30; i++) {
+            manager.save(createDocument(i, "Persona" + (i % 10), 20 + i, "Bogotá"));
+        }
+        List<JsonDocument> scanned = manager.findByFieldEquals("nombre", "Persona3");
+
+        assertTrue(manager.createIndex("nombre", IndexType.HASH));
+        assertEquals(scanned, manager.findByFieldEquals("nombre", "Persona3"));
+
+        manager.update(createDocument(3, "Otra", 23, "Bogotá"));
+        manager.deleteById(13);
+        assertEquals(List.of(23), manager.findByFieldEquals("nombre", "Persona3").stream()
+                .map(JsonDocument::getId).toList());
+
+        Map<IndexDefinition, Long> memory = manager.getIndexMemoryUsage();
+        assertTrue(memory.get(new IndexDefinition("nombre", IndexType.HASH)) > 0);
+    }
+
+    @Test
+    void testFindByFieldEqualsMatchesJsonNull() {
+        System.out.println("\n[testFindByFieldEqualsMatchesJsonNull]");
+        ObjectNode nullValue = objectMapper.createObjectNode();
+        nullValue.putNull("x");
+        ObjectNode nullText = objectMapper.createObjectNode();
+        nullText.put("x", "null");
+        manager.save(new JsonDocument(1, nullValue));
+        manager.save(new JsonDocument(2, nullText));
+        manager.save(createDocument(3, "Otro", 30, "Cali"));
+
+        // El texto de un null de JSON es "null", igual que el de la cadena "null"
+        List<JsonDocument> scanned = manager.findByFieldEquals("x", "null");
+        assertEquals(List.of(1, 2), scanned.stream().map(JsonDocument::getId).toList());
+
+        // Un objeto, un arreglo y un texto vacío tienen el mismo texto: ""
+        ObjectNode object = objectMapper.createObjectNode();
+        object.putObject("x").put("a", 1);
+        ObjectNode array = objectMapper.createObjectNode();
+        array.putArray("x").add(1);
+        ObjectNode empty = objectMapper.createObjectNode();
+        empty.put("x", "");
+        manager.save(new JsonDocument(4, object));
+        manager.save(new JsonDocument(5, array));
+        manager.save(new JsonDocument(6, empty));
+        List<JsonDocument> blank = manager.findByFieldEquals("x", "");
+        assertEquals(List.of(4, 5, 6), blank.stream().map(JsonDocument::getId).toList());
+
+        for (IndexType type : List.of(IndexType.HASH, IndexType.BITMAP, IndexType.SORTED)) {
+            assertTrue(manager.createIndex("x", type));
+            assertEquals(blank, manager.findByFieldEquals("x", ""), type.toString());
+            List<JsonDocument> indexed = manager.findByFieldEquals("x", "null");
+            assertEquals(scanned, indexed, type.toString());
+            // Con índice o sin él, el resultado es una lista que se puede modificar
+            indexed.clear();
+            assertTrue(manager.dropIndex(new IndexDefinition("x", type)));
+        }
+    }
+
+    @Test
+    void testNgramIndexForFindByField() {
+        System.out.println("\n[testNgramIndexForFindByField]");
+        String[] nombres = {"Juan", "Juana", "Ana María", "Mariana", "Pedro Juan", "Andrés"};
+        for (int i = 1; i <= 60; i++) {
+            manager.save(createDocument(i, nombres[i % nombres.length] + " " + i, 20 + i, "Cali"));
+        }
+        List<String> queries = List.of("Juan", "ana", "Mari", "An", "dré", " 1", "xyz", "Pedro Juan 4");
+        List<List<JsonDocument>> scanned = queries.stream().map(q -> manager.findByField("nombre", q)).toList();
+
+        assertTrue(manager.createIndex("nombre", IndexType.NGRAM));
+        assertEquals(scanned, queries.stream().map(q -> manager.findByField("nombre", q)).toList());
+
+        manager.update(createDocument(2, "Xyzzy", 22, "Cali"));
+        // Distingue mayúsculas, igual que la búsqueda sin índice
+        assertTrue(manager.findByField("nombre", "xyz").isEmpty());
+        assertEquals(List.of(2), manager.findByField("nombre", "Xyz").stream().map(JsonDocument::getId).toList());
+        // Con índice el resultado se puede modificar, igual que sin él
+        manager.findByField("nombre", "Juan").clear();
+    }
+
+    @Test
+    void testBitmapIndexFilters() {
+        System.out.println("\n[testBitmapIndexFilters]");
+        String[] ciudades = {"Bogotá", "Cali", "Medellín"};
+        for (int i = 1; i <= 90; i++) {
+            manager.save(createDocument(i, "Persona" + i, 20 + i % 7, ciudades[i % 3]));
+        }
+        List<Filter> filters = List.of(
+                Filter.eq("ciudad", "Cali"),
+                Filter.and(Filter.eq("ciudad", "Cali"), Filter.eq("edad", 21)),
+                Filter.or(Filter.eq("ciudad", "Bogotá"), Filter.in("edad", 22, 23)),
+                Filter.and(Filter.not(Filter.eq("ciudad", "Cali")), Filter.eq("edad", 26)),
+                Filter.and(Filter.eq("ciudad", "Medellín"), Filter.eq("nombre", "Persona5")));
+        List<List<JsonDocument>> scanned = filters.stream().map(manager::find).toList();
+
+        manager.createIndex("ciudad", IndexType.BITMAP);
+        manager.createIndex("edad", IndexType.BITMAP);
+        assertEquals(scanned, filters.stream().map(manager::find).toList());
+        assertEquals(30, manager.find(Filter.eq("ciudad", "Cali")).size());
+
+        manager.update(createDocument(3, "Persona3", 21, "Cali"));
+        manager.deleteById(1);
+        assertTrue(manager.find(Filter.and(Filter.eq("ciudad", "Cali"), Filter.eq("edad", 21))).stream()
+                .anyMatch(doc -> doc.getId() == 3));
+        assertFalse(manager.find(Filter.not(Filter.eq("ciudad", "Bogotá"))).stream()
+                .anyMatch(doc -> doc.getId() == 1));
+    }
+
+    @Test
+    void testDeclarativeQueryPlans() {
+        System.out.println("\n[testDeclarativeQueryPlans]");
+        String[] ciudades = {"Bogotá", "Cali", "Medellín", "Pasto"};
+        for (int i = 1; i <= 200; i++) {
+            manager.save(createDocument(i, "Persona" + i, 18 + i % 40, ciudades[i % 4]));
+        }
+        List<Query> queries = List.of(
+                Query.where(Filter.and(Filter.eq("ciudad", "Cali"), Filter.gte("edad", 50))),
+                Query.where(Filter.between(Fields.ID, 20, 40)).orderBy("edad", SortDirection.DESC).limit(5),
+                Query.where(Filter.contains("nombre", "Persona1")).select("nombre"),
+                Query.where(Filter.not(Filter.eq("ciudad", "Pasto"))).orderBy(Fields.ID, SortDirection.DESC).limit(3),
+                Query.all().orderBy("edad", SortDirection.ASC).limit(4));
+        List<List<JsonDocument>> scanned = queries.stream().map(manager::find).toList();
+
+        QueryPlan noIndexes = manager.explain(queries.get(0));
+        assertEquals(QueryPlan.Access.FULL_SCAN, noIndexes.getAccess());
+        assertEquals(QueryPlan.Access.ID_RANGE, manager.explain(queries.get(1)).getAccess());
+        assertEquals(21, manager.explain(queries.get(1)).getExaminedRows(), 1e-9);
+
+        manager.createIndex("ciudad", IndexType.BITMAP);
+        manager.createIndex("edad", IndexType.SORTED);
+        manager.createIndex("nombre", IndexType.NGRAM);
+        assertEquals(scanned, queries.stream().map(manager::find).toList());
+
+        QueryPlan indexed = manager.explain(queries.get(0));
+        assertEquals(QueryPlan.Access.INDEX, indexed.getAccess());
+        assertTrue(indexed.isExact());
+        assertTrue(indexed.getCost() < noIndexes.getCost());
+        System.out.println(indexed.explain());
+
+        List<JsonDocument> top = scanned.get(1);
+        assertEquals(5, top.size());
+        assertEquals(57, top.get(0).getData().get("edad").asInt());
+        assertEquals(1, scanned.get(2).get(0).getData().size());
+        assertTrue(scanned.get(2).get(0).getData().has("nombre"));
+        assertEquals(List.of(200, 198, 197), scanned.get(3).stream().map(JsonDocument::getId).toList());
+    }
+
+    @Test
+    void testLazyStreams() {
+        System.out.println("\n[testLazyStreams]");
+        for (int i = 1; i <= 100; i++) {
+            manager.save(createDocument(i, "Persona" + i, 20 + i % 10, i % 2 == 0 ? "Cali" : "Bogotá"));
+        }
+        AtomicInteger checked = new AtomicInteger();
+        Optional<JsonDocument> first = manager.streamByPredicate(doc -> {
+            checked.incrementAndGet();
+            return doc.getData().get("edad").asInt() == 25;
+        }).findFirst();
+        assertEquals(5, first.get().getId());
+        assertEquals(5, checked.get());
+
+        assertEquals(manager.findByIdRange(40, 60), manager.streamByIdRange(40, 60).toList());
+        assertEquals(List.of(40, 41, 42), manager.streamByIdRange(40, 60).limit(3).map(JsonDocument::getId).toList());
+        assertEquals(manager.findByField("nombre", "Persona9"), manager.streamByField("nombre", "Persona9").toList());
+
+        // El límite de la consulta corta el recorrido del plan elegido
+        Query query = Query.where(Filter.eq("ciudad", "Cali")).limit(3);
+        assertEquals(List.of(2, 4, 6), manager.stream(query).map(JsonDocument::getId).toList());
+        manager.createIndex("ciudad", IndexType.BITMAP);
+        assertEquals(List.of(2, 4, 6), manager.stream(query).map(JsonDocument::getId).toList());
+        assertTrue(manager.stream(Query.where(Filter.eq("ciudad", "Bogotá"))).anyMatch(doc -> doc.getId() == 99));
+    }
+
+    @Test
+    void testParallelScansKeepIdOrder() {
+        System.out.println("\n[testParallelScansKeepIdOrder]");
+        List<JsonDocument> batch = new ArrayList<>();
+        for (int i = 1; i <= 3000; i++) {
+            batch.add(createDocument(i, "Persona" + i, 20 + i % 50, i % 3 == 0 ? "Cali" : "Bogotá"));
+        }
+        manager.saveAll(batch);
+        DatabaseManager parallel = new DatabaseManager(TEST_FILE,
+                DatabaseConfig.builder().parallelScanThreshold(1).build());
+
+        List<JsonDocument> expected = manager.findByPredicate(doc -> doc.getData().get("edad").asInt() > 60);
+        assertEquals(expected, parallel.findByPredicate(doc -> doc.getData().get("edad").asInt() > 60));
+        assertEquals(3000 / 50 * 9, expected.size());
+        assertEquals(manager.findByField("nombre", "99"), parallel.findByField("nombre", "99"));
+        Query query = Query.where(Filter.eq("ciudad", "Cali")).limit(50);
+        assertEquals(manager.find(query), parallel.find(query));
+        assertEquals(3, parallel.find(query).get(0).getId());
+    }
+
+    @Test
+    void testNestedFieldPaths() {
+        System.out.println("\n[testNestedFieldPaths]");
+        String[] ciudades = {"Bogotá", "Cali", "Medellín"};
+        for (int i = 1; i <= 60; i++) {
+            ObjectNode data = objectMapper.createObjectNode();
+            data.put("nombre", "Persona" + i);
+            data.putObject("direccion").put("ciudad", ciudades[i % 3]).put("estrato", i % 6 + 1);
+            data.putArray("telefonos").add("300" + i).add("310" + i);
+            manager.save(new JsonDocument(i, data));
+        }
+        List<JsonDocument> scanned = manager.findByFieldEquals("direccion.ciudad", "Cali");
+        assertEquals(20, scanned.size());
+        assertEquals(List.of(7), manager.findByField("telefonos.1", "3107").stream().map(JsonDocument::getId).toList());
+        assertEquals(scanned, manager.findByFieldEquals("/direccion/ciudad", "Cali"));
+        List<JsonDocument> ranged = manager.findByFieldRange("direccion.estrato", 5, 6);
+
+        manager.createIndex("direccion.ciudad", IndexType.HASH);
+        manager.createIndex("direccion.estrato");
+        assertEquals(scanned, manager.findByFieldEquals("direccion.ciudad", "Cali"));
+        assertEquals(ranged, manager.findByFieldRange("direccion.estrato", 5, 6));
+        Query query = Query.where(Filter.and(Filter.eq("direccion.ciudad", "Cali"), Filter.gte("direccion.estrato", 5)))
+                .select("direccion.ciudad");
+        assertEquals(QueryPlan.Access.INDEX, manager.explain(query).getAccess());
+        List<JsonDocument> found = manager.find(query);
+        assertEquals(List.of(4, 10, 16, 22, 28, 34, 40, 46, 52, 58), found.stream().map(JsonDocument::getId).toList());
+        assertEquals("{\"direccion\":{\"ciudad\":\"Cali\"}}", found.get(0).getData().toString());
+
+        // Las escrituras mueven el documento en el índice anidado
+        ObjectNode moved = (ObjectNode) manager.findById(4).get().getData().deepCopy();
+        ((ObjectNode) moved.get("direccion")).put("ciudad", "Pasto");
+        manager.update(new JsonDocument(4, moved));
+        assertFalse(manager.findByFieldEquals("direccion.ciudad", "Cali").stream().anyMatch(doc -> doc.getId() == 4));
+        assertEquals(List.of(4), manager.findByFieldEquals("direccion.ciudad", "Pasto").stream()
+                .map(JsonDocument::getId).toList());
+
+        // Con puntos o como JSON Pointer es la misma ruta: el mismo índice, que sirve a ambas
+        assertFalse(manager.createIndex("/direccion/ciudad", IndexType.HASH));
+        assertEquals(2, manager.getIndexDefinitions().size());
+        Query pointer = Query.where(Filter.and(Filter.eq("/direccion/ciudad", "Cali"), Filter.gte("/direccion/estrato", 5)));
+        assertEquals(QueryPlan.Access.INDEX, manager.explain(pointer).getAccess());
+        assertEquals(manager.find(query.toBuilder().projection(null).build()), manager.find(pointer));
+        assertTrue(manager.createCompositeIndex("direccion.ciudad", "/direccion/estrato"));
+        assertFalse(manager.createCompositeIndex("/direccion/ciudad", "direccion.estrato"));
+        assertTrue(manager.explain(pointer).getDetail().contains("/direccion/ciudad,/direccion/estrato"));
+        assertTrue(manager.dropIndex(new IndexDefinition("/direccion/ciudad", IndexType.HASH)));
+    }
+
+    @Test
+    void testQueryCache() {
+        System.out.println("\n[testQueryCache]");
+        DatabaseManager cached = new DatabaseManager(TEST_FILE,
+                DatabaseConfig.builder().queryCacheEntries(8).build());
+        String[] ciudades = {"Bogotá", "Cali", "Medellín"};
+        for (int i = 1; i <= 30; i++) {
+            cached.save(createDocument(i, "Persona" + i, 20 + i, ciudades[i % 3]));
+        }
+        List<JsonDocument> cali = cached.findByFieldEquals("ciudad", "Cali");
+        assertEquals(10, cali.size());
+        assertEquals(cali, cached.findByFieldEquals("/ciudad", "Cali"));
+        List<JsonDocument> adultos = cached.findByFieldRange("edad", 40, 45);
+        assertEquals(adultos, cached.findByFieldRange("edad", 40, 45));
+        assertEquals(1, cached.findByField("nombre", "a30").size());
+        System.out.println(cached.getQueryCacheStats());
+        assertEquals(2, cached.getQueryCacheStats().getHits());
+        assertEquals(3, cached.getQueryCacheStats().getMisses());
+        // Cada llamada recibe su propia lista, igual que con la caché desactivada
+        List<JsonDocument> hit = cached.findByFieldEquals("ciudad", "Cali");
+        hit.clear();
+        assertEquals(10, cached.findByFieldEquals("ciudad", "Cali").size());
+
+        // Cambiar un documento de Bogotá de 22 años no toca los resultados guardados
+        cached.update(createDocument(3, "Persona3", 22, "Bogotá"));
+        assertEquals(3, cached.getQueryCacheStats().getEntries());
+
+        // Mover un documento a Cali sí invalida esa consulta, y la siguiente lo ve
+        cached.update(createDocument(3, "Persona3", 23, "Cali"));
+        assertEquals(2, cached.getQueryCacheStats().getEntries());
+        assertEquals(11, cached.findByFieldEquals("ciudad", "Cali").size());
+        cached.deleteById(20);
+        assertEquals(5, cached.findByFieldRange("edad", 40, 45).size());
+
+        cached.clear();
+        assertTrue(cached.findByFieldEquals("ciudad", "Cali").isEmpty());
+        assertEquals(0, manager.getQueryCacheStats().getHits());
+    }
+
+    @Test
+    void testAggregations() {
+        System.out.println("\n[testAggregations]");
+        String[] nombres = {"Ana", "Luis", "Marta"};
+        for (int i = 1; i <= 200; i++) {
+            ObjectNode data = objectMapper.createObjectNode();
+            data.put("codigo", i);
+            data.put("nombre", nombres[i % 3]);
+            manager.save(new JsonDocument(i, data));
+        }
+        AggregateResult scanned = manager.aggregate(Aggregation.count().where(Filter.gt("codigo", 100)));
+        assertEquals("recorrido", scanned.getStrategy());
+        assertEquals(100, scanned.getTotal().getCount());
+        assertEquals(100, manager.count(Filter.gt("codigo", 100)));
+        assertEquals(200, manager.count(null));
+
+        AggregateResult porNombre = manager.aggregate(Aggregation.of("codigo").groupBy("nombre"));
+        System.out.println(porNombre.getGroups());
+        assertEquals(3, porNombre.getGroups().size());
+        assertEquals(67, porNombre.group("Luis").getCount());
+        assertEquals(100.0, porNombre.group("Luis").getAverage().getAsDouble(), 1e-9);
+        assertEquals(100.5, porNombre.getTotal().getAverage().getAsDouble(), 1e-9);
+
+        // Con índices se responde igual sin leer los documentos
+        manager.createIndex("codigo");
+        AggregateResult indexed = manager.aggregate(Aggregation.count().where(Filter.gt("codigo", 100)));
+        assertEquals("índices secundarios", indexed.getStrategy());
+        assertEquals(100, indexed.getTotal().getCount());
+        AggregateResult codigos = manager.aggregate(Aggregation.of("codigo").where(Filter.between("codigo", 11, 20)));
+        assertEquals("índice ordenado sobre codigo", codigos.getStrategy());
+        assertEquals(155, codigos.getTotal().getSum(), 1e-9);
+        assertEquals(11, codigos.getTotal().getMin().getAsDouble(), 1e-9);
+
+        // Las escrituras se reflejan en el siguiente cálculo
+        manager.deleteById(200);
+        assertEquals(99, manager.count(Filter.gt("codigo", 100)));
+        assertEquals(199, manager.aggregate(Aggregation.of("codigo")).getTotal().getMax().getAsDouble(), 1e-9);
+    }
+
+    @Test
+    void testMaterializedAggregates() {
+        System.out.println("\n[testMaterializedAggregates]");
+        manager.save(createDocument(1, "Juan", 25, "Bogotá"));
+        manager.save(createDocument(2, "María", 30, "Cali"));
+        assertTrue(manager.materialize("porCiudad", Aggregation.of("edad").groupBy("ciudad")));
+        assertFalse(manager.materialize("porCiudad", Aggregation.count()));
+
+        manager.save(createDocument(3, "Pedro", 41, "Cali"));
+        manager.update(createDocument(1, "Juan", 26, "Cali"));
+        manager.deleteById(2);
+        AggregateResult view = manager.getMaterialized("porCiudad").get();
+        System.out.println(view.getGroups());
+        assertNull(view.group("Bogotá"));
+        assertEquals(2, view.group("Cali").getCount());
+        assertEquals(67, view.group("Cali").getSum(), 1e-9);
+        assertEquals(26, view.getTotal().getMin().getAsDouble(), 1e-9);
+
+        // Coincide con recalcular la agregación
+        AggregateResult recomputed = manager.aggregate(Aggregation.of("edad").groupBy("ciudad"));
+        assertEquals(recomputed.getGroups().keySet(), view.getGroups().keySet());
+        assertEquals(recomputed.getTotal().getSum(), view.getTotal().getSum(), 1e-9);
+
+        manager.clear();
+        assertEquals(0, manager.getMaterialized("porCiudad").get().getTotal().getCount());
+        assertTrue(manager.dropMaterialized("porCiudad"));
+        assertTrue(manager.getMaterialized("porCiudad").isEmpty());
+    }
+
+    @Test
+    void testFindByFieldWithProjection() {
+        System.out.println("\n[testFindByFieldWithProjection]");
+        manager.save(createDocument(1, "Juan", 25, "Bogotá"));
+        manager.save(createDocument(2, "Juana", 30, "Cali"));
+        manager.save(createDocument(3, "Pedro", 41, "Cali"));
+
+        List<JsonDocument> found = manager.findByField("nombre", "Juan", List.of("ciudad"));
+        assertEquals(List.of(1, 2), found.stream().map(JsonDocument::getId).toList());
+        assertEquals("{\"ciudad\":\"Cali\"}", found.get(1).getData().toString());
+        // Los documentos guardados siguen completos
+        assertEquals(3, manager.findById(2).get().getData().size());
+    }
+
+    @Test
+    void testOrderByWithLimit() {
+        System.out.println("\n[testOrderByWithLimit]");
+        for (int i = 1; i <= 300; i++) {
+            ObjectNode data = objectMapper.createObjectNode();
+            // Códigos repetidos, algunos de texto y algunos documentos sin código
+            if (i % 25 == 0) {
+                data.put("codigo", "C" + i);
+            } else if (i % 40 != 0) {
+                data.put("codigo", (i * 37) % 100);
+            }
+            data.put("estado", i % 3 == 0 ? "inactivo" : "activo");
+            manager.save(new JsonDocument(i, data));
+        }
+        List<Query> queries = List.of(
+                Query.all().orderBy("codigo", SortDirection.DESC).limit(20),
+                Query.all().orderBy("codigo", SortDirection.ASC).limit(15),
+                Query.where(Filter.eq("estado", "activo")).orderBy("codigo", SortDirection.DESC).limit(10),
+                Query.all().orderBy("codigo", SortDirection.DESC).limit(295),
+                Query.all().orderBy(Fields.ID, SortDirection.DESC).limit(5));
+        List<List<JsonDocument>> scanned = queries.stream().map(manager::find).toList();
+        List<JsonDocument> all = manager.getAllDocuments();
+        for (int q = 0; q < queries.size(); q++) {
+            // El montículo da lo mismo que ordenar todo y cortar
+            Query query = queries.get(q);
+            assertEquals(all.stream().filter(query::matches).sorted(query.comparator()).limit(query.getLimit()).toList(),
+                    scanned.get(q), query.toString());
+        }
+
+        manager.createIndex("codigo");
+        assertEquals(QueryPlan.Access.INDEX_ORDER, manager.explain(queries.get(0)).getAccess());
+        System.out.println(manager.explain(queries.get(0)).explain());
+        for (int q = 0; q < queries.size(); q++) {
+            assertEquals(scanned.get(q), manager.find(queries.get(q)), queries.get(q).toString());
+        }
+    }
+
+    @Test
+    void testCompositeIndex() {
+        System.out.println("\n[testCompositeIndex]");
+        String[] ciudades = {"Cali", "Bogota", "Medellin"};
+        for (int i = 1; i <= 300; i++) {
+            ObjectNode data = objectMapper.createObjectNode();
+            data.put("ciudad", ciudades[i % 3]);
+            data.put("estado", i % 4 == 0 ? "inactivo" : "activo");
+            if (i % 50 != 0) {
+                data.put("fecha", 20240000 + i);
+            }
+            manager.save(new JsonDocument(i, data));
+        }
+        List<Query> queries = List.of(
+                Query.where(Filter.and(Filter.eq("ciudad", "Cali"), Filter.eq("estado", "activo"),
+                        Filter.between("fecha", 20240050, 20240200))),
+                Query.where(Filter.and(Filter.eq("estado", "inactivo"), Filter.eq("ciudad", "Bogota"))),
+                Query.where(Filter.and(Filter.eq("ciudad", "Medellin"), Filter.gt("estado", "activo"))),
+                Query.where(Filter.eq("ciudad", "Cali")));
+        List<List<JsonDocument>> scanned = queries.stream().map(manager::find).toList();
+
+        assertTrue(manager.createCompositeIndex("ciudad", "estado", "fecha"));
+        assertFalse(manager.createCompositeIndex("ciudad", "estado", "fecha"));
+        QueryPlan plan = manager.explain(queries.get(0));
+        System.out.println(plan.explain());
+        assertEquals(QueryPlan.Access.INDEX, plan.getAccess());
+        assertTrue(plan.getDetail().contains("/ciudad,/estado,/fecha"));
+        assertTrue(plan.isExact());
+        for (int q = 0; q < queries.size(); q++) {
+            assertEquals(scanned.get(q), manager.find(queries.get(q)), queries.get(q).toString());
+        }
+
+        // Las escrituras mantienen el índice al día
+        ObjectNode moved = objectMapper.createObjectNode();
+        moved.put("ciudad", "Cali").put("estado", "activo").put("fecha", 20240100);
+        manager.update(new JsonDocument(2, moved));
+        manager.deleteById(scanned.get(0).get(0).getId());
+        List<JsonDocument> all = manager.getAllDocuments();
+        assertEquals(all.stream().filter(queries.get(0)::matches).toList(), manager.find(queries.get(0)));
+
+        // La definición se guarda con las demás y el índice se reconstruye al abrir
+        DatabaseManager reopened = new DatabaseManager(TEST_FILE);
+        assertTrue(reopened.getIndexDefinitions().contains(new IndexDefinition("ciudad,estado,fecha", IndexType.COMPOSITE)));
+        assertEquals(QueryPlan.Access.INDEX, reopened.explain(queries.get(0)).getAccess());
+        assertEquals(manager.find(queries.get(0)), reopened.find(queries.get(0)));
+    }
+
+    @Test
+    void testConcurrentReadersAndWriters() throws Exception {
+        System.out.println("\n[testConcurrentReadersAndWriters]");
+        final int writers = 4;
+        final int readers = 4;
+        final int idsPerWriter = 25;
+        final int versions = 4;
+
+        ExecutorService pool = Executors.newFixedThreadPool(writers + readers);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ConcurrentLinkedQueue<String> violations = new ConcurrentLinkedQueue<>();
+        List<Future<?>> writerTasks = new ArrayList<>();
+        List<Future<?>> readerTasks = new ArrayList<>();
+
+        // Cada escritor es dueño de un bloque de ids y escribe versiones crecientes
+        for (int w = 0; w < writers; w++) {
+            final int base = w * idsPerWriter;
+            writerTasks.add(pool.submit(() -> {
+                start.await();
+                for (int version = 1; version <= versions; version++) {
+                    for (int id = base; id < base + idsPerWriter; id++) {
+                        manager.save(createDocument(id, "Persona" + id, version, "Ciudad"));
+                    }
+                }
+                return null;
+            }));
+        }
+
+        // Cada lector comprueba que nunca ve una versión anterior a una ya observada
+        for (int r = 0; r < readers; r++) {
+            readerTasks.add(pool.submit(() -> {
+                int[] lastSeen = new int[writers * idsPerWriter];
+                start.await();
+                while (writing.get()) {
+                    for (int id = 0; id < lastSeen.length; id++) {
+                        Optional<JsonDocument> found = manager.findById(id);
+                        if (found.isEmpty()) {
+                            if (lastSeen[id] > 0) {
+                                violations.add("El id " + id + " desapareció tras verse");
+                            }
+                            continue;
+                        }
+                        JsonDocument doc = found.get();
+                        int version = doc.getData().get("edad").asInt();
+                        if (!doc.getId().equals(id) || version < lastSeen[id]) {
+                            violations.add("Lectura no linealizable del id " + id);
+                        }
+                        lastSeen[id] = version;
+                    }
+                    List<JsonDocument> scan = manager.findByIdRange(0, lastSeen.length);
+                    for (int i = 1; i < scan.size(); i++) {
+                        if (scan.get(i - 1).getId() >= scan.get(i).getId()) {
+                            violations.add("Recorrido por rango desordenado");
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> task : writerTasks) {
+            task.get(60, TimeUnit.SECONDS);
+        }
+        writing.set(false);
+        for (Future<?> task : readerTasks) {
+            task.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        System.out.println("Violaciones detectadas: " + violations.size());
+        assertTrue(violations.isEmpty(), () -> violations.peek());
+        assertEquals(writers * idsPerWriter, manager.getSize());
+        for (int id = 0; id < writers * idsPerWriter; id++) {
+            assertEquals(versions, manager.findById(id).get().getData().get("edad").asInt());
+        }
+    }
 }
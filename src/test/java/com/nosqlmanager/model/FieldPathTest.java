@@ -0,0 +1,62 @@
+package com.nosqlmanager.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Pruebas unitarias para las rutas de campos.
+ */
+class FieldPathTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private JsonNode sample() throws Exception {
+        return objectMapper.readTree("""
+                {"nombre": "Ana", "a.b": 1, "a~c": 2, "0": "cero",
+                 "direccion": {"ciudad": "Cali", "barrio": {"nombre": "Granada"}},
+                 "telefonos": ["300", "301"],
+                 "pedidos": [{"total": 10}, {"total": 25}]}
+                """);
+    }
+
+    @Test
+    void testDottedPaths() throws Exception {
+        JsonNode data = sample();
+        assertEquals("Ana", FieldPath.of("nombre").resolve(data).asText());
+        assertEquals("Granada", FieldPath.of("direccion.barrio.nombre").resolve(data).asText());
+        assertEquals("301", FieldPath.of("telefonos.1").resolve(data).asText());
+        assertEquals(25, FieldPath.of("pedidos.1.total").resolve(data).asInt());
+        assertEquals("cero", FieldPath.of("0").resolve(data).asText());
+        assertNull(FieldPath.of("telefonos.2").resolve(data));
+        assertNull(FieldPath.of("telefonos.x").resolve(data));
+        assertNull(FieldPath.of("direccion.pais.nombre").resolve(data));
+        assertNull(FieldPath.of("nombre").resolve((JsonNode) null));
+        assertThrows(IllegalArgumentException.class, () -> FieldPath.of("direccion..ciudad"));
+        assertSame(FieldPath.of("direccion.ciudad"), FieldPath.of("direccion.ciudad"));
+    }
+
+    @Test
+    void testJsonPointerPaths() throws Exception {
+        JsonNode data = sample();
+        assertEquals("Cali", FieldPath.of("/direccion/ciudad").resolve(data).asText());
+        assertEquals("300", FieldPath.of("/telefonos/0").resolve(data).asText());
+        assertEquals(1, FieldPath.of("/a.b").resolve(data).asInt());
+        assertEquals(2, FieldPath.of("/a~0c").resolve(data).asInt());
+        assertNull(FieldPath.of("/telefonos/01").resolve(data));
+    }
+
+    @Test
+    void testPutBuildsNestedObjects() {
+        ObjectNode target = objectMapper.createObjectNode();
+        FieldPath.of("direccion.ciudad").put(target, objectMapper.getNodeFactory().textNode("Cali"));
+        FieldPath.of("direccion.barrio").put(target, objectMapper.getNodeFactory().textNode("Granada"));
+        assertEquals("{\"direccion\":{\"ciudad\":\"Cali\",\"barrio\":\"Granada\"}}", target.toString());
+    }
+}
@@ -0,0 +1,132 @@
+package com.nosqlmanager.query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.nosqlmanager.index.IndexCatalog;
+import com.nosqlmanager.index.IndexDefinition;
+import com.nosqlmanager.index.IndexKey;
+import com.nosqlmanager.index.IndexType;
+import com.nosqlmanager.model.JsonDocument;
+import com.nosqlmanager.tree.PersistentAVLTree;
+
+/**
+ * Pruebas unitarias para el cálculo de agregaciones.
+ */
+class AggregatorTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final IndexCatalog catalog = new IndexCatalog();
+    private List<JsonDocument> documents;
+    private PersistentAVLTree<Integer, JsonDocument> snapshot;
+
+    @BeforeEach
+    void setUp() {
+        List<Integer> ids = new ArrayList<>();
+        documents = new ArrayList<>();
+        String[] nombres = {"Ana", "Luis", "Marta"};
+        for (int i = 1; i <= 300; i++) {
+            ObjectNode data = objectMapper.createObjectNode();
+            // Algunos documentos sin código o con un código de texto
+            if (i % 10 == 0) {
+                data.put("codigo", "C" + i);
+            } else if (i % 15 != 0) {
+                data.put("codigo", i % 50);
+            }
+            if (i % 7 != 0) {
+                data.put("nombre", nombres[i % 3]);
+            }
+            ids.add(i);
+            documents.add(new JsonDocument(i, data));
+        }
+        snapshot = PersistentAVLTree.ofSorted(ids, documents);
+    }
+
+    private AggregateResult scan(Aggregation aggregation) {
+        return documents.stream().filter(aggregation.toQuery().predicate()).collect(Aggregator.collector(aggregation));
+    }
+
+    private AggregateResult indexed(Aggregation aggregation) {
+        return new Aggregator(catalog, snapshot).fromIndexes(aggregation);
+    }
+
+    private static void assertSameSummary(Summary expected, Summary actual) {
+        assertEquals(expected.getCount(), actual.getCount());
+        assertEquals(expected.getValueCount(), actual.getValueCount());
+        assertEquals(expected.getSum(), actual.getSum(), 1e-9);
+        assertEquals(expected.getMin(), actual.getMin());
+        assertEquals(expected.getMax(), actual.getMax());
+    }
+
+    @Test
+    void testScanSummarizesOnlyNumbers() {
+        AggregateResult result = scan(Aggregation.of("codigo").groupBy("nombre"));
+        Summary total = result.getTotal();
+        assertEquals(300, total.getCount());
+        assertEquals(300 - 30 - 10, total.getValueCount());
+        assertEquals(1, total.getMin().getAsDouble());
+        assertEquals(49, total.getMax().getAsDouble());
+        assertEquals("recorrido", result.getStrategy());
+
+        // Los documentos sin nombre solo cuentan en el total
+        long grouped = result.getGroups().values().stream().mapToLong(Summary::getCount).sum();
+        assertEquals(300 - 42, grouped);
+        assertEquals(List.of(IndexKey.ofValue("Ana"), IndexKey.ofValue("Luis"), IndexKey.ofValue("Marta")),
+                List.copyOf(result.getGroups().keySet()));
+        assertTrue(result.group("Luis").getAverage().isPresent());
+        assertNull(result.group("Pedro"));
+
+        // En paralelo se combinan los resúmenes parciales
+        AggregateResult parallel = documents.parallelStream().collect(Aggregator.collector(Aggregation.of("codigo").groupBy("nombre")));
+        assertSameSummary(total, parallel.getTotal());
+        for (Map.Entry<IndexKey, Summary> group : result.getGroups().entrySet()) {
+            assertSameSummary(group.getValue(), parallel.getGroups().get(group.getKey()));
+        }
+    }
+
+    @Test
+    void testIndexesMatchScan() {
+        List<Aggregation> aggregations = List.of(
+                Aggregation.count(),
+                Aggregation.count().where(Filter.gt("codigo", 20)),
+                Aggregation.count().where(Filter.and(Filter.eq("nombre", "Ana"), Filter.lte("codigo", 10))),
+                Aggregation.count().where(Filter.between(Fields.ID, 50, 120)),
+                Aggregation.count().where(Filter.in(Fields.ID, 3, 4, 999)),
+                Aggregation.of("codigo"),
+                Aggregation.of("codigo").where(Filter.gt("codigo", 20)),
+                Aggregation.of("codigo").where(Filter.between("codigo", "C100", "C200")),
+                Aggregation.count().groupBy("nombre"));
+        catalog.create(new IndexDefinition("codigo", IndexType.SORTED), documents);
+        catalog.create(new IndexDefinition("nombre", IndexType.HASH), documents);
+        for (Aggregation aggregation : aggregations) {
+            AggregateResult fromIndexes = indexed(aggregation);
+            assertNotNull(fromIndexes, aggregation::toString);
+            AggregateResult scanned = scan(aggregation);
+            assertSameSummary(scanned.getTotal(), fromIndexes.getTotal());
+            assertEquals(scanned.getGroups().keySet(), fromIndexes.getGroups().keySet());
+            for (Map.Entry<IndexKey, Summary> group : scanned.getGroups().entrySet()) {
+                assertSameSummary(group.getValue(), fromIndexes.getGroups().get(group.getKey()));
+            }
+        }
+    }
+
+    @Test
+    void testScanNeededWithoutSuitableIndex() {
+        catalog.create(new IndexDefinition("nombre", IndexType.HASH), documents);
+        assertNull(indexed(Aggregation.of("codigo")));
+        assertNull(indexed(Aggregation.of("codigo").groupBy("nombre")));
+        assertNull(indexed(Aggregation.count().groupBy("nombre").where(Filter.gt("codigo", 3))));
+        assertNull(indexed(Aggregation.count().where(Filter.contains("nombre", "a"))));
+        assertEquals("índices secundarios", indexed(Aggregation.count().where(Filter.eq("nombre", "Ana"))).getStrategy());
+    }
+}
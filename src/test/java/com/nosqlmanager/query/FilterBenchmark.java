@@ -0,0 +1,81 @@
+package com.nosqlmanager.query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.nosqlmanager.model.JsonDocument;
+
+/**
+ * Medición aproximada del coste por documento de una misma condición escrita de tres
+ * formas: la lambda a mano que usan los métodos {@code findByField*} del gestor, la
+ * {@link Filter} interpretada y la compilada por {@link FilterCompiler}.
+ *
+ * <p>No es una prueba (no la ejecuta Maven); se lanza a mano desde el IDE o con
+ * {@code java -cp target/classes:target/test-classes:<dependencias> com.nosqlmanager.query.FilterBenchmark}.
+ * Cada variante se calienta antes de medir para que el JIT ya la haya compilado.</p>
+ */
+public final class FilterBenchmark {
+
+    private static final int DOCUMENTS = 200_000;
+    private static final int WARMUP_ROUNDS = 15;
+    private static final int MEASURED_ROUNDS = 20;
+
+    private FilterBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        ObjectMapper objectMapper = new ObjectMapper();
+        String[] ciudades = {"Bogotá", "Cali", "Medellín", "Pasto"};
+        List<JsonDocument> documents = new ArrayList<>(DOCUMENTS);
+        for (int i = 0; i < DOCUMENTS; i++) {
+            ObjectNode data = objectMapper.createObjectNode();
+            data.put("nombre", "Persona" + i);
+            data.put("edad", 18 + i % 60);
+            data.putObject("direccion").put("ciudad", ciudades[i % ciudades.length]);
+            documents.add(new JsonDocument(i, data));
+        }
+
+        // Igual que las lambdas de DatabaseManager: leer el campo y comparar su texto
+        Predicate<JsonDocument> handWritten = doc -> {
+            JsonNode data = doc.getData();
+            if (data == null) return false;
+            JsonNode direccion = data.get("direccion");
+            JsonNode ciudad = direccion == null ? null : direccion.get("ciudad");
+            JsonNode edad = data.get("edad");
+            return ciudad != null && ciudad.asText().equals("Cali")
+                    && edad != null && edad.asDouble() >= 30 && edad.asDouble() < 50;
+        };
+        Filter filter = Filter.and(Filter.eq("direccion.ciudad", "Cali"), Filter.gte("edad", 30), Filter.lt("edad", 50));
+
+        run("lambda a mano", documents, handWritten);
+        run("Filter interpretada", documents, filter::test);
+        run("Filter compilada", documents, FilterCompiler.compile(filter));
+    }
+
+    private static void run(String name, List<JsonDocument> documents, Predicate<JsonDocument> predicate) {
+        int matches = 0;
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            matches = count(documents, predicate);
+        }
+        long start = System.nanoTime();
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            matches = count(documents, predicate);
+        }
+        double perDocument = (System.nanoTime() - start) / (double) MEASURED_ROUNDS / documents.size();
+        System.out.printf("%-22s %6.1f ns/documento (%d coincidencias)%n", name, perDocument, matches);
+    }
+
+    private static int count(List<JsonDocument> documents, Predicate<JsonDocument> predicate) {
+        int matches = 0;
+        for (JsonDocument document : documents) {
+            if (predicate.test(document)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,86 @@
+package com.nosqlmanager.query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.nosqlmanager.model.JsonDocument;
+
+/**
+ * Pruebas unitarias para la compilación de condiciones.
+ */
+class FilterCompilerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private List<JsonDocument> documents() {
+        Random random = new Random(5);
+        List<JsonDocument> documents = new ArrayList<>();
+        for (int i = 1; i <= 400; i++) {
+            ObjectNode data = objectMapper.createObjectNode();
+            // El mismo campo con tipos distintos, como pasa en una base sin esquema
+            switch (random.nextInt(7)) {
+                case 0 -> data.put("valor", random.nextInt(20));
+                case 1 -> data.put("valor", random.nextInt(20) + 0.5);
+                case 2 -> data.put("valor", String.valueOf(random.nextInt(20)));
+                case 3 -> data.put("valor", random.nextBoolean());
+                case 4 -> data.putNull("valor");
+                case 5 -> data.putArray("valor").add(1);
+                default -> { }
+            }
+            if (random.nextInt(5) > 0) {
+                data.put("ciudad", List.of("Cali", "Bogotá", "Pasto").get(random.nextInt(3)));
+            }
+            data.putObject("direccion").put("estrato", i % 7 == 0 ? -0.0 : random.nextInt(6));
+            documents.add(new JsonDocument(i, data));
+        }
+        return documents;
+    }
+
+    @Test
+    void testCompiledMatchesInterpreted() {
+        List<Filter> filters = List.of(
+                Filter.eq("valor", 5), Filter.eq("valor", "5"), Filter.eq("valor", true), Filter.eq("valor", null),
+                Filter.in("valor", 1, 2, 3.5), Filter.in("valor", "1", "2"), Filter.in("valor", 1, "1", false),
+                Filter.between("valor", 3, 9.5), Filter.gt("valor", 10), Filter.lte("valor", "3"),
+                Filter.between("valor", 5, "5"), Filter.gte("direccion.estrato", 0), Filter.eq("direccion.estrato", 0),
+                Filter.contains("ciudad", "al"), Filter.contains("valor", "1"),
+                Filter.and(Filter.eq("ciudad", "Cali"), Filter.lt("valor", 10), Filter.not(Filter.eq("valor", 3))),
+                Filter.or(Filter.eq("ciudad", "Pasto"), Filter.eq("valor", false)),
+                Filter.or(Filter.in(Fields.ID, 3, 4, 5), Filter.between(Fields.ID, 100.5, 120), Filter.gt(Fields.ID, 390)),
+                Filter.and(), Filter.or());
+        List<JsonDocument> documents = documents();
+        for (Filter filter : filters) {
+            Predicate<JsonDocument> compiled = FilterCompiler.compile(filter);
+            for (JsonDocument document : documents) {
+                assertEquals(filter.test(document), compiled.test(document), filter + " en " + document);
+            }
+        }
+    }
+
+    @Test
+    void testCompiledOncePerShape() {
+        List<JsonDocument> documents = documents();
+        FilterCompiler.compile(Filter.and(Filter.eq("ciudad", "Cali"), Filter.between("valor", 1, 5)));
+        int shapes = FilterCompiler.cachedShapes();
+        // Solo cambian las constantes: se reutiliza la compilación con los valores nuevos
+        for (Filter filter : List.of(
+                Filter.and(Filter.eq("ciudad", "Pasto"), Filter.between("valor", 7, 12)),
+                Filter.and(Filter.eq("ciudad", "Bogotá"), Filter.between("valor", 0.5, 3)))) {
+            Predicate<JsonDocument> compiled = FilterCompiler.compile(filter);
+            assertEquals(shapes, FilterCompiler.cachedShapes());
+            for (JsonDocument document : documents) {
+                assertEquals(filter.test(document), compiled.test(document), filter + " en " + document);
+            }
+        }
+        // Otro tipo de valor es otra forma
+        FilterCompiler.compile(Filter.and(Filter.eq("ciudad", 3), Filter.between("valor", 1, 5)));
+        assertEquals(shapes + 1, FilterCompiler.cachedShapes());
+    }
+}
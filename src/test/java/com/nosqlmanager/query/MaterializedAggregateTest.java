@@ -0,0 +1,94 @@
+package com.nosqlmanager.query;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.nosqlmanager.index.IndexKey;
+import com.nosqlmanager.model.JsonDocument;
+
+/**
+ * Pruebas unitarias para las vistas materializadas.
+ */
+class MaterializedAggregateTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private JsonDocument document(int id, String categoria, Integer precio) {
+        ObjectNode data = objectMapper.createObjectNode();
+        data.put("categoria", categoria);
+        if (precio != null) {
+            data.put("precio", precio);
+        }
+        return new JsonDocument(id, data);
+    }
+
+    private static void assertSameSummary(Summary expected, Summary actual) {
+        assertEquals(expected.getCount(), actual.getCount());
+        assertEquals(expected.getValueCount(), actual.getValueCount());
+        assertEquals(expected.getSum(), actual.getSum(), 1e-9);
+        assertEquals(expected.getMin(), actual.getMin());
+        assertEquals(expected.getMax(), actual.getMax());
+    }
+
+    @Test
+    void testMinAndMaxSurviveDeletes() {
+        MaterializedAggregate view = new MaterializedAggregate("precios", Aggregation.of("precio").groupBy("categoria"));
+        view.update(null, document(1, "libros", 10));
+        view.update(null, document(2, "libros", 40));
+        view.update(null, document(3, "discos", 25));
+        assertEquals(40, view.result().group("libros").getMax().getAsDouble());
+
+        // Al borrar el máximo, el siguiente valor pasa a serlo
+        view.update(document(2, "libros", 40), null);
+        assertEquals(10, view.result().group("libros").getMax().getAsDouble());
+        assertEquals(10, view.result().getTotal().getMin().getAsDouble());
+
+        // Mover un documento de grupo lo resta de uno y lo suma al otro
+        view.update(document(1, "libros", 10), document(1, "discos", 5));
+        AggregateResult result = view.result();
+        assertNull(result.group("libros"));
+        assertEquals(2, result.group("discos").getCount());
+        assertEquals(15, result.group("discos").getAverage().getAsDouble());
+        assertEquals("vista materializada precios", result.getStrategy());
+    }
+
+    @Test
+    void testMatchesRecomputation() {
+        Aggregation aggregation = Aggregation.of("precio").groupBy("categoria").where(Filter.gte("precio", 20));
+        MaterializedAggregate view = new MaterializedAggregate("caros", aggregation);
+        Random random = new Random(11);
+        String[] categorias = {"libros", "discos", "juegos"};
+        Map<Integer, JsonDocument> current = new HashMap<>();
+        for (int step = 0; step < 2000; step++) {
+            int id = random.nextInt(100);
+            JsonDocument next = random.nextInt(5) == 0 ? null
+                    : document(id, categorias[random.nextInt(3)], random.nextInt(4) == 0 ? null : random.nextInt(60));
+            JsonDocument previous = next == null ? current.remove(id) : current.put(id, next);
+            view.update(previous, next);
+        }
+
+        List<JsonDocument> documents = new ArrayList<>(current.values());
+        AggregateResult expected = documents.stream().filter(aggregation.toQuery().predicate())
+                .collect(Aggregator.collector(aggregation));
+        AggregateResult actual = view.result();
+        assertSameSummary(expected.getTotal(), actual.getTotal());
+        assertEquals(expected.getGroups().keySet(), actual.getGroups().keySet());
+        for (Map.Entry<IndexKey, Summary> group : expected.getGroups().entrySet()) {
+            assertSameSummary(group.getValue(), actual.getGroups().get(group.getKey()));
+        }
+
+        view.clear();
+        assertEquals(0, view.result().getTotal().getCount());
+        assertFalse(view.result().getTotal().getMax().isPresent());
+    }
+}
@@ -0,0 +1,46 @@
+package com.nosqlmanager.query;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.nosqlmanager.model.JsonDocument;
+
+/**
+ * Pruebas unitarias para las proyecciones.
+ */
+class ProjectionTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private JsonDocument document() {
+        ObjectNode data = objectMapper.createObjectNode();
+        data.put("nombre", "Ana");
+        data.put("edad", 31);
+        data.putObject("direccion").put("ciudad", "Cali").put("barrio", "Granada");
+        data.putArray("telefonos").add("300").add("310");
+        return new JsonDocument(7, data);
+    }
+
+    @Test
+    void testCopiesOnlyRequestedFields() {
+        JsonDocument projected = Projection.of("nombre", "direccion.ciudad", "falta", Fields.ID).apply(document());
+        assertEquals(7, projected.getId());
+        assertEquals("{\"nombre\":\"Ana\",\"direccion\":{\"ciudad\":\"Cali\"}}", projected.getData().toString());
+        assertEquals("{}", Projection.of(List.of()).apply(document()).getData().toString());
+    }
+
+    @Test
+    void testParentFieldCoversNestedPaths() {
+        JsonDocument original = document();
+        String before = original.getData().toString();
+        // La ruta anidada sobra y no debe escribir dentro del objeto del documento
+        JsonDocument projected = Projection.of("direccion", "/direccion/ciudad", "telefonos.1").apply(original);
+        assertEquals("{\"direccion\":{\"ciudad\":\"Cali\",\"barrio\":\"Granada\"},\"telefonos\":{\"1\":\"310\"}}",
+                projected.getData().toString());
+        assertEquals(before, original.getData().toString());
+    }
+}
@@ -0,0 +1,103 @@
+package com.nosqlmanager.query;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.nosqlmanager.model.JsonDocument;
+
+/**
+ * Pruebas unitarias para la caché de resultados de consultas.
+ */
+class QueryCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private JsonDocument document(int id, String ciudad) {
+        ObjectNode data = objectMapper.createObjectNode();
+        data.put("ciudad", ciudad);
+        return new JsonDocument(id, data);
+    }
+
+    private static QueryCache.Key key(String ciudad) {
+        return new QueryCache.Key("equals", "/ciudad", List.of(ciudad));
+    }
+
+    private static Predicate<JsonDocument> ciudad(String ciudad) {
+        return doc -> ciudad.equals(doc.getData().path("ciudad").asText());
+    }
+
+    @Test
+    void testLeastRecentlyUsedIsEvicted() {
+        QueryCache cache = new QueryCache(2, Long.MAX_VALUE);
+        cache.put(key("Cali"), cache.version(), List.of(), ciudad("Cali"));
+        cache.put(key("Pasto"), cache.version(), List.of(), ciudad("Pasto"));
+        assertNotNull(cache.get(key("Cali")));
+        cache.put(key("Bogotá"), cache.version(), List.of(), ciudad("Bogotá"));
+
+        assertNull(cache.get(key("Pasto")));
+        assertNotNull(cache.get(key("Cali")));
+        assertNotNull(cache.get(key("Bogotá")));
+        CacheStats stats = cache.getStats();
+        assertEquals(3, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(1, stats.getEvictions());
+        assertEquals(2, stats.getEntries());
+    }
+
+    @Test
+    void testMemoryBound() {
+        List<JsonDocument> large = List.of(document(1, "Cali"), document(2, "Cali"), document(3, "Cali"));
+        QueryCache cache = new QueryCache(100, 400);
+        cache.put(key("Cali"), cache.version(), large, ciudad("Cali"));
+        cache.put(key("Pasto"), cache.version(), List.of(), ciudad("Pasto"));
+        cache.put(key("Bogotá"), cache.version(), List.of(), ciudad("Bogotá"));
+
+        CacheStats stats = cache.getStats();
+        assertEquals(2, stats.getEntries());
+        assertEquals(1, stats.getEvictions());
+        assertEquals(2 * 176, stats.getMemoryUsage());
+        assertNull(cache.get(key("Cali")));
+    }
+
+    @Test
+    void testInvalidationOnlyTouchesMatchingResults() {
+        QueryCache cache = new QueryCache(10, Long.MAX_VALUE);
+        cache.put(key("Cali"), cache.version(), List.of(document(1, "Cali")), ciudad("Cali"));
+        cache.put(key("Pasto"), cache.version(), List.of(), ciudad("Pasto"));
+        cache.put(key("Bogotá"), cache.version(), List.of(), ciudad("Bogotá"));
+
+        // Un documento nuevo de Medellín no cambia ningún resultado
+        cache.invalidate(null, document(2, "Medellín"));
+        assertEquals(3, cache.getStats().getEntries());
+
+        // Mover el documento 1 de Cali a Pasto cambia ambos resultados, pero no el de Bogotá
+        cache.invalidate(document(1, "Cali"), document(1, "Pasto"));
+        assertNull(cache.get(key("Cali")));
+        assertNull(cache.get(key("Pasto")));
+        assertNotNull(cache.get(key("Bogotá")));
+        assertEquals(2, cache.getStats().getInvalidations());
+
+        cache.invalidateAll();
+        assertEquals(0, cache.getStats().getEntries());
+        assertEquals(0, cache.getStats().getMemoryUsage());
+    }
+
+    @Test
+    void testStaleResultIsNotStored() {
+        QueryCache cache = new QueryCache(10, Long.MAX_VALUE);
+        long seen = cache.version();
+        // Una escritura llega mientras la consulta se ejecuta
+        cache.invalidate(null, document(1, "Cali"));
+        cache.put(key("Cali"), seen, List.of(), ciudad("Cali"));
+
+        assertNull(cache.get(key("Cali")));
+        assertEquals(0, cache.getStats().getEntries());
+    }
+}
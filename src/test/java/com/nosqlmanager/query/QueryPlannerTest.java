@@ -0,0 +1,166 @@
+package com.nosqlmanager.query;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.nosqlmanager.index.IndexCatalog;
+import com.nosqlmanager.index.IndexDefinition;
+import com.nosqlmanager.index.IndexType;
+import com.nosqlmanager.model.JsonDocument;
+import com.nosqlmanager.tree.PersistentAVLTree;
+
+/**
+ * Pruebas unitarias para el planificador de consultas.
+ */
+class QueryPlannerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final IndexCatalog catalog = new IndexCatalog();
+    private List<JsonDocument> documents;
+    private PersistentAVLTree<Integer, JsonDocument> snapshot;
+
+    @BeforeEach
+    void setUp() {
+        List<Integer> ids = new ArrayList<>();
+        documents = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++) {
+            ObjectNode data = objectMapper.createObjectNode();
+            data.put("codigo", i);
+            data.put("estado", i % 100 == 0 ? "inactivo" : "activo");
+            data.put("nombre", "Producto " + i);
+            ids.add(i);
+            documents.add(new JsonDocument(i, data));
+        }
+        snapshot = PersistentAVLTree.ofSorted(ids, documents);
+    }
+
+    private QueryPlan plan(Filter filter) {
+        return new QueryPlanner(catalog, snapshot).plan(Query.where(filter));
+    }
+
+    @Test
+    void testFullScanWithoutIndexes() {
+        QueryPlan plan = plan(Filter.eq("estado", "inactivo"));
+        assertEquals(QueryPlan.Access.FULL_SCAN, plan.getAccess());
+        assertEquals(1000, plan.getCost(), 1e-9);
+        assertTrue(plan.getRejectedAlternatives().isEmpty());
+    }
+
+    @Test
+    void testIdRangeCountsExactly() {
+        QueryPlan plan = plan(Filter.and(Filter.between(Fields.ID, 101.5, 150), Filter.eq("estado", "activo")));
+        assertEquals(QueryPlan.Access.ID_RANGE, plan.getAccess());
+        assertEquals(102, plan.getIdFrom());
+        assertEquals(150, plan.getIdTo());
+        assertEquals(49, plan.getExaminedRows(), 1e-9);
+        assertEquals(List.of("FULL_SCAN, coste 1000.0"), plan.getRejectedAlternatives());
+
+        QueryPlan lookup = plan(Filter.in(Fields.ID, 7, 3, 2000));
+        assertEquals(QueryPlan.Access.ID_LOOKUP, lookup.getAccess());
+        assertEquals(List.of(3, 7, 2000), lookup.getIds());
+        assertEquals(2, lookup.getExaminedRows(), 1e-9);
+    }
+
+    @Test
+    void testIndexChosenByStatistics() {
+        catalog.create(new IndexDefinition("estado", IndexType.HASH), documents);
+        catalog.create(new IndexDefinition("codigo", IndexType.SORTED), documents);
+        catalog.create(new IndexDefinition("nombre", IndexType.NGRAM), documents);
+
+        QueryPlan rare = plan(Filter.eq("estado", "inactivo"));
+        assertEquals(QueryPlan.Access.INDEX, rare.getAccess());
+        assertEquals(10, rare.getEstimatedRows(), 1e-9);
+        assertTrue(rare.isExact());
+
+        // Uniforme entre 1 y 1000: del 901 al 1000 cae un décimo
+        QueryPlan range = plan(Filter.gt("codigo", 900));
+        assertEquals(QueryPlan.Access.INDEX, range.getAccess());
+        assertEquals(100, range.getEstimatedRows(), 1.0);
+
+        // Todos los nombres tienen "Producto": traer y revisar cada candidato sale más caro que recorrer
+        QueryPlan common = plan(Filter.contains("nombre", "Producto"));
+        assertEquals(QueryPlan.Access.FULL_SCAN, common.getAccess());
+        assertFalse(common.getRejectedAlternatives().isEmpty());
+
+        QueryPlan combined = plan(Filter.and(Filter.eq("estado", "inactivo"), Filter.contains("nombre", "Producto")));
+        assertEquals(QueryPlan.Access.INDEX, combined.getAccess());
+        assertFalse(combined.isExact());
+        assertTrue(combined.explain().contains("índices sobre estado, nombre"));
+    }
+
+    @Test
+    void testResolverMatchesScan() {
+        catalog.create(new IndexDefinition("codigo", IndexType.SORTED), documents);
+        catalog.create(new IndexDefinition("nombre", IndexType.NGRAM), documents);
+        IndexResolver resolver = new IndexResolver(catalog, () -> null);
+        List<Filter> filters = List.of(
+                Filter.between("codigo", 10, 20),
+                Filter.lt("codigo", 5),
+                Filter.gte("codigo", 995),
+                Filter.contains("nombre", "o 99"));
+        for (Filter filter : filters) {
+            IndexResolver.Candidates candidates = resolver.resolve(filter);
+            List<Integer> resolved = new ArrayList<>();
+            for (Integer id : candidates.ids().toList()) {
+                if (filter.test(documents.get(id - 1))) {
+                    resolved.add(id);
+                }
+            }
+            List<Integer> scanned = documents.stream().filter(filter::test).map(JsonDocument::getId).toList();
+            assertEquals(scanned, resolved, filter.toString());
+        }
+    }
+
+    @Test
+    void testIndexOrderForTopK() {
+        Query top = Query.all().orderBy("codigo", SortDirection.DESC).limit(20);
+        assertEquals(QueryPlan.Access.FULL_SCAN, new QueryPlanner(catalog, snapshot).plan(top).getAccess());
+
+        catalog.create(new IndexDefinition("codigo", IndexType.SORTED), documents);
+        catalog.create(new IndexDefinition("estado", IndexType.HASH), documents);
+        QueryPlan plan = new QueryPlanner(catalog, snapshot).plan(top);
+        assertEquals(QueryPlan.Access.INDEX_ORDER, plan.getAccess());
+        assertEquals(20, plan.getExaminedRows(), 1e-9);
+        assertTrue(plan.isExact());
+
+        // Con una condición que casi todos cumplen se sigue recorriendo el índice en orden
+        QueryPlan common = new QueryPlanner(catalog, snapshot).plan(top.toBuilder().filter(Filter.eq("estado", "activo")).build());
+        assertEquals(QueryPlan.Access.INDEX_ORDER, common.getAccess());
+        // Con una muy selectiva sale más barato traer los candidatos y ordenarlos
+        QueryPlan rare = new QueryPlanner(catalog, snapshot).plan(top.toBuilder().filter(Filter.eq("estado", "inactivo")).build());
+        assertEquals(QueryPlan.Access.INDEX, rare.getAccess());
+        // Sin límite hay que ordenar todo de todas formas
+        assertFalse(new QueryPlanner(catalog, snapshot).plan(Query.all().orderBy("codigo", SortDirection.DESC))
+                .getAccess() == QueryPlan.Access.INDEX_ORDER);
+    }
+
+    @Test
+    void testCompositeIndexCoversConjunction() {
+        Filter filter = Filter.and(Filter.eq("estado", "inactivo"), Filter.between("codigo", 1, 500),
+                Filter.contains("nombre", "0"));
+        catalog.create(new IndexDefinition("estado,codigo", IndexType.COMPOSITE), documents);
+
+        QueryPlan plan = plan(filter);
+        assertEquals(QueryPlan.Access.INDEX, plan.getAccess());
+        assertTrue(plan.getDetail().contains("/estado,/codigo"));
+        // El índice cuenta exactamente las dos condiciones que cubre; la subcadena se revisa aparte
+        assertEquals(5, plan.getExaminedRows(), 1e-9);
+        assertFalse(plan.isExact());
+
+        IndexResolver.Candidates candidates = new IndexResolver(catalog, () -> null).resolve(filter);
+        assertEquals(List.of(100, 200, 300, 400, 500), candidates.ids().toList());
+        assertFalse(candidates.exact());
+        // Una igualdad sobre el primer campo, sin índice propio, también usa el compuesto
+        assertEquals(10, new IndexResolver(catalog, () -> null).resolve(Filter.eq("estado", "inactivo"))
+                .ids().getCardinality());
+        assertEquals(QueryPlan.Access.INDEX, plan(Filter.eq("estado", "inactivo")).getAccess());
+    }
+}
@@ -0,0 +1,33 @@
+package com.nosqlmanager.query;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas unitarias para la selección de los k primeros.
+ */
+class TopKTest {
+
+    @Test
+    void testMatchesSortAndLimit() {
+        Random random = new Random(3);
+        List<Integer> values = IntStream.range(0, 5000).map(i -> random.nextInt(1000)).boxed().toList();
+        Comparator<Integer> order = Comparator.reverseOrder();
+        for (int k : new int[] {0, 1, 7, 100, 5000, 6000}) {
+            List<Integer> expected = values.stream().sorted(order).limit(k).toList();
+            assertEquals(expected, values.stream().collect(TopK.collector(order, k)));
+            assertEquals(expected, values.parallelStream().collect(TopK.collector(order, k)));
+        }
+    }
+
+    @Test
+    void testEmptyInput() {
+        assertTrue(List.<Integer>of().stream().collect(TopK.collector(Comparator.naturalOrder(), 5)).isEmpty());
+    }
+}
@@ -2,6 +2,8 @@ package com.nosqlmanager.tree;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Random;
+import java.util.TreeMap;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -74,6 +76,193 @@ class AVLTreeTest {
         assertEquals(1, tree.getSize());
     }
 
+    @Test
+    void testRemoveReturnsOldValue() {
+        for (int i = 1; i <= 7; i++) {
+            tree.insert(i, "Valor" + i);
+        }
+
+        assertEquals("Valor4", tree.remove(4));
+        assertEquals(null, tree.remove(4));
+        assertEquals(List.of(1, 2, 3, 5, 6, 7), tree.getAllKeys());
+        assertEquals(6, tree.getSize());
+        assertNoNodeWithBalanceFactorAbsGreaterThan1(tree);
+    }
+
+    @Test
+    void testPutIfAbsentAndReplace() {
+        assertEquals(null, tree.putIfAbsent(10, "Diez"));
+        assertEquals("Diez", tree.putIfAbsent(10, "Otro"));
+        assertEquals(Optional.of("Diez"), tree.search(10));
+
+        assertEquals(null, tree.replace(20, "Veinte"));
+        assertFalse(tree.contains(20));
+        assertEquals("Diez", tree.replace(10, "Diez bis"));
+        assertEquals(Optional.of("Diez bis"), tree.search(10));
+        assertEquals(1, tree.getSize());
+    }
+
+    @Test
+    void testComputeAndMerge() {
+        tree.compute(10, (k, old) -> old == null ? "a" : old + "b");
+        tree.compute(10, (k, old) -> old == null ? "a" : old + "b");
+        assertEquals(Optional.of("ab"), tree.search(10));
+
+        assertEquals("abc", tree.merge(10, "c", String::concat));
+        assertEquals("x", tree.merge(20, "x", String::concat));
+        assertEquals(2, tree.getSize());
+
+        assertEquals(null, tree.compute(10, (k, old) -> null));
+        assertFalse(tree.contains(10));
+        assertEquals(1, tree.getSize());
+    }
+
+    @Test
+    void testRandomOperationsKeepBalance() {
+        Random random = new Random(42);
+        TreeMap<Integer, String> expected = new TreeMap<>();
+        for (int i = 0; i < 5000; i++) {
+            int key = random.nextInt(500);
+            if (random.nextBoolean()) {
+                assertEquals(expected.put(key, "V" + i), tree.insert(key, "V" + i));
+            } else {
+                assertEquals(expected.remove(key), tree.remove(key));
+            }
+        }
+
+        assertEquals(List.copyOf(expected.keySet()), tree.getAllKeys());
+        assertEquals(expected.size(), tree.getSize());
+        assertEquals(expected.size(), tree.getRoot().getSize());
+        assertNoNodeWithBalanceFactorAbsGreaterThan1(tree);
+    }
+
+    @Test
+    void testSplitAndJoin() {
+        for (int i = 1; i <= 100; i++) {
+            tree.insert(i, "Valor" + i);
+        }
+
+        AVLTree<Integer, String> upper = tree.split(40);
+
+        assertEquals(39, tree.getSize());
+        assertEquals(61, upper.getSize());
+        assertEquals(40, upper.getAllKeys().get(0));
+        assertNoNodeWithBalanceFactorAbsGreaterThan1(tree);
+        assertNoNodeWithBalanceFactorAbsGreaterThan1(upper);
+
+        upper.remove(40);
+        AVLTree<Integer, String> joined = AVLTree.join(tree, 40, "Cuarenta", upper);
+
+        assertEquals(100, joined.getSize());
+        assertEquals(Optional.of("Cuarenta"), joined.search(40));
+        assertTrue(tree.isEmpty());
+        assertNoNodeWithBalanceFactorAbsGreaterThan1(joined);
+    }
+
+    @Test
+    void testUnionAndDifference() {
+        AVLTree<Integer, String> other = new AVLTree<>();
+        TreeMap<Integer, String> expected = new TreeMap<>();
+        // Suficientemente grande para que la unión se reparta entre hilos
+        for (int i = 0; i < 30000; i += 2) {
+            tree.insert(i, "Par" + i);
+            expected.put(i, "Par" + i);
+        }
+        for (int i = 0; i < 30000; i += 3) {
+            other.insert(i, "Triple" + i);
+            expected.put(i, "Triple" + i);
+        }
+
+        tree.union(other);
+
+        assertTrue(other.isEmpty());
+        assertEquals(expected.size(), tree.getSize());
+        assertEquals(List.copyOf(expected.keySet()), tree.getAllKeys());
+        assertEquals(Optional.of("Triple6"), tree.search(6));
+        assertNoNodeWithBalanceFactorAbsGreaterThan1(tree);
+
+        AVLTree<Integer, String> fives = new AVLTree<>();
+        for (int i = 0; i < 30000; i += 5) {
+            fives.insert(i, "Quinto" + i);
+            expected.remove(i);
+        }
+        tree.difference(fives);
+
+        assertEquals(List.copyOf(expected.keySet()), tree.getAllKeys());
+        assertEquals(expected.size(), tree.getSize());
+        assertEquals(6000, fives.getSize());
+        assertNoNodeWithBalanceFactorAbsGreaterThan1(tree);
+    }
+
+    @Test
+    void testDeleteRangeAndInsertAllSorted() {
+        tree.insertAllSorted(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10),
+                List.of("a", "b", "c", "d", "e", "f", "g", "h", "i", "j"));
+        tree.insertAllSorted(List.of(5, 11), List.of("E", "k"));
+
+        assertEquals(11, tree.getSize());
+        assertEquals(Optional.of("E"), tree.search(5));
+
+        assertEquals(4, tree.deleteRange(3, 6));
+        assertEquals(List.of(1, 2, 7, 8, 9, 10, 11), tree.getAllKeys());
+        assertEquals(0, tree.deleteRange(20, 30));
+        assertEquals(2, tree.removeAllSorted(List.of(1, 4, 11)));
+        assertEquals(List.of(2, 7, 8, 9, 10), tree.getAllKeys());
+        assertNoNodeWithBalanceFactorAbsGreaterThan1(tree);
+    }
+
+    @Test
+    void testStatsCountRotationsByCase() {
+        assertFalse(tree.isStatsEnabled());
+        tree.enableStats();
+
+        // Ascendente: solo casos Derecha-Derecha
+        tree.insert(1, "a");
+        tree.insert(2, "b");
+        tree.insert(3, "c");
+        // Izquierda-Izquierda bajo el 1 (0, -1), Derecha-Izquierda bajo el 3 (10, 5)
+        // e Izquierda-Derecha bajo el -1 (-3, -2)
+        tree.insert(0, "z");
+        tree.insert(-1, "y");
+        tree.insert(10, "j");
+        tree.insert(5, "e");
+        tree.insert(-3, "w");
+        tree.insert(-2, "x");
+
+        TreeStats stats = tree.getStats();
+        assertEquals(9, stats.getOperations());
+        assertEquals(1, stats.getRotationsRR());
+        assertEquals(1, stats.getRotationsLL());
+        assertEquals(1, stats.getRotationsRL());
+        assertEquals(1, stats.getRotationsLR());
+        assertEquals(4, stats.getTotalRotations());
+        assertEquals(stats.getComparisons(), stats.getNodeVisits());
+        assertEquals(4, stats.getHeight());
+        assertEquals(4, stats.getMinimumHeight());
+
+        tree.search(5);
+        assertEquals(stats.getComparisons() + 2, tree.getStats().getComparisons());
+
+        tree.disableStats();
+        tree.insert(42, "x");
+        assertEquals(0, tree.getStats().getOperations());
+        assertEquals(10, tree.getStats().getSize());
+    }
+
+    @Test
+    void testStatsHeightRatioStaysBelowAVLBound() {
+        tree.enableStats();
+        for (int i = 0; i < 10000; i++) {
+            tree.insert(i, "Valor" + i);
+        }
+
+        TreeStats stats = tree.getStats();
+        assertEquals(14, stats.getMinimumHeight());
+        assertTrue(stats.getHeightRatio() >= 1.0 && stats.getHeightRatio() < 1.45);
+        assertTrue(stats.getAverageVisitsPerOperation() <= stats.getHeight());
+        assertTrue(stats.getRotationsRR() > 0);
+    }
+
     @Test
     void testContains() {
         tree.insert(10, "Diez");
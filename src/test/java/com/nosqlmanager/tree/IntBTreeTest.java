@@ -0,0 +1,98 @@
+package com.nosqlmanager.tree;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas unitarias para el árbol B de claves enteras.
+ */
+class IntBTreeTest {
+
+    @Test
+    void testInsertAndSearch() {
+        IntBTree<String> tree = new IntBTree<>(2);
+        for (int i = 1; i <= 20; i++) {
+            tree.insert(i, "Valor" + i);
+        }
+        tree.printTree();
+
+        assertEquals(20, tree.getSize());
+        assertEquals(Optional.of("Valor7"), tree.search(7));
+        assertEquals(Optional.empty(), tree.search(21));
+        assertEquals("Valor7", tree.insert(7, "Siete"));
+        assertEquals(Optional.of("Siete"), tree.search(7));
+        assertEquals(20, tree.getSize());
+    }
+
+    @Test
+    void testRangeAndOrder() {
+        IntBTree<Integer> tree = new IntBTree<>(3);
+        for (int i = 100; i >= -100; i -= 5) {
+            tree.insert(i, i);
+        }
+
+        assertEquals(List.of(-10, -5, 0, 5, 10), tree.getRange(-12, 12));
+        assertEquals(tree.getAllKeys(), tree.getAllValues());
+        assertTrue(tree.getRange(11, 10).isEmpty());
+    }
+
+    @Test
+    void testComputeFamily() {
+        IntBTree<String> tree = new IntBTree<>();
+
+        assertEquals(null, tree.putIfAbsent(1, "a"));
+        assertEquals("a", tree.putIfAbsent(1, "b"));
+        assertEquals(null, tree.replace(2, "x"));
+        assertFalse(tree.contains(2));
+        assertEquals("ab", tree.merge(1, "b", String::concat));
+        assertEquals(null, tree.compute(1, (k, old) -> null));
+        assertTrue(tree.isEmpty());
+    }
+
+    @Test
+    void testRandomOperationsMatchTreeMap() {
+        for (int degree : new int[] {2, 3, 32}) {
+            IntBTree<Integer> tree = new IntBTree<>(degree);
+            Map<Integer, Integer> expected = new TreeMap<>();
+            Random random = new Random(degree);
+            for (int i = 0; i < 20000; i++) {
+                int key = random.nextInt(2000) - 1000;
+                if (random.nextInt(3) > 0) {
+                    assertEquals(expected.put(key, i), tree.insert(key, i));
+                } else {
+                    assertEquals(expected.remove(key), tree.remove(key));
+                }
+            }
+
+            assertEquals(List.copyOf(expected.keySet()), tree.getAllKeys(), "t=" + degree);
+            assertEquals(expected.size(), tree.getSize());
+            for (int key = -1000; key < 1000; key++) {
+                assertEquals(expected.get(key), tree.get(key));
+            }
+        }
+    }
+
+    @Test
+    void testDeleteAllShrinksTree() {
+        IntBTree<Integer> tree = new IntBTree<>(2);
+        for (int i = 0; i < 500; i++) {
+            tree.insert(i, i);
+        }
+        assertTrue(tree.getHeight() > 1);
+
+        for (int i = 0; i < 500; i++) {
+            assertEquals(i, tree.remove(i));
+        }
+
+        assertTrue(tree.isEmpty());
+        assertEquals(1, tree.getHeight());
+    }
+}
@@ -0,0 +1,205 @@
+package com.nosqlmanager.tree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas unitarias para el árbol AVL persistente.
+ */
+class PersistentAVLTreeTest {
+
+    @Test
+    void testInsertKeepsPreviousVersion() {
+        PersistentAVLTree<Integer, String> v0 = PersistentAVLTree.empty();
+        PersistentAVLTree<Integer, String> v1 = v0.insert(10, "Diez");
+        PersistentAVLTree<Integer, String> v2 = v1.insert(20, "Veinte").insert(10, "Diez bis");
+
+        assertTrue(v0.isEmpty());
+        assertEquals(Optional.of("Diez"), v1.search(10));
+        assertFalse(v1.contains(20));
+        assertEquals(Optional.of("Diez bis"), v2.search(10));
+        assertEquals(1, v1.getSize());
+        assertEquals(2, v2.getSize());
+    }
+
+    @Test
+    void testDeleteKeepsPreviousVersion() {
+        PersistentAVLTree<Integer, String> tree = PersistentAVLTree.empty();
+        for (int i = 1; i <= 7; i++) {
+            tree = tree.insert(i, "Valor" + i);
+        }
+
+        PersistentAVLTree<Integer, String> sinCuatro = tree.delete(4);
+
+        assertEquals(List.of(1, 2, 3, 5, 6, 7), sinCuatro.getAllKeys());
+        assertEquals(List.of(1, 2, 3, 4, 5, 6, 7), tree.getAllKeys());
+        assertSame(sinCuatro, sinCuatro.delete(99));
+    }
+
+    @Test
+    void testRangeSpliterator() {
+        List<Integer> keys = IntStream.rangeClosed(1, 200).map(i -> i * 2).boxed().toList();
+        PersistentAVLTree<Integer, Integer> tree = PersistentAVLTree.ofSorted(keys, keys);
+
+        int[][] ranges = {{1, 400}, {7, 7}, {8, 8}, {101, 250}, {-10, 3}, {399, 1000}, {50, 20}};
+        for (int[] range : ranges) {
+            Spliterator<Integer> spliterator = tree.rangeSpliterator(range[0], range[1]);
+            assertEquals(tree.countRange(range[0], range[1]), spliterator.estimateSize());
+            assertEquals(tree.getRange(range[0], range[1]), StreamSupport.stream(spliterator, false).toList());
+        }
+        assertEquals(keys.subList(99, 200), StreamSupport.stream(tree.rangeSpliterator(200, null), false).toList());
+        assertEquals(tree.getRange(101, 250),
+                StreamSupport.stream(tree.rangeSpliterator(101, 250), true).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testSharesUntouchedSubtrees() {
+        PersistentAVLTree<Integer, String> tree = PersistentAVLTree.empty();
+        for (int i = 1; i <= 15; i++) {
+            tree = tree.insert(i, "Valor" + i);
+        }
+
+        PersistentAVLTree<Integer, String> updated = tree.insert(1, "Uno");
+
+        // Solo se copia el camino hacia la clave 1; el subárbol derecho se comparte
+        assertSame(tree.getRoot().getRight(), updated.getRoot().getRight());
+    }
+
+    @Test
+    void testStaysBalanced() {
+        PersistentAVLTree<Integer, String> tree = PersistentAVLTree.empty();
+        for (int i = 1; i <= 1000; i++) {
+            tree = tree.insert(i, "Valor" + i);
+        }
+        for (int i = 1; i <= 1000; i += 3) {
+            tree = tree.delete(i);
+        }
+
+        assertBalanced(tree.getRoot());
+        assertEquals(666, tree.getSize());
+        assertEquals(List.of("Valor500", "Valor501", "Valor503"), tree.getRange(500, 503));
+    }
+
+    @Test
+    void testBulkOperationsKeepOldVersions() {
+        List<Integer> keys = new ArrayList<>();
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            keys.add(i * 2);
+            values.add("Valor" + i * 2);
+        }
+        PersistentAVLTree<Integer, String> tree = PersistentAVLTree.ofSorted(keys, values);
+
+        PersistentAVLTree<Integer, String> merged = tree.insertAllSorted(List.of(-1, 3, 4, 2000), List.of("a", "b", "c", "d"));
+        assertBalanced(merged.getRoot());
+        assertEquals(503, merged.getSize());
+        assertEquals(Optional.of("c"), merged.search(4));
+        assertEquals(List.of(-1, 0, 2, 3, 4, 6), merged.getAllKeys().subList(0, 6));
+
+        PersistentAVLTree<Integer, String> removed = merged.removeAllSorted(List.of(-1, 5, 6, 2000));
+        assertBalanced(removed.getRoot());
+        assertEquals(500, removed.getSize());
+        assertFalse(removed.contains(6));
+
+        PersistentAVLTree<Integer, String> cut = removed.deleteRange(100, 799);
+        assertBalanced(cut.getRoot());
+        assertEquals(150, cut.getSize());
+        assertEquals(List.of("Valor96", "Valor98", "Valor800", "Valor802"), cut.getRange(96, 802));
+        assertSame(cut, cut.deleteRange(10, 1));
+
+        // Las versiones anteriores no cambian
+        assertEquals(500, tree.getSize());
+        assertEquals(Optional.of("Valor4"), tree.search(4));
+        assertEquals(keys, tree.getAllKeys());
+        assertEquals(503, merged.getSize());
+    }
+
+    @Test
+    void testOfSorted() {
+        List<Integer> keys = new ArrayList<>();
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            keys.add(i);
+            values.add("Valor" + i);
+        }
+
+        PersistentAVLTree<Integer, String> tree = PersistentAVLTree.ofSorted(keys, values);
+
+        assertBalanced(tree.getRoot());
+        assertEquals(keys, tree.getAllKeys());
+        assertEquals(Optional.of("Valor42"), tree.search(42));
+    }
+
+    @Test
+    void testSpliteratorSplitsWithExactSizes() {
+        PersistentAVLTree<Integer, Integer> tree = PersistentAVLTree.empty();
+        for (int i = 0; i < 1000; i++) {
+            tree = tree.insert(i, i);
+        }
+
+        Spliterator<Integer> right = tree.spliterator();
+        Spliterator<Integer> left = right.trySplit();
+
+        assertNotNull(left);
+        assertTrue(right.hasCharacteristics(Spliterator.SUBSIZED | Spliterator.IMMUTABLE));
+        assertEquals(1000, left.estimateSize() + right.estimateSize());
+        assertTrue(Math.abs(left.estimateSize() - right.estimateSize()) < 250);
+
+        List<Integer> all = new ArrayList<>();
+        left.forEachRemaining(all::add);
+        while (right.tryAdvance(all::add)) {
+            // recorre elemento a elemento la segunda mitad
+        }
+        assertEquals(IntStream.range(0, 1000).boxed().toList(), all);
+    }
+
+    @Test
+    void testParallelStreamKeepsOrder() {
+        PersistentAVLTree<Integer, Integer> tree = PersistentAVLTree.empty();
+        for (int i = 0; i < 5000; i++) {
+            tree = tree.insert(i, i);
+        }
+
+        List<Integer> evens = StreamSupport.stream(tree.spliterator(), true)
+                .filter(v -> v % 2 == 0)
+                .collect(Collectors.toList());
+
+        assertEquals(2500, evens.size());
+        assertEquals(IntStream.range(0, 2500).map(i -> 2 * i).boxed().toList(), evens);
+        assertEquals(5000L * 4999 / 2, StreamSupport.stream(tree.spliterator(), true).mapToLong(v -> v).sum());
+    }
+
+    @Test
+    void testSearchAll() {
+        PersistentAVLTree<Integer, String> tree = PersistentAVLTree.empty();
+        for (int i = 0; i < 100; i += 3) {
+            tree = tree.insert(i, "Valor" + i);
+        }
+
+        List<String> found = tree.searchAll(List.of(-1, 0, 3, 3, 4, 50, 51, 99, 200));
+
+        assertEquals(Arrays.asList(null, "Valor0", "Valor3", "Valor3", null, null, "Valor51", "Valor99", null), found);
+    }
+
+    private int assertBalanced(AVLNode<Integer, String> node) {
+        if (node == null) return 0;
+        int left = assertBalanced(node.getLeft());
+        int right = assertBalanced(node.getRight());
+        assertTrue(Math.abs(left - right) <= 1, "Nodo desbalanceado: " + node.getKey());
+        assertEquals(1 + Math.max(left, right), node.getHeight());
+        return node.getHeight();
+    }
+}